@@ -10,12 +10,16 @@ import org.postgresql.fastpath.Fastpath;
 import org.postgresql.jdbc.AutoSave;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.largeobject.LargeObjectManager;
+import org.postgresql.monitoring.StatementStatistics;
+import org.postgresql.monitoring.StatementStatisticsCollector;
+import org.postgresql.reactive.RowPublisher;
 import org.postgresql.replication.PGReplicationConnection;
 import org.postgresql.util.PGobject;
 
 import java.sql.Array;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 /**
  * This interface defines the public PostgreSQL extensions to java.sql.Connection. All Connections
@@ -236,4 +240,27 @@ public interface PGConnection {
    * @return replication API for the current connection
    */
   PGReplicationConnection getReplicationAPI();
+
+  /**
+   * Returns the statistics of the statements executed by the connections of this JVM that have
+   * {@link PGProperty#COLLECT_STATEMENT_STATISTICS} set, by decreasing total time. The statistics
+   * are global: every connection returns the same statistics, which are not limited to the
+   * statements of this connection.
+   *
+   * @return the statistics, aggregated by statement fingerprint
+   * @see StatementStatisticsCollector
+   */
+  List<StatementStatistics> getStatementStatistics();
+
+  /**
+   * Creates a publisher of the rows of a query, which fetches them as the subscriber requests
+   * them. On Java 9 and later, {@code org.postgresql.flow.FlowPublishers#toFlowPublisher} adapts
+   * it to a {@code java.util.concurrent.Flow.Publisher}.
+   *
+   * @param sql the query, with {@code ?} placeholders
+   * @param parameters the parameters of the query
+   * @return a publisher executing the query on this connection for every subscriber
+   * @throws SQLException if the connection is closed
+   */
+  RowPublisher createRowPublisher(String sql, Object... parameters) throws SQLException;
 }
@@ -121,6 +121,19 @@ public enum PGProperty {
   DEFAULT_ROW_FETCH_SIZE("defaultRowFetchSize", "0",
       "Positive number of rows that should be fetched from the database when more rows are needed for ResultSet by each fetch iteration"),
 
+  /**
+   * <p>Percentage of the rows of a fetch size result set read by the application after which the
+   * next rows are requested, so that they travel while the application processes the current rows.
+   * The response is read at the end of the current rows, or before anything else is executed on
+   * the connection.</p>
+   *
+   * <p>A value of {@code 0} disables prefetching: the next rows are requested once the current
+   * ones are exhausted.</p>
+   */
+  PREFETCH_THRESHOLD("prefetchThreshold", "0",
+      "Percentage of the rows fetched by a fetch size ResultSet read before the next rows are "
+          + "requested. A value of 0 disables prefetching"),
+
   /**
    * Use binary format for sending and receiving data if possible.
    */
@@ -137,6 +150,31 @@ public enum PGProperty {
    */
   STRICT("strict", "false", "Force driver to be compliant with the JDBC specification. Crate specific"),
 
+  /**
+   * <p>Base result sets with a fetch size on a named portal in auto-commit mode as well. CrateDB
+   * keeps portals open across {@code Sync} until they are closed, so the rows can be fetched in
+   * chunks without a transaction. Crate specific.</p>
+   *
+   * <p>By default, as with PostgreSQL, the fetch size is ignored in auto-commit mode and all rows
+   * are read at once.</p>
+   */
+  AUTO_COMMIT_STREAMING("autoCommitStreaming", "false",
+      "Fetch the rows of result sets with a fetch size in chunks in auto-commit mode as well. "
+          + "Crate specific"),
+
+  /**
+   * <p>Base {@code TYPE_SCROLL_INSENSITIVE}, {@code CONCUR_READ_ONLY} result sets with a fetch size
+   * on a server side {@code SCROLL CURSOR WITH HOLD}. The result set keeps a window of fetch size
+   * rows, and moving outside of it fetches the rows around the new position with {@code FETCH
+   * ABSOLUTE}, so that the memory used does not depend on the size of the result. The cursor is
+   * closed with the result set or its statement, otherwise it stays open until the connection is
+   * closed.</p>
+   *
+   * <p>By default such result sets read and keep all their rows.</p>
+   */
+  SERVER_SCROLLABLE_CURSORS("serverScrollableCursors", "false",
+      "Base scrollable read-only result sets with a fetch size on a server side scroll cursor"),
+
   /**
    * Comma separated list of types to enable binary transfer. Either OID numbers or names
    */
@@ -316,6 +354,16 @@ public enum PGProperty {
    */
   APPLICATION_NAME("ApplicationName", DriverInfo.DRIVER_NAME, "Name of the Application (backend >= 9.0)"),
 
+  /**
+   * <p>Send {@code extra_float_digits} and {@code application_name} as StartupMessage parameters
+   * even if {@link #ASSUME_MIN_SERVER_VERSION} is lower than 9.0, and pipeline any remaining setup
+   * statements so that connection startup needs a single round trip after authentication.</p>
+   *
+   * <p>CrateDB accepts these parameters in the StartupMessage regardless of the version it reports.</p>
+   */
+  FAST_STARTUP("fastStartup", "false",
+      "Send session settings in the StartupMessage and pipeline remaining setup statements"),
+
   /**
    * Flag to enable/disable obtaining a GSS credential via JAAS login before authenticating.
    * Useful if setting system property javax.security.auth.useSubjectCredsOnly=false
@@ -380,6 +428,101 @@ public enum PGProperty {
   HOST_RECHECK_SECONDS("hostRecheckSeconds", "10",
       "Specifies period (seconds) after which the host status is checked again in case it has changed"),
 
+  /**
+   * <p>Specifies how hosts are chosen when {@link #LOAD_BALANCE_HOSTS} is enabled: {@code random}
+   * shuffles the candidates, {@code powerOfTwoChoices} repeatedly picks the less loaded of two
+   * random candidates, based on the connect latency, query latency and error rate recorded for
+   * each host.</p>
+   *
+   * <p>Query latencies are only recorded by connections that use {@code powerOfTwoChoices}.</p>
+   */
+  LOAD_BALANCE_STRATEGY("loadBalanceStrategy", "random",
+      "Specifies how hosts are chosen when loadBalanceHosts is enabled: random shuffles the candidates, "
+          + "powerOfTwoChoices prefers the less loaded of two random candidates", false,
+      "random", "powerOfTwoChoices"),
+
+  /**
+   * <p>If greater than {@code 0}, connection attempts to multiple hosts are raced: a new attempt
+   * is started every {@code parallelConnectDelay} milliseconds, or as soon as the previous one
+   * failed, and the first connection to complete startup is used. The other connections are
+   * closed.</p>
+   *
+   * <p>The default {@code 0} tries the hosts one after the other. Hosts are never raced with
+   * {@code targetServerType=preferSecondary}.</p>
+   */
+  PARALLEL_CONNECT_DELAY("parallelConnectDelay", "0",
+      "Delay (milliseconds) after which a connection attempt to the next host is started in parallel. "
+          + "A value of 0 tries the hosts one after the other"),
+
+  /**
+   * <p>If greater than {@code 0}, the nodes of the CrateDB cluster are read from {@code sys.nodes}
+   * after connecting, at most once every {@code nodeDiscoveryInterval} seconds, and new
+   * connections are spread over all the discovered nodes. The hosts of the connection URL are
+   * only used as seeds and as a fallback in case none of the discovered nodes are reachable.</p>
+   *
+   * <p>The default {@code 0} disables the discovery.</p>
+   */
+  NODE_DISCOVERY_INTERVAL("nodeDiscoveryInterval", "0",
+      "Period (seconds) after which the cluster nodes are discovered again from sys.nodes. "
+          + "A value of 0 only uses the hosts of the connection URL"),
+
+  /**
+   * <p>If greater than {@code 0}, statements executed in autocommit mode that apply to a single
+   * shard, such as primary key lookups and single row inserts, are sent to the node holding the
+   * primary shard over an additional connection to that node. The shard locations are read from
+   * {@code sys.shards} in the background at most once every {@code shardRoutingInterval}
+   * seconds.</p>
+   *
+   * <p>The default {@code 0} disables the routing.</p>
+   */
+  SHARD_ROUTING_INTERVAL("shardRoutingInterval", "0",
+      "Period (seconds) after which the shard locations are read again from sys.shards. "
+          + "A value of 0 disables shard aware routing"),
+
+  /**
+   * <p>Comma separated list of {@link org.postgresql.monitoring.QueryExecutionListener} class
+   * names. The listeners are instantiated for each connection and receive the timings, row
+   * counts and byte counts of every execution.</p>
+   */
+  QUERY_EXECUTION_LISTENER("queryExecutionListener", null,
+      "Comma separated list of QueryExecutionListener class names, notified of every execution"),
+
+  /**
+   * <p>Registers a JMX MBean for each connection, exposing the statement, field metadata and type
+   * caches, and an MBean exposing the status and latency of the known hosts. The MBeans are
+   * registered with the platform MBean server under the {@code org.postgresql} domain.</p>
+   */
+  REGISTER_MBEANS("registerMbeans", "false",
+      "Registers JMX MBeans exposing the caches of the connection and the status of the hosts"),
+
+  /**
+   * <p>Aggregates the executions of the connection into per JVM statistics, by statement
+   * fingerprint. They are read with {@link PGConnection#getStatementStatistics()}.</p>
+   *
+   * @see org.postgresql.monitoring.StatementStatisticsCollector
+   */
+  COLLECT_STATEMENT_STATISTICS("collectStatementStatistics", "false",
+      "Aggregates the executions into per JVM statistics by statement fingerprint"),
+
+  /**
+   * <p>If greater than {@code 0}, the statements with the highest total time are logged at
+   * {@code INFO} level every {@code statementStatisticsDumpInterval} seconds. Requires
+   * {@link #COLLECT_STATEMENT_STATISTICS}.</p>
+   */
+  STATEMENT_STATISTICS_DUMP_INTERVAL("statementStatisticsDumpInterval", "0",
+      "Period (seconds) after which the statement statistics are logged. "
+          + "A value of 0 disables the dump"),
+
+  /**
+   * <p>Directory in which the bytes sent and received by each connection are recorded, one
+   * capture file per connection. The captures can be replayed with
+   * {@code org.postgresql.replay.WireReplay}.</p>
+   *
+   * <p>Password messages are blanked, but everything else, including the data, is recorded.</p>
+   */
+  WIRE_CAPTURE_DIRECTORY("wireCaptureDirectory", null,
+      "Directory in which the protocol traffic of each connection is recorded"),
+
   /**
    * <p>Specifies which mode is used to execute queries to database: simple means ('Q' execute, no parse, no bind, text mode only),
    * extended means always use bind/execute messages, extendedForPrepared means extended for prepared statements only,
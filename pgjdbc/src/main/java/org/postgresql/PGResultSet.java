@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql;
+
+import org.postgresql.columnar.ColumnBatch;
+
+import java.sql.SQLException;
+
+/**
+ * This interface defines the public PostgreSQL extensions to java.sql.ResultSet. All ResultSets
+ * returned by the PostgreSQL driver implement PGResultSet.
+ */
+public interface PGResultSet {
+
+  /**
+   * <p>Reads the rows after the current one into column vectors, instead of one value at a time.
+   * The result set is left on the last row read, so that successive calls return successive
+   * batches; with a fetch size, the rows are fetched as needed, as by {@link java.sql.ResultSet#next()}.</p>
+   *
+   * <p>Integer, floating point and boolean columns are decoded into primitive arrays, text columns
+   * into dictionary codes, and the other columns with {@link java.sql.ResultSet#getObject(int)}.</p>
+   *
+   * @param maxRows the maximum number of rows of the batch
+   * @return the rows, none once the result set is exhausted
+   * @throws SQLException if the result set is closed, maxRows is not positive or a value cannot
+   *         be decoded
+   */
+  ColumnBatch readColumns(int maxRows) throws SQLException;
+
+  /**
+   * <p>Creates a mapper of the rows of this result set to objects of a class. The way each column
+   * is decoded and stored is worked out once, from the type and format of the column and the
+   * target property, so that mapping a row involves no reflection and no lookup of columns by
+   * name.</p>
+   *
+   * <p>Classes with a no-argument constructor are filled through setters or fields named after
+   * the columns, compared case insensitively and ignoring underscores; the columns without a
+   * property are ignored. Records are created with their canonical constructor, and other classes
+   * with the constructor that takes one argument per column, in the order of the columns.</p>
+   *
+   * @param type the class of the objects
+   * @param <T> the class of the objects
+   * @return the mapper, valid as long as this result set is open
+   * @throws SQLException if the result set is closed or the class cannot be mapped
+   */
+  <T> RowMapper<T> map(Class<T> type) throws SQLException;
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql;
+
+import java.sql.SQLException;
+
+/**
+ * Maps the rows of a result set to objects of a class.
+ *
+ * @param <T> the class of the objects
+ * @see PGResultSet#map(Class)
+ */
+public interface RowMapper<T> {
+
+  /**
+   * Maps the current row of the result set the mapper was created for.
+   *
+   * @return a new object holding the values of the row
+   * @throws SQLException if the result set is not on a row, or a value cannot be converted
+   */
+  T mapRow() throws SQLException;
+}
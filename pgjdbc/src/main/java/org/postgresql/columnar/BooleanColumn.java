@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.sql.SQLException;
+
+/**
+ * Values of a {@code bool} column.
+ */
+public final class BooleanColumn extends Column {
+  private final boolean[] values;
+  private final boolean binary;
+
+  BooleanColumn(String label, int oid, int capacity, boolean binary) {
+    super(label, oid, capacity);
+    this.values = new boolean[capacity];
+    this.binary = binary;
+  }
+
+  /**
+   * @return the values, of which the first {@link #getRowCount()} are set
+   */
+  public boolean[] getValues() {
+    return values;
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return the value of the row, false if it is null
+   */
+  public boolean getBoolean(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  @Override
+  void set(int row, byte[] value) throws SQLException {
+    if (binary) {
+      values[row] = value.length == 1 && value[0] == 1;
+      return;
+    }
+    // the server sends t and f, other spellings are only accepted in input
+    if (value.length == 1 && (value[0] == 't' || value[0] == 'f')) {
+      values[row] = value[0] == 't';
+      return;
+    }
+    String text = new String(value, US_ASCII).trim();
+    if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+      values[row] = true;
+    } else if (!"false".equalsIgnoreCase(text) && !"0".equals(text)) {
+      throw new PSQLException(GT.tr("Cannot cast to boolean: \"{0}\"", text),
+          PSQLState.CANNOT_COERCE);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+
+/**
+ * The values of one column of a {@link ColumnBatch}. The subclasses hold the values in arrays of
+ * the batch capacity, of which the first {@link #getRowCount()} entries are set. Null values are
+ * marked in a bitmap, and left as the default value of the array.
+ */
+public abstract class Column {
+  static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+  private final String label;
+  private final int oid;
+  private final long[] nulls;
+  private int rowCount;
+  private boolean hasNulls;
+
+  Column(String label, int oid, int capacity) {
+    this.label = label;
+    this.oid = oid;
+    this.nulls = new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * @return the label of the column
+   */
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * @return the type OID of the column
+   */
+  public int getOid() {
+    return oid;
+  }
+
+  /**
+   * @return the number of values
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return whether the value of the row is null
+   */
+  public boolean isNull(int row) {
+    checkRow(row);
+    return (nulls[row >>> 6] & (1L << row)) != 0;
+  }
+
+  /**
+   * @return whether any value is null
+   */
+  public boolean hasNulls() {
+    return hasNulls;
+  }
+
+  /**
+   * @return the null bitmap, bit {@code row % 64} of word {@code row / 64} being set for null
+   *         values
+   */
+  public long[] getNulls() {
+    return nulls;
+  }
+
+  void append(byte[] value) throws SQLException {
+    if (value == null) {
+      nulls[rowCount >>> 6] |= 1L << rowCount;
+      hasNulls = true;
+    } else {
+      set(rowCount, value);
+    }
+    rowCount++;
+  }
+
+  /**
+   * Decodes a non-null value in the wire format of the column.
+   */
+  abstract void set(int row, byte[] value) throws SQLException;
+
+  void checkRow(int row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+    }
+  }
+
+  static PSQLException badValue(String type, byte[] value) {
+    return new PSQLException(GT.tr("Bad value for type {0} : {1}", type,
+        new String(value, US_ASCII)), PSQLState.NUMERIC_VALUE_OUT_OF_RANGE);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+/**
+ * Consecutive rows of a result, stored by column. {@link LongColumn}, {@link DoubleColumn},
+ * {@link BooleanColumn} and {@link StringColumn} hold integer, floating point, boolean and text
+ * columns; {@link ObjectColumn} holds the others.
+ *
+ * @see org.postgresql.PGResultSet#readColumns(int)
+ */
+public final class ColumnBatch {
+  private final Column[] columns;
+  private final int rowCount;
+
+  ColumnBatch(Column[] columns, int rowCount) {
+    this.columns = columns;
+    this.rowCount = rowCount;
+  }
+
+  /**
+   * @return the number of rows, 0 once the result is exhausted
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * @param column the 1-based column
+   * @return the values of the column
+   */
+  public Column getColumn(int column) {
+    if (column < 1 || column > columns.length) {
+      throw new IndexOutOfBoundsException("Column " + column + " of " + columns.length);
+    }
+    return columns[column - 1];
+  }
+
+  /**
+   * @param label the label of the column, compared case insensitively
+   * @return the values of the first column with this label
+   */
+  public Column getColumn(String label) {
+    for (Column column : columns) {
+      if (column.getLabel().equalsIgnoreCase(label)) {
+        return column;
+      }
+    }
+    throw new IllegalArgumentException("No column labelled " + label);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.core.Field;
+import org.postgresql.core.Oid;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Decodes the rows of a result into {@link ColumnBatch}es. The column type is chosen once from
+ * the fields, so that the values are decoded straight from the wire format of their type.
+ * Used by {@link org.postgresql.PGResultSet#readColumns(int)}.
+ */
+public class ColumnBatchReader {
+  private final ResultSet resultSet;
+  private final Field[] fields;
+  private final Encoding encoding;
+  private Column[] columns;
+  private int rowCount;
+
+  /**
+   * @param resultSet the result set, used for the columns of types without a dedicated column
+   * @param fields the fields of the result
+   * @param encoding the encoding of text values
+   */
+  public ColumnBatchReader(ResultSet resultSet, Field[] fields, Encoding encoding) {
+    this.resultSet = resultSet;
+    this.fields = fields;
+    this.encoding = encoding;
+  }
+
+  /**
+   * Starts a batch.
+   *
+   * @param capacity the maximum number of rows of the batch
+   */
+  public void start(int capacity) {
+    columns = new Column[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      columns[i] = newColumn(i, capacity);
+    }
+    rowCount = 0;
+  }
+
+  /**
+   * Adds the current row of the result set to the batch.
+   *
+   * @param row the values of the row in their wire format, null for null values
+   * @throws SQLException if a value cannot be decoded
+   */
+  public void append(byte[][] row) throws SQLException {
+    for (int i = 0; i < columns.length; i++) {
+      columns[i].append(row[i]);
+    }
+    rowCount++;
+  }
+
+  /**
+   * @return the rows added since {@link #start(int)}
+   */
+  public ColumnBatch finish() {
+    ColumnBatch batch = new ColumnBatch(columns, rowCount);
+    columns = null;
+    return batch;
+  }
+
+  private Column newColumn(int index, int capacity) {
+    Field field = fields[index];
+    String label = field.getColumnLabel();
+    int oid = field.getOID();
+    boolean binary = field.getFormat() == Field.BINARY_FORMAT;
+    switch (oid) {
+      case Oid.INT2:
+        return new LongColumn(label, oid, capacity, 2, binary);
+      case Oid.INT4:
+        return new LongColumn(label, oid, capacity, 4, binary);
+      case Oid.INT8:
+        return new LongColumn(label, oid, capacity, 8, binary);
+      case Oid.FLOAT4:
+        return new DoubleColumn(label, oid, capacity, true, binary);
+      case Oid.FLOAT8:
+        return new DoubleColumn(label, oid, capacity, false, binary);
+      case Oid.BOOL:
+        return new BooleanColumn(label, oid, capacity, binary);
+      case Oid.TEXT:
+      case Oid.VARCHAR:
+      case Oid.BPCHAR:
+      case Oid.NAME:
+        // text types have the same binary and text format
+        return new StringColumn(label, oid, capacity, encoding);
+      default:
+        return new ObjectColumn(label, oid, capacity, resultSet, index + 1);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.NumberParser;
+
+import java.sql.SQLException;
+
+/**
+ * Values of a {@code float4} or {@code float8} column.
+ */
+public final class DoubleColumn extends Column {
+  private final double[] values;
+  private final boolean float4;
+  private final boolean binary;
+
+  DoubleColumn(String label, int oid, int capacity, boolean float4, boolean binary) {
+    super(label, oid, capacity);
+    this.values = new double[capacity];
+    this.float4 = float4;
+    this.binary = binary;
+  }
+
+  /**
+   * @return the values, of which the first {@link #getRowCount()} are set
+   */
+  public double[] getValues() {
+    return values;
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return the value of the row, 0 if it is null
+   */
+  public double getDouble(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  @Override
+  void set(int row, byte[] value) throws SQLException {
+    if (binary) {
+      values[row] = float4 ? ByteConverter.float4(value, 0) : ByteConverter.float8(value, 0);
+      return;
+    }
+    try {
+      values[row] = NumberParser.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw badValue("double", value);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.NumberParser;
+
+import java.sql.SQLException;
+
+/**
+ * Values of an {@code int2}, {@code int4} or {@code int8} column.
+ */
+public final class LongColumn extends Column {
+  private final long[] values;
+  private final int size;
+  private final boolean binary;
+
+  /**
+   * @param size the size of the binary values, 2, 4 or 8 bytes
+   */
+  LongColumn(String label, int oid, int capacity, int size, boolean binary) {
+    super(label, oid, capacity);
+    this.values = new long[capacity];
+    this.size = size;
+    this.binary = binary;
+  }
+
+  /**
+   * @return the values, of which the first {@link #getRowCount()} are set
+   */
+  public long[] getValues() {
+    return values;
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return the value of the row, 0 if it is null
+   */
+  public long getLong(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  @Override
+  void set(int row, byte[] value) throws SQLException {
+    if (!binary) {
+      try {
+        values[row] = NumberParser.parseLong(value);
+      } catch (NumberFormatException e) {
+        throw badValue("long", value);
+      }
+    } else if (size == 8) {
+      values[row] = ByteConverter.int8(value, 0);
+    } else if (size == 4) {
+      values[row] = ByteConverter.int4(value, 0);
+    } else {
+      values[row] = ByteConverter.int2(value, 0);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Values of a column of any other type, as returned by {@link ResultSet#getObject(int)}.
+ */
+public final class ObjectColumn extends Column {
+  private final Object[] values;
+  private final ResultSet resultSet;
+  private final int column;
+
+  /**
+   * @param column the 1-based column in the result set, positioned on the row being appended
+   */
+  ObjectColumn(String label, int oid, int capacity, ResultSet resultSet, int column) {
+    super(label, oid, capacity);
+    this.values = new Object[capacity];
+    this.resultSet = resultSet;
+    this.column = column;
+  }
+
+  /**
+   * @return the values, of which the first {@link #getRowCount()} are set
+   */
+  public Object[] getValues() {
+    return values;
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return the value of the row, or null
+   */
+  public Object getObject(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  @Override
+  void set(int row, byte[] value) throws SQLException {
+    values[row] = resultSet.getObject(column);
+  }
+}
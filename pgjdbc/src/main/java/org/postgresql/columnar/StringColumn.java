@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dictionary encoded values of a text column: every row holds the code of its value in
+ * {@link #getDictionary()}. Each distinct value is decoded once per batch; repeated values are
+ * recognized by their bytes.
+ */
+public final class StringColumn extends Column {
+  private final int[] codes;
+  private final Encoding encoding;
+  private final List<String> dictionary = new ArrayList<String>();
+  private final List<byte[]> dictionaryBytes = new ArrayList<byte[]>();
+  private int[] hashes = new int[16];
+  // open addressing table of code + 1, 0 for free slots
+  private int[] slots = new int[32];
+
+  StringColumn(String label, int oid, int capacity, Encoding encoding) {
+    super(label, oid, capacity);
+    this.codes = new int[capacity];
+    this.encoding = encoding;
+  }
+
+  /**
+   * @return the codes of the values, of which the first {@link #getRowCount()} are set, -1 for
+   *         null values
+   */
+  public int[] getCodes() {
+    return codes;
+  }
+
+  /**
+   * @return the distinct values, indexed by code
+   */
+  public String[] getDictionary() {
+    return dictionary.toArray(new String[0]);
+  }
+
+  /**
+   * @param row the 0-based row in the batch
+   * @return the value of the row, or null
+   */
+  public String getString(int row) {
+    checkRow(row);
+    int code = codes[row];
+    return code < 0 ? null : dictionary.get(code);
+  }
+
+  @Override
+  void append(byte[] value) throws SQLException {
+    if (value == null) {
+      codes[getRowCount()] = -1;
+    }
+    super.append(value);
+  }
+
+  @Override
+  void set(int row, byte[] value) throws SQLException {
+    int hash = Arrays.hashCode(value);
+    hash ^= hash >>> 16;
+    int mask = slots.length - 1;
+    int i = hash & mask;
+    while (slots[i] != 0) {
+      int code = slots[i] - 1;
+      if (hashes[code] == hash && Arrays.equals(dictionaryBytes.get(code), value)) {
+        codes[row] = code;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    int code = dictionary.size();
+    try {
+      dictionary.add(encoding.decode(value));
+    } catch (IOException ioe) {
+      throw new PSQLException(
+          GT.tr(
+              "Invalid character data was found.  This is most likely caused by stored data containing characters that are invalid for the character set the database was created in.  The most common example of this is storing 8bit data in a SQL_ASCII database."),
+          PSQLState.DATA_ERROR, ioe);
+    }
+    dictionaryBytes.add(value);
+    if (code == hashes.length) {
+      hashes = Arrays.copyOf(hashes, code * 2);
+    }
+    hashes[code] = hash;
+    slots[i] = code + 1;
+    codes[row] = code;
+    if (dictionary.size() * 2 > slots.length) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    int mask = slots.length - 1;
+    for (int code = 0; code < dictionary.size(); code++) {
+      int i = hashes[code] & mask;
+      while (slots[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      slots[i] = code + 1;
+    }
+  }
+}
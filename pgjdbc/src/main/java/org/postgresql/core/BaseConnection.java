@@ -8,6 +8,7 @@ package org.postgresql.core;
 import org.postgresql.PGConnection;
 import org.postgresql.jdbc.FieldMetadata;
 import org.postgresql.jdbc.TimestampUtils;
+import org.postgresql.routing.ShardRouter;
 import org.postgresql.util.LruCache;
 
 import java.sql.Connection;
@@ -55,6 +56,13 @@ public interface BaseConnection extends PGConnection, Connection {
    */
   QueryExecutor getQueryExecutor();
 
+  /**
+   * Get the router of single shard statements for this connection.
+   *
+   * @return the router or null if shard aware routing is disabled
+   */
+  ShardRouter getShardRouter();
+
   /**
    * Internal protocol for work with physical and logical replication. Physical replication available
    * only since PostgreSQL version 9.1. Logical replication available only since PostgreSQL version 9.4.
@@ -169,6 +177,26 @@ public interface BaseConnection extends PGConnection, Connection {
    */
   boolean isColumnSanitiserDisabled();
 
+  /**
+   * @return true if result sets with a fetch size are based on a portal in auto-commit mode too
+   * @see org.postgresql.PGProperty#AUTO_COMMIT_STREAMING
+   */
+  boolean isAutoCommitStreaming();
+
+  /**
+   * @return true if scrollable read-only result sets with a fetch size are based on a server side
+   *     scroll cursor
+   * @see org.postgresql.PGProperty#SERVER_SCROLLABLE_CURSORS
+   */
+  boolean isServerScrollableCursors();
+
+  /**
+   * @return percentage of the rows of a fetch size result set read before the next rows are
+   *     requested, 0 if prefetching is disabled
+   * @see org.postgresql.PGProperty#PREFETCH_THRESHOLD
+   */
+  int getPrefetchThreshold();
+
   /**
    * Schedule a TimerTask for later execution. The task will be scheduled with the shared Timer for
    * this connection.
@@ -13,6 +13,7 @@ import org.postgresql.util.PSQLState;
 import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
@@ -47,6 +48,11 @@ public class PGStream implements Closeable, Flushable {
   private Encoding encoding;
   private Writer encodingWriter;
 
+  private long bytesSent;
+  private long bytesReceived;
+
+  private WireCapture capture;
+
   /**
    * Constructor: Connect to the PostgreSQL back end and return a stream connection.
    *
@@ -140,15 +146,52 @@ public class PGStream implements Closeable, Flushable {
     // really need to.
     connection.setTcpNoDelay(true);
 
+    // counted below the buffers, which costs an addition per read from or write to the socket
+    InputStream socketInput = new CountingInputStream(connection.getInputStream());
+    OutputStream socketOutput = new CountingOutputStream(connection.getOutputStream());
+    if (capture != null) {
+      socketInput = new CapturingInputStream(socketInput);
+      socketOutput = new CapturingOutputStream(socketOutput);
+    }
+
     // Buffer sizes submitted by Sverre H Huseby <sverrehu@online.no>
-    pg_input = new VisibleBufferedInputStream(connection.getInputStream(), 8192);
-    pg_output = new BufferedOutputStream(connection.getOutputStream(), 8192);
+    pg_input = new VisibleBufferedInputStream(socketInput, 8192);
+    pg_output = new BufferedOutputStream(socketOutput, 8192);
 
     if (encoding != null) {
       setEncoding(encoding);
     }
   }
 
+  /**
+   * @return number of bytes written to the socket
+   */
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * @return number of bytes read from the socket
+   */
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  /**
+   * Starts recording the bytes sent and received through this stream. This must be called before
+   * anything is received, as the input buffer is replaced. The capture is closed with this
+   * stream.
+   *
+   * @param capture the capture to record to
+   * @throws IOException if something goes wrong
+   */
+  public void enableCapture(WireCapture capture) throws IOException {
+    if (this.capture == null) {
+      this.capture = capture;
+      changeSocket(connection);
+    }
+  }
+
   public Encoding getEncoding() {
     return encoding;
   }
@@ -553,9 +596,15 @@ public class PGStream implements Closeable, Flushable {
       encodingWriter.close();
     }
 
-    pg_output.close();
-    pg_input.close();
-    connection.close();
+    try {
+      pg_output.close();
+      pg_input.close();
+      connection.close();
+    } finally {
+      if (capture != null) {
+        capture.close();
+      }
+    }
   }
 
   public void setNetworkTimeout(int milliseconds) throws IOException {
@@ -565,4 +614,116 @@ public class PGStream implements Closeable, Flushable {
   public int getNetworkTimeout() throws IOException {
     return connection.getSoTimeout();
   }
+
+  private class CountingInputStream extends FilterInputStream {
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b >= 0) {
+        bytesReceived++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        bytesReceived += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = in.skip(n);
+      bytesReceived += skipped;
+      return skipped;
+    }
+  }
+
+  private class CountingOutputStream extends FilterOutputStream {
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      bytesSent++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      bytesSent += len;
+    }
+  }
+
+  private class CapturingInputStream extends FilterInputStream {
+    // the capture copies the bytes it records, so the buffers are reused
+    private final byte[] oneByte = new byte[1];
+    private byte[] skipBuffer;
+
+    CapturingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b >= 0) {
+        oneByte[0] = (byte) b;
+        capture.backend(oneByte, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        capture.backend(b, off, read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // skipped bytes are read so that they are recorded
+      if (n <= 0) {
+        return 0;
+      }
+      if (skipBuffer == null) {
+        skipBuffer = new byte[8192];
+      }
+      int read = read(skipBuffer, 0, (int) Math.min(n, skipBuffer.length));
+      return Math.max(read, 0);
+    }
+  }
+
+  private class CapturingOutputStream extends FilterOutputStream {
+    private final byte[] oneByte = new byte[1];
+
+    CapturingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      oneByte[0] = (byte) b;
+      capture.frontend(oneByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      capture.frontend(b, off, len);
+    }
+  }
 }
@@ -384,6 +384,132 @@ public class Parser {
     return res;
   }
 
+  /**
+   * <p>Normalizes a statement so that executions differing only by their literals or parameters
+   * share the same fingerprint: string, dollar-quoted and numeric literals as well as {@code ?}
+   * and {@code $n} placeholders are replaced by {@code ?}, comments are removed and whitespace is
+   * collapsed. Identifiers and keywords are kept as they are.</p>
+   *
+   * @param query                     JDBC or native SQL
+   * @param standardConformingStrings whether backslashes are escape characters in single quote
+   *                                  literals
+   * @return the fingerprint of the statement
+   */
+  public static String fingerprint(String query, boolean standardConformingStrings) {
+    char[] aChars = query.toCharArray();
+    StringBuilder fingerprint = new StringBuilder(aChars.length);
+    boolean pendingSpace = false;
+    for (int i = 0; i < aChars.length; ++i) {
+      char aChar = aChars[i];
+      int end = i;
+      if (isSpace(aChar)) {
+        pendingSpace = true;
+        continue;
+      }
+      switch (aChar) {
+        case '-':
+          end = parseLineComment(aChars, i);
+          break;
+        case '/':
+          end = parseBlockComment(aChars, i);
+          break;
+        default:
+          break;
+      }
+      if (end != i) {
+        i = end;
+        pendingSpace = true;
+        continue;
+      }
+
+      if (pendingSpace && fingerprint.length() > 0) {
+        fingerprint.append(' ');
+      }
+      pendingSpace = false;
+      boolean startsToken = i == 0 || !isIdentifierContChar(aChars[i - 1]);
+      switch (aChar) {
+        case '\'':
+          // the E of an E'' escape string is part of the literal
+          int length = fingerprint.length();
+          if (length > 0 && (fingerprint.charAt(length - 1) | 32) == 'e'
+              && (length == 1 || charTerminatesIdentifier(fingerprint.charAt(length - 2)))) {
+            fingerprint.setLength(length - 1);
+          }
+          i = parseSingleQuotes(aChars, i, standardConformingStrings);
+          // a doubled quote continues the literal
+          while (i + 1 < aChars.length && aChars[i + 1] == '\'') {
+            i = parseSingleQuotes(aChars, i + 1, standardConformingStrings);
+          }
+          fingerprint.append('?');
+          break;
+        case '"':
+          end = parseDoubleQuotes(aChars, i);
+          fingerprint.append(aChars, i, Math.min(end + 1, aChars.length) - i);
+          i = end;
+          break;
+        case '$':
+          if (startsToken && i + 1 < aChars.length && Character.isDigit(aChars[i + 1])) {
+            i = skipDigits(aChars, i + 1) - 1;
+            fingerprint.append('?');
+          } else {
+            end = parseDollarQuotes(aChars, i);
+            if (end != i) {
+              i = end;
+              fingerprint.append('?');
+            } else {
+              fingerprint.append(aChar);
+            }
+          }
+          break;
+        case '.':
+          if (startsToken && i + 1 < aChars.length && Character.isDigit(aChars[i + 1])) {
+            i = skipNumber(aChars, i) - 1;
+            fingerprint.append('?');
+          } else {
+            fingerprint.append(aChar);
+          }
+          break;
+        default:
+          if (startsToken && Character.isDigit(aChar)) {
+            i = skipNumber(aChars, i) - 1;
+            fingerprint.append('?');
+          } else {
+            fingerprint.append(aChar);
+          }
+          break;
+      }
+    }
+    return fingerprint.toString();
+  }
+
+  private static int skipDigits(char[] query, int offset) {
+    while (offset < query.length && Character.isDigit(query[offset])) {
+      ++offset;
+    }
+    return offset;
+  }
+
+  /**
+   * Returns the position after the numeric literal starting at the given offset, such as
+   * {@code 42}, {@code 1.5}, {@code .5} or {@code 1e-3}.
+   */
+  private static int skipNumber(char[] query, int offset) {
+    offset = skipDigits(query, offset);
+    if (offset < query.length && query[offset] == '.') {
+      offset = skipDigits(query, offset + 1);
+    }
+    if (offset + 1 < query.length && (query[offset] | 32) == 'e') {
+      int exponent = offset + 1;
+      if (query[exponent] == '+' || query[exponent] == '-') {
+        ++exponent;
+      }
+      if (exponent < query.length && Character.isDigit(query[exponent])) {
+        offset = skipDigits(query, exponent);
+      }
+    }
+    return offset;
+  }
+
   /**
    * <p>Find the end of the single-quoted string starting at the given offset.</p>
    *
@@ -70,11 +70,13 @@ public interface Query {
   int getBatchSize();
 
   /**
-   * Get a map that a result set can use to find the index associated to a name.
+   * Get a map that a result set can use to find the index associated to a name. The map is shared
+   * by the results of this query with the same column labels.
    *
+   * @param fields the fields of the result set
    * @return null if the query implementation does not support this method.
    */
-  Map<String, Integer> getResultSetColumnNameIndexMap();
+  Map<String, Integer> getResultSetColumnNameIndexMap(Field[] fields);
 
   /**
    * Return a list of the Query objects that make up this query. If this object is already a
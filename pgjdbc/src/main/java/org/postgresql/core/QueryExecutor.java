@@ -13,6 +13,7 @@ import org.postgresql.jdbc.AutoSave;
 import org.postgresql.jdbc.BatchResultHandler;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.util.HostSpec;
+import org.postgresql.util.LruCache;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -166,6 +167,30 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
    */
   void fetch(ResultCursor cursor, ResultHandler handler, int fetchSize) throws SQLException;
 
+  /**
+   * <p>Requests additional rows from a cursor without waiting for them. The response is read into
+   * the handler by {@link #completePrefetch()}, or before anything else is sent to or received from
+   * the backend. In the latter case the handler is completed within an unrelated operation, so it
+   * must keep any error for its owner instead of throwing it from
+   * {@link ResultHandler#handleCompletion()}.</p>
+   *
+   * <p>At most one prefetch is pending: a new one first completes the previous one.</p>
+   *
+   * @param cursor the cursor to fetch from
+   * @param handler the handler to feed results to
+   * @param fetchSize the preferred number of rows to retrieve before suspending
+   * @throws SQLException if the previous prefetch cannot be completed
+   */
+  void prefetch(ResultCursor cursor, ResultHandler handler, int fetchSize) throws SQLException;
+
+  /**
+   * Reads the response of the pending {@link #prefetch prefetch}, if any, into its handler.
+   *
+   * @throws SQLException if the connection is locked by another operation and waiting is
+   *     interrupted
+   */
+  void completePrefetch() throws SQLException;
+
   /**
    * Create an unparameterized Query object suitable for execution by this QueryExecutor. The
    * provided query string is not parsed for parameter placeholders ('?' characters), and the
@@ -178,6 +203,17 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
    */
   Query createSimpleQuery(String sql) throws SQLException;
 
+  /**
+   * Creates a query that runs {@code declaration} followed by the SQL of a single SELECT query,
+   * such as {@code DECLARE c SCROLL CURSOR WITH HOLD FOR}. The parameters keep their positions, so
+   * the parameter lists of {@code query} can be used with the returned query.
+   *
+   * @param query the query the cursor is declared for
+   * @param declaration the SQL preceding the query, ending with a space
+   * @return the declaring query, or null if {@code query} is not a single SELECT statement
+   */
+  Query createCursorQuery(Query query, String declaration);
+
   boolean isReWriteBatchedInsertsEnabled();
 
   CachedQuery createQuery(String sql, boolean escapeProcessing, boolean isParameterized,
@@ -199,6 +235,19 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
 
   void releaseQuery(CachedQuery cachedQuery);
 
+  /**
+   * Returns the cache {@link #borrowQuery(String)} and {@link #releaseQuery(CachedQuery)} work
+   * with. It is exposed for monitoring.
+   *
+   * @return the statement cache of this connection
+   */
+  LruCache<Object, CachedQuery> getStatementCache();
+
+  /**
+   * @return number of statements this connection currently has prepared on the server
+   */
+  int getServerPreparedStatementCount();
+
   /**
    * Wrap given native query into a ready for execution format.
    * @param queries list of queries in native to database syntax
@@ -293,6 +293,11 @@ public abstract class QueryExecutorBase implements QueryExecutor {
     statementCache.put(cachedQuery.key, cachedQuery);
   }
 
+  @Override
+  public LruCache<Object, CachedQuery> getStatementCache() {
+    return statementCache;
+  }
+
   @Override
   public final Object createQueryKey(String sql, boolean escapeProcessing,
       boolean isParameterized, String... columnNames) {
@@ -12,6 +12,7 @@ import org.postgresql.util.PSQLState;
 
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -40,6 +41,36 @@ public class SetupQueryRunner {
 
   public static byte[][] run(QueryExecutor executor, String queryString,
       boolean wantResults) throws SQLException {
+    List<byte[][]> tuples = execute(executor, queryString, wantResults);
+
+    if (!wantResults) {
+      return null;
+    }
+
+    if (tuples == null || tuples.size() != 1) {
+      throw new PSQLException(GT.tr("An unexpected result was returned by a query."),
+          PSQLState.CONNECTION_UNABLE_TO_CONNECT);
+    }
+
+    return tuples.get(0);
+  }
+
+  /**
+   * Runs a query and returns all the rows it produced, which may be none.
+   *
+   * @param executor query executor to use
+   * @param queryString query to run
+   * @return the rows returned by the query
+   * @throws SQLException if the query fails
+   */
+  public static List<byte[][]> runForRows(QueryExecutor executor, String queryString)
+      throws SQLException {
+    List<byte[][]> tuples = execute(executor, queryString, true);
+    return tuples == null ? Collections.<byte[][]>emptyList() : tuples;
+  }
+
+  private static List<byte[][]> execute(QueryExecutor executor, String queryString,
+      boolean wantResults) throws SQLException {
     Query query = executor.createSimpleQuery(queryString);
     SimpleResultHandler handler = new SimpleResultHandler();
 
@@ -55,17 +86,7 @@ public class SetupQueryRunner {
       query.close();
     }
 
-    if (!wantResults) {
-      return null;
-    }
-
-    List<byte[][]> tuples = handler.getResults();
-    if (tuples == null || tuples.size() != 1) {
-      throw new PSQLException(GT.tr("An unexpected result was returned by a query."),
-          PSQLState.CONNECTION_UNABLE_TO_CONNECT);
-    }
-
-    return tuples.get(0);
+    return handler.getResults();
   }
 
 }
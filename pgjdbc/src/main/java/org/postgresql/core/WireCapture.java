@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import org.postgresql.util.HostSpec;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Records the bytes sent and received by a {@link PGStream}, with their timing, so that the
+ * session can be replayed by {@code org.postgresql.replay.WireReplay}.</p>
+ *
+ * <p>A capture file starts with {@link #MAGIC}, the {@link #VERSION} byte, the start time in
+ * milliseconds since the epoch and the host, written by {@link DataOutputStream}. It is followed
+ * by one record per socket read or write: {@link #FRONTEND} or {@link #BACKEND}, the microseconds
+ * elapsed since the previous record and the length as variable length integers, then the
+ * bytes.</p>
+ *
+ * <p>The content of password messages is replaced by zeroes. Failing to write the capture is
+ * logged once and stops the capture, it never fails the connection.</p>
+ */
+public final class WireCapture implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(WireCapture.class.getName());
+
+  public static final int MAGIC = 0x50475743; // "PGWC"
+  public static final int VERSION = 1;
+  public static final byte FRONTEND = 'F';
+  public static final byte BACKEND = 'B';
+
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private final File file;
+  private DataOutputStream out;
+  private long lastNanos;
+
+  // framing of the frontend messages, to blank the password messages
+  private boolean startupMessage = true;
+  private final byte[] header = new byte[5];
+  private int headerLength;
+  private int remaining;
+  private boolean password;
+
+  private WireCapture(File file, HostSpec hostSpec) throws IOException {
+    this.file = file;
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(System.currentTimeMillis());
+    out.writeUTF(hostSpec.toString());
+    lastNanos = System.nanoTime();
+  }
+
+  /**
+   * Creates a new capture file in the given directory.
+   *
+   * @param directory directory of the capture files
+   * @param hostSpec host the connection is opened to
+   * @return the capture
+   * @throws IOException if the file cannot be created
+   */
+  public static WireCapture open(File directory, HostSpec hostSpec) throws IOException {
+    File file = new File(directory,
+        "pgjdbc-" + System.currentTimeMillis() + "-" + COUNTER.incrementAndGet() + ".pgcap");
+    LOGGER.log(Level.FINE, "Recording the protocol traffic to {0} in {1}",
+        new Object[]{hostSpec, file});
+    return new WireCapture(file, hostSpec);
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  void frontend(byte[] b, int off, int len) {
+    record(FRONTEND, blankPasswords(b, off, len), off, len);
+  }
+
+  void backend(byte[] b, int off, int len) {
+    record(BACKEND, b, off, len);
+  }
+
+  private void record(byte direction, byte[] b, int off, int len) {
+    if (out == null || len <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    try {
+      out.writeByte(direction);
+      writeVarLong(out, (now - lastNanos) / 1000);
+      writeVarLong(out, len);
+      out.write(b, off, len);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to record the protocol traffic to " + file, e);
+      closeQuietly();
+    }
+    lastNanos = now;
+  }
+
+  /**
+   * Returns the bytes to record: a copy with the content of the password messages replaced by
+   * zeroes if there is any, the bytes themselves otherwise.
+   */
+  private byte[] blankPasswords(byte[] b, int off, int len) {
+    byte[] recorded = b;
+    int i = off;
+    int end = off + len;
+    while (i < end) {
+      if (remaining == 0) {
+        header[headerLength++] = b[i++];
+        int headerSize = startupMessage ? 4 : 5;
+        if (headerLength == headerSize) {
+          int offset = headerSize - 4;
+          remaining = ((header[offset] & 0xFF) << 24) | ((header[offset + 1] & 0xFF) << 16)
+              | ((header[offset + 2] & 0xFF) << 8) | (header[offset + 3] & 0xFF);
+          remaining -= 4;
+          password = !startupMessage && header[0] == 'p';
+          startupMessage = false;
+          headerLength = 0;
+        }
+        continue;
+      }
+      int n = Math.min(remaining, end - i);
+      if (password) {
+        if (recorded == b) {
+          recorded = b.clone();
+        }
+        for (int j = i; j < i + n; j++) {
+          recorded[j] = 0;
+        }
+      }
+      remaining -= n;
+      i += n;
+    }
+    return recorded;
+  }
+
+  static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private void closeQuietly() {
+    try {
+      out.close();
+    } catch (IOException ignore) {
+      // the capture is abandoned anyway
+    }
+    out = null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (out != null) {
+      DataOutputStream out = this.out;
+      this.out = null;
+      out.close();
+    }
+  }
+}
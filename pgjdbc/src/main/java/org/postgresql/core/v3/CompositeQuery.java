@@ -6,6 +6,7 @@
 
 package org.postgresql.core.v3;
 
+import org.postgresql.core.Field;
 import org.postgresql.core.ParameterList;
 import org.postgresql.core.Query;
 import org.postgresql.core.SqlCommand;
@@ -94,7 +95,7 @@ class CompositeQuery implements Query {
   }
 
   @Override
-  public Map<String, Integer> getResultSetColumnNameIndexMap() {
+  public Map<String, Integer> getResultSetColumnNameIndexMap(Field[] fields) {
     return null; // unsupported
   }
 
@@ -15,13 +15,16 @@ import org.postgresql.core.SetupQueryRunner;
 import org.postgresql.core.SocketFactoryFactory;
 import org.postgresql.core.Utils;
 import org.postgresql.core.Version;
+import org.postgresql.core.WireCapture;
 import org.postgresql.hostchooser.CandidateHost;
+import org.postgresql.hostchooser.ClusterNodeDiscovery;
 import org.postgresql.hostchooser.GlobalHostStatusTracker;
 import org.postgresql.hostchooser.HostChooser;
 import org.postgresql.hostchooser.HostChooserFactory;
 import org.postgresql.hostchooser.HostRequirement;
 import org.postgresql.hostchooser.HostStatus;
 import org.postgresql.jdbc.SslMode;
+import org.postgresql.monitoring.DriverEvents;
 import org.postgresql.sspi.ISSPIClient;
 import org.postgresql.util.GT;
 import org.postgresql.util.HostSpec;
@@ -30,10 +33,12 @@ import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
 import org.postgresql.util.ServerErrorMessage;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -93,6 +98,12 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
     // Construct and send an ssl startup packet if requested.
     newStream = enableSSL(newStream, sslMode, info, connectTimeout);
 
+    String wireCaptureDirectory = PGProperty.WIRE_CAPTURE_DIRECTORY.get(info);
+    if (wireCaptureDirectory != null) {
+      // started after the SSL negotiation, so that the capture holds the plain protocol
+      newStream.enableCapture(WireCapture.open(new File(wireCaptureDirectory), hostSpec));
+    }
+
     // Set the socket timeout if the "socketTimeout" property has been set.
     int socketTimeout = PGProperty.SOCKET_TIMEOUT.getInt(info);
     if (socketTimeout > 0) {
@@ -146,6 +157,23 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
   @Override
   public QueryExecutor openConnectionImpl(HostSpec[] hostSpecs, String user, String database,
       Properties info) throws SQLException {
+    DriverEvents driverEvents = DriverEvents.getInstance();
+    Object connectEvent = driverEvents.beginConnect();
+    QueryExecutor queryExecutor = null;
+    try {
+      queryExecutor = tryOpenConnection(hostSpecs, user, database, info);
+      return queryExecutor;
+    } finally {
+      if (connectEvent != null) {
+        driverEvents.commitConnect(connectEvent,
+            queryExecutor == null ? null : queryExecutor.getHostSpec(), database,
+            queryExecutor == null);
+      }
+    }
+  }
+
+  private QueryExecutor tryOpenConnection(HostSpec[] hostSpecs, String user, String database,
+      Properties info) throws SQLException {
     SslMode sslMode = SslMode.of(info);
 
     HostRequirement targetServerType;
@@ -162,6 +190,22 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
     HostChooser hostChooser =
         HostChooserFactory.createHostChooser(hostSpecs, targetServerType, info);
+
+    // preferSecondary relies on the order in which the hosts are tried, so it is never raced
+    int parallelConnectDelay = PGProperty.PARALLEL_CONNECT_DELAY.getInt(info);
+    if (parallelConnectDelay > 0 && hostSpecs.length > 1
+        && targetServerType != HostRequirement.preferSecondary) {
+      QueryExecutor queryExecutor = openConnectionParallel(hostChooser, user, database, info,
+          socketFactory, sslMode, parallelConnectDelay);
+      if (queryExecutor != null) {
+        discoverClusterNodes(hostSpecs, queryExecutor, info);
+        return queryExecutor;
+      }
+      throw new PSQLException(GT
+          .tr("Could not find a server with specified targetServerType: {0}", targetServerType),
+          PSQLState.CONNECTION_UNABLE_TO_CONNECT);
+    }
+
     Iterator<CandidateHost> hostIter = hostChooser.iterator();
     Map<HostSpec, HostStatus> knownStates = new HashMap<HostSpec, HostStatus>();
     while (hostIter.hasNext()) {
@@ -182,108 +226,27 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
         continue;
       }
 
-      //
-      // Establish a connection.
-      //
-
-      PGStream newStream = null;
       try {
-        try {
-          newStream = tryConnect(user, database, info, socketFactory, hostSpec, sslMode);
-        } catch (SQLException e) {
-          if (sslMode == SslMode.PREFER
-              && PSQLState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
-            // Try non-SSL connection to cover case like "non-ssl only db"
-            // Note: PREFER allows loss of encryption, so no significant harm is made
-            Throwable ex = null;
-            try {
-              newStream =
-                  tryConnect(user, database, info, socketFactory, hostSpec, SslMode.DISABLE);
-              LOGGER.log(Level.FINE, "Downgraded to non-encrypted connection for host {0}",
-                  hostSpec);
-            } catch (SQLException ee) {
-              ex = ee;
-            } catch (IOException ee) {
-              ex = ee; // Can't use multi-catch in Java 6 :(
-            }
-            if (ex != null) {
-              log(Level.FINE, "sslMode==PREFER, however non-SSL connection failed as well", ex);
-              // non-SSL failed as well, so re-throw original exception
-              //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.1"
-              // Add non-SSL exception as suppressed
-              e.addSuppressed(ex);
-              //#endif
-              throw e;
-            }
-          } else if (sslMode == SslMode.ALLOW
-              && PSQLState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
-            // Try using SSL
-            Throwable ex = null;
-            try {
-              newStream =
-                  tryConnect(user, database, info, socketFactory, hostSpec, SslMode.REQUIRE);
-              LOGGER.log(Level.FINE, "Upgraded to encrypted connection for host {0}",
-                  hostSpec);
-            } catch (SQLException ee) {
-              ex = ee;
-            } catch (IOException ee) {
-              ex = ee; // Can't use multi-catch in Java 6 :(
-            }
-            if (ex != null) {
-              log(Level.FINE, "sslMode==ALLOW, however SSL connection failed as well", ex);
-              // non-SSL failed as well, so re-throw original exception
-              //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.1"
-              // Add SSL exception as suppressed
-              e.addSuppressed(ex);
-              //#endif
-              throw e;
-            }
-
-          } else {
-            throw e;
-          }
-        }
-
-        int cancelSignalTimeout = PGProperty.CANCEL_SIGNAL_TIMEOUT.getInt(info) * 1000;
-
-        // Do final startup.
-        QueryExecutor queryExecutor = new QueryExecutorImpl(newStream, user, database,
-            cancelSignalTimeout, info);
-
-        // Check Master or Secondary
-        HostStatus hostStatus = HostStatus.ConnectOK;
-        if (candidateHost.targetServerType != HostRequirement.any) {
-          hostStatus = isMaster(queryExecutor) ? HostStatus.Master : HostStatus.Secondary;
-        }
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, hostStatus);
-        knownStates.put(hostSpec, hostStatus);
-        if (!candidateHost.targetServerType.allowConnectingTo(hostStatus)) {
-          queryExecutor.close();
+        QueryExecutor queryExecutor = openConnectionToHost(candidateHost, user, database, info,
+            socketFactory, sslMode, knownStates);
+        if (queryExecutor == null) {
           continue;
         }
 
-        runInitialQueries(queryExecutor, info);
-
         // And we're done.
+        discoverClusterNodes(hostSpecs, queryExecutor, info);
         return queryExecutor;
       } catch (ConnectException cex) {
         // Added by Peter Mount <peter@retep.org.uk>
         // ConnectException is thrown when the connection cannot be made.
         // we trap this an return a more meaningful message for the end user
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
-        knownStates.put(hostSpec, HostStatus.ConnectFail);
         if (hostIter.hasNext()) {
           log(Level.FINE, "ConnectException occurred while connecting to {0}", cex, hostSpec);
           // still more addresses to try
           continue;
         }
-        throw new PSQLException(GT.tr(
-            "Connection to {0} refused. Check that the hostname and port are correct and that the postmaster is accepting TCP/IP connections.",
-            hostSpec), PSQLState.CONNECTION_UNABLE_TO_CONNECT, cex);
+        throw connectionRefused(hostSpec, cex);
       } catch (IOException ioe) {
-        closeStream(newStream);
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
-        knownStates.put(hostSpec, HostStatus.ConnectFail);
         if (hostIter.hasNext()) {
           log(Level.FINE, "IOException occurred while connecting to {0}", ioe, hostSpec);
           // still more addresses to try
@@ -292,9 +255,6 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
         throw new PSQLException(GT.tr("The connection attempt failed."),
             PSQLState.CONNECTION_UNABLE_TO_CONNECT, ioe);
       } catch (SQLException se) {
-        closeStream(newStream);
-        GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
-        knownStates.put(hostSpec, HostStatus.ConnectFail);
         if (hostIter.hasNext()) {
           log(Level.FINE, "SQLException occurred while connecting to {0}", se, hostSpec);
           // still more addresses to try
@@ -308,6 +268,175 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
         PSQLState.CONNECTION_UNABLE_TO_CONNECT);
   }
 
+  /**
+   * Refreshes the cluster nodes through the new connection if the discovery is enabled and the
+   * previously discovered nodes are older than {@code nodeDiscoveryInterval}.
+   */
+  private void discoverClusterNodes(HostSpec[] hostSpecs, QueryExecutor queryExecutor,
+      Properties info) throws SQLException {
+    int nodeDiscoveryInterval = PGProperty.NODE_DISCOVERY_INTERVAL.getInt(info);
+    if (nodeDiscoveryInterval > 0) {
+      ClusterNodeDiscovery.refreshIfStale(hostSpecs, queryExecutor,
+          nodeDiscoveryInterval * 1000L);
+    }
+  }
+
+  /**
+   * Races connection attempts to the candidate hosts, starting a new attempt every
+   * {@code parallelConnectDelay} milliseconds or as soon as the previous one fails. The first
+   * attempt that completes startup wins, the others are closed once they complete.
+   */
+  private QueryExecutor openConnectionParallel(HostChooser hostChooser, final String user,
+      final String database, final Properties info, final SocketFactory socketFactory,
+      final SslMode sslMode, int parallelConnectDelay) throws SQLException {
+    List<CandidateHost> candidates = new ArrayList<CandidateHost>();
+    for (CandidateHost candidateHost : hostChooser) {
+      candidates.add(candidateHost);
+    }
+    final Map<HostSpec, HostStatus> knownStates =
+        Collections.synchronizedMap(new HashMap<HostSpec, HostStatus>());
+
+    ConnectionRace race = new ConnectionRace(candidates, parallelConnectDelay,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost)
+              throws SQLException, IOException {
+            LOGGER.log(Level.FINE, "Racing a protocol version 3 connection to {0}",
+                candidateHost.hostSpec);
+            return openConnectionToHost(candidateHost, user, database, info, socketFactory,
+                sslMode, knownStates);
+          }
+        });
+
+    try {
+      return race.run();
+    } catch (ConnectException cex) {
+      throw connectionRefused(race.getFailedHost(), cex);
+    } catch (IOException ioe) {
+      throw new PSQLException(GT.tr("The connection attempt failed."),
+          PSQLState.CONNECTION_UNABLE_TO_CONNECT, ioe);
+    }
+  }
+
+  /**
+   * Opens a connection to a single host, reporting the outcome to
+   * {@link GlobalHostStatusTracker}.
+   *
+   * @return the connection, or null if the host does not have the required server type
+   */
+  private QueryExecutor openConnectionToHost(CandidateHost candidateHost, String user,
+      String database, Properties info, SocketFactory socketFactory, SslMode sslMode,
+      Map<HostSpec, HostStatus> knownStates) throws SQLException, IOException {
+    HostSpec hostSpec = candidateHost.hostSpec;
+    long connectStart = System.nanoTime();
+
+    //
+    // Establish a connection.
+    //
+
+    PGStream newStream = null;
+    try {
+      try {
+        newStream = tryConnect(user, database, info, socketFactory, hostSpec, sslMode);
+      } catch (SQLException e) {
+        if (sslMode == SslMode.PREFER
+            && PSQLState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
+          // Try non-SSL connection to cover case like "non-ssl only db"
+          // Note: PREFER allows loss of encryption, so no significant harm is made
+          Throwable ex = null;
+          try {
+            newStream =
+                tryConnect(user, database, info, socketFactory, hostSpec, SslMode.DISABLE);
+            LOGGER.log(Level.FINE, "Downgraded to non-encrypted connection for host {0}",
+                hostSpec);
+          } catch (SQLException ee) {
+            ex = ee;
+          } catch (IOException ee) {
+            ex = ee; // Can't use multi-catch in Java 6 :(
+          }
+          if (ex != null) {
+            log(Level.FINE, "sslMode==PREFER, however non-SSL connection failed as well", ex);
+            // non-SSL failed as well, so re-throw original exception
+            //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.1"
+            // Add non-SSL exception as suppressed
+            e.addSuppressed(ex);
+            //#endif
+            throw e;
+          }
+        } else if (sslMode == SslMode.ALLOW
+            && PSQLState.INVALID_AUTHORIZATION_SPECIFICATION.getState().equals(e.getSQLState())) {
+          // Try using SSL
+          Throwable ex = null;
+          try {
+            newStream =
+                tryConnect(user, database, info, socketFactory, hostSpec, SslMode.REQUIRE);
+            LOGGER.log(Level.FINE, "Upgraded to encrypted connection for host {0}",
+                hostSpec);
+          } catch (SQLException ee) {
+            ex = ee;
+          } catch (IOException ee) {
+            ex = ee; // Can't use multi-catch in Java 6 :(
+          }
+          if (ex != null) {
+            log(Level.FINE, "sslMode==ALLOW, however SSL connection failed as well", ex);
+            // non-SSL failed as well, so re-throw original exception
+            //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.1"
+            // Add SSL exception as suppressed
+            e.addSuppressed(ex);
+            //#endif
+            throw e;
+          }
+
+        } else {
+          throw e;
+        }
+      }
+
+      int cancelSignalTimeout = PGProperty.CANCEL_SIGNAL_TIMEOUT.getInt(info) * 1000;
+
+      // Do final startup.
+      QueryExecutor queryExecutor = new QueryExecutorImpl(newStream, user, database,
+          cancelSignalTimeout, info);
+
+      // Check Master or Secondary. The check is pipelined with the initial queries, so
+      // there is at most one round trip after authentication.
+      boolean checkMaster = candidateHost.targetServerType != HostRequirement.any;
+      String readOnly = runInitialQueries(queryExecutor, info, checkMaster);
+      HostStatus hostStatus = HostStatus.ConnectOK;
+      if (checkMaster) {
+        hostStatus = "off".equalsIgnoreCase(readOnly) ? HostStatus.Master : HostStatus.Secondary;
+      }
+      GlobalHostStatusTracker.reportHostStatus(hostSpec, hostStatus);
+      GlobalHostStatusTracker.reportConnectLatency(hostSpec, System.nanoTime() - connectStart);
+      knownStates.put(hostSpec, hostStatus);
+      if (!candidateHost.targetServerType.allowConnectingTo(hostStatus)) {
+        queryExecutor.close();
+        return null;
+      }
+      return queryExecutor;
+    } catch (ConnectException cex) {
+      GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+      knownStates.put(hostSpec, HostStatus.ConnectFail);
+      throw cex;
+    } catch (IOException ioe) {
+      closeStream(newStream);
+      GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+      knownStates.put(hostSpec, HostStatus.ConnectFail);
+      throw ioe;
+    } catch (SQLException se) {
+      closeStream(newStream);
+      GlobalHostStatusTracker.reportHostStatus(hostSpec, HostStatus.ConnectFail);
+      knownStates.put(hostSpec, HostStatus.ConnectFail);
+      throw se;
+    }
+  }
+
+  private static PSQLException connectionRefused(HostSpec hostSpec, ConnectException cex) {
+    return new PSQLException(GT.tr(
+        "Connection to {0} refused. Check that the hostname and port are correct and that the postmaster is accepting TCP/IP connections.",
+        hostSpec), PSQLState.CONNECTION_UNABLE_TO_CONNECT, cex);
+  }
+
   private List<String[]> getParametersForStartup(String user, String database, Properties info) {
     List<String[]> paramList = new ArrayList<String[]>();
     paramList.add(new String[]{"user", user});
@@ -318,8 +447,10 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
     Version assumeVersion = ServerVersion.from(PGProperty.ASSUME_MIN_SERVER_VERSION.get(info));
 
-    if (assumeVersion.getVersionNum() >= ServerVersion.v9_0.getVersionNum()) {
-      // User is explicitly telling us this is a 9.0+ server so set properties here:
+    if (assumeVersion.getVersionNum() >= ServerVersion.v9_0.getVersionNum()
+        || PGProperty.FAST_STARTUP.getBoolean(info)) {
+      // User is explicitly telling us this is a 9.0+ server (or that the server accepts these
+      // parameters anyway) so set properties here:
       paramList.add(new String[]{"extra_float_digits", "3"});
       String appName = PGProperty.APPLICATION_NAME.get(info);
       if (appName != null) {
@@ -716,34 +847,53 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
 
   }
 
-  private void runInitialQueries(QueryExecutor queryExecutor, Properties info)
-      throws SQLException {
-    String assumeMinServerVersion = PGProperty.ASSUME_MIN_SERVER_VERSION.get(info);
-    if (Utils.parseServerVersionStr(assumeMinServerVersion) >= ServerVersion.v9_0.getVersionNum()) {
-      // We already sent the parameter values in the StartupMessage so skip this
-      return;
-    }
+  /**
+   * Runs the setup statements that could not be sent as StartupMessage parameters. When
+   * {@code checkMaster} is set, {@code show transaction_read_only} is appended, and all the
+   * statements are sent before any response is read, so this takes a single round trip.
+   *
+   * @param queryExecutor executor of the freshly opened connection
+   * @param info connection properties
+   * @param checkMaster whether the value of {@code transaction_read_only} is required
+   * @return the value of {@code transaction_read_only}, or null if not requested
+   * @throws SQLException if a setup statement fails
+   * @throws IOException if the result cannot be decoded
+   */
+  private String runInitialQueries(QueryExecutor queryExecutor, Properties info,
+      boolean checkMaster) throws SQLException, IOException {
+    StringBuilder sql = new StringBuilder();
 
-    final int dbVersion = queryExecutor.getServerVersionNum();
+    String assumeMinServerVersion = PGProperty.ASSUME_MIN_SERVER_VERSION.get(info);
+    // If the server version was assumed, or fastStartup is enabled, we already sent the
+    // parameter values in the StartupMessage so skip them here
+    if (Utils.parseServerVersionStr(assumeMinServerVersion) < ServerVersion.v9_0.getVersionNum()
+        && !PGProperty.FAST_STARTUP.getBoolean(info)
+        && queryExecutor.getServerVersionNum() >= ServerVersion.v9_0.getVersionNum()) {
+      sql.append("SET extra_float_digits = 3");
 
-    if (dbVersion >= ServerVersion.v9_0.getVersionNum()) {
-      SetupQueryRunner.run(queryExecutor, "SET extra_float_digits = 3", false);
+      String appName = PGProperty.APPLICATION_NAME.get(info);
+      if (appName != null) {
+        sql.append("; SET application_name = '");
+        Utils.escapeLiteral(sql, appName, queryExecutor.getStandardConformingStrings());
+        sql.append("'");
+      }
     }
 
-    String appName = PGProperty.APPLICATION_NAME.get(info);
-    if (appName != null && dbVersion >= ServerVersion.v9_0.getVersionNum()) {
-      StringBuilder sql = new StringBuilder();
-      sql.append("SET application_name = '");
-      Utils.escapeLiteral(sql, appName, queryExecutor.getStandardConformingStrings());
-      sql.append("'");
-      SetupQueryRunner.run(queryExecutor, sql.toString(), false);
+    if (checkMaster) {
+      if (sql.length() > 0) {
+        sql.append("; ");
+      }
+      sql.append("show transaction_read_only");
     }
 
-  }
+    if (sql.length() == 0) {
+      return null;
+    }
 
-  private boolean isMaster(QueryExecutor queryExecutor) throws SQLException, IOException {
-    byte[][] results = SetupQueryRunner.run(queryExecutor, "show transaction_read_only", true);
-    String value = queryExecutor.getEncoding().decode(results[0]);
-    return value.equalsIgnoreCase("off");
+    byte[][] results = SetupQueryRunner.run(queryExecutor, sql.toString(), checkMaster);
+    if (!checkMaster) {
+      return null;
+    }
+    return queryExecutor.getEncoding().decode(results[0]);
   }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core.v3;
+
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.hostchooser.CandidateHost;
+import org.postgresql.util.GT;
+import org.postgresql.util.HostSpec;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Races connection attempts to several hosts in the spirit of "happy eyeballs" (RFC 8305).</p>
+ *
+ * <p>Attempts are started in candidate order, each one {@code delayMillis} after the previous
+ * one, or immediately once the previous one has failed. The first attempt that returns a
+ * connection wins; attempts that complete afterwards close their connection. Each attempt runs in
+ * its own daemon thread, so a black-holed host only delays the race by {@code delayMillis}.</p>
+ */
+class ConnectionRace {
+  private static final Logger LOGGER = Logger.getLogger(ConnectionRace.class.getName());
+
+  /**
+   * A single connection attempt.
+   */
+  interface Attempt {
+    /**
+     * @param candidateHost host to connect to
+     * @return the connection, or null if the host is not suitable
+     * @throws SQLException if the connection fails
+     * @throws IOException if the connection fails
+     */
+    QueryExecutor connect(CandidateHost candidateHost) throws SQLException, IOException;
+  }
+
+  private final List<CandidateHost> candidates;
+  private final long delayMillis;
+  private final Attempt attempt;
+
+  // All the fields below are guarded by this
+  private int running;
+  private boolean attemptFinished;
+  private boolean abandoned;
+  private QueryExecutor winner;
+  private Exception lastFailure;
+  private HostSpec lastFailedHost;
+
+  ConnectionRace(List<CandidateHost> candidates, long delayMillis, Attempt attempt) {
+    this.candidates = candidates;
+    this.delayMillis = delayMillis;
+    this.attempt = attempt;
+  }
+
+  /**
+   * Runs the race until an attempt succeeds or all of them have finished.
+   *
+   * @return the winning connection, or null if no host was suitable
+   * @throws SQLException if the last failed attempt failed with a SQLException, or if the calling
+   *     thread was interrupted
+   * @throws IOException if the last failed attempt failed with an IOException
+   */
+  synchronized QueryExecutor run() throws SQLException, IOException {
+    int next = 0;
+    long nextStart = 0;
+    try {
+      while (winner == null) {
+        long now = System.currentTimeMillis();
+        if (next < candidates.size() && (running == 0 || attemptFinished || now >= nextStart)) {
+          attemptFinished = false;
+          start(candidates.get(next++));
+          nextStart = now + delayMillis;
+          continue;
+        }
+        if (running == 0) {
+          break;
+        }
+        wait(next < candidates.size() ? Math.max(1, nextStart - now) : 0);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PSQLException(GT.tr("Interrupted while attempting to connect."),
+          PSQLState.CONNECTION_UNABLE_TO_CONNECT);
+    } finally {
+      abandoned = true;
+    }
+
+    if (winner != null) {
+      return winner;
+    }
+    if (lastFailure instanceof SQLException) {
+      throw (SQLException) lastFailure;
+    }
+    if (lastFailure instanceof IOException) {
+      throw (IOException) lastFailure;
+    }
+    if (lastFailure != null) {
+      throw (RuntimeException) lastFailure;
+    }
+    return null;
+  }
+
+  /**
+   * @return the host whose failure is reported by {@link #run()}
+   */
+  synchronized HostSpec getFailedHost() {
+    return lastFailedHost;
+  }
+
+  private void start(final CandidateHost candidateHost) {
+    running++;
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runAttempt(candidateHost);
+      }
+    }, "PostgreSQL JDBC driver connection race to " + candidateHost.hostSpec);
+    thread.setDaemon(true); // Don't prevent the VM from shutting down
+    thread.start();
+  }
+
+  private void runAttempt(CandidateHost candidateHost) {
+    QueryExecutor queryExecutor = null;
+    Exception failure = null;
+    try {
+      queryExecutor = attempt.connect(candidateHost);
+    } catch (SQLException e) {
+      failure = e;
+    } catch (IOException e) {
+      failure = e;
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+
+    synchronized (this) {
+      running--;
+      attemptFinished = true;
+      if (failure != null) {
+        lastFailure = failure;
+        lastFailedHost = candidateHost.hostSpec;
+      } else if (queryExecutor != null && winner == null && !abandoned) {
+        winner = queryExecutor;
+        queryExecutor = null;
+      }
+      notifyAll();
+    }
+
+    if (failure != null) {
+      LOGGER.log(Level.FINE, "Connection attempt to " + candidateHost.hostSpec + " failed",
+          failure);
+    }
+    if (queryExecutor != null) {
+      // Lost the race
+      LOGGER.log(Level.FINE, "Closing connection to {0} that lost the race",
+          candidateHost.hostSpec);
+      queryExecutor.close();
+    }
+  }
+}
@@ -33,9 +33,16 @@ import org.postgresql.core.SqlCommandType;
 import org.postgresql.core.TransactionState;
 import org.postgresql.core.Utils;
 import org.postgresql.core.v3.replication.V3ReplicationProtocol;
+import org.postgresql.hostchooser.GlobalHostStatusTracker;
+import org.postgresql.hostchooser.LoadBalanceStrategy;
 import org.postgresql.jdbc.AutoSave;
 import org.postgresql.jdbc.BatchResultHandler;
 import org.postgresql.jdbc.TimestampUtils;
+import org.postgresql.monitoring.DriverEvents;
+import org.postgresql.monitoring.QueryExecutionEvent;
+import org.postgresql.monitoring.QueryExecutionListener;
+import org.postgresql.monitoring.QueryExecutionListenerFactory;
+import org.postgresql.monitoring.StatementStatisticsCollector;
 import org.postgresql.util.GT;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
@@ -119,6 +126,32 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
   private final ReplicationProtocol replicationProtocol;
 
+  /**
+   * Whether query latencies are reported to {@link GlobalHostStatusTracker}.
+   */
+  private final boolean reportQueryLatency;
+
+  /**
+   * Listener of the executions of this connection, null unless queryExecutionListener is set.
+   */
+  private final QueryExecutionListener executionListener;
+
+  /**
+   * Flight recorder events of the driver.
+   */
+  private final DriverEvents driverEvents = DriverEvents.getInstance();
+
+  /**
+   * Statistics the executions are aggregated into, null unless collectStatementStatistics is set.
+   */
+  private final StatementStatisticsCollector statementStatistics;
+
+  /**
+   * Timings of the execution in progress. They are only recorded when there is a listener, a
+   * flight recording of the execution, or statement statistics are collected.
+   */
+  private ExecutionStats currentExecution;
+
   /**
    * {@code CommandComplete(B)} messages are quite common, so we reuse instance to parse those
    */
@@ -129,6 +162,16 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     super(pgStream, user, database, cancelSignalTimeout, info);
 
     this.allowEncodingChanges = PGProperty.ALLOW_ENCODING_CHANGES.getBoolean(info);
+    this.reportQueryLatency = LoadBalanceStrategy.of(PGProperty.LOAD_BALANCE_STRATEGY.get(info))
+        == LoadBalanceStrategy.POWER_OF_TWO_CHOICES;
+    this.executionListener = QueryExecutionListenerFactory.getQueryExecutionListener(info);
+    if (PGProperty.COLLECT_STATEMENT_STATISTICS.getBoolean(info)) {
+      this.statementStatistics = StatementStatisticsCollector.getInstance();
+      this.statementStatistics.scheduleDump(
+          PGProperty.STATEMENT_STATISTICS_DUMP_INTERVAL.getInt(info) * 1000L);
+    } else {
+      this.statementStatistics = null;
+    }
     this.replicationProtocol = new V3ReplicationProtocol(this, pgStream);
     readStartupMessages();
   }
@@ -219,6 +262,26 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     return wrap(queries);
   }
 
+  @Override
+  public Query createCursorQuery(Query query, String declaration) {
+    if (!(query instanceof SimpleQuery) || query instanceof BatchedQuery) {
+      return null;
+    }
+    NativeQuery nativeQuery = ((SimpleQuery) query).getNativeQuery();
+    SqlCommandType type = nativeQuery.getCommand().getType();
+    if (type != SqlCommandType.SELECT && type != SqlCommandType.WITH) {
+      return null;
+    }
+    int[] bindPositions = new int[nativeQuery.bindPositions.length];
+    for (int i = 0; i < bindPositions.length; i++) {
+      bindPositions[i] = nativeQuery.bindPositions[i] + declaration.length();
+    }
+    return new SimpleQuery(
+        new NativeQuery(declaration + nativeQuery.nativeSql, bindPositions, false,
+            SqlCommand.BLANK),
+        this, isColumnSanitiserDisabled());
+  }
+
   @Override
   public Query wrap(List<NativeQuery> queries) {
     if (queries.isEmpty()) {
@@ -272,6 +335,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   public synchronized void execute(Query query, ParameterList parameters, ResultHandler handler,
       int maxRows, int fetchSize, int flags) throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     if (LOGGER.isLoggable(Level.FINEST)) {
       LOGGER.log(Level.FINEST, "  simple execute, handler={0}, maxRows={1}, fetchSize={2}, flags={3}",
           new Object[]{handler, maxRows, fetchSize, flags});
@@ -293,6 +357,8 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
 
     boolean autosave = false;
+    long startNanos = reportQueryLatency ? System.nanoTime() : 0;
+    startExecution(QueryExecutionEvent.Kind.EXECUTE, query, 1);
     try {
       try {
         handler = sendQueryPreamble(handler, flags);
@@ -307,6 +373,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
         }
         processResults(handler, flags);
         estimatedReceiveBufferBytes = 0;
+        if (reportQueryLatency) {
+          reportQuery(startNanos, false);
+        }
       } catch (PGBindException se) {
         // There are three causes of this error, an
         // invalid total Bind message length, a
@@ -331,11 +400,15 @@ public class QueryExecutorImpl extends QueryExecutorBase {
       }
     } catch (IOException e) {
       abort();
+      if (reportQueryLatency) {
+        reportQuery(startNanos, true);
+      }
       handler.handleError(
           new PSQLException(GT.tr("An I/O error occurred while sending to the backend."),
               PSQLState.CONNECTION_FAILURE, e));
     }
 
+    finishExecution(handler.getException() != null);
     try {
       handler.handleCompletion();
     } catch (SQLException e) {
@@ -343,6 +416,68 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
   }
 
+  /**
+   * Starts recording the timings of an execution if there is a listener, a flight recording or
+   * statement statistics.
+   */
+  private void startExecution(QueryExecutionEvent.Kind kind, Query query, int statementCount) {
+    Object flightEvent = driverEvents.beginExecution(kind);
+    if (executionListener != null || flightEvent != null || statementStatistics != null) {
+      currentExecution = new ExecutionStats(kind, query.getNativeSql(), statementCount,
+          pgStream.getBytesSent(), pgStream.getBytesReceived(), flightEvent);
+    }
+  }
+
+  /**
+   * Reports the execution in progress to the statement statistics, the flight recorder and the
+   * listener.
+   */
+  private void finishExecution(boolean failed) {
+    ExecutionStats execution = currentExecution;
+    if (execution == null) {
+      return;
+    }
+    currentExecution = null;
+    long totalNanos = System.nanoTime() - execution.startNanos;
+    long bytesSent = pgStream.getBytesSent() - execution.startBytesSent;
+    long bytesReceived = pgStream.getBytesReceived() - execution.startBytesReceived;
+    if (statementStatistics != null || execution.flightEvent != null) {
+      String fingerprint = StatementStatisticsCollector.getInstance()
+          .fingerprint(execution.sql, getStandardConformingStrings());
+      if (statementStatistics != null) {
+        statementStatistics.record(fingerprint,
+            execution.kind == QueryExecutionEvent.Kind.FETCH ? 0 : execution.statementCount,
+            totalNanos, failed, execution.rows, bytesSent, bytesReceived);
+      }
+      if (execution.flightEvent != null) {
+        driverEvents.commitExecution(execution.flightEvent, fingerprint, getHostSpec(),
+            execution.serverPrepared, failed, execution.statementCount, execution.rows,
+            bytesSent + bytesReceived);
+      }
+    }
+    if (executionListener == null) {
+      return;
+    }
+    QueryExecutionEvent event = new QueryExecutionEvent(execution.kind, execution.sql,
+        execution.statementCount, getHostSpec(), execution.serverPrepared, failed,
+        execution.parseNanos, execution.bindNanos, execution.executeNanos,
+        execution.firstByteNanos, execution.processResultsNanos, totalNanos, execution.rows,
+        bytesSent, bytesReceived);
+    try {
+      executionListener.queryExecuted(event);
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.WARNING, "QueryExecutionListener failed", e);
+    }
+  }
+
+  /**
+   * Reports the latency of a query execution to {@link GlobalHostStatusTracker}, which is used
+   * by the {@code powerOfTwoChoices} load balance strategy.
+   */
+  private void reportQuery(long startNanos, boolean failed) {
+    GlobalHostStatusTracker.reportQuery(getHostSpec(), System.nanoTime() - startNanos, failed);
+  }
+
   private boolean sendAutomaticSavepoint(Query query, int flags) throws IOException {
     if (((flags & QueryExecutor.QUERY_SUPPRESS_BEGIN) == 0
         || getTransactionState() == TransactionState.OPEN)
@@ -433,6 +568,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   public synchronized void execute(Query[] queries, ParameterList[] parameterLists,
       BatchResultHandler batchHandler, int maxRows, int fetchSize, int flags) throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     if (LOGGER.isLoggable(Level.FINEST)) {
       LOGGER.log(Level.FINEST, "  batch execute {0} queries, handler={1}, maxRows={2}, fetchSize={3}, flags={4}",
           new Object[]{queries.length, batchHandler, maxRows, fetchSize, flags});
@@ -452,6 +588,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
     boolean autosave = false;
     ResultHandler handler = batchHandler;
+    startExecution(QueryExecutionEvent.Kind.BATCH, queries[0], queries.length);
     try {
       handler = sendQueryPreamble(batchHandler, flags);
       autosave = sendAutomaticSavepoint(queries[0], flags);
@@ -488,6 +625,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
               PSQLState.CONNECTION_FAILURE, e));
     }
 
+    finishExecution(handler.getException() != null);
     try {
       handler.handleCompletion();
     } catch (SQLException e) {
@@ -550,6 +688,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   public synchronized byte[] fastpathCall(int fnid, ParameterList parameters, boolean suppressBegin)
       throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     if (!suppressBegin) {
       doSubprotocolBegin();
     }
@@ -668,6 +807,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
    */
   public synchronized void processNotifies(int timeoutMillis) throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     // Asynchronous notifies only arrive when we are not in a transaction
     if (getTransactionState() != TransactionState.IDLE) {
       return;
@@ -825,6 +965,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   public synchronized CopyOperation startCopy(String sql, boolean suppressBegin)
       throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     if (!suppressBegin) {
       doSubprotocolBegin();
     }
@@ -1360,9 +1501,15 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   private void sendSync() throws IOException {
     LOGGER.log(Level.FINEST, " FE=> Sync");
 
+    ExecutionStats execution = currentExecution;
+    long start = execution == null ? 0 : System.nanoTime();
     pgStream.sendChar('S'); // Sync
     pgStream.sendInteger4(4); // Length
     pgStream.flush();
+    if (execution != null) {
+      // the messages are buffered, flushing them is part of executing
+      execution.executeNanos += System.nanoTime() - start;
+    }
     // Below "add queues" are likely not required at all
     pendingExecuteQueue.add(new ExecuteRequest(sync, null, true));
     pendingDescribePortalQueue.add(sync);
@@ -1720,12 +1867,18 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   //
   private void sendOneQuery(SimpleQuery query, SimpleParameterList params, int maxRows,
       int fetchSize, int flags) throws IOException {
+    ExecutionStats execution = currentExecution;
+    long phaseStart = execution == null ? 0 : System.nanoTime();
+
     boolean asSimple = (flags & QueryExecutor.QUERY_EXECUTE_AS_SIMPLE) != 0;
     if (asSimple) {
       assert (flags & QueryExecutor.QUERY_DESCRIBE_ONLY) == 0
           : "Simple mode does not support describe requests. sql = " + query.getNativeSql()
           + ", flags = " + flags;
       sendSimpleQuery(query, params);
+      if (execution != null) {
+        execution.executeNanos += System.nanoTime() - phaseStart;
+      }
       return;
     }
 
@@ -1765,6 +1918,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
 
     sendParse(query, params, oneShot);
+    if (execution != null) {
+      long now = System.nanoTime();
+      execution.parseNanos += now - phaseStart;
+      execution.serverPrepared |= query.getStatementName() != null;
+      phaseStart = now;
+    }
 
     // Must do this after sendParse to pick up any changes to the
     // query's state.
@@ -1803,6 +1962,11 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
 
     sendBind(query, params, portal, noBinaryTransfer);
+    if (execution != null) {
+      long now = System.nanoTime();
+      execution.bindNanos += now - phaseStart;
+      phaseStart = now;
+    }
 
     // A statement describe will also output a RowDescription,
     // so don't reissue it here if we've already done so.
@@ -1829,6 +1993,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
 
     sendExecute(query, portal, rows);
+    if (execution != null) {
+      execution.executeNanos += System.nanoTime() - phaseStart;
+    }
   }
 
   private void sendSimpleQuery(SimpleQuery query, SimpleParameterList params) throws IOException {
@@ -1887,6 +2054,13 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     query.setCleanupRef(cleanupRef);
   }
 
+  @Override
+  public int getServerPreparedStatementCount() {
+    // Read without the connection lock, so monitoring does not wait for running queries. The
+    // count includes the statements whose deallocation is still pending.
+    return parsedQueryMap.size();
+  }
+
   private void processDeadParsedQueries() throws IOException {
     Reference<? extends SimpleQuery> deadQuery;
     while ((deadQuery = parsedQueryCleanupQueue.poll()) != null) {
@@ -1933,6 +2107,25 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   }
 
   protected void processResults(ResultHandler handler, int flags) throws IOException {
+    ExecutionStats execution = currentExecution;
+    if (execution == null) {
+      processResultMessages(handler, flags);
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      if (execution.firstByteNanos < 0) {
+        pgStream.peekChar();
+        execution.firstByteNanos = System.nanoTime() - execution.startNanos;
+      }
+      processResultMessages(handler, flags);
+    } finally {
+      execution.processResultsNanos += System.nanoTime() - start;
+    }
+  }
+
+  private void processResultMessages(ResultHandler handler, int flags) throws IOException {
     boolean noResults = (flags & QueryExecutor.QUERY_NO_RESULTS) != 0;
     boolean bothRowsAndStatus = (flags & QueryExecutor.QUERY_BOTH_ROWS_AND_STATUS) != 0;
 
@@ -2159,6 +2352,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
             }
             tuples.add(tuple);
           }
+          if (currentExecution != null) {
+            currentExecution.rows++;
+          }
 
           if (LOGGER.isLoggable(Level.FINEST)) {
             int length;
@@ -2349,18 +2545,55 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   public synchronized void fetch(ResultCursor cursor, ResultHandler handler, int fetchSize)
       throws SQLException {
     waitOnLock();
+    completePendingPrefetch();
     final Portal portal = (Portal) cursor;
+    handler = fetchHandler(portal, handler);
+
+    // Now actually run it.
+
+    startExecution(QueryExecutionEvent.Kind.FETCH, portal.getQuery(), 1);
+    try {
+      processDeadParsedQueries();
+      processDeadPortals();
+
+      long phaseStart = currentExecution == null ? 0 : System.nanoTime();
+      sendExecute(portal.getQuery(), portal, fetchSize);
+      if (currentExecution != null) {
+        currentExecution.executeNanos += System.nanoTime() - phaseStart;
+      }
+      sendSync();
 
-    // Insert a ResultHandler that turns bare command statuses into empty datasets
-    // (if the fetch returns no rows, we see just a CommandStatus..)
-    final ResultHandler delegateHandler = handler;
-    handler = new ResultHandlerDelegate(delegateHandler) {
+      processResults(handler, 0);
+      estimatedReceiveBufferBytes = 0;
+    } catch (IOException e) {
+      abort();
+      handler.handleError(
+          new PSQLException(GT.tr("An I/O error occurred while sending to the backend."),
+              PSQLState.CONNECTION_FAILURE, e));
+    }
+
+    finishExecution(handler.getException() != null);
+    handler.handleCompletion();
+  }
+
+  /**
+   * Inserts a ResultHandler that turns bare command statuses into empty datasets (if the fetch
+   * returns no rows, we see just a CommandStatus..)
+   */
+  private static ResultHandler fetchHandler(final Portal portal, ResultHandler handler) {
+    return new ResultHandlerDelegate(handler) {
       public void handleCommandStatus(String status, int updateCount, long insertOID) {
         handleResultRows(portal.getQuery(), null, new ArrayList<byte[][]>(), null);
       }
     };
+  }
 
-    // Now actually run it.
+  public synchronized void prefetch(ResultCursor cursor, ResultHandler handler, int fetchSize)
+      throws SQLException {
+    waitOnLock();
+    completePendingPrefetch();
+    Portal portal = (Portal) cursor;
+    handler = fetchHandler(portal, handler);
 
     try {
       processDeadParsedQueries();
@@ -2368,7 +2601,35 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
       sendExecute(portal.getQuery(), portal, fetchSize);
       sendSync();
+      pendingPrefetch = new PendingPrefetch(portal, handler);
+    } catch (IOException e) {
+      abort();
+      handler.handleError(
+          new PSQLException(GT.tr("An I/O error occurred while sending to the backend."),
+              PSQLState.CONNECTION_FAILURE, e));
+      handler.handleCompletion();
+    }
+  }
+
+  public synchronized void completePrefetch() throws SQLException {
+    waitOnLock();
+    completePendingPrefetch();
+  }
 
+  /**
+   * Reads the response of the pending prefetch, which must come before the response of anything
+   * sent afterwards. Failures are reported to the handler of the prefetch only.
+   */
+  private void completePendingPrefetch() {
+    PendingPrefetch prefetch = pendingPrefetch;
+    if (prefetch == null) {
+      return;
+    }
+    pendingPrefetch = null;
+    ResultHandler handler = prefetch.handler;
+
+    startExecution(QueryExecutionEvent.Kind.FETCH, prefetch.portal.getQuery(), 1);
+    try {
       processResults(handler, 0);
       estimatedReceiveBufferBytes = 0;
     } catch (IOException e) {
@@ -2378,7 +2639,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
               PSQLState.CONNECTION_FAILURE, e));
     }
 
-    handler.handleCompletion();
+    finishExecution(handler.getException() != null);
+    try {
+      handler.handleCompletion();
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Prefetch failed", e);
+    }
   }
 
   /*
@@ -2726,6 +2992,11 @@ public class QueryExecutorImpl extends QueryExecutorBase {
    */
   private int estimatedReceiveBufferBytes = 0;
 
+  /**
+   * The Execute sent by {@link #prefetch}, whose response is still to be read.
+   */
+  private PendingPrefetch pendingPrefetch;
+
   private final SimpleQuery beginTransactionQuery =
       new SimpleQuery(
           new NativeQuery("BEGIN", new int[0], false, SqlCommand.BLANK),
@@ -2746,4 +3017,45 @@ public class QueryExecutorImpl extends QueryExecutorBase {
       new SimpleQuery(
           new NativeQuery("ROLLBACK TO SAVEPOINT PGJDBC_AUTOSAVE", new int[0], false, SqlCommand.BLANK),
           null, false);
+
+  /**
+   * Timings and sizes of an execution, reported to the {@link QueryExecutionListener} and the
+   * {@link DriverEvents}.
+   */
+  private static class ExecutionStats {
+    final QueryExecutionEvent.Kind kind;
+    final String sql;
+    final int statementCount;
+    final long startNanos = System.nanoTime();
+    final long startBytesSent;
+    final long startBytesReceived;
+    final Object flightEvent;
+    boolean serverPrepared;
+    long parseNanos;
+    long bindNanos;
+    long executeNanos;
+    long firstByteNanos = -1;
+    long processResultsNanos;
+    long rows;
+
+    ExecutionStats(QueryExecutionEvent.Kind kind, String sql, int statementCount,
+        long startBytesSent, long startBytesReceived, Object flightEvent) {
+      this.kind = kind;
+      this.sql = sql;
+      this.statementCount = statementCount;
+      this.startBytesSent = startBytesSent;
+      this.startBytesReceived = startBytesReceived;
+      this.flightEvent = flightEvent;
+    }
+  }
+
+  private static class PendingPrefetch {
+    final Portal portal;
+    final ResultHandler handler;
+
+    PendingPrefetch(Portal portal, ResultHandler handler) {
+      this.portal = portal;
+      this.handler = handler;
+    }
+  }
 }
@@ -215,7 +215,6 @@ class SimpleQuery implements Query {
    */
   void setFields(Field[] fields) {
     this.fields = fields;
-    this.resultSetColumnNameIndexMap = null;
     this.cachedMaxResultRowSize = null;
     this.needUpdateFieldFormats = fields != null;
     this.hasBinaryFields = false; // just in case
@@ -305,7 +304,6 @@ class SimpleQuery implements Query {
     statementName = null;
     encodedStatementName = null;
     fields = null;
-    this.resultSetColumnNameIndexMap = null;
     portalDescribed = false;
     statementDescribed = false;
     cachedMaxResultRowSize = null;
@@ -323,20 +321,52 @@ class SimpleQuery implements Query {
     return nativeQuery.bindPositions.length * getBatchSize();
   }
 
-  private Map<String, Integer> resultSetColumnNameIndexMap;
+  /**
+   * The column name index map of a result, with the fields it was created for.
+   */
+  private static final class ColumnNameIndex {
+    final Field[] fields;
+    final Map<String, Integer> map;
 
-  @Override
-  public Map<String, Integer> getResultSetColumnNameIndexMap() {
-    Map<String, Integer> columnPositions = this.resultSetColumnNameIndexMap;
-    if (columnPositions == null && fields != null) {
-      columnPositions =
-          PgResultSet.createColumnNameIndexMap(fields, sanitiserDisabled);
-      if (statementName != null) {
-        // Cache column positions for server-prepared statements only
-        this.resultSetColumnNameIndexMap = columnPositions;
+    ColumnNameIndex(Field[] fields, Map<String, Integer> map) {
+      this.fields = fields;
+      this.map = map;
+    }
+
+    boolean hasLabelsOf(Field[] other) {
+      if (other == fields) {
+        return true;
+      }
+      if (other.length != fields.length) {
+        return false;
+      }
+      for (int i = 0; i < fields.length; i++) {
+        if (!fields[i].getColumnLabel().equals(other[i].getColumnLabel())) {
+          return false;
+        }
       }
+      return true;
+    }
+  }
+
+  private ColumnNameIndex resultSetColumnNameIndex;
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The map is cached until a result has other column labels, so that executions of the query
+   * share it whether or not the statement is server-prepared, and whether or not each execution
+   * describes its result again.</p>
+   */
+  @Override
+  public Map<String, Integer> getResultSetColumnNameIndexMap(Field[] fields) {
+    ColumnNameIndex columnNameIndex = this.resultSetColumnNameIndex;
+    if (columnNameIndex == null || !columnNameIndex.hasLabelsOf(fields)) {
+      columnNameIndex = new ColumnNameIndex(fields,
+          PgResultSet.createColumnNameIndexMap(fields, sanitiserDisabled));
+      this.resultSetColumnNameIndex = columnNameIndex;
     }
-    return columnPositions;
+    return columnNameIndex.map;
   }
 
   @Override
@@ -8,6 +8,8 @@ package org.postgresql.ds.common;
 import org.postgresql.PGProperty;
 import org.postgresql.jdbc.AutoSave;
 import org.postgresql.jdbc.PreferQueryMode;
+import org.postgresql.monitoring.StatementStatistics;
+import org.postgresql.monitoring.StatementStatisticsCollector;
 import org.postgresql.util.ExpressionProperties;
 import org.postgresql.util.GT;
 import org.postgresql.util.PSQLException;
@@ -23,6 +25,7 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -418,6 +421,58 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return PGProperty.DEFAULT_ROW_FETCH_SIZE.getIntNoCheck(properties);
   }
 
+  /**
+   * @param autoCommitStreaming whether result sets with a fetch size stream their rows in
+   *     auto-commit mode
+   * @see PGProperty#AUTO_COMMIT_STREAMING
+   */
+  public void setAutoCommitStreaming(boolean autoCommitStreaming) {
+    PGProperty.AUTO_COMMIT_STREAMING.set(properties, autoCommitStreaming);
+  }
+
+  /**
+   * @return whether result sets with a fetch size stream their rows in auto-commit mode
+   * @see PGProperty#AUTO_COMMIT_STREAMING
+   */
+  public boolean getAutoCommitStreaming() {
+    return PGProperty.AUTO_COMMIT_STREAMING.getBoolean(properties);
+  }
+
+  /**
+   * @param serverScrollableCursors whether scrollable read-only result sets with a fetch size are
+   *     based on a server side scroll cursor
+   * @see PGProperty#SERVER_SCROLLABLE_CURSORS
+   */
+  public void setServerScrollableCursors(boolean serverScrollableCursors) {
+    PGProperty.SERVER_SCROLLABLE_CURSORS.set(properties, serverScrollableCursors);
+  }
+
+  /**
+   * @return whether scrollable read-only result sets with a fetch size are based on a server side
+   *     scroll cursor
+   * @see PGProperty#SERVER_SCROLLABLE_CURSORS
+   */
+  public boolean getServerScrollableCursors() {
+    return PGProperty.SERVER_SCROLLABLE_CURSORS.getBoolean(properties);
+  }
+
+  /**
+   * @param prefetchThreshold percentage of the fetched rows read before the next rows are
+   *     requested, 0 to disable prefetching
+   * @see PGProperty#PREFETCH_THRESHOLD
+   */
+  public void setPrefetchThreshold(int prefetchThreshold) {
+    PGProperty.PREFETCH_THRESHOLD.set(properties, prefetchThreshold);
+  }
+
+  /**
+   * @return percentage of the fetched rows read before the next rows are requested
+   * @see PGProperty#PREFETCH_THRESHOLD
+   */
+  public int getPrefetchThreshold() {
+    return PGProperty.PREFETCH_THRESHOLD.getIntNoCheck(properties);
+  }
+
   /**
    * @param unknownLength unknown length
    * @see PGProperty#UNKNOWN_LENGTH
@@ -648,6 +703,22 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return PGProperty.APPLICATION_NAME.get(properties);
   }
 
+  /**
+   * @param fastStartup whether session settings are sent in the StartupMessage
+   * @see PGProperty#FAST_STARTUP
+   */
+  public void setFastStartup(boolean fastStartup) {
+    PGProperty.FAST_STARTUP.set(properties, fastStartup);
+  }
+
+  /**
+   * @return whether session settings are sent in the StartupMessage
+   * @see PGProperty#FAST_STARTUP
+   */
+  public boolean getFastStartup() {
+    return PGProperty.FAST_STARTUP.getBoolean(properties);
+  }
+
   /**
    * @param targetServerType target server type
    * @see PGProperty#TARGET_SERVER_TYPE
@@ -696,6 +767,161 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     return PGProperty.HOST_RECHECK_SECONDS.getIntNoCheck(properties);
   }
 
+  /**
+   * @param loadBalanceStrategy random or powerOfTwoChoices
+   * @see PGProperty#LOAD_BALANCE_STRATEGY
+   */
+  public void setLoadBalanceStrategy(String loadBalanceStrategy) {
+    PGProperty.LOAD_BALANCE_STRATEGY.set(properties, loadBalanceStrategy);
+  }
+
+  /**
+   * @return load balance strategy
+   * @see PGProperty#LOAD_BALANCE_STRATEGY
+   */
+  public String getLoadBalanceStrategy() {
+    return PGProperty.LOAD_BALANCE_STRATEGY.get(properties);
+  }
+
+  /**
+   * @param parallelConnectDelay delay in milliseconds before racing the next host
+   * @see PGProperty#PARALLEL_CONNECT_DELAY
+   */
+  public void setParallelConnectDelay(int parallelConnectDelay) {
+    PGProperty.PARALLEL_CONNECT_DELAY.set(properties, parallelConnectDelay);
+  }
+
+  /**
+   * @return delay in milliseconds before racing the next host
+   * @see PGProperty#PARALLEL_CONNECT_DELAY
+   */
+  public int getParallelConnectDelay() {
+    return PGProperty.PARALLEL_CONNECT_DELAY.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param nodeDiscoveryInterval interval in seconds between cluster node discoveries
+   * @see PGProperty#NODE_DISCOVERY_INTERVAL
+   */
+  public void setNodeDiscoveryInterval(int nodeDiscoveryInterval) {
+    PGProperty.NODE_DISCOVERY_INTERVAL.set(properties, nodeDiscoveryInterval);
+  }
+
+  /**
+   * @return interval in seconds between cluster node discoveries
+   * @see PGProperty#NODE_DISCOVERY_INTERVAL
+   */
+  public int getNodeDiscoveryInterval() {
+    return PGProperty.NODE_DISCOVERY_INTERVAL.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param shardRoutingInterval interval in seconds between reads of the shard locations
+   * @see PGProperty#SHARD_ROUTING_INTERVAL
+   */
+  public void setShardRoutingInterval(int shardRoutingInterval) {
+    PGProperty.SHARD_ROUTING_INTERVAL.set(properties, shardRoutingInterval);
+  }
+
+  /**
+   * @return interval in seconds between reads of the shard locations
+   * @see PGProperty#SHARD_ROUTING_INTERVAL
+   */
+  public int getShardRoutingInterval() {
+    return PGProperty.SHARD_ROUTING_INTERVAL.getIntNoCheck(properties);
+  }
+
+  /**
+   * @return comma separated list of query execution listener class names
+   * @see PGProperty#QUERY_EXECUTION_LISTENER
+   */
+  public String getQueryExecutionListener() {
+    return PGProperty.QUERY_EXECUTION_LISTENER.get(properties);
+  }
+
+  /**
+   * @param queryExecutionListener comma separated list of query execution listener class names
+   * @see PGProperty#QUERY_EXECUTION_LISTENER
+   */
+  public void setQueryExecutionListener(String queryExecutionListener) {
+    PGProperty.QUERY_EXECUTION_LISTENER.set(properties, queryExecutionListener);
+  }
+
+  /**
+   * @return true if the connections register JMX MBeans
+   * @see PGProperty#REGISTER_MBEANS
+   */
+  public boolean getRegisterMbeans() {
+    return PGProperty.REGISTER_MBEANS.getBoolean(properties);
+  }
+
+  /**
+   * @param registerMbeans true if the connections should register JMX MBeans
+   * @see PGProperty#REGISTER_MBEANS
+   */
+  public void setRegisterMbeans(boolean registerMbeans) {
+    PGProperty.REGISTER_MBEANS.set(properties, registerMbeans);
+  }
+
+  /**
+   * @return true if the executions are aggregated into statement statistics
+   * @see PGProperty#COLLECT_STATEMENT_STATISTICS
+   */
+  public boolean getCollectStatementStatistics() {
+    return PGProperty.COLLECT_STATEMENT_STATISTICS.getBoolean(properties);
+  }
+
+  /**
+   * @param collectStatementStatistics true if the executions should be aggregated into statement
+   *     statistics
+   * @see PGProperty#COLLECT_STATEMENT_STATISTICS
+   */
+  public void setCollectStatementStatistics(boolean collectStatementStatistics) {
+    PGProperty.COLLECT_STATEMENT_STATISTICS.set(properties, collectStatementStatistics);
+  }
+
+  /**
+   * @return period in seconds after which the statement statistics are logged
+   * @see PGProperty#STATEMENT_STATISTICS_DUMP_INTERVAL
+   */
+  public int getStatementStatisticsDumpInterval() {
+    return PGProperty.STATEMENT_STATISTICS_DUMP_INTERVAL.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param statementStatisticsDumpInterval period in seconds after which the statement
+   *     statistics are logged
+   * @see PGProperty#STATEMENT_STATISTICS_DUMP_INTERVAL
+   */
+  public void setStatementStatisticsDumpInterval(int statementStatisticsDumpInterval) {
+    PGProperty.STATEMENT_STATISTICS_DUMP_INTERVAL.set(properties, statementStatisticsDumpInterval);
+  }
+
+  /**
+   * @return directory in which the protocol traffic is recorded
+   * @see PGProperty#WIRE_CAPTURE_DIRECTORY
+   */
+  public String getWireCaptureDirectory() {
+    return PGProperty.WIRE_CAPTURE_DIRECTORY.get(properties);
+  }
+
+  /**
+   * @param wireCaptureDirectory directory in which the protocol traffic of each connection is
+   *     recorded
+   * @see PGProperty#WIRE_CAPTURE_DIRECTORY
+   */
+  public void setWireCaptureDirectory(String wireCaptureDirectory) {
+    PGProperty.WIRE_CAPTURE_DIRECTORY.set(properties, wireCaptureDirectory);
+  }
+
+  /**
+   * @return the statistics of the statements executed in this JVM
+   * @see org.postgresql.PGConnection#getStatementStatistics()
+   */
+  public List<StatementStatistics> getStatementStatistics() {
+    return StatementStatisticsCollector.getInstance().getStatistics();
+  }
+
   /**
    * @param enabled if TCP keep alive should be enabled
    * @see PGProperty#TCP_KEEP_ALIVE
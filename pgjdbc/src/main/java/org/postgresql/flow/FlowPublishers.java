@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.flow;
+
+import org.postgresql.reactive.Row;
+import org.postgresql.reactive.RowPublisher;
+import org.postgresql.reactive.RowSubscriber;
+import org.postgresql.reactive.RowSubscription;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Adapts {@link RowPublisher} to {@link java.util.concurrent.Flow}, which is only available since
+ * Java 9. This package is left out of the driver when it is built with an older JDK.
+ */
+public final class FlowPublishers {
+
+  private FlowPublishers() {
+  }
+
+  /**
+   * @param publisher the publisher of the rows of a query
+   * @return a publisher that executes the query for every subscriber
+   * @see org.postgresql.PGConnection#createRowPublisher(String, Object...)
+   */
+  public static Flow.Publisher<Row> toFlowPublisher(final RowPublisher publisher) {
+    return new Flow.Publisher<Row>() {
+      @Override
+      public void subscribe(Flow.Subscriber<? super Row> subscriber) {
+        publisher.subscribe(new SubscriberAdapter(subscriber));
+      }
+    };
+  }
+
+  private static class SubscriberAdapter implements RowSubscriber {
+    private final Flow.Subscriber<? super Row> subscriber;
+
+    SubscriberAdapter(Flow.Subscriber<? super Row> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void onSubscribe(final RowSubscription subscription) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+          subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+          subscription.cancel();
+        }
+      });
+    }
+
+    @Override
+    public void onNext(Row row) {
+      subscriber.onNext(row);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      subscriber.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      subscriber.onComplete();
+    }
+  }
+}
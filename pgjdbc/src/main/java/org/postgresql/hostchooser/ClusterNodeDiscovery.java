@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+import static java.lang.System.currentTimeMillis;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.SetupQueryRunner;
+import org.postgresql.util.HostSpec;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Keeps track of the nodes of CrateDB clusters, as listed in {@code sys.nodes}. The nodes are
+ * recorded per list of seed hosts, that is the hosts of the connection URL.</p>
+ *
+ * <p>The nodes are refreshed lazily by {@link #refreshIfStale}, on a freshly opened connection,
+ * so a change in topology is only picked up by connections opened after the refresh.</p>
+ *
+ * @see org.postgresql.PGProperty#NODE_DISCOVERY_INTERVAL
+ */
+public class ClusterNodeDiscovery {
+  private static final Logger LOGGER = Logger.getLogger(ClusterNodeDiscovery.class.getName());
+
+  static final String NODES_QUERY = "SELECT hostname, rest_url, port['psql'] FROM sys.nodes";
+
+  private static final Map<List<HostSpec>, Topology> topologies =
+      new HashMap<List<HostSpec>, Topology>();
+
+  private static class Topology {
+    HostSpec[] nodes;
+    long lastRefreshed;
+    boolean refreshing;
+  }
+
+  /**
+   * Returns the nodes last discovered for the given seed hosts.
+   *
+   * @param seeds hosts of the connection URL
+   * @return discovered nodes or null if no nodes were discovered yet
+   */
+  public static HostSpec[] getDiscoveredNodes(HostSpec[] seeds) {
+    synchronized (topologies) {
+      Topology topology = topologies.get(Arrays.asList(seeds));
+      return topology == null ? null : topology.nodes;
+    }
+  }
+
+  /**
+   * Reads the cluster nodes through the given connection, unless they were read less than
+   * {@code intervalMillis} ago or another thread is already reading them. Failures are logged and
+   * otherwise ignored, the previously discovered nodes are kept in that case.
+   *
+   * @param seeds hosts of the connection URL
+   * @param queryExecutor freshly opened connection to one of the cluster nodes
+   * @param intervalMillis minimum time between two refreshes
+   */
+  public static void refreshIfStale(HostSpec[] seeds, QueryExecutor queryExecutor,
+      long intervalMillis) {
+    List<HostSpec> key = Arrays.asList(seeds);
+    synchronized (topologies) {
+      Topology topology = topologies.get(key);
+      if (topology == null) {
+        topology = new Topology();
+        topologies.put(key, topology);
+      } else if (topology.refreshing
+          || currentTimeMillis() - topology.lastRefreshed < intervalMillis) {
+        return;
+      }
+      topology.refreshing = true;
+    }
+
+    List<HostSpec> nodes = null;
+    try {
+      nodes = parseNodes(SetupQueryRunner.runForRows(queryExecutor, NODES_QUERY),
+          queryExecutor.getEncoding());
+      LOGGER.log(Level.FINE, "Discovered cluster nodes {0}", nodes);
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Could not discover the cluster nodes", e);
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Could not discover the cluster nodes", e);
+    } finally {
+      synchronized (topologies) {
+        Topology topology = topologies.get(key);
+        topology.refreshing = false;
+        topology.lastRefreshed = currentTimeMillis();
+        if (nodes != null && !nodes.isEmpty()) {
+          topology.nodes = nodes.toArray(new HostSpec[0]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts the rows of {@link #NODES_QUERY} to hosts, skipping the nodes without a PostgreSQL
+   * port.
+   */
+  static List<HostSpec> parseNodes(List<byte[][]> rows, Encoding encoding) throws IOException {
+    List<HostSpec> nodes = new ArrayList<HostSpec>(rows.size());
+    for (byte[][] row : rows) {
+      HostSpec node = toHostSpec(decode(row[0], encoding), decode(row[1], encoding),
+          decode(row[2], encoding));
+      if (node != null) {
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Converts the columns of a {@code sys.nodes} row to a host. The host is taken from
+   * {@code rest_url}, which holds the address the node is published on, falling back to
+   * {@code hostname}.
+   *
+   * @param hostname value of {@code hostname}
+   * @param restUrl value of {@code rest_url}
+   * @param psqlPort value of {@code port['psql']}
+   * @return host of the node or null if the node has no PostgreSQL port
+   */
+  public static HostSpec toHostSpec(String hostname, String restUrl, String psqlPort) {
+    if (psqlPort == null) {
+      return null;
+    }
+    String host = restUrl == null ? null : hostOf(restUrl);
+    if (host == null || host.isEmpty()) {
+      if (hostname == null) {
+        return null;
+      }
+      host = hostname;
+    }
+    try {
+      return new HostSpec(host, Integer.parseInt(psqlPort.trim()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static String decode(byte[] value, Encoding encoding) throws IOException {
+    return value == null ? null : encoding.decode(value);
+  }
+
+  private static String hostOf(String restUrl) {
+    int colon = restUrl.lastIndexOf(':');
+    String host = colon < 0 ? restUrl : restUrl.substring(0, colon);
+    if (host.startsWith("[") && host.endsWith("]")) {
+      host = host.substring(1, host.length() - 1);
+    }
+    return host;
+  }
+}
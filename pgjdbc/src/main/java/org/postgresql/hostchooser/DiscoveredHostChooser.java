@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Host chooser that tries the discovered cluster nodes first, and then the seed hosts that are not
+ * among the discovered nodes.
+ */
+class DiscoveredHostChooser implements HostChooser {
+  private final HostChooser nodes;
+  private final HostChooser seeds;
+
+  DiscoveredHostChooser(HostChooser nodes, HostChooser seeds) {
+    this.nodes = nodes;
+    this.seeds = seeds;
+  }
+
+  @Override
+  public Iterator<CandidateHost> iterator() {
+    List<CandidateHost> candidates = new ArrayList<CandidateHost>();
+    for (CandidateHost candidateHost : nodes) {
+      candidates.add(candidateHost);
+    }
+    if (seeds != null) {
+      for (CandidateHost candidateHost : seeds) {
+        candidates.add(candidateHost);
+      }
+    }
+    return candidates.iterator();
+  }
+}
@@ -10,16 +10,34 @@ import static java.lang.System.currentTimeMillis;
 import org.postgresql.util.HostSpec;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Keeps track of HostSpec targets in a global map.
+ * Keeps track of HostSpec targets in a global map. Queries are reported by every connection, so
+ * the status of each host is updated without a global lock.
  */
 public class GlobalHostStatusTracker {
-  private static final Map<HostSpec, HostSpecStatus> hostStatusMap =
-      new HashMap<HostSpec, HostSpecStatus>();
+  private static final ConcurrentMap<HostSpec, HostSpecStatus> hostStatusMap =
+      new ConcurrentHashMap<HostSpec, HostSpecStatus>();
+
+  /**
+   * Weight of the latest sample in the exponentially weighted moving averages.
+   */
+  private static final double EWMA_WEIGHT = 0.2;
+
+  /**
+   * Added to the latencies of every host, so hosts without samples are not infinitely attractive
+   * and error rates still matter for very fast hosts.
+   */
+  private static final double LATENCY_FLOOR_NANOS = 1000000;
+
+  /**
+   * How much a host that fails every attempt is penalized compared to a healthy one.
+   */
+  private static final double ERROR_PENALTY = 10;
 
   /**
    * Store the actual observed host status.
@@ -29,14 +47,113 @@ public class GlobalHostStatusTracker {
    */
   public static void reportHostStatus(HostSpec hostSpec, HostStatus hostStatus) {
     long now = currentTimeMillis();
-    synchronized (hostStatusMap) {
-      HostSpecStatus hostSpecStatus = hostStatusMap.get(hostSpec);
-      if (hostSpecStatus == null) {
-        hostSpecStatus = new HostSpecStatus(hostSpec);
-        hostStatusMap.put(hostSpec, hostSpecStatus);
+    HostSpecStatus hostSpecStatus = getOrCreate(hostSpec);
+    boolean failed = hostStatus == HostStatus.ConnectFail;
+    hostSpecStatus.status = hostStatus;
+    hostSpecStatus.lastUpdated = now;
+    ewma(hostSpecStatus.errorRate, failed ? 1 : 0, false);
+    if (failed) {
+      // a failure is a sample too, otherwise a host that only fails would look unknown
+      hostSpecStatus.lastSampled = now;
+    }
+  }
+
+  /**
+   * Store the time it took to establish a connection to the host, including authentication and
+   * initial queries.
+   *
+   * @param hostSpec The host that was connected to.
+   * @param latencyNanos Connect latency in nanoseconds.
+   */
+  public static void reportConnectLatency(HostSpec hostSpec, long latencyNanos) {
+    long now = currentTimeMillis();
+    HostSpecStatus hostSpecStatus = getOrCreate(hostSpec);
+    ewma(hostSpecStatus.connectLatencyNanos, latencyNanos, true);
+    hostSpecStatus.lastSampled = now;
+  }
+
+  /**
+   * Store the outcome of a query execution against the host.
+   *
+   * @param hostSpec The host that executed the query.
+   * @param latencyNanos Time from sending the query until the results were processed.
+   * @param failed Whether the query failed because of a connection problem.
+   */
+  public static void reportQuery(HostSpec hostSpec, long latencyNanos, boolean failed) {
+    long now = currentTimeMillis();
+    HostSpecStatus hostSpecStatus = getOrCreate(hostSpec);
+    if (!failed) {
+      ewma(hostSpecStatus.queryLatencyNanos, latencyNanos, true);
+    }
+    ewma(hostSpecStatus.errorRate, failed ? 1 : 0, false);
+    hostSpecStatus.lastSampled = now;
+  }
+
+  /**
+   * Returns a load score for each of the given hosts; lower is better. The score grows with the
+   * connect and query latencies and with the error rate of the host. Hosts without samples newer
+   * than {@code hostRecheckMillis} get the best possible score, so they are probed again.
+   *
+   * @param hostSpecs The hosts to score.
+   * @param hostRecheckMillis How stale information is allowed.
+   * @return load scores in the order of {@code hostSpecs}.
+   */
+  static double[] getLoadScores(List<HostSpec> hostSpecs, long hostRecheckMillis) {
+    double[] scores = new double[hostSpecs.size()];
+    long latestAllowedSample = currentTimeMillis() - hostRecheckMillis;
+    for (int i = 0; i < scores.length; i++) {
+      HostSpecStatus hostInfo = hostStatusMap.get(hostSpecs.get(i));
+      if (hostInfo == null || hostInfo.lastSampled < latestAllowedSample) {
+        scores[i] = LATENCY_FLOOR_NANOS;
+      } else {
+        scores[i] = (LATENCY_FLOOR_NANOS + hostInfo.getConnectLatencyNanos()
+            + hostInfo.getQueryLatencyNanos()) * (1 + ERROR_PENALTY * hostInfo.getErrorRate());
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Returns what is known about every host, for monitoring.
+   *
+   * @return a snapshot of the status of the hosts
+   */
+  public static List<HostStatusInfo> getHostStatuses() {
+    List<HostStatusInfo> statuses = new ArrayList<HostStatusInfo>(hostStatusMap.size());
+    for (HostSpecStatus hostSpecStatus : hostStatusMap.values()) {
+      statuses.add(new HostStatusInfo(hostSpecStatus));
+    }
+    return statuses;
+  }
+
+  private static HostSpecStatus getOrCreate(HostSpec hostSpec) {
+    HostSpecStatus hostSpecStatus = hostStatusMap.get(hostSpec);
+    if (hostSpecStatus == null) {
+      hostSpecStatus = new HostSpecStatus(hostSpec);
+      HostSpecStatus existing = hostStatusMap.putIfAbsent(hostSpec, hostSpecStatus);
+      if (existing != null) {
+        hostSpecStatus = existing;
+      }
+    }
+    return hostSpecStatus;
+  }
+
+  /**
+   * Adds a sample to an exponentially weighted moving average, stored as the bits of a double.
+   *
+   * @param average the average to update
+   * @param sample the new sample
+   * @param latency true if the first sample is taken as is, otherwise new hosts would look
+   *        faster than they are
+   */
+  private static void ewma(AtomicLong average, double sample, boolean latency) {
+    while (true) {
+      long bits = average.get();
+      double value = Double.longBitsToDouble(bits);
+      double updated = latency && value == 0 ? sample : value + EWMA_WEIGHT * (sample - value);
+      if (average.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+        return;
       }
-      hostSpecStatus.status = hostStatus;
-      hostSpecStatus.lastUpdated = now;
     }
   }
 
@@ -52,15 +169,13 @@ public class GlobalHostStatusTracker {
       HostRequirement targetServerType, long hostRecheckMillis) {
     List<HostSpec> candidates = new ArrayList<HostSpec>(hostSpecs.length);
     long latestAllowedUpdate = currentTimeMillis() - hostRecheckMillis;
-    synchronized (hostStatusMap) {
-      for (HostSpec hostSpec : hostSpecs) {
-        HostSpecStatus hostInfo = hostStatusMap.get(hostSpec);
-        // candidates are nodes we do not know about and the nodes with correct type
-        if (hostInfo == null
-            || hostInfo.lastUpdated < latestAllowedUpdate
-            || targetServerType.allowConnectingTo(hostInfo.status)) {
-          candidates.add(hostSpec);
-        }
+    for (HostSpec hostSpec : hostSpecs) {
+      HostSpecStatus hostInfo = hostStatusMap.get(hostSpec);
+      // candidates are nodes we do not know about and the nodes with correct type
+      if (hostInfo == null
+          || hostInfo.lastUpdated < latestAllowedUpdate
+          || targetServerType.allowConnectingTo(hostInfo.status)) {
+        candidates.add(hostSpec);
       }
     }
     return candidates;
@@ -68,13 +183,30 @@ public class GlobalHostStatusTracker {
 
   static class HostSpecStatus {
     final HostSpec host;
-    HostStatus status;
-    long lastUpdated;
+    volatile HostStatus status;
+    volatile long lastUpdated;
+    // moving averages, as the bits of a double, 0L being 0.0
+    final AtomicLong connectLatencyNanos = new AtomicLong();
+    final AtomicLong queryLatencyNanos = new AtomicLong();
+    final AtomicLong errorRate = new AtomicLong();
+    volatile long lastSampled;
 
     HostSpecStatus(HostSpec host) {
       this.host = host;
     }
 
+    double getConnectLatencyNanos() {
+      return Double.longBitsToDouble(connectLatencyNanos.get());
+    }
+
+    double getQueryLatencyNanos() {
+      return Double.longBitsToDouble(queryLatencyNanos.get());
+    }
+
+    double getErrorRate() {
+      return Double.longBitsToDouble(errorRate.get());
+    }
+
     @Override
     public String toString() {
       return host.toString() + '=' + status;
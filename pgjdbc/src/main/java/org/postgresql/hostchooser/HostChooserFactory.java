@@ -5,8 +5,13 @@
 
 package org.postgresql.hostchooser;
 
+import org.postgresql.PGProperty;
 import org.postgresql.util.HostSpec;
+import org.postgresql.util.PSQLException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -16,9 +21,33 @@ public class HostChooserFactory {
 
   public static HostChooser createHostChooser(HostSpec[] hostSpecs,
       HostRequirement targetServerType, Properties info) {
+    HostSpec[] discoveredNodes = isNodeDiscoveryEnabled(info)
+        ? ClusterNodeDiscovery.getDiscoveredNodes(hostSpecs) : null;
+    if (discoveredNodes != null) {
+      // the seed hosts are kept as a fallback in case none of the discovered nodes is reachable
+      List<HostSpec> remainingSeeds = new ArrayList<HostSpec>(Arrays.asList(hostSpecs));
+      remainingSeeds.removeAll(Arrays.asList(discoveredNodes));
+      return new DiscoveredHostChooser(
+          createHostChooserFor(discoveredNodes, targetServerType, info),
+          remainingSeeds.isEmpty() ? null : createHostChooserFor(
+              remainingSeeds.toArray(new HostSpec[0]), targetServerType, info));
+    }
+    return createHostChooserFor(hostSpecs, targetServerType, info);
+  }
+
+  private static HostChooser createHostChooserFor(HostSpec[] hostSpecs,
+      HostRequirement targetServerType, Properties info) {
     if (hostSpecs.length == 1) {
       return new SingleHostChooser(hostSpecs[0], targetServerType);
     }
     return new MultiHostChooser(hostSpecs, targetServerType, info);
   }
+
+  private static boolean isNodeDiscoveryEnabled(Properties info) {
+    try {
+      return PGProperty.NODE_DISCOVERY_INTERVAL.getInt(info) > 0;
+    } catch (PSQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
 }
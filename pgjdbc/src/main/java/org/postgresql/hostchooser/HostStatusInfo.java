@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+/**
+ * Snapshot of what {@link GlobalHostStatusTracker} knows about a host, for monitoring.
+ */
+public class HostStatusInfo {
+  private final String host;
+  private final String status;
+  private final long lastUpdated;
+  private final double connectLatencyMillis;
+  private final double queryLatencyMillis;
+  private final double errorRate;
+
+  HostStatusInfo(GlobalHostStatusTracker.HostSpecStatus hostSpecStatus) {
+    this.host = hostSpecStatus.host.toString();
+    this.status = hostSpecStatus.status == null ? null : hostSpecStatus.status.name();
+    this.lastUpdated = hostSpecStatus.lastUpdated;
+    this.connectLatencyMillis = hostSpecStatus.getConnectLatencyNanos() / 1000000;
+    this.queryLatencyMillis = hostSpecStatus.getQueryLatencyNanos() / 1000000;
+    this.errorRate = hostSpecStatus.getErrorRate();
+  }
+
+  /**
+   * @return host and port
+   */
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * @return latest known {@link HostStatus}, null if no connection attempt was reported yet
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * @return time of the latest status update, in milliseconds since the epoch
+   */
+  public long getLastUpdated() {
+    return lastUpdated;
+  }
+
+  /**
+   * @return moving average of the connect latency, in milliseconds
+   */
+  public double getConnectLatencyMillis() {
+    return connectLatencyMillis;
+  }
+
+  /**
+   * @return moving average of the query latency, in milliseconds
+   */
+  public double getQueryLatencyMillis() {
+    return queryLatencyMillis;
+  }
+
+  /**
+   * @return moving average of the share of failed connects and queries, between 0 and 1
+   */
+  public double getErrorRate() {
+    return errorRate;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+/**
+ * <p>Specifies how {@link MultiHostChooser} orders the candidate hosts when
+ * {@code loadBalanceHosts} is enabled: random means a uniform shuffle, powerOfTwoChoices means
+ * picking the less loaded of two random candidates, based on the latencies and error rates
+ * recorded by {@link GlobalHostStatusTracker}.</p>
+ *
+ * @see org.postgresql.PGProperty#LOAD_BALANCE_STRATEGY
+ */
+public enum LoadBalanceStrategy {
+  RANDOM("random"),
+  POWER_OF_TWO_CHOICES("powerOfTwoChoices");
+
+  private final String value;
+
+  LoadBalanceStrategy(String value) {
+    this.value = value;
+  }
+
+  public static LoadBalanceStrategy of(String strategy) {
+    for (LoadBalanceStrategy loadBalanceStrategy : values()) {
+      if (loadBalanceStrategy.value.equals(strategy)) {
+        return loadBalanceStrategy;
+      }
+    }
+    return RANDOM;
+  }
+
+  public String value() {
+    return value;
+  }
+}
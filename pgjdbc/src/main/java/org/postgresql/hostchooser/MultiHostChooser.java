@@ -14,19 +14,22 @@ import org.postgresql.util.PSQLException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 
 /**
  * HostChooser that keeps track of known host statuses.
  */
 class MultiHostChooser implements HostChooser {
+  private static final Random RANDOM = new Random();
+
   private HostSpec[] hostSpecs;
   private final HostRequirement targetServerType;
   private int hostRecheckTime;
   private boolean loadBalance;
+  private LoadBalanceStrategy loadBalanceStrategy;
 
   MultiHostChooser(HostSpec[] hostSpecs, HostRequirement targetServerType,
       Properties info) {
@@ -35,6 +38,7 @@ class MultiHostChooser implements HostChooser {
     try {
       hostRecheckTime = PGProperty.HOST_RECHECK_SECONDS.getInt(info) * 1000;
       loadBalance = PGProperty.LOAD_BALANCE_HOSTS.getBoolean(info);
+      loadBalanceStrategy = LoadBalanceStrategy.of(PGProperty.LOAD_BALANCE_STRATEGY.get(info));
     } catch (PSQLException e) {
       throw new RuntimeException(e);
     }
@@ -47,8 +51,7 @@ class MultiHostChooser implements HostChooser {
       // In case all the candidate hosts are unavailable or do not match, try all the hosts just in case
       List<HostSpec> allHosts = Arrays.asList(hostSpecs);
       if (loadBalance) {
-        allHosts = new ArrayList<HostSpec>(allHosts);
-        Collections.shuffle(allHosts);
+        allHosts = balance(new ArrayList<HostSpec>(allHosts));
       }
       res = withReqStatus(targetServerType, allHosts).iterator();
     }
@@ -88,11 +91,53 @@ class MultiHostChooser implements HostChooser {
     List<HostSpec> candidates =
         GlobalHostStatusTracker.getCandidateHosts(hostSpecs, hostRequirement, hostRecheckTime);
     if (loadBalance) {
-      shuffle(candidates);
+      candidates = balance(candidates);
     }
     return withReqStatus(hostRequirement, candidates);
   }
 
+  private List<HostSpec> balance(List<HostSpec> hosts) {
+    if (loadBalanceStrategy == LoadBalanceStrategy.POWER_OF_TWO_CHOICES) {
+      return orderByPowerOfTwoChoices(hosts,
+          GlobalHostStatusTracker.getLoadScores(hosts, hostRecheckTime), RANDOM);
+    }
+    shuffle(hosts);
+    return hosts;
+  }
+
+  /**
+   * Orders the hosts by repeatedly picking two random hosts out of the remaining ones and taking
+   * the one with the lower load score. A slow host is thus rarely tried first, while the load
+   * is still spread over all the hosts that perform alike.
+   *
+   * @param hosts hosts to order
+   * @param scores load score of each host, lower is better
+   * @param random source of randomness
+   * @return the hosts in the order they should be tried
+   */
+  static List<HostSpec> orderByPowerOfTwoChoices(List<HostSpec> hosts, double[] scores,
+      Random random) {
+    List<HostSpec> remaining = new ArrayList<HostSpec>(hosts);
+    List<Double> remainingScores = new ArrayList<Double>(scores.length);
+    for (double score : scores) {
+      remainingScores.add(score);
+    }
+
+    List<HostSpec> ordered = new ArrayList<HostSpec>(hosts.size());
+    while (remaining.size() > 1) {
+      int first = random.nextInt(remaining.size());
+      int second = random.nextInt(remaining.size() - 1);
+      if (second >= first) {
+        second++;
+      }
+      int chosen = remainingScores.get(second) < remainingScores.get(first) ? second : first;
+      ordered.add(remaining.remove(chosen));
+      remainingScores.remove(chosen);
+    }
+    ordered.addAll(remaining);
+    return ordered;
+  }
+
   private List<CandidateHost> withReqStatus(final HostRequirement requirement, final List<HostSpec> hosts) {
     return new AbstractList<CandidateHost>() {
       @Override
@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.util.ByteConverter;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+//#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+//#endif
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>Encodes Java arrays and collections in the binary array format of the backend: the number of
+ * dimensions, a flag telling whether there are null elements, the element oid, the length and
+ * lower bound of each dimension and then the length and the bytes of each element.</p>
+ *
+ * <p>Arrays of arrays and collections of collections are multi-dimensional arrays. The size of
+ * the result is computed first, so the elements are written into a single byte array of the exact
+ * size, without an intermediate text literal.</p>
+ */
+final class ArrayEncoding {
+  // MAXDIM of the backend
+  private static final int MAX_DIMENSIONS = 6;
+
+  private static final Map<Class<?>, Element> ELEMENTS = new HashMap<Class<?>, Element>();
+
+  /**
+   * Encodes the elements of one Java type.
+   */
+  private abstract static class Element {
+    final Class<?> type;
+    final int oid;
+    final int arrayOid;
+
+    Element(Class<?> type, int oid, int arrayOid) {
+      this.type = type;
+      this.oid = oid;
+      this.arrayOid = arrayOid;
+    }
+
+    /**
+     * @param arrayOid the oid of the array to encode
+     * @return the oid of the elements of the array, or {@link Oid#UNSPECIFIED} if the elements
+     *         cannot be encoded as that array
+     */
+    int getOid(int arrayOid) {
+      return arrayOid == this.arrayOid ? oid : Oid.UNSPECIFIED;
+    }
+
+    /**
+     * @param encoding the encoding in progress
+     * @param value a non null value
+     * @return the number of bytes of the value
+     */
+    abstract int length(ArrayEncoding encoding, Object value);
+
+    /**
+     * Writes the value into the bytes of the encoding.
+     *
+     * @param encoding the encoding in progress
+     * @param value a non null value
+     * @param idx the index to write at
+     * @return the number of bytes written
+     * @throws SQLException if the value is out of the range of the element type
+     */
+    abstract int write(ArrayEncoding encoding, Object value, int idx) throws SQLException;
+  }
+
+  /**
+   * Encodes elements of a fixed size.
+   */
+  private abstract static class FixedElement extends Element {
+    private final int size;
+
+    FixedElement(Class<?> type, int oid, int arrayOid, int size) {
+      super(type, oid, arrayOid);
+      this.size = size;
+    }
+
+    @Override
+    int length(ArrayEncoding encoding, Object value) {
+      return size;
+    }
+
+    @Override
+    int write(ArrayEncoding encoding, Object value, int idx) throws SQLException {
+      writeFixed(encoding, value, idx);
+      return size;
+    }
+
+    abstract void writeFixed(ArrayEncoding encoding, Object value, int idx) throws SQLException;
+  }
+
+  private static void register(Element element, Class<?> primitiveType) {
+    ELEMENTS.put(element.type, element);
+    if (primitiveType != null) {
+      ELEMENTS.put(primitiveType, element);
+    }
+  }
+
+  static {
+    register(new FixedElement(Long.class, Oid.INT8, Oid.INT8_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.int8(encoding.bytes, idx, (Long) value);
+      }
+    }, long.class);
+    register(new FixedElement(Integer.class, Oid.INT4, Oid.INT4_ARRAY, 4) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.int4(encoding.bytes, idx, (Integer) value);
+      }
+    }, int.class);
+    register(new FixedElement(Short.class, Oid.INT2, Oid.INT2_ARRAY, 2) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.int2(encoding.bytes, idx, (Short) value);
+      }
+    }, short.class);
+    register(new FixedElement(Double.class, Oid.FLOAT8, Oid.FLOAT8_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.float8(encoding.bytes, idx, (Double) value);
+      }
+    }, double.class);
+    register(new FixedElement(Float.class, Oid.FLOAT4, Oid.FLOAT4_ARRAY, 4) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.float4(encoding.bytes, idx, (Float) value);
+      }
+    }, float.class);
+    register(new FixedElement(Boolean.class, Oid.BOOL, Oid.BOOL_ARRAY, 1) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        ByteConverter.bool(encoding.bytes, idx, (Boolean) value);
+      }
+    }, boolean.class);
+    register(new FixedElement(UUID.class, Oid.UUID, Oid.UUID_ARRAY, 16) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        UUID uuid = (UUID) value;
+        ByteConverter.int8(encoding.bytes, idx, uuid.getMostSignificantBits());
+        ByteConverter.int8(encoding.bytes, idx + 8, uuid.getLeastSignificantBits());
+      }
+    }, null);
+    register(new Element(String.class, Oid.VARCHAR, Oid.VARCHAR_ARRAY) {
+      @Override
+      int getOid(int arrayOid) {
+        return arrayOid == Oid.TEXT_ARRAY ? Oid.TEXT : super.getOid(arrayOid);
+      }
+
+      @Override
+      int length(ArrayEncoding encoding, Object value) {
+        return utf8Length((String) value);
+      }
+
+      @Override
+      int write(ArrayEncoding encoding, Object value, int idx) {
+        return writeUtf8(encoding.bytes, idx, (String) value) - idx;
+      }
+    }, null);
+    register(new FixedElement(Timestamp.class, Oid.TIMESTAMPTZ, Oid.TIMESTAMPTZ_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) throws SQLException {
+        encoding.timestampUtils().toBinTimestamp(encoding.scratch, (Timestamp) value);
+        encoding.copyScratch(idx, 8);
+      }
+    }, null);
+    //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
+    register(new FixedElement(Instant.class, Oid.TIMESTAMPTZ, Oid.TIMESTAMPTZ_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) throws SQLException {
+        encoding.timestampUtils().toBinTimestamp(encoding.scratch, (Instant) value);
+        encoding.copyScratch(idx, 8);
+      }
+    }, null);
+    register(new FixedElement(OffsetDateTime.class, Oid.TIMESTAMPTZ, Oid.TIMESTAMPTZ_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) throws SQLException {
+        encoding.timestampUtils().toBinTimestamp(encoding.scratch, (OffsetDateTime) value);
+        encoding.copyScratch(idx, 8);
+      }
+    }, null);
+    register(new FixedElement(LocalDateTime.class, Oid.TIMESTAMP, Oid.TIMESTAMP_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) throws SQLException {
+        encoding.timestampUtils().toBinTimestamp(encoding.scratch, (LocalDateTime) value);
+        encoding.copyScratch(idx, 8);
+      }
+    }, null);
+    register(new FixedElement(LocalDate.class, Oid.DATE, Oid.DATE_ARRAY, 4) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        encoding.timestampUtils().toBinDate(encoding.scratch, (LocalDate) value);
+        encoding.copyScratch(idx, 4);
+      }
+    }, null);
+    register(new FixedElement(LocalTime.class, Oid.TIME, Oid.TIME_ARRAY, 8) {
+      @Override
+      void writeFixed(ArrayEncoding encoding, Object value, int idx) {
+        encoding.timestampUtils().toBinTime(encoding.scratch, (LocalTime) value);
+        encoding.copyScratch(idx, 8);
+      }
+    }, null);
+    //#endif
+  }
+
+  private final BaseConnection connection;
+  private final Element element;
+  private final int[] dimensions = new int[MAX_DIMENSIONS];
+  private int dimensionCount;
+  private boolean hasNulls;
+  private byte[] bytes;
+  // the java.time and timestamp conversions write into their own array
+  private final byte[] scratch = new byte[8];
+
+  private ArrayEncoding(BaseConnection connection, Element element) {
+    this.connection = connection;
+    this.element = element;
+  }
+
+  /**
+   * Returns the oid of the binary array that holds the elements of the given array or collection.
+   *
+   * @param array an array or a collection, possibly nested
+   * @return the array oid, or {@link Oid#UNSPECIFIED} if the elements have no binary encoding
+   */
+  static int getArrayOid(Object array) {
+    Element element = getElement(toArray(array));
+    return element == null ? Oid.UNSPECIFIED : element.arrayOid;
+  }
+
+  /**
+   * Encodes the given array or collection as a binary array of the given oid.
+   *
+   * @param connection the connection the array is sent on
+   * @param array an array or a collection, possibly nested
+   * @param arrayOid the oid of the array type
+   * @return the binary array, or null if the array cannot be encoded as that type: its elements
+   *         are not all of the element type, its sub arrays differ in length, it has too many
+   *         dimensions or it holds strings and the connection does not use UTF-8
+   * @throws SQLException if an element is out of the range of the element type
+   */
+  static byte[] toBinaryRepresentation(BaseConnection connection, Object array, int arrayOid)
+      throws SQLException {
+    array = toArray(array);
+    Element element = getElement(array);
+    if (element == null) {
+      return null;
+    }
+    int oid = element.getOid(arrayOid);
+    if (oid == Oid.UNSPECIFIED
+        || (element.type == String.class && !"UTF-8".equals(connection.getEncoding().name()))) {
+      return null;
+    }
+
+    ArrayEncoding encoding = new ArrayEncoding(connection, element);
+    if (!encoding.measure(array)) {
+      return null;
+    }
+    int header = 12 + 8 * encoding.dimensionCount;
+    int length = encoding.length(array, 0);
+    if (length < 0) {
+      return null;
+    }
+    encoding.bytes = new byte[header + length];
+    encoding.write(array, 0, header);
+
+    byte[] bytes = encoding.bytes;
+    ByteConverter.int4(bytes, 0, encoding.dimensionCount);
+    ByteConverter.int4(bytes, 4, encoding.hasNulls ? 1 : 0);
+    ByteConverter.int4(bytes, 8, oid);
+    for (int i = 0; i < encoding.dimensionCount; i++) {
+      ByteConverter.int4(bytes, 12 + 8 * i, encoding.dimensions[i]);
+      // lower bound
+      ByteConverter.int4(bytes, 16 + 8 * i, 1);
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the given value with its collections, and those nested in them, turned into arrays.
+   */
+  private static Object toArray(Object value) {
+    if (!(value instanceof Collection)) {
+      return value;
+    }
+    Object[] values = ((Collection<?>) value).toArray();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] instanceof Collection) {
+        values[i] = toArray(values[i]);
+      }
+    }
+    return values;
+  }
+
+  private static boolean isArray(Object value) {
+    return value != null && value.getClass().isArray();
+  }
+
+  private static int length(Object array) {
+    return array instanceof Object[] ? ((Object[]) array).length
+        : java.lang.reflect.Array.getLength(array);
+  }
+
+  private static Object get(Object array, int index) {
+    return array instanceof Object[] ? ((Object[]) array)[index]
+        : java.lang.reflect.Array.get(array, index);
+  }
+
+  /**
+   * Returns the encoder of the elements of the given array: the one of its component type, or the
+   * one of the type of its first non null element when the component type is not specific.
+   */
+  private static Element getElement(Object array) {
+    if (!isArray(array)) {
+      return null;
+    }
+    Class<?> type = array.getClass();
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    Element element = ELEMENTS.get(type);
+    if (element != null) {
+      return element;
+    }
+    Object value = firstElement(array);
+    for (type = value == null ? null : value.getClass(); type != null;
+        type = type.getSuperclass()) {
+      element = ELEMENTS.get(type);
+      if (element != null) {
+        return element;
+      }
+    }
+    return null;
+  }
+
+  private static Object firstElement(Object array) {
+    int length = length(array);
+    for (int i = 0; i < length; i++) {
+      Object value = get(array, i);
+      if (isArray(value)) {
+        value = firstElement(value);
+      }
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the dimensions of the array by following its first elements.
+   *
+   * @return false if the array has too many dimensions
+   */
+  private boolean measure(Object array) {
+    while (true) {
+      if (dimensionCount == MAX_DIMENSIONS) {
+        return false;
+      }
+      int length = length(array);
+      dimensions[dimensionCount++] = length;
+      if (length == 0) {
+        // an empty array has no dimensions
+        dimensionCount = dimensionCount == 1 ? 0 : dimensionCount;
+        return dimensionCount == 0;
+      }
+      Object first = get(array, 0);
+      if (!isArray(first)) {
+        return true;
+      }
+      array = first;
+    }
+  }
+
+  /**
+   * @return the number of bytes of the elements of the array at the given dimension, or -1 if it
+   *         does not have the measured shape or holds values of another type
+   */
+  private int length(Object array, int dimension) {
+    if (dimensionCount == 0) {
+      return 0;
+    }
+    int count = dimensions[dimension];
+    if (!isArray(array) || length(array) != count) {
+      return -1;
+    }
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      Object value = get(array, i);
+      int valueLength;
+      if (dimension < dimensionCount - 1) {
+        valueLength = length(value, dimension + 1);
+      } else if (value == null) {
+        valueLength = 4;
+      } else if (element.type.isInstance(value)) {
+        valueLength = 4 + element.length(this, value);
+      } else {
+        valueLength = -1;
+      }
+      if (valueLength < 0) {
+        return -1;
+      }
+      length += valueLength;
+    }
+    return length;
+  }
+
+  /**
+   * Writes the elements of the array at the given dimension.
+   *
+   * @return the index after the elements
+   */
+  private int write(Object array, int dimension, int idx) throws SQLException {
+    if (dimensionCount == 0) {
+      return idx;
+    }
+    int count = dimensions[dimension];
+    for (int i = 0; i < count; i++) {
+      Object value = get(array, i);
+      if (dimension < dimensionCount - 1) {
+        idx = write(value, dimension + 1, idx);
+      } else if (value == null) {
+        ByteConverter.int4(bytes, idx, -1);
+        hasNulls = true;
+        idx += 4;
+      } else {
+        int length = element.write(this, value, idx + 4);
+        ByteConverter.int4(bytes, idx, length);
+        idx += 4 + length;
+      }
+    }
+    return idx;
+  }
+
+  private TimestampUtils timestampUtils() {
+    return connection.getTimestampUtils();
+  }
+
+  private void copyScratch(int idx, int length) {
+    System.arraycopy(scratch, 0, bytes, idx, length);
+  }
+
+  /**
+   * Returns the number of bytes of the string in UTF-8, an unpaired surrogate is encoded as '?'
+   * like {@link String#getBytes(java.nio.charset.Charset)} does.
+   */
+  static int utf8Length(String s) {
+    int length = s.length();
+    int bytes = length;
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        continue;
+      }
+      if (c < 0x800) {
+        bytes += 1;
+      } else if (!Character.isSurrogate(c)) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        // two chars, four bytes
+        bytes += 2;
+        i++;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Writes the string in UTF-8.
+   *
+   * @return the index after the string
+   */
+  static int writeUtf8(byte[] bytes, int idx, String s) {
+    int length = s.length();
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        bytes[idx++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[idx++] = (byte) (0xC0 | (c >> 6));
+        bytes[idx++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        bytes[idx++] = (byte) (0xE0 | (c >> 12));
+        bytes[idx++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[idx++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, s.charAt(++i));
+        bytes[idx++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[idx++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[idx++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[idx++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else {
+        bytes[idx++] = '?';
+      }
+    }
+    return idx;
+  }
+}
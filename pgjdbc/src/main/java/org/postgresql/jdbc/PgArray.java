@@ -10,6 +10,7 @@ import org.postgresql.core.BaseStatement;
 import org.postgresql.core.Encoding;
 import org.postgresql.core.Field;
 import org.postgresql.core.Oid;
+import org.postgresql.core.TypeInfo;
 import org.postgresql.jdbc2.ArrayAssistant;
 import org.postgresql.jdbc2.ArrayAssistantRegistry;
 import org.postgresql.util.ByteConverter;
@@ -176,6 +177,13 @@ public class PgArray implements java.sql.Array {
       }
     }
 
+    if (index == 1 && count == 0) {
+      Object array = parseArray();
+      if (array != null) {
+        return array;
+      }
+    }
+
     buildArrayList();
 
     if (count == 0) {
@@ -417,6 +425,18 @@ public class PgArray implements java.sql.Array {
     }
   }
 
+  /**
+   * Parse the whole array from field's string input without building {@link #arrayList}.
+   *
+   * @return the array, or null if it has to be built from {@link #arrayList}
+   */
+  private Object parseArray() throws SQLException {
+    TypeInfo typeInfo = connection.getTypeInfo();
+    int type = oid == Oid.JSONB_ARRAY ? Types.VARCHAR
+        : typeInfo.getSQLType(typeInfo.getPGArrayElement(oid));
+    return TextArrayParser.parse(fieldString, typeInfo.getArrayDelimiter(oid), type);
+  }
+
   /**
    * Build {@link ArrayList} from field's string input. As a result of this method
    * {@link #arrayList} is build. Method can be called many times in order to make sure that array
@@ -26,9 +26,14 @@ import org.postgresql.core.TypeInfo;
 import org.postgresql.core.Utils;
 import org.postgresql.core.Version;
 import org.postgresql.fastpath.Fastpath;
+import org.postgresql.jmx.DriverMBeans;
 import org.postgresql.largeobject.LargeObjectManager;
+import org.postgresql.monitoring.StatementStatistics;
+import org.postgresql.monitoring.StatementStatisticsCollector;
+import org.postgresql.reactive.RowPublisher;
 import org.postgresql.replication.PGReplicationConnection;
 import org.postgresql.replication.PGReplicationConnectionImpl;
+import org.postgresql.routing.ShardRouter;
 import org.postgresql.util.GT;
 import org.postgresql.util.HostSpec;
 import org.postgresql.util.LruCache;
@@ -62,9 +67,11 @@ import java.sql.Statement;
 import java.sql.Struct;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -77,6 +84,7 @@ import java.util.TimerTask;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.ObjectName;
 
 public class PgConnection implements BaseConnection {
 
@@ -85,6 +93,11 @@ public class PgConnection implements BaseConnection {
   private static final SQLPermission SQL_PERMISSION_ABORT = new SQLPermission("callAbort");
   private static final SQLPermission SQL_PERMISSION_NETWORK_TIMEOUT = new SQLPermission("setNetworkTimeout");
 
+  // Arrays that are sent in binary, but received in text format as PgArray cannot decode them
+  private static final Set<Integer> BINARY_SEND_ONLY_OIDS = new HashSet<Integer>(Arrays.asList(
+      Oid.BOOL_ARRAY, Oid.UUID_ARRAY, Oid.DATE_ARRAY, Oid.TIME_ARRAY, Oid.TIMESTAMP_ARRAY,
+      Oid.TIMESTAMPTZ_ARRAY));
+
   //
   // Data initialized on construction:
   //
@@ -119,6 +132,21 @@ public class PgConnection implements BaseConnection {
    */
   protected int defaultFetchSize;
 
+  /**
+   * @see PGProperty#PREFETCH_THRESHOLD
+   */
+  private final int prefetchThreshold;
+
+  /**
+   * @see PGProperty#AUTO_COMMIT_STREAMING
+   */
+  private final boolean autoCommitStreaming;
+
+  /**
+   * @see PGProperty#SERVER_SCROLLABLE_CURSORS
+   */
+  private final boolean serverScrollableCursors;
+
   // Default forcebinary option.
   protected boolean forcebinary = false;
 
@@ -148,6 +176,17 @@ public class PgConnection implements BaseConnection {
 
   private final LruCache<FieldMetadata.Key, FieldMetadata> fieldMetadataCache;
 
+  /**
+   * Routes single shard statements to the node holding the shard, null unless
+   * shardRoutingInterval is set.
+   */
+  private final ShardRouter shardRouter;
+
+  /**
+   * Name of the MBean of this connection, null unless registerMbeans is set.
+   */
+  private ObjectName mbeanName;
+
   final CachedQuery borrowQuery(String sql) throws SQLException {
     return queryExecutor.borrowQuery(sql);
   }
@@ -197,6 +236,16 @@ public class PgConnection implements BaseConnection {
 
     setDefaultFetchSize(PGProperty.DEFAULT_ROW_FETCH_SIZE.getInt(info));
 
+    autoCommitStreaming = PGProperty.AUTO_COMMIT_STREAMING.getBoolean(info);
+    serverScrollableCursors = PGProperty.SERVER_SCROLLABLE_CURSORS.getBoolean(info);
+    prefetchThreshold = PGProperty.PREFETCH_THRESHOLD.getInt(info);
+    if (prefetchThreshold < 0 || prefetchThreshold > 100) {
+      throw new PSQLException(
+          GT.tr("The prefetch threshold must be a percentage between 0 and 100: {0}.",
+              prefetchThreshold),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+
     setPrepareThreshold(PGProperty.PREPARE_THRESHOLD.getInt(info));
     if (prepareThreshold == -1) {
       setForceBinary(true);
@@ -223,15 +272,10 @@ public class PgConnection implements BaseConnection {
 
     // split for receive and send for better control
     Set<Integer> useBinarySendForOids = new HashSet<Integer>(binaryOids);
+    useBinarySendForOids.addAll(getBinarySendOnlyOids(info));
 
     Set<Integer> useBinaryReceiveForOids = new HashSet<Integer>(binaryOids);
 
-    /*
-     * Does not pass unit tests because unit tests expect setDate to have millisecond accuracy
-     * whereas the binary transfer only supports date accuracy.
-     */
-    useBinarySendForOids.remove(Oid.DATE);
-
     queryExecutor.setBinaryReceiveOids(useBinaryReceiveForOids);
     queryExecutor.setBinarySendOids(useBinarySendForOids);
 
@@ -305,6 +349,45 @@ public class PgConnection implements BaseConnection {
         false);
 
     replicationConnection = PGProperty.REPLICATION.get(info) != null;
+
+    shardRouter = replicationConnection ? null : createShardRouter(hostSpecs, user, database, info,
+        useBinaryReceiveForOids, useBinarySendForOids);
+
+    if (PGProperty.REGISTER_MBEANS.getBoolean(info)) {
+      mbeanName = DriverMBeans.registerConnection(this);
+    }
+  }
+
+  private ShardRouter createShardRouter(HostSpec[] hostSpecs, final String user,
+      final String database, Properties info, final Set<Integer> binaryReceiveOids,
+      final Set<Integer> binarySendOids) throws SQLException {
+    int shardRoutingInterval = PGProperty.SHARD_ROUTING_INTERVAL.getInt(info);
+    if (shardRoutingInterval <= 0) {
+      return null;
+    }
+
+    // connections to the other nodes neither route nor discover nodes themselves
+    final Properties nodeInfo = new Properties(info);
+    PGProperty.SHARD_ROUTING_INTERVAL.set(nodeInfo, 0);
+    PGProperty.NODE_DISCOVERY_INTERVAL.set(nodeInfo, 0);
+
+    String defaultSchema = "doc";
+    String currentSchema = PGProperty.CURRENT_SCHEMA.get(info);
+    if (currentSchema != null && !currentSchema.trim().isEmpty()) {
+      defaultSchema = currentSchema.split(",")[0].trim();
+    }
+
+    return new ShardRouter(hostSpecs, defaultSchema, queryExecutor, shardRoutingInterval * 1000L,
+        PGProperty.HOST_RECHECK_SECONDS.getInt(info) * 1000L, new ShardRouter.NodeConnector() {
+          @Override
+          public QueryExecutor connect(HostSpec node) throws SQLException {
+            QueryExecutor nodeExecutor = ConnectionFactory.openConnection(new HostSpec[]{node},
+                user, database, nodeInfo);
+            nodeExecutor.setBinaryReceiveOids(binaryReceiveOids);
+            nodeExecutor.setBinarySendOids(binarySendOids);
+            return nodeExecutor;
+          }
+        });
   }
 
   private static Set<Integer> getBinaryOids(Properties info) throws PSQLException {
@@ -340,6 +423,15 @@ public class PgConnection implements BaseConnection {
     return binaryOids;
   }
 
+  private static Set<Integer> getBinarySendOnlyOids(Properties info) throws PSQLException {
+    Set<Integer> oids = new HashSet<Integer>();
+    if (PGProperty.BINARY_TRANSFER.getBoolean(info)) {
+      oids.addAll(BINARY_SEND_ONLY_OIDS);
+    }
+    oids.removeAll(getOidSet(PGProperty.BINARY_TRANSFER_DISABLE.get(info)));
+    return oids;
+  }
+
   private static Set<Integer> getOidSet(String oidList) throws PSQLException {
     Set<Integer> oids = new HashSet<Integer>();
     StringTokenizer tokenizer = new StringTokenizer(oidList, ",");
@@ -401,6 +493,11 @@ public class PgConnection implements BaseConnection {
     return queryExecutor;
   }
 
+  @Override
+  public ShardRouter getShardRouter() {
+    return shardRouter;
+  }
+
   public ReplicationProtocol getReplicationProtocol() {
     return queryExecutor.getReplicationProtocol();
   }
@@ -679,6 +776,13 @@ public class PgConnection implements BaseConnection {
       return;
     }
     releaseTimer();
+    if (shardRouter != null) {
+      shardRouter.close();
+    }
+    if (mbeanName != null) {
+      DriverMBeans.unregister(mbeanName);
+      mbeanName = null;
+    }
     queryExecutor.close();
     openStackTrace = null;
   }
@@ -1168,6 +1272,32 @@ public class PgConnection implements BaseConnection {
     return new PGReplicationConnectionImpl(this);
   }
 
+  @Override
+  public List<StatementStatistics> getStatementStatistics() {
+    return StatementStatisticsCollector.getInstance().getStatistics();
+  }
+
+  @Override
+  public boolean isAutoCommitStreaming() {
+    return autoCommitStreaming;
+  }
+
+  @Override
+  public boolean isServerScrollableCursors() {
+    return serverScrollableCursors;
+  }
+
+  @Override
+  public int getPrefetchThreshold() {
+    return prefetchThreshold;
+  }
+
+  @Override
+  public RowPublisher createRowPublisher(String sql, Object... parameters) throws SQLException {
+    checkClosed();
+    return new RowPublisher(this, sql, parameters);
+  }
+
   private static void appendArray(StringBuilder sb, Object elements, char delim) {
     sb.append('{');
 
@@ -1321,6 +1451,11 @@ public class PgConnection implements BaseConnection {
       return makeArray(oid, null);
     }
 
+    byte[] binaryArray = toBinaryArray(oid, elements);
+    if (binaryArray != null) {
+      return new PgArray(this, oid, binaryArray);
+    }
+
     final String arrayString;
 
     final PrimitiveArraySupport arraySupport = PrimitiveArraySupport.getArraySupport(elements);
@@ -1376,6 +1511,11 @@ public class PgConnection implements BaseConnection {
       return makeArray(oid, null);
     }
 
+    byte[] binaryArray = toBinaryArray(oid, elements);
+    if (binaryArray != null) {
+      return new PgArray(this, oid, binaryArray);
+    }
+
     char delim = getTypeInfo().getArrayDelimiter(oid);
     StringBuilder sb = new StringBuilder();
     appendArray(sb, elements, delim);
@@ -1383,6 +1523,18 @@ public class PgConnection implements BaseConnection {
     return makeArray(oid, sb.toString());
   }
 
+  /**
+   * Returns the binary representation of the elements if arrays of the given oid are sent in
+   * binary and {@link PgArray} can read them back in binary.
+   */
+  private byte[] toBinaryArray(int oid, Object elements) throws SQLException {
+    if (getPreferQueryMode() == PreferQueryMode.SIMPLE || !binaryTransferSend(oid)
+        || BINARY_SEND_ONLY_OIDS.contains(oid)) {
+      return null;
+    }
+    return ArrayEncoding.toBinaryRepresentation(this, elements, oid);
+  }
+
   private PGobject objectToPGObject(Object object) throws JsonProcessingException, SQLException {
     PGobject pgObject = new PGobject();
     pgObject.setType("json");
@@ -58,13 +58,16 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 //#endif
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
@@ -310,6 +313,18 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   }
 
   public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+    if (x != null && connection.binaryTransferSend(Oid.NUMERIC)) {
+      checkClosed();
+      byte[] val;
+      try {
+        val = ByteConverter.numeric(x);
+      } catch (IllegalArgumentException e) {
+        throw new PSQLException(GT.tr("Bad value for type {0} : {1}", "BigDecimal", x),
+            PSQLState.NUMERIC_VALUE_OUT_OF_RANGE, e);
+      }
+      bindBytes(parameterIndex, val, Oid.NUMERIC);
+      return;
+    }
     setNumber(parameterIndex, x);
   }
 
@@ -597,6 +612,8 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
       case Types.TIMESTAMP_WITH_TIMEZONE:
         if (in instanceof OffsetDateTime) {
           setTimestamp(parameterIndex, (OffsetDateTime) in);
+        } else if (in instanceof Instant) {
+          setTimestamp(parameterIndex, (Instant) in);
         } else if (in instanceof PGTimestamp) {
           setObject(parameterIndex, in);
         } else {
@@ -642,6 +659,9 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
       case Types.ARRAY:
         if (in instanceof Array) {
           setArray(parameterIndex, (Array) in);
+        } else if ((in instanceof Object[] || in instanceof Collection)
+            && setObjectArray(parameterIndex, in)) {
+          // bound in binary format
         } else if (PrimitiveArraySupport.isSupportedPrimitiveArray(in)) {
           setPrimitiveArray(parameterIndex, in);
         } else {
@@ -684,6 +704,26 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
     }
   }
 
+  /**
+   * Binds an array or a collection, possibly nested, as a binary array of the type of its
+   * elements.
+   *
+   * @return false if the array is not sent in binary format
+   */
+  private boolean setObjectArray(int parameterIndex, Object in) throws SQLException {
+    int oid = ArrayEncoding.getArrayOid(in);
+    if (oid == Oid.UNSPECIFIED || !connection.binaryTransferSend(oid)
+        || connection.getPreferQueryMode() == PreferQueryMode.SIMPLE) {
+      return false;
+    }
+    byte[] bytes = ArrayEncoding.toBinaryRepresentation(connection, in, oid);
+    if (bytes == null) {
+      return false;
+    }
+    bindBytes(parameterIndex, bytes, oid);
+    return true;
+  }
+
   private static String asString(final Clob in) throws SQLException {
     return in.getSubString(1, (int) in.length());
   }
@@ -940,11 +980,16 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
       setTimestamp(parameterIndex, (LocalDateTime) x);
     } else if (x instanceof OffsetDateTime) {
       setTimestamp(parameterIndex, (OffsetDateTime) x);
+    } else if (x instanceof Instant) {
+      setTimestamp(parameterIndex, (Instant) x);
       //#endif
     } else if (x instanceof Map) {
       setMap(parameterIndex, (Map<?, ?>) x);
     } else if (x instanceof Number) {
       setNumber(parameterIndex, (Number) x);
+    } else if ((x instanceof Object[] || x instanceof Collection)
+        && setObjectArray(parameterIndex, x)) {
+      // bound in binary format
     } else if (PrimitiveArraySupport.isSupportedPrimitiveArray(x)) {
       setPrimitiveArray(parameterIndex, x);
     } else {
@@ -1244,14 +1289,8 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
       return;
     }
 
-    if (connection.binaryTransferSend(Oid.DATE)) {
-      byte[] val = new byte[4];
-      TimeZone tz = cal != null ? cal.getTimeZone() : null;
-      connection.getTimestampUtils().toBinDate(tz, val, d);
-      preparedParameters.setBinaryParameter(i, val, Oid.DATE);
-      return;
-    }
-
+    // A java.sql.Date is always sent in text format, since it must keep its milliseconds when it
+    // is bound to a timestamp.
     // We must use UNSPECIFIED here, or inserting a Date-with-timezone into a
     // timestamptz field does an unexpected rotation by the server's TimeZone:
     //
@@ -1324,6 +1363,17 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
         cal = pgTimestamp.getCalendar();
       }
     }
+    // The binary format carries the instant, so the calendar does not matter. A timestamp without
+    // an explicit type is bound as timestamptz; binaryTransferDisable=TIMESTAMPTZ restores the
+    // text format below.
+    int binaryOid = oid == Oid.TIMESTAMP ? Oid.TIMESTAMP : Oid.TIMESTAMPTZ;
+    if (connection.binaryTransferSend(binaryOid)) {
+      byte[] val = new byte[8];
+      connection.getTimestampUtils().toBinTimestamp(val, t);
+      bindBytes(i, val, binaryOid);
+      return;
+    }
+
     if (cal == null) {
       cal = getDefaultCalendar();
     }
@@ -1333,23 +1383,58 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
   private void setDate(int i, LocalDate localDate) throws SQLException {
     int oid = Oid.DATE;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[4];
+      connection.getTimestampUtils().toBinDate(val, localDate);
+      bindBytes(i, val, oid);
+      return;
+    }
     bindString(i, connection.getTimestampUtils().toString(localDate), oid);
   }
 
   private void setTime(int i, LocalTime localTime) throws SQLException {
     int oid = Oid.TIME;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[8];
+      connection.getTimestampUtils().toBinTime(val, localTime);
+      bindBytes(i, val, oid);
+      return;
+    }
     bindString(i, connection.getTimestampUtils().toString(localTime), oid);
   }
 
   private void setTimestamp(int i, LocalDateTime localDateTime) throws SQLException {
     int oid = Oid.TIMESTAMP;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[8];
+      connection.getTimestampUtils().toBinTimestamp(val, localDateTime);
+      bindBytes(i, val, oid);
+      return;
+    }
     bindString(i, connection.getTimestampUtils().toString(localDateTime), oid);
   }
 
   private void setTimestamp(int i, OffsetDateTime offsetDateTime) throws SQLException {
     int oid = Oid.TIMESTAMPTZ;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[8];
+      connection.getTimestampUtils().toBinTimestamp(val, offsetDateTime);
+      bindBytes(i, val, oid);
+      return;
+    }
     bindString(i, connection.getTimestampUtils().toString(offsetDateTime), oid);
   }
+
+  private void setTimestamp(int i, Instant instant) throws SQLException {
+    int oid = Oid.TIMESTAMPTZ;
+    if (connection.binaryTransferSend(oid)) {
+      byte[] val = new byte[8];
+      connection.getTimestampUtils().toBinTimestamp(val, instant);
+      bindBytes(i, val, oid);
+      return;
+    }
+    bindString(i, connection.getTimestampUtils().toString(instant.atOffset(ZoneOffset.UTC)), oid);
+  }
   //#endif
 
   public ParameterMetaData createParameterMetaData(BaseConnection conn, int[] oids)
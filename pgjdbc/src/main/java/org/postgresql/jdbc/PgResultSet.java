@@ -5,8 +5,12 @@
 
 package org.postgresql.jdbc;
 
+import org.postgresql.PGResultSet;
 import org.postgresql.PGResultSetMetaData;
 import org.postgresql.PGStatement;
+import org.postgresql.RowMapper;
+import org.postgresql.columnar.ColumnBatch;
+import org.postgresql.columnar.ColumnBatchReader;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.BaseStatement;
 import org.postgresql.core.Encoding;
@@ -20,6 +24,7 @@ import org.postgresql.core.Utils;
 import org.postgresql.util.ByteConverter;
 import org.postgresql.util.GT;
 import org.postgresql.util.HStoreConverter;
+import org.postgresql.util.NumberParser;
 import org.postgresql.util.PGbytea;
 import org.postgresql.util.PGobject;
 import org.postgresql.util.PGtokenizer;
@@ -73,11 +78,13 @@ import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
-public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultSet {
+public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultSet, PGResultSet {
 
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
@@ -124,7 +131,16 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   protected int fetchSize; // Current fetch size (might be 0).
   protected ResultCursor cursor; // Cursor for fetching additional data.
 
+  // Second buffer, filled by the Execute sent once current_row passes prefetchRow.
+  // See PGProperty.PREFETCH_THRESHOLD.
+  private int prefetchRow = -1;
+  private boolean prefetching;
+  private List<byte[][]> prefetchedRows;
+  private ResultCursor prefetchedCursor;
+  private SQLException prefetchError;
+
   private Map<String, Integer> columnNameIndexMap; // Speed up findColumn by caching lookups
+  private ColumnBatchReader columnBatchReader; // Column types of readColumns, chosen once
 
   private ResultSetMetaData rsMetaData;
 
@@ -161,10 +177,11 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     this.maxFieldSize = maxFieldSize;
     this.resultsettype = rsType;
     this.resultsetconcurrency = rsConcurrency;
+    updatePrefetchRow();
   }
 
   public java.net.URL getURL(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getURL columnIndex: {0}", columnIndex);
+    logGetter("getURL", columnIndex);
     checkClosed();
     throw org.postgresql.Driver.notImplemented(this.getClass(), "getURL(int)");
   }
@@ -485,13 +502,10 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return null;
     }
 
-    if (cal == null) {
-      cal = getDefaultCalendar();
-    }
+    TimeZone tz = cal == null ? getDefaultTimeZone() : cal.getTimeZone();
     if (isBinary(i)) {
       int col = i - 1;
       int oid = fields[col].getOID();
-      TimeZone tz = cal.getTimeZone();
       if (oid == Oid.DATE) {
         return connection.getTimestampUtils().toDateBin(tz, this_row[col]);
       } else if (oid == Oid.TIMESTAMP || oid == Oid.TIMESTAMPTZ) {
@@ -508,7 +522,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       }
     }
 
-    return connection.getTimestampUtils().toDate(cal, getString(i));
+    return connection.getTimestampUtils().toDate(tz, this_row[i - 1]);
   }
 
 
@@ -519,13 +533,10 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return null;
     }
 
-    if (cal == null) {
-      cal = getDefaultCalendar();
-    }
+    TimeZone tz = cal == null ? getDefaultTimeZone() : cal.getTimeZone();
     if (isBinary(i)) {
       int col = i - 1;
       int oid = fields[col].getOID();
-      TimeZone tz = cal.getTimeZone();
       if (oid == Oid.TIME || oid == Oid.TIMETZ) {
         return connection.getTimestampUtils().toTimeBin(tz, this_row[col]);
       } else if (oid == Oid.TIMESTAMP || oid == Oid.TIMESTAMPTZ) {
@@ -548,8 +559,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       }
     }
 
-    String string = getString(i);
-    return connection.getTimestampUtils().toTime(cal, string);
+    return connection.getTimestampUtils().toTime(tz, this_row[i - 1]);
   }
 
   //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
@@ -572,8 +582,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       }
     }
 
-    String string = getString(i);
-    return connection.getTimestampUtils().toLocalTime(string);
+    return connection.getTimestampUtils().toLocalTime(this_row[i - 1]);
   }
   //#endif
 
@@ -585,15 +594,12 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return null;
     }
 
-    if (cal == null) {
-      cal = getDefaultCalendar();
-    }
+    TimeZone tz = cal == null ? getDefaultTimeZone() : cal.getTimeZone();
     int col = i - 1;
     int oid = fields[col].getOID();
     if (isBinary(i)) {
       if (oid == Oid.TIMESTAMPTZ || oid == Oid.TIMESTAMP) {
         boolean hasTimeZone = oid == Oid.TIMESTAMPTZ;
-        TimeZone tz = cal.getTimeZone();
         return connection.getTimestampUtils().toTimestampBin(tz, this_row[col], hasTimeZone);
       } else {
         // JDBC spec says getTimestamp of Time and Date must be supported
@@ -615,12 +621,11 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     // If this is actually a timestamptz, the server-provided timezone will override
     // the one we pass in, which is the desired behaviour. Otherwise, we'll
     // interpret the timezone-less value in the provided timezone.
-    String string = getString(i);
     if (oid == Oid.TIME || oid == Oid.TIMETZ) {
       // If server sends us a TIME, we ensure java counterpart has date of 1970-01-01
-      return new Timestamp(connection.getTimestampUtils().toTime(cal, string).getTime());
+      return new Timestamp(connection.getTimestampUtils().toTime(tz, this_row[col]).getTime());
     }
-    return connection.getTimestampUtils().toTimestamp(cal, string);
+    return connection.getTimestampUtils().toTimestamp(tz, this_row[col]);
   }
 
   //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
@@ -639,12 +644,11 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
               PSQLState.DATA_TYPE_MISMATCH);
     }
     if (isBinary(i)) {
-      TimeZone timeZone = getDefaultCalendar().getTimeZone();
-      return connection.getTimestampUtils().toLocalDateTimeBin(timeZone, this_row[col]);
+      return connection.getTimestampUtils().toLocalDateTimeBin(getDefaultTimeZone(),
+          this_row[col]);
     }
 
-    String string = getString(i);
-    return connection.getTimestampUtils().toLocalDateTime(string);
+    return connection.getTimestampUtils().toLocalDateTime(this_row[col]);
   }
   //#endif
 
@@ -808,17 +812,8 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     row_offset += rows_size - 1; // Discarding all but one row.
 
-    // Work out how many rows maxRows will let us fetch.
-    int fetchRows = fetchSize;
-    if (maxRows != 0) {
-      if (fetchRows == 0 || row_offset + fetchRows > maxRows) {
-        // Fetch would exceed maxRows, limit it.
-        fetchRows = maxRows - row_offset;
-      }
-    }
-
     // Do the actual fetch.
-    connection.getQueryExecutor().fetch(cursor, new CursorResultHandler(), fetchRows);
+    fetchNextRows(fetchRows(row_offset));
 
     // Now prepend our one saved row and move to it.
     rows.add(0, this_row);
@@ -1802,6 +1797,32 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
 
+  /**
+   * Fills the second buffer. The response may be read within another operation of the
+   * connection, so errors are kept until the application reaches the prefetched rows.
+   */
+  private class PrefetchResultHandler extends ResultHandlerBase {
+
+    public void handleResultRows(Query fromQuery, Field[] fields, List<byte[][]> tuples,
+        ResultCursor cursor) {
+      prefetchedRows = tuples;
+      prefetchedCursor = cursor;
+    }
+
+    public void handleCommandStatus(String status, int updateCount, long insertOID) {
+      handleError(new PSQLException(GT.tr("Unexpected command status: {0}.", status),
+          PSQLState.PROTOCOL_VIOLATION));
+    }
+
+    public void handleCompletion() {
+      SQLWarning warning = getWarning();
+      if (warning != null) {
+        PgResultSet.this.addWarning(warning);
+      }
+      prefetchError = getException();
+    }
+  }
+
   public BaseStatement getPGStatement() {
     return statement;
   }
@@ -1857,16 +1878,8 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       // Ask for some more data.
       row_offset += rows.size(); // We are discarding some data.
 
-      int fetchRows = fetchSize;
-      if (maxRows != 0) {
-        if (fetchRows == 0 || row_offset + fetchRows > maxRows) {
-          // Fetch would exceed maxRows, limit it.
-          fetchRows = maxRows - row_offset;
-        }
-      }
-
       // Execute the fetch and update this resultset.
-      connection.getQueryExecutor().fetch(cursor, new CursorResultHandler(), fetchRows);
+      fetchNextRows(fetchRows(row_offset));
 
       current_row = 0;
 
@@ -1880,10 +1893,96 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       current_row++;
     }
 
+    if (current_row == prefetchRow) {
+      prefetch();
+    }
+
     initRowBuffer();
     return true;
   }
 
+  public ColumnBatch readColumns(int maxRows) throws SQLException {
+    checkClosed();
+    if (maxRows <= 0) {
+      throw new PSQLException(GT.tr("The maximum number of rows must be positive."),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    if (columnBatchReader == null) {
+      columnBatchReader = new ColumnBatchReader(this, fields, connection.getEncoding());
+    }
+    columnBatchReader.start(maxRows);
+    for (int i = 0; i < maxRows && next(); i++) {
+      columnBatchReader.append(this_row);
+    }
+    return columnBatchReader.finish();
+  }
+
+  public <T> RowMapper<T> map(Class<T> type) throws SQLException {
+    checkClosed();
+    if (type == null) {
+      throw new SQLException("type is null");
+    }
+    return PgRowMapper.create(this, type);
+  }
+
+  /**
+   * Works out how many rows maxRows will let us fetch after the given offset.
+   */
+  private int fetchRows(int offset) {
+    int fetchRows = fetchSize;
+    if (maxRows != 0) {
+      if (fetchRows == 0 || offset + fetchRows > maxRows) {
+        // Fetch would exceed maxRows, limit it.
+        fetchRows = maxRows - offset;
+      }
+    }
+    return fetchRows;
+  }
+
+  /**
+   * Replaces the rows with the next ones of the cursor, taking them from the second buffer when
+   * they were prefetched.
+   */
+  private void fetchNextRows(int fetchRows) throws SQLException {
+    if (prefetching) {
+      prefetching = false;
+      connection.getQueryExecutor().completePrefetch();
+      SQLException error = prefetchError;
+      rows = prefetchedRows != null ? prefetchedRows : new ArrayList<byte[][]>();
+      cursor = prefetchedCursor;
+      prefetchedRows = null;
+      prefetchedCursor = null;
+      prefetchError = null;
+      if (error != null) {
+        throw error;
+      }
+    } else {
+      connection.getQueryExecutor().fetch(cursor, new CursorResultHandler(), fetchRows);
+    }
+    updatePrefetchRow();
+  }
+
+  private void updatePrefetchRow() {
+    prefetchRow = -1;
+    int threshold = connection.getPrefetchThreshold();
+    if (cursor != null && threshold > 0 && !rows.isEmpty()) {
+      prefetchRow = Math.min(rows.size() - 1, (int) ((long) rows.size() * threshold / 100));
+    }
+  }
+
+  /**
+   * Sends the Execute for the rows after the current ones, unless maxRows is reached.
+   */
+  private void prefetch() throws SQLException {
+    prefetchRow = -1;
+    int offset = row_offset + rows.size();
+    if (maxRows > 0 && offset >= maxRows) {
+      return;
+    }
+    prefetching = true;
+    connection.getQueryExecutor().prefetch(cursor, new PrefetchResultHandler(), fetchRows(offset));
+  }
+
   public void close() throws SQLException {
     try {
       // release resources held (memory for tuples)
@@ -1902,8 +2001,19 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     return wasNullFlag;
   }
 
+  /**
+   * Logs the call of a getter. The level is checked first, so that the column index is not boxed
+   * for every value read while FINEST logging is off.
+   */
+  private void logGetter(String getter, int columnIndex) {
+    Logger logger = connection.getLogger();
+    if (logger.isLoggable(Level.FINEST)) {
+      logger.log(Level.FINEST, "  {0} columnIndex: {1}", new Object[]{getter, columnIndex});
+    }
+  }
+
   public String getString(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getString columnIndex: {0}", columnIndex);
+    logGetter("getString", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
@@ -1911,6 +2021,10 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     // varchar in binary is same as text, other binary fields are converted to their text format
     if (isBinary(columnIndex) && getSQLType(columnIndex) != Types.VARCHAR) {
+      String number = binaryNumberToString(columnIndex - 1);
+      if (number != null) {
+        return trimString(columnIndex, number);
+      }
       Field field = fields[columnIndex - 1];
       Object obj = internalGetObject(columnIndex, field);
       if (obj == null) {
@@ -1945,6 +2059,34 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     }
   }
 
+  /**
+   * Formats a binary integer or floating point value like the toString of its boxed value, without
+   * boxing it, and a binary numeric value like its text format.
+   *
+   * @param col the 0-based column
+   * @return the text of the value, or null if the column is not of such a type
+   */
+  private String binaryNumberToString(int col) {
+    byte[] bytes = this_row[col];
+    switch (fields[col].getOID()) {
+      case Oid.INT2:
+        return Integer.toString(ByteConverter.int2(bytes, 0));
+      case Oid.INT4:
+        return Integer.toString(ByteConverter.int4(bytes, 0));
+      case Oid.INT8:
+        return Long.toString(ByteConverter.int8(bytes, 0));
+      case Oid.FLOAT4:
+        return Float.toString(ByteConverter.float4(bytes, 0));
+      case Oid.FLOAT8:
+        return Double.toString(ByteConverter.float8(bytes, 0));
+      case Oid.NUMERIC:
+        Number num = ByteConverter.numeric(bytes, 0, bytes.length);
+        return num instanceof BigDecimal ? ((BigDecimal) num).toPlainString() : num.toString();
+      default:
+        return null;
+    }
+  }
+
   /**
    * <p>Retrieves the value of the designated column in the current row of this <code>ResultSet</code>
    * object as a <code>boolean</code> in the Java programming language.</p>
@@ -1969,7 +2111,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
    */
   @Override
   public boolean getBoolean(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getBoolean columnIndex: {0}", columnIndex);
+    logGetter("getBoolean", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return false; // SQL NULL
@@ -1993,7 +2135,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
   @Override
   public byte getByte(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getByte columnIndex: {0}", columnIndex);
+    logGetter("getByte", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2042,7 +2184,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
   @Override
   public short getShort(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getShort columnIndex: {0}", columnIndex);
+    logGetter("getShort", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2061,7 +2203,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public int getInt(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getInt columnIndex: {0}", columnIndex);
+    logGetter("getInt", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2076,18 +2218,15 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return (int) readLongValue(this_row[col], oid, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
     }
 
-    Encoding encoding = connection.getEncoding();
-    if (encoding.hasAsciiNumbers()) {
-      try {
-        return getFastInt(columnIndex);
-      } catch (NumberFormatException ex) {
-      }
+    byte[] bytes = this_row[columnIndex - 1];
+    if (connection.getEncoding().hasAsciiNumbers() && NumberParser.isFastLong(bytes, 9)) {
+      return (int) NumberParser.parseFastLong(bytes);
     }
     return toInt(getFixedString(columnIndex));
   }
 
   public long getLong(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getLong columnIndex: {0}", columnIndex);
+    logGetter("getLong", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2102,136 +2241,11 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return readLongValue(this_row[col], oid, Long.MIN_VALUE, Long.MAX_VALUE, "long");
     }
 
-    Encoding encoding = connection.getEncoding();
-    if (encoding.hasAsciiNumbers()) {
-      try {
-        return getFastLong(columnIndex);
-      } catch (NumberFormatException ex) {
-      }
-    }
-    return toLong(getFixedString(columnIndex));
-  }
-
-  /**
-   * A dummy exception thrown when fast byte[] to number parsing fails and no value can be returned.
-   * The exact stack trace does not matter because the exception is always caught and is not visible
-   * to users.
-   */
-  private static final NumberFormatException FAST_NUMBER_FAILED = new NumberFormatException() {
-
-    // Override fillInStackTrace to prevent memory leak via Throwable.backtrace hidden field
-    // The field is not observable via reflection, however when throwable contains stacktrace, it
-    // does
-    // hold strong references to user objects (e.g. classes -> classloaders), thus it might lead to
-    // OutOfMemory conditions.
-    @Override
-    public synchronized Throwable fillInStackTrace() {
-      return this;
-    }
-  };
-
-  /**
-   * Optimised byte[] to number parser. This code does not handle null values, so the caller must do
-   * checkResultSet and handle null values prior to calling this function.
-   *
-   * @param columnIndex The column to parse.
-   * @return The parsed number.
-   * @throws SQLException If an error occurs while fetching column.
-   * @throws NumberFormatException If the number is invalid or the out of range for fast parsing.
-   *         The value must then be parsed by {@link #toLong(String)}.
-   */
-  private long getFastLong(int columnIndex) throws SQLException, NumberFormatException {
-
-    byte[] bytes = this_row[columnIndex - 1];
-
-    if (bytes.length == 0) {
-      throw FAST_NUMBER_FAILED;
-    }
-
-    long val = 0;
-    int start;
-    boolean neg;
-    if (bytes[0] == '-') {
-      neg = true;
-      start = 1;
-      if (bytes.length == 1 || bytes.length > 19) {
-        throw FAST_NUMBER_FAILED;
-      }
-    } else {
-      start = 0;
-      neg = false;
-      if (bytes.length > 18) {
-        throw FAST_NUMBER_FAILED;
-      }
-    }
-
-    while (start < bytes.length) {
-      byte b = bytes[start++];
-      if (b < '0' || b > '9') {
-        throw FAST_NUMBER_FAILED;
-      }
-
-      val *= 10;
-      val += b - '0';
-    }
-
-    if (neg) {
-      val = -val;
-    }
-
-    return val;
-  }
-
-  /**
-   * Optimised byte[] to number parser. This code does not handle null values, so the caller must do
-   * checkResultSet and handle null values prior to calling this function.
-   *
-   * @param columnIndex The column to parse.
-   * @return The parsed number.
-   * @throws SQLException If an error occurs while fetching column.
-   * @throws NumberFormatException If the number is invalid or the out of range for fast parsing.
-   *         The value must then be parsed by {@link #toInt(String)}.
-   */
-  private int getFastInt(int columnIndex) throws SQLException, NumberFormatException {
-
     byte[] bytes = this_row[columnIndex - 1];
-
-    if (bytes.length == 0) {
-      throw FAST_NUMBER_FAILED;
+    if (connection.getEncoding().hasAsciiNumbers() && NumberParser.isFastLong(bytes, 18)) {
+      return NumberParser.parseFastLong(bytes);
     }
-
-    int val = 0;
-    int start;
-    boolean neg;
-    if (bytes[0] == '-') {
-      neg = true;
-      start = 1;
-      if (bytes.length == 1 || bytes.length > 10) {
-        throw FAST_NUMBER_FAILED;
-      }
-    } else {
-      start = 0;
-      neg = false;
-      if (bytes.length > 9) {
-        throw FAST_NUMBER_FAILED;
-      }
-    }
-
-    while (start < bytes.length) {
-      byte b = bytes[start++];
-      if (b < '0' || b > '9') {
-        throw FAST_NUMBER_FAILED;
-      }
-
-      val *= 10;
-      val += b - '0';
-    }
-
-    if (neg) {
-      val = -val;
-    }
-
-    return val;
+    return toLong(getFixedString(columnIndex));
   }
 
   /**
@@ -2239,17 +2253,15 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
    * checkResultSet and handle null values prior to calling this function.
    *
    * @param columnIndex The column to parse.
-   * @return The parsed number.
-   * @throws SQLException If an error occurs while fetching column.
-   * @throws NumberFormatException If the number is invalid or the out of range for fast parsing.
+   * @return The parsed number, or null if the number is invalid or out of range for fast parsing.
    *         The value must then be parsed by {@link #toBigDecimal(String, int)}.
    */
-  private BigDecimal getFastBigDecimal(int columnIndex) throws SQLException, NumberFormatException {
+  private BigDecimal getFastBigDecimal(int columnIndex) {
 
     byte[] bytes = this_row[columnIndex - 1];
 
     if (bytes.length == 0) {
-      throw FAST_NUMBER_FAILED;
+      return null;
     }
 
     int scale = 0;
@@ -2260,13 +2272,13 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       neg = true;
       start = 1;
       if (bytes.length == 1 || bytes.length > 19) {
-        throw FAST_NUMBER_FAILED;
+        return null;
       }
     } else {
       start = 0;
       neg = false;
       if (bytes.length > 18) {
-        throw FAST_NUMBER_FAILED;
+        return null;
       }
     }
 
@@ -2279,7 +2291,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
           periodsSeen++;
           continue;
         } else {
-          throw FAST_NUMBER_FAILED;
+          return null;
         }
       }
       val *= 10;
@@ -2288,7 +2300,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     int numNonSignChars = neg ? bytes.length - 1 : bytes.length;
     if (periodsSeen > 1 || periodsSeen == numNonSignChars) {
-      throw FAST_NUMBER_FAILED;
+      return null;
     }
 
     if (neg) {
@@ -2299,7 +2311,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public float getFloat(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getFloat columnIndex: {0}", columnIndex);
+    logGetter("getFloat", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2318,7 +2330,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public double getDouble(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getDouble columnIndex: {0}", columnIndex);
+    logGetter("getDouble", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return 0; // SQL NULL
@@ -2333,17 +2345,32 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return readDoubleValue(this_row[col], oid, "double");
     }
 
+    if (connection.getEncoding().hasAsciiNumbers()) {
+      double value = NumberParser.parseFastDouble(this_row[columnIndex - 1]);
+      if (!Double.isNaN(value)) {
+        return value;
+      }
+    }
     return toDouble(getFixedString(columnIndex));
   }
 
   public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getBigDecimal columnIndex: {0}", columnIndex);
+    logGetter("getBigDecimal", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
     }
 
     if (isBinary(columnIndex)) {
+      if (fields[columnIndex - 1].getOID() == Oid.NUMERIC) {
+        Number num = ByteConverter.numeric(this_row[columnIndex - 1], 0,
+            this_row[columnIndex - 1].length);
+        if (!(num instanceof BigDecimal)) {
+          throw new PSQLException(GT.tr("Bad value for type {0} : {1}", "BigDecimal", num),
+              PSQLState.NUMERIC_VALUE_OUT_OF_RANGE);
+        }
+        return scaleBigDecimal((BigDecimal) num, scale);
+      }
       int sqlType = getSQLType(columnIndex);
       if (sqlType != Types.NUMERIC && sqlType != Types.DECIMAL) {
         Object obj = internalGetObject(columnIndex, fields[columnIndex - 1]);
@@ -2359,13 +2386,10 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       }
     }
 
-    Encoding encoding = connection.getEncoding();
-    if (encoding.hasAsciiNumbers()) {
-      try {
-        BigDecimal res = getFastBigDecimal(columnIndex);
-        res = scaleBigDecimal(res, scale);
-        return res;
-      } catch (NumberFormatException ex) {
+    if (connection.getEncoding().hasAsciiNumbers()) {
+      BigDecimal res = getFastBigDecimal(columnIndex);
+      if (res != null) {
+        return scaleBigDecimal(res, scale);
       }
     }
 
@@ -2382,7 +2406,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
    * <p><b>Be warned</b> If the large object is huge, then you may run out of memory.</p>
    */
   public byte[] getBytes(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getBytes columnIndex: {0}", columnIndex);
+    logGetter("getBytes", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
@@ -2400,22 +2424,22 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public java.sql.Date getDate(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getDate columnIndex: {0}", columnIndex);
+    logGetter("getDate", columnIndex);
     return getDate(columnIndex, null);
   }
 
   public Time getTime(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getTime columnIndex: {0}", columnIndex);
+    logGetter("getTime", columnIndex);
     return getTime(columnIndex, null);
   }
 
   public Timestamp getTimestamp(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getTimestamp columnIndex: {0}", columnIndex);
+    logGetter("getTimestamp", columnIndex);
     return getTimestamp(columnIndex, null);
   }
 
   public InputStream getAsciiStream(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getAsciiStream columnIndex: {0}", columnIndex);
+    logGetter("getAsciiStream", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
@@ -2436,7 +2460,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public InputStream getUnicodeStream(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getUnicodeStream columnIndex: {0}", columnIndex);
+    logGetter("getUnicodeStream", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
@@ -2457,7 +2481,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public InputStream getBinaryStream(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getBinaryStream columnIndex: {0}", columnIndex);
+    logGetter("getBinaryStream", columnIndex);
     checkResultSet(columnIndex);
     if (wasNullFlag) {
       return null;
@@ -2566,7 +2590,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public Object getObject(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getObject columnIndex: {0}", columnIndex);
+    logGetter("getObject", columnIndex);
     Field field;
 
     checkResultSet(columnIndex);
@@ -2609,9 +2633,18 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     return col;
   }
 
+  /**
+   * Creates the map used by {@link #findColumn(String)}. It is concurrent, since it may be shared
+   * by the result sets of a query, which add the spellings of the names they looked up.
+   *
+   * @param fields the fields of the result set
+   * @param isSanitiserDisabled whether the names are case sensitive
+   * @return the map from column labels to 1-based column indexes
+   */
   public static Map<String, Integer> createColumnNameIndexMap(Field[] fields,
       boolean isSanitiserDisabled) {
-    Map<String, Integer> columnNameIndexMap = new HashMap<String, Integer>(fields.length * 2);
+    Map<String, Integer> columnNameIndexMap =
+        new ConcurrentHashMap<String, Integer>(fields.length * 2);
     // The JDBC spec says when you have duplicate columns names,
     // the first one should be returned. So load the map in
     // reverse order so the first ones will overwrite later ones.
@@ -2629,7 +2662,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   private int findColumnIndex(String columnName) {
     if (columnNameIndexMap == null) {
       if (originalQuery != null) {
-        columnNameIndexMap = originalQuery.getResultSetColumnNameIndexMap();
+        columnNameIndexMap = originalQuery.getResultSetColumnNameIndexMap(fields);
       }
       if (columnNameIndexMap == null) {
         columnNameIndexMap = createColumnNameIndexMap(fields, connection.isColumnSanitiserDisabled());
@@ -3029,6 +3062,8 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
         return ByteConverter.float4(bytes, 0);
       case Oid.FLOAT8:
         return ByteConverter.float8(bytes, 0);
+      case Oid.NUMERIC:
+        return ByteConverter.numeric(bytes, 0, bytes.length).doubleValue();
     }
     throw new PSQLException(GT.tr("Cannot convert the column of type {0} to requested type {1}.",
         Oid.toString(oid), targetType), PSQLState.DATA_TYPE_MISMATCH);
@@ -3073,6 +3108,15 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       case Oid.FLOAT8:
         val = (long) ByteConverter.float8(bytes, 0);
         break;
+      case Oid.NUMERIC:
+        Number num = ByteConverter.numeric(bytes, 0, bytes.length);
+        BigInteger i = num instanceof BigDecimal ? ((BigDecimal) num).toBigInteger() : null;
+        if (i == null || i.bitLength() > 63) {
+          throw new PSQLException(GT.tr("Bad value for type {0} : {1}", targetType, num),
+              PSQLState.NUMERIC_VALUE_OUT_OF_RANGE);
+        }
+        val = i.longValue();
+        break;
       default:
         throw new PSQLException(
             GT.tr("Cannot convert the column of type {0} to requested type {1}.",
@@ -3490,7 +3534,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   //#endif
 
   public RowId getRowId(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getRowId columnIndex: {0}", columnIndex);
+    logGetter("getRowId", columnIndex);
     throw org.postgresql.Driver.notImplemented(this.getClass(), "getRowId(int)");
   }
 
@@ -3547,7 +3591,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public NClob getNClob(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getNClob columnIndex: {0}", columnIndex);
+    logGetter("getNClob", columnIndex);
     throw org.postgresql.Driver.notImplemented(this.getClass(), "getNClob(int)");
   }
 
@@ -3591,7 +3635,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public SQLXML getSQLXML(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getSQLXML columnIndex: {0}", columnIndex);
+    logGetter("getSQLXML", columnIndex);
     String data = getString(columnIndex);
     if (data == null) {
       return null;
@@ -3613,7 +3657,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public String getNString(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getNString columnIndex: {0}", columnIndex);
+    logGetter("getNString", columnIndex);
     throw org.postgresql.Driver.notImplemented(this.getClass(), "getNString(int)");
   }
 
@@ -3622,7 +3666,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public Reader getNCharacterStream(int columnIndex) throws SQLException {
-    connection.getLogger().log(Level.FINEST, "  getNCharacterStream columnIndex: {0}", columnIndex);
+    logGetter("getNCharacterStream", columnIndex);
     throw org.postgresql.Driver.notImplemented(this.getClass(), "getNCharacterStream(int)");
   }
 
@@ -3728,6 +3772,20 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     throw new SQLException("Cannot unwrap to " + iface.getName());
   }
 
+  /**
+   * Returns the time zone of the values read without a calendar, null when
+   * {@link TimestampUtils} can read the default time zone cheaply itself.
+   */
+  private TimeZone getDefaultTimeZone() {
+    if (connection.getTimestampUtils().hasFastDefaultTimeZone()) {
+      return null;
+    }
+    if (defaultTimeZone == null) {
+      defaultTimeZone = TimeZone.getDefault();
+    }
+    return defaultTimeZone;
+  }
+
   private Calendar getDefaultCalendar() {
     TimestampUtils timestampUtils = connection.getTimestampUtils();
     if (timestampUtils.hasFastDefaultTimeZone()) {
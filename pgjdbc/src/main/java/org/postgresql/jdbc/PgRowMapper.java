@@ -0,0 +1,620 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.RowMapper;
+import org.postgresql.core.Encoding;
+import org.postgresql.core.Field;
+import org.postgresql.core.Oid;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.NumberParser;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>{@link RowMapper} of a {@link PgResultSet}. When it is created, every column gets a
+ * {@link Source} decoding the wire format of its type, and a {@link Property} or constructor
+ * {@link Argument} invoking a {@link MethodHandle} with the type of the target. Mapping a row then
+ * only runs these, without reflection, column lookups or the checks of the result set getters.</p>
+ *
+ * <p>Values of types without a dedicated source are read with the getters of the result set.</p>
+ *
+ * @param <T> the class of the objects
+ */
+class PgRowMapper<T> implements RowMapper<T> {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  // kinds of target types
+  private static final int KIND_OBJECT = 0;
+  private static final int KIND_STRING = 1;
+  private static final int KIND_LONG = 2;
+  private static final int KIND_INT = 3;
+  private static final int KIND_SHORT = 4;
+  private static final int KIND_BYTE = 5;
+  private static final int KIND_DOUBLE = 6;
+  private static final int KIND_FLOAT = 7;
+  private static final int KIND_BOOLEAN = 8;
+  private static final int KIND_BIG_DECIMAL = 9;
+
+  private final PgResultSet resultSet;
+  private final Class<T> type;
+  // () -> Object for properties, (Object[]) -> Object for constructor arguments
+  private final MethodHandle constructor;
+  private final Property[] properties;
+  private final Argument[] arguments;
+
+  private PgRowMapper(PgResultSet resultSet, Class<T> type, MethodHandle constructor,
+      Property[] properties, Argument[] arguments) {
+    this.resultSet = resultSet;
+    this.type = type;
+    this.constructor = constructor;
+    this.properties = properties;
+    this.arguments = arguments;
+  }
+
+  static <T> PgRowMapper<T> create(PgResultSet resultSet, Class<T> type) throws SQLException {
+    Field[] fields = resultSet.fields;
+    Source[] sources = new Source[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      sources[i] = source(resultSet, fields[i], i + 1);
+    }
+    try {
+      List<Class<?>> componentTypes = new ArrayList<Class<?>>();
+      List<String> componentNames = recordComponents(type, componentTypes);
+      if (componentNames == null) {
+        Constructor<?> noArgs = noArgsConstructor(type);
+        if (noArgs != null) {
+          return new PgRowMapper<T>(resultSet, type,
+              unreflect(noArgs).asType(MethodType.methodType(Object.class)),
+              properties(type, fields, sources), null);
+        }
+      }
+
+      Constructor<?> constructor;
+      Argument[] arguments;
+      if (componentNames != null) {
+        constructor = type.getDeclaredConstructor(componentTypes.toArray(new Class<?>[0]));
+        arguments = new Argument[componentNames.size()];
+        for (int i = 0; i < arguments.length; i++) {
+          int column = findColumn(fields, componentNames.get(i));
+          if (column < 0) {
+            throw cannotMap(type, "no column for the component " + componentNames.get(i));
+          }
+          arguments[i] = new Argument(sources[column], componentTypes.get(i));
+        }
+      } else {
+        constructor = columnsConstructor(type, fields.length);
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        arguments = new Argument[parameterTypes.length];
+        for (int i = 0; i < arguments.length; i++) {
+          arguments[i] = new Argument(sources[i], parameterTypes[i]);
+        }
+      }
+      MethodHandle handle = unreflect(constructor)
+          .asType(MethodType.genericMethodType(arguments.length))
+          .asSpreader(Object[].class, arguments.length);
+      return new PgRowMapper<T>(resultSet, type, handle, null, arguments);
+    } catch (NoSuchMethodException e) {
+      throw cannotMap(type, e.toString());
+    } catch (IllegalAccessException e) {
+      throw cannotMap(type, e.toString());
+    } catch (RuntimeException e) {
+      // SecurityException, or InaccessibleObjectException on Java 9 and later
+      throw cannotMap(type, e.toString());
+    }
+  }
+
+  public T mapRow() throws SQLException {
+    resultSet.checkClosed();
+    byte[][] row = resultSet.this_row;
+    if (row == null) {
+      throw new PSQLException(
+          GT.tr("ResultSet not positioned properly, perhaps you need to call next."),
+          PSQLState.INVALID_CURSOR_STATE);
+    }
+    try {
+      if (properties != null) {
+        Object target = constructor.invokeExact();
+        for (Property property : properties) {
+          property.set(target, row[property.source.index]);
+        }
+        return type.cast(target);
+      }
+      Object[] values = new Object[arguments.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = arguments[i].get(row[arguments[i].source.index]);
+      }
+      return type.cast(constructor.invokeExact(values));
+    } catch (SQLException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new PSQLException(GT.tr("Could not create an instance of {0}.", type.getName()),
+          PSQLState.DATA_ERROR, t);
+    }
+  }
+
+  private static PSQLException cannotMap(Class<?> type, String reason) {
+    return new PSQLException(GT.tr("Cannot map the rows to {0}: {1}", type.getName(), reason),
+        PSQLState.INVALID_PARAMETER_VALUE);
+  }
+
+  private static String normalize(String name) {
+    return name.replace("_", "").toLowerCase(Locale.US);
+  }
+
+  private static int findColumn(Field[] fields, String name) {
+    String normalized = normalize(name);
+    for (int i = 0; i < fields.length; i++) {
+      if (normalize(fields[i].getColumnLabel()).equals(normalized)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static MethodHandle unreflect(Constructor<?> constructor) throws IllegalAccessException {
+    constructor.setAccessible(true);
+    return LOOKUP.unreflectConstructor(constructor);
+  }
+
+  /**
+   * @return the names of the record components, or null if the class is not a record
+   */
+  private static List<String> recordComponents(Class<?> type, List<Class<?>> componentTypes)
+      throws SQLException {
+    Object[] components;
+    try {
+      // Class.getRecordComponents is only available on Java 16 and later
+      components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+      if (components == null) {
+        return null;
+      }
+      List<String> names = new ArrayList<String>();
+      for (Object component : components) {
+        names.add((String) component.getClass().getMethod("getName").invoke(component));
+        componentTypes.add((Class<?>) component.getClass().getMethod("getType").invoke(component));
+      }
+      return names;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (IllegalAccessException e) {
+      throw cannotMap(type, e.toString());
+    } catch (InvocationTargetException e) {
+      throw cannotMap(type, e.getCause().toString());
+    }
+  }
+
+  private static Constructor<?> noArgsConstructor(Class<?> type) {
+    try {
+      return type.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Constructor<?> columnsConstructor(Class<?> type, int columns)
+      throws SQLException {
+    Constructor<?> found = null;
+    for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+      if (constructor.getParameterTypes().length == columns) {
+        if (found != null) {
+          throw cannotMap(type, "several constructors take " + columns + " arguments");
+        }
+        found = constructor;
+      }
+    }
+    if (found == null) {
+      throw cannotMap(type, "no constructor without arguments or with " + columns + " arguments");
+    }
+    return found;
+  }
+
+  private static Property[] properties(Class<?> type, Field[] fields, Source[] sources)
+      throws IllegalAccessException {
+    List<Property> properties = new ArrayList<Property>();
+    for (int i = 0; i < fields.length; i++) {
+      String name = normalize(fields[i].getColumnLabel());
+      MethodHandle setter = null;
+      Class<?> propertyType = null;
+      Method method = findSetter(type, name);
+      if (method != null) {
+        method.setAccessible(true);
+        setter = LOOKUP.unreflect(method);
+        propertyType = method.getParameterTypes()[0];
+      } else {
+        java.lang.reflect.Field field = findField(type, name);
+        if (field != null) {
+          field.setAccessible(true);
+          setter = LOOKUP.unreflectSetter(field);
+          propertyType = field.getType();
+        }
+      }
+      if (setter != null) {
+        properties.add(property(setter, propertyType, sources[i]));
+      }
+    }
+    return properties.toArray(new Property[0]);
+  }
+
+  private static Method findSetter(Class<?> type, String name) {
+    for (Method method : type.getMethods()) {
+      String methodName = method.getName();
+      if (!Modifier.isStatic(method.getModifiers()) && methodName.startsWith("set")
+          && method.getParameterTypes().length == 1
+          && normalize(methodName.substring(3)).equals(name)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private static java.lang.reflect.Field findField(Class<?> type, String name) {
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+            && normalize(field.getName()).equals(name)) {
+          return field;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static Property property(MethodHandle setter, Class<?> propertyType, Source source) {
+    if (propertyType == long.class) {
+      return new LongProperty(setter, source);
+    }
+    if (propertyType == int.class) {
+      return new IntProperty(setter, source);
+    }
+    if (propertyType == double.class) {
+      return new DoubleProperty(setter, source);
+    }
+    if (propertyType == boolean.class) {
+      return new BooleanProperty(setter, source);
+    }
+    return new ObjectProperty(setter, propertyType, source);
+  }
+
+  private static int kind(Class<?> type) {
+    if (type == String.class) {
+      return KIND_STRING;
+    } else if (type == long.class || type == Long.class) {
+      return KIND_LONG;
+    } else if (type == int.class || type == Integer.class) {
+      return KIND_INT;
+    } else if (type == short.class || type == Short.class) {
+      return KIND_SHORT;
+    } else if (type == byte.class || type == Byte.class) {
+      return KIND_BYTE;
+    } else if (type == double.class || type == Double.class) {
+      return KIND_DOUBLE;
+    } else if (type == float.class || type == Float.class) {
+      return KIND_FLOAT;
+    } else if (type == boolean.class || type == Boolean.class) {
+      return KIND_BOOLEAN;
+    } else if (type == BigDecimal.class) {
+      return KIND_BIG_DECIMAL;
+    }
+    return KIND_OBJECT;
+  }
+
+  /**
+   * @return the value of a primitive type for null values
+   */
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return null;
+    } else if (type == boolean.class) {
+      return Boolean.FALSE;
+    } else if (type == char.class) {
+      return Character.valueOf((char) 0);
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == short.class) {
+      return (short) 0;
+    } else if (type == byte.class) {
+      return (byte) 0;
+    } else if (type == float.class) {
+      return 0f;
+    }
+    return 0d;
+  }
+
+  private static Source source(PgResultSet resultSet, Field field, int column)
+      throws SQLException {
+    boolean binary = field.getFormat() == Field.BINARY_FORMAT;
+    switch (field.getOID()) {
+      case Oid.INT2:
+        return new IntegerSource(resultSet, column, 2, binary);
+      case Oid.INT4:
+        return new IntegerSource(resultSet, column, 4, binary);
+      case Oid.INT8:
+        return new IntegerSource(resultSet, column, 8, binary);
+      case Oid.FLOAT4:
+        return new FloatSource(resultSet, column, true, binary);
+      case Oid.FLOAT8:
+        return new FloatSource(resultSet, column, false, binary);
+      case Oid.TEXT:
+      case Oid.VARCHAR:
+      case Oid.BPCHAR:
+        if (resultSet.maxFieldSize == 0) {
+          // text types have the same binary and text format
+          return new TextSource(resultSet, column, resultSet.connection.getEncoding());
+        }
+        return new Source(resultSet, column);
+      default:
+        return new Source(resultSet, column);
+    }
+  }
+
+  /**
+   * Decodes the non-null values of a column. The methods that are not overridden use the getters
+   * of the result set.
+   */
+  private static class Source {
+    final PgResultSet resultSet;
+    final int column;
+    final int index;
+
+    Source(PgResultSet resultSet, int column) {
+      this.resultSet = resultSet;
+      this.column = column;
+      this.index = column - 1;
+    }
+
+    long getLong(byte[] value) throws SQLException {
+      return resultSet.getLong(column);
+    }
+
+    double getDouble(byte[] value) throws SQLException {
+      return resultSet.getDouble(column);
+    }
+
+    boolean getBoolean(byte[] value) throws SQLException {
+      return resultSet.getBoolean(column);
+    }
+
+    String getString(byte[] value) throws SQLException {
+      return resultSet.getString(column);
+    }
+
+    Object getObject(byte[] value, int kind, Class<?> type) throws SQLException {
+      switch (kind) {
+        case KIND_STRING:
+          return getString(value);
+        case KIND_LONG:
+          return getLong(value);
+        case KIND_INT:
+          return (int) checkRange(getLong(value), Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+        case KIND_SHORT:
+          return (short) checkRange(getLong(value), Short.MIN_VALUE, Short.MAX_VALUE, "short");
+        case KIND_BYTE:
+          return (byte) checkRange(getLong(value), Byte.MIN_VALUE, Byte.MAX_VALUE, "byte");
+        case KIND_DOUBLE:
+          return getDouble(value);
+        case KIND_FLOAT:
+          return (float) getDouble(value);
+        case KIND_BOOLEAN:
+          return getBoolean(value);
+        case KIND_BIG_DECIMAL:
+          return resultSet.getBigDecimal(column);
+        default:
+          return type == Object.class ? resultSet.getObject(column)
+              : resultSet.getObject(column, type);
+      }
+    }
+  }
+
+  private static long checkRange(long value, long min, long max, String type)
+      throws PSQLException {
+    if (value < min || value > max) {
+      throw new PSQLException(GT.tr("Bad value for type {0} : {1}", type, value),
+          PSQLState.NUMERIC_VALUE_OUT_OF_RANGE);
+    }
+    return value;
+  }
+
+  private static class IntegerSource extends Source {
+    private final int size;
+    private final boolean binary;
+
+    IntegerSource(PgResultSet resultSet, int column, int size, boolean binary) {
+      super(resultSet, column);
+      this.size = size;
+      this.binary = binary;
+    }
+
+    @Override
+    long getLong(byte[] value) throws SQLException {
+      if (!binary) {
+        try {
+          return NumberParser.parseLong(value);
+        } catch (NumberFormatException e) {
+          return super.getLong(value);
+        }
+      } else if (size == 8) {
+        return ByteConverter.int8(value, 0);
+      } else if (size == 4) {
+        return ByteConverter.int4(value, 0);
+      }
+      return ByteConverter.int2(value, 0);
+    }
+
+    @Override
+    double getDouble(byte[] value) throws SQLException {
+      return getLong(value);
+    }
+  }
+
+  private static class FloatSource extends Source {
+    private final boolean float4;
+    private final boolean binary;
+
+    FloatSource(PgResultSet resultSet, int column, boolean float4, boolean binary) {
+      super(resultSet, column);
+      this.float4 = float4;
+      this.binary = binary;
+    }
+
+    @Override
+    double getDouble(byte[] value) throws SQLException {
+      if (binary) {
+        return float4 ? ByteConverter.float4(value, 0) : ByteConverter.float8(value, 0);
+      }
+      try {
+        return NumberParser.parseDouble(value);
+      } catch (NumberFormatException e) {
+        return super.getDouble(value);
+      }
+    }
+  }
+
+  private static class TextSource extends Source {
+    private final Encoding encoding;
+
+    TextSource(PgResultSet resultSet, int column, Encoding encoding) {
+      super(resultSet, column);
+      this.encoding = encoding;
+    }
+
+    @Override
+    String getString(byte[] value) throws SQLException {
+      try {
+        return encoding.decode(value);
+      } catch (IOException e) {
+        return super.getString(value);
+      }
+    }
+  }
+
+  /**
+   * Stores the values of a column in an object through a setter or a field.
+   */
+  private abstract static class Property {
+    final Source source;
+
+    Property(Source source) {
+      this.source = source;
+    }
+
+    abstract void set(Object target, byte[] value) throws Throwable;
+  }
+
+  private static class LongProperty extends Property {
+    private final MethodHandle setter;
+
+    LongProperty(MethodHandle setter, Source source) {
+      super(source);
+      this.setter = setter.asType(MethodType.methodType(void.class, Object.class, long.class));
+    }
+
+    @Override
+    void set(Object target, byte[] value) throws Throwable {
+      setter.invokeExact(target, value == null ? 0L : source.getLong(value));
+    }
+  }
+
+  private static class IntProperty extends Property {
+    private final MethodHandle setter;
+
+    IntProperty(MethodHandle setter, Source source) {
+      super(source);
+      this.setter = setter.asType(MethodType.methodType(void.class, Object.class, int.class));
+    }
+
+    @Override
+    void set(Object target, byte[] value) throws Throwable {
+      setter.invokeExact(target, value == null ? 0
+          : (int) checkRange(source.getLong(value), Integer.MIN_VALUE, Integer.MAX_VALUE, "int"));
+    }
+  }
+
+  private static class DoubleProperty extends Property {
+    private final MethodHandle setter;
+
+    DoubleProperty(MethodHandle setter, Source source) {
+      super(source);
+      this.setter = setter.asType(MethodType.methodType(void.class, Object.class, double.class));
+    }
+
+    @Override
+    void set(Object target, byte[] value) throws Throwable {
+      setter.invokeExact(target, value == null ? 0d : source.getDouble(value));
+    }
+  }
+
+  private static class BooleanProperty extends Property {
+    private final MethodHandle setter;
+
+    BooleanProperty(MethodHandle setter, Source source) {
+      super(source);
+      this.setter = setter.asType(MethodType.methodType(void.class, Object.class, boolean.class));
+    }
+
+    @Override
+    void set(Object target, byte[] value) throws Throwable {
+      setter.invokeExact(target, value != null && source.getBoolean(value));
+    }
+  }
+
+  private static class ObjectProperty extends Property {
+    private final MethodHandle setter;
+    private final Argument argument;
+
+    ObjectProperty(MethodHandle setter, Class<?> propertyType, Source source) {
+      super(source);
+      this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+      this.argument = new Argument(source, propertyType);
+    }
+
+    @Override
+    void set(Object target, byte[] value) throws Throwable {
+      setter.invokeExact(target, argument.get(value));
+    }
+  }
+
+  /**
+   * Converts the values of a column to a constructor argument.
+   */
+  private static class Argument {
+    final Source source;
+    private final Class<?> type;
+    private final int kind;
+    private final Object nullValue;
+
+    Argument(Source source, Class<?> type) {
+      this.source = source;
+      this.type = type;
+      this.kind = kind(type);
+      this.nullValue = defaultValue(type);
+    }
+
+    Object get(byte[] value) throws SQLException {
+      return value == null ? nullValue : source.getObject(value, kind, type);
+    }
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Field;
+import org.postgresql.core.Query;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.ResultCursor;
+import org.postgresql.core.ResultHandlerBase;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * <p>{@code TYPE_SCROLL_INSENSITIVE}, {@code CONCUR_READ_ONLY} result set based on a server side
+ * {@code SCROLL CURSOR WITH HOLD}, used with {@link org.postgresql.PGProperty#SERVER_SCROLLABLE_CURSORS}.
+ * Only a window of fetch size rows is kept in {@link #rows}, starting after {@link #row_offset}
+ * rows. Moving outside of the window replaces it with the rows around the new position, read with
+ * {@code FETCH ABSOLUTE} and {@code FETCH FORWARD}: after the new position when moving forward,
+ * before it when moving backward.</p>
+ *
+ * <p>The number of rows is only known once the end of the cursor is reached. Methods that need it,
+ * such as {@link #last()}, look for the end with a few single row fetches.</p>
+ *
+ * <p>The cursor outlives transactions, so it is closed with this result set, which the statement
+ * closes when it is executed again or closed. A result set whose statement is never closed keeps
+ * its cursor open on the server until the connection is closed.</p>
+ */
+class PgScrollCursorResultSet extends PgResultSet {
+  private static final AtomicLong CURSOR_COUNTER = new AtomicLong();
+
+  private final String cursorName;
+  // 1-based position, 0 before the first row
+  private int position;
+  private boolean afterLast;
+  // position of the server side cursor, -1 if unknown
+  private int serverPosition;
+  // highest position known to exist, and lowest known not to exist
+  private int knownRows;
+  private int firstMissingRow;
+
+  private PgScrollCursorResultSet(Query originalQuery, PgStatement statement, Field[] fields,
+      List<byte[][]> window, String cursorName) throws SQLException {
+    super(originalQuery, statement, fields, window, null, statement.getMaxRows(),
+        statement.getMaxFieldSize(), ResultSet.TYPE_SCROLL_INSENSITIVE,
+        ResultSet.CONCUR_READ_ONLY, statement.getResultSetHoldability());
+    this.cursorName = cursorName;
+    this.firstMissingRow = maxRows > 0 ? maxRows + 1 : Integer.MAX_VALUE;
+  }
+
+  static String nextCursorName() {
+    return "pgjdbc_scroll_" + CURSOR_COUNTER.incrementAndGet();
+  }
+
+  /**
+   * Reads the first window of rows of a declared cursor.
+   *
+   * @param statement the statement that declared the cursor
+   * @param originalQuery the query of the cursor
+   * @param cursorName the name of the cursor
+   * @return the result set, positioned before the first row
+   * @throws SQLException if the rows cannot be read, the cursor is closed then
+   */
+  static PgScrollCursorResultSet open(PgStatement statement, Query originalQuery,
+      String cursorName) throws SQLException {
+    BaseConnection connection = statement.getPGConnection();
+    int windowSize = Math.max(1, statement.getFetchSize());
+    if (statement.getMaxRows() > 0) {
+      windowSize = Math.min(windowSize, statement.getMaxRows());
+    }
+    PgScrollCursorResultSet rs;
+    try {
+      FetchHandler handler = fetch(connection, cursorName, "FORWARD " + windowSize);
+      if (handler.fields == null) {
+        throw new PSQLException(GT.tr("No results were returned by the query."),
+            PSQLState.NO_DATA);
+      }
+      rs = new PgScrollCursorResultSet(originalQuery, statement, handler.fields, handler.tuples,
+          cursorName);
+    } catch (SQLException e) {
+      closeCursor(connection, cursorName);
+      throw e;
+    }
+    rs.setFetchSize(statement.getFetchSize());
+    rs.setFetchDirection(statement.getFetchDirection());
+    rs.windowLoaded(1, windowSize);
+    return rs;
+  }
+
+  private static FetchHandler fetch(BaseConnection connection, String cursorName,
+      String direction) throws SQLException {
+    FetchHandler handler = new FetchHandler();
+    execute(connection, "FETCH " + direction + " FROM " + cursorName, handler);
+    return handler;
+  }
+
+  private static void execute(BaseConnection connection, String sql, ResultHandlerBase handler)
+      throws SQLException {
+    QueryExecutor executor = connection.getQueryExecutor();
+    int flags = QueryExecutor.QUERY_ONESHOT;
+    if (connection.getAutoCommit()) {
+      flags |= QueryExecutor.QUERY_SUPPRESS_BEGIN;
+    }
+    executor.execute(executor.createSimpleQuery(sql), null, handler, 0, 0, flags);
+  }
+
+  private static void closeCursor(BaseConnection connection, String cursorName) {
+    try {
+      execute(connection, "CLOSE " + cursorName, new FetchHandler());
+    } catch (SQLException e) {
+      connection.getLogger().log(Level.FINE, "Failed to close cursor " + cursorName, e);
+    }
+  }
+
+  private int windowSize() throws SQLException {
+    return Math.max(1, getFetchSize());
+  }
+
+  private boolean inWindow(int target) {
+    return target > row_offset && target <= row_offset + rows.size();
+  }
+
+  /**
+   * Records what a fetch of up to {@code size} rows starting at {@code start} tells about the
+   * cursor.
+   */
+  private void windowLoaded(int start, int size) {
+    row_offset = start - 1;
+    if (rows.size() < size) {
+      firstMissingRow = Math.min(firstMissingRow, start + rows.size());
+      serverPosition = -1;
+    } else {
+      serverPosition = start + size - 1;
+    }
+    knownRows = Math.max(knownRows, row_offset + rows.size());
+  }
+
+  private void loadWindow(int start) throws SQLException {
+    int size = windowSize();
+    if (maxRows > 0) {
+      size = Math.min(size, maxRows - start + 1);
+    }
+    if (start == serverPosition + 1) {
+      rows = fetch(connection, cursorName, "FORWARD " + size).tuples;
+    } else {
+      rows = fetch(connection, cursorName, "ABSOLUTE " + start).tuples;
+      if (!rows.isEmpty() && size > 1) {
+        rows.addAll(fetch(connection, cursorName, "FORWARD " + (size - 1)).tuples);
+      }
+    }
+    windowLoaded(start, size);
+  }
+
+  /**
+   * @return whether the row at this position exists, fetching it if it is not known yet
+   */
+  private boolean exists(int target) throws SQLException {
+    if (target < 1 || target >= firstMissingRow) {
+      return false;
+    }
+    if (target <= knownRows) {
+      return true;
+    }
+    List<byte[][]> row = fetch(connection, cursorName, "ABSOLUTE " + target).tuples;
+    if (row.isEmpty()) {
+      firstMissingRow = target;
+      serverPosition = -1;
+      return false;
+    }
+    knownRows = target;
+    serverPosition = target;
+    return true;
+  }
+
+  /**
+   * Looks for the end of the cursor with exponentially growing, then bisecting, single row fetches.
+   */
+  private int rowCount() throws SQLException {
+    int step = Math.max(knownRows, windowSize());
+    while (knownRows + 1 < firstMissingRow
+        && exists((int) Math.min((long) knownRows + step, Integer.MAX_VALUE))) {
+      step *= 2;
+    }
+    while (knownRows + 1 < firstMissingRow) {
+      exists(knownRows + (firstMissingRow - knownRows) / 2);
+    }
+    return knownRows;
+  }
+
+  private boolean moveTo(int target) throws SQLException {
+    if (target < 1) {
+      position = 0;
+      afterLast = false;
+      this_row = null;
+      return false;
+    }
+    if (!inWindow(target) && target < firstMissingRow) {
+      loadWindow(target <= row_offset ? Math.max(1, target - windowSize() + 1) : target);
+    }
+    if (!inWindow(target)) {
+      position = 0;
+      afterLast = true;
+      this_row = null;
+      return false;
+    }
+    position = target;
+    afterLast = false;
+    current_row = target - 1 - row_offset;
+    this_row = rows.get(current_row);
+    return true;
+  }
+
+  /**
+   * @return the 1-based position, counting the position after the last row
+   */
+  private int currentPosition() throws SQLException {
+    return afterLast ? rowCount() + 1 : position;
+  }
+
+  @Override
+  public boolean next() throws SQLException {
+    checkClosed();
+    if (afterLast) {
+      return false;
+    }
+    return moveTo(position + 1);
+  }
+
+  @Override
+  public boolean previous() throws SQLException {
+    checkClosed();
+    return moveTo(currentPosition() - 1);
+  }
+
+  @Override
+  public boolean absolute(int index) throws SQLException {
+    checkClosed();
+    if (index >= 0) {
+      return moveTo(index);
+    }
+    int target = rowCount() + 1 + index;
+    return moveTo(Math.max(0, target));
+  }
+
+  @Override
+  public boolean relative(int rows) throws SQLException {
+    checkClosed();
+    if (this_row == null) {
+      throw new PSQLException(GT.tr("ResultSet not positioned properly, perhaps you need to call next."),
+          PSQLState.INVALID_CURSOR_STATE);
+    }
+    return moveTo(Math.max(0, position + rows));
+  }
+
+  @Override
+  public boolean first() throws SQLException {
+    checkClosed();
+    return moveTo(1);
+  }
+
+  @Override
+  public boolean last() throws SQLException {
+    checkClosed();
+    int count = rowCount();
+    if (count == 0) {
+      return false;
+    }
+    return moveTo(count);
+  }
+
+  @Override
+  public void beforeFirst() throws SQLException {
+    checkClosed();
+    moveTo(0);
+  }
+
+  @Override
+  public void afterLast() throws SQLException {
+    checkClosed();
+    position = 0;
+    afterLast = true;
+    this_row = null;
+  }
+
+  @Override
+  public boolean isBeforeFirst() throws SQLException {
+    checkClosed();
+    return position == 0 && !afterLast && exists(1);
+  }
+
+  @Override
+  public boolean isAfterLast() throws SQLException {
+    checkClosed();
+    return afterLast && exists(1);
+  }
+
+  @Override
+  public boolean isFirst() throws SQLException {
+    checkClosed();
+    return this_row != null && position == 1;
+  }
+
+  @Override
+  public boolean isLast() throws SQLException {
+    checkClosed();
+    return this_row != null && !exists(position + 1);
+  }
+
+  @Override
+  public int getRow() throws SQLException {
+    checkClosed();
+    return this_row != null ? position : 0;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (rows == null) {
+      return;
+    }
+    if (!connection.isClosed()) {
+      closeCursor(connection, cursorName);
+    }
+    super.close();
+  }
+
+  private static class FetchHandler extends ResultHandlerBase {
+    private Field[] fields;
+    private List<byte[][]> tuples = new ArrayList<byte[][]>();
+
+    @Override
+    public void handleResultRows(Query fromQuery, Field[] fields, List<byte[][]> tuples,
+        ResultCursor cursor) {
+      this.fields = fields;
+      this.tuples = tuples;
+    }
+
+    @Override
+    public void handleCommandStatus(String status, int updateCount, long insertOID) {
+      // CLOSE
+    }
+  }
+}
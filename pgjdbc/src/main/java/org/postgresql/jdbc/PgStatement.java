@@ -16,6 +16,7 @@ import org.postgresql.core.QueryExecutor;
 import org.postgresql.core.ResultCursor;
 import org.postgresql.core.ResultHandlerBase;
 import org.postgresql.core.SqlCommand;
+import org.postgresql.routing.ShardRouter;
 import org.postgresql.util.GT;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
@@ -81,6 +82,12 @@ public class PgStatement implements Statement, BaseStatement {
   private static final AtomicReferenceFieldUpdater<PgStatement, StatementCancelState> STATE_UPDATER =
       AtomicReferenceFieldUpdater.newUpdater(PgStatement.class, StatementCancelState.class, "statementState");
 
+  /**
+   * Connection to the node a statement has been routed to while it runs there, so that
+   * {@link #cancel()} and the query timeout reach the node rather than the connection itself.
+   */
+  private volatile QueryExecutor routedExecutor;
+
   /**
    * Does the caller of execute/executeUpdate want generated keys for this execution? This is set by
    * Statement methods that have generated keys arguments and cleared after execution is complete.
@@ -380,8 +387,24 @@ public class PgStatement implements Statement, BaseStatement {
       throws SQLException {
     closeForNextExecution();
 
-    // Enable cursor-based resultset if possible.
-    if (fetchSize > 0 && !wantsScrollableResultSet() && !connection.getAutoCommit()
+    // Scrollable read-only results may keep only a window of rows of a server side cursor.
+    if (fetchSize > 0 && resultsettype == ResultSet.TYPE_SCROLL_INSENSITIVE
+        && concurrency == ResultSet.CONCUR_READ_ONLY && connection.isServerScrollableCursors()
+        && !wantsGeneratedKeysOnce && !wantsGeneratedKeysAlways
+        && (flags & (QueryExecutor.QUERY_DESCRIBE_ONLY | QueryExecutor.QUERY_NO_RESULTS)) == 0) {
+      String cursorName = PgScrollCursorResultSet.nextCursorName();
+      Query declareQuery = connection.getQueryExecutor().createCursorQuery(cachedQuery.query,
+          "DECLARE " + cursorName + " SCROLL CURSOR WITH HOLD FOR ");
+      if (declareQuery != null) {
+        executeScrollCursor(cachedQuery.query, declareQuery, queryParameters, cursorName);
+        return;
+      }
+    }
+
+    // Enable cursor-based resultset if possible. CrateDB keeps the portal across Sync, so it
+    // survives the end of the statement in auto-commit mode.
+    if (fetchSize > 0 && !wantsScrollableResultSet()
+        && (!connection.getAutoCommit() || connection.isAutoCommitStreaming())
         && !wantsHoldableResultSet()) {
       flags |= QueryExecutor.QUERY_FORWARD_CURSOR;
     }
@@ -433,16 +456,41 @@ public class PgStatement implements Statement, BaseStatement {
       }
     }
 
+    // In autocommit mode, single shard statements may run on the node holding the shard. Cursors
+    // are not routed, their rows are fetched through the connection itself.
+    QueryExecutor executor = connection.getQueryExecutor();
+    CachedQuery routedQuery = null;
+    ShardRouter shardRouter = connection.getShardRouter();
+    if (shardRouter != null) {
+      QueryExecutor nodeExecutor = null;
+      if (connection.getAutoCommit() && (flags & QueryExecutor.QUERY_FORWARD_CURSOR) == 0) {
+        nodeExecutor = shardRouter.route(queryToExecute, queryParameters);
+      }
+      if (nodeExecutor != null) {
+        routedQuery = nodeExecutor.borrowQueryByKey(cachedQuery.key);
+        queryToExecute = routedQuery.query;
+        executor = nodeExecutor;
+      } else {
+        shardRouter.checkSessionState(queryToExecute);
+      }
+    }
+
     StatementResultHandler handler = new StatementResultHandler();
     synchronized (this) {
       result = null;
     }
     try {
+      if (routedQuery != null) {
+        routedExecutor = executor;
+      }
       startTimer();
-      connection.getQueryExecutor().execute(queryToExecute, queryParameters, handler, maxrows,
-          fetchSize, flags);
+      executor.execute(queryToExecute, queryParameters, handler, maxrows, fetchSize, flags);
     } finally {
       killTimerTask();
+      if (routedQuery != null) {
+        routedExecutor = null;
+        executor.releaseQuery(routedQuery);
+      }
     }
     synchronized (this) {
       checkClosed();
@@ -459,6 +507,35 @@ public class PgStatement implements Statement, BaseStatement {
     }
   }
 
+  /**
+   * Declares a scroll cursor for the query, and reads the first window of rows from it.
+   */
+  private void executeScrollCursor(Query query, Query declareQuery,
+      ParameterList queryParameters, String cursorName) throws SQLException {
+    int flags = QueryExecutor.QUERY_ONESHOT | QueryExecutor.QUERY_NO_METADATA
+        | QueryExecutor.QUERY_NO_RESULTS;
+    if (connection.getAutoCommit()) {
+      flags |= QueryExecutor.QUERY_SUPPRESS_BEGIN;
+    }
+
+    StatementResultHandler handler = new StatementResultHandler();
+    synchronized (this) {
+      result = null;
+    }
+    ResultSet rs;
+    try {
+      startTimer();
+      connection.getQueryExecutor().execute(declareQuery, queryParameters, handler, 0, 0, flags);
+      rs = PgScrollCursorResultSet.open(this, query, cursorName);
+    } finally {
+      killTimerTask();
+    }
+    synchronized (this) {
+      checkClosed();
+      result = firstUnclosedResult = new ResultWrapper(rs);
+    }
+  }
+
   public void setCursorName(String name) throws SQLException {
     checkClosed();
     // No-op.
@@ -829,6 +906,15 @@ public class PgStatement implements Statement, BaseStatement {
       }
     }
 
+    ShardRouter shardRouter = connection.getShardRouter();
+    if (shardRouter != null) {
+      for (int i = 0; i < queries.length; i++) {
+        if (i == 0 || queries[i] != queries[i - 1]) {
+          shardRouter.checkSessionState(queries[i]);
+        }
+      }
+    }
+
     synchronized (this) {
       result = null;
     }
@@ -863,7 +949,12 @@ public class PgStatement implements Statement, BaseStatement {
     // Synchronize on connection to avoid spinning in killTimerTask
     synchronized (connection) {
       try {
-        connection.cancelQuery();
+        QueryExecutor executor = routedExecutor;
+        if (executor != null) {
+          executor.sendQueryCancel();
+        } else {
+          connection.cancelQuery();
+        }
       } finally {
         STATE_UPDATER.set(this, StatementCancelState.CANCELLED);
         connection.notifyAll(); // wake-up killTimerTask
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * <p>Parses the text form of an array, such as <code>{{1,2},{3,NULL}}</code>, in a single pass
+ * into the Java array that {@link PgArray#getArray()} returns: a <code>Integer[]</code>, a
+ * <code>String[][]</code> and so on.</p>
+ *
+ * <p>The elements of each dimension are collected in a buffer that is reused for all the sub
+ * arrays of that dimension, so neither a list nor a String is created per element for numbers
+ * and booleans. Values that this parser does not expect, like sub arrays of different depths, are
+ * left to the list based parser of {@link PgArray}, which is more lenient.</p>
+ */
+final class TextArrayParser {
+  private final String value;
+  private final char delim;
+  private final int sqlType;
+  // component types of the arrays at each depth
+  private final Class<?>[] componentTypes;
+  // elements of the array being parsed at each depth
+  private final Object[][] elements;
+  private final int[] sizes;
+  private StringBuilder buffer;
+
+  private TextArrayParser(String value, char delim, int sqlType, Class<?> elementType,
+      int dimensions) {
+    this.value = value;
+    this.delim = delim;
+    this.sqlType = sqlType;
+    componentTypes = new Class<?>[dimensions];
+    componentTypes[dimensions - 1] = elementType;
+    for (int i = dimensions - 2; i >= 0; i--) {
+      componentTypes[i] = java.lang.reflect.Array.newInstance(componentTypes[i + 1], 0).getClass();
+    }
+    elements = new Object[dimensions][];
+    sizes = new int[dimensions];
+  }
+
+  /**
+   * Parses the text form of an array.
+   *
+   * @param value the array in text form
+   * @param delim the delimiter of the elements
+   * @param sqlType the {@link Types} of the elements
+   * @return the array, or null if the elements are not of a supported type or the value has to be
+   *         parsed by the list based parser
+   * @throws SQLException if an element cannot be converted to the element type
+   */
+  static Object parse(String value, char delim, int sqlType) throws SQLException {
+    Class<?> elementType = getElementType(sqlType);
+    if (elementType == null) {
+      return null;
+    }
+    // the bounds of "[0:2]={1,2,3}" are ignored, like the list based parser does
+    int start = value.startsWith("[") ? value.indexOf('=') + 1 : 0;
+    if (start == 0 && value.startsWith("[")) {
+      return null;
+    }
+    int dimensions = 0;
+    for (int i = start; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '{') {
+        dimensions++;
+      } else if (!Character.isWhitespace(c)) {
+        break;
+      }
+    }
+    if (dimensions == 0) {
+      return null;
+    }
+    return new TextArrayParser(value, delim, sqlType, elementType, dimensions).parse(start);
+  }
+
+  private static Class<?> getElementType(int sqlType) {
+    switch (sqlType) {
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return Boolean.class;
+      case Types.SMALLINT:
+        return Short.class;
+      case Types.INTEGER:
+        return Integer.class;
+      case Types.BIGINT:
+        return Long.class;
+      case Types.NUMERIC:
+        return BigDecimal.class;
+      case Types.REAL:
+        return Float.class;
+      case Types.DOUBLE:
+        return Double.class;
+      case Types.CHAR:
+      case Types.VARCHAR:
+        return String.class;
+      default:
+        return null;
+    }
+  }
+
+  private Object parse(int i) throws SQLException {
+    int depth = -1;
+    int leaf = elements.length - 1;
+    int length = value.length();
+    while (i < length) {
+      char c = value.charAt(i);
+      if (c == '{') {
+        if (++depth > leaf) {
+          return null;
+        }
+        sizes[depth] = 0;
+        i++;
+      } else if (c == '}') {
+        if (depth < 0) {
+          return null;
+        }
+        Object array = java.lang.reflect.Array.newInstance(componentTypes[depth], sizes[depth]);
+        if (sizes[depth] > 0) {
+          System.arraycopy(elements[depth], 0, array, 0, sizes[depth]);
+        }
+        if (depth == 0) {
+          return array;
+        }
+        add(--depth, array);
+        i++;
+      } else if (c == delim || Character.isWhitespace(c)) {
+        i++;
+      } else if (depth == leaf) {
+        i = element(i, depth);
+      } else {
+        // an element next to the sub arrays
+        return null;
+      }
+    }
+    // no closing brace
+    return null;
+  }
+
+  private void add(int depth, Object element) {
+    Object[] values = elements[depth];
+    int size = sizes[depth];
+    if (values == null) {
+      values = elements[depth] = new Object[16];
+    } else if (size == values.length) {
+      values = elements[depth] = Arrays.copyOf(values, size * 2);
+    }
+    values[size] = element;
+    sizes[depth] = size + 1;
+  }
+
+  /**
+   * Parses the element starting at the given index.
+   *
+   * @return the index after the element
+   */
+  private int element(int start, int depth) throws SQLException {
+    int length = value.length();
+    boolean plain = true;
+    boolean insideString = false;
+    int quotes = 0;
+    int end = start;
+    while (end < length) {
+      char c = value.charAt(end);
+      if (c == '\\') {
+        plain = false;
+        end += 2;
+        continue;
+      }
+      if (c == '"') {
+        insideString = !insideString;
+        quotes++;
+      } else if (!insideString && (c == delim || c == '}')) {
+        break;
+      } else if (!insideString && Character.isWhitespace(c)) {
+        plain = false;
+      }
+      end++;
+    }
+    end = Math.min(end, length);
+
+    if (plain && quotes == 0) {
+      add(depth, isNull(start, end) ? null : convert(start, end));
+    } else if (plain && quotes == 2 && value.charAt(start) == '"'
+        && value.charAt(end - 1) == '"') {
+      add(depth, convert(value.substring(start + 1, end - 1)));
+    } else {
+      String element = unescape(start, end);
+      add(depth, quotes == 0 && element.equals("NULL") ? null : convert(element));
+    }
+    return end;
+  }
+
+  private boolean isNull(int start, int end) {
+    return end - start == 4 && value.startsWith("NULL", start);
+  }
+
+  /**
+   * Returns the element without its quotes, escapes and white space outside of quotes.
+   */
+  private String unescape(int start, int end) {
+    if (buffer == null) {
+      buffer = new StringBuilder();
+    }
+    buffer.setLength(0);
+    boolean insideString = false;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c == '\\') {
+        if (++i < end) {
+          buffer.append(value.charAt(i));
+        }
+      } else if (c == '"') {
+        insideString = !insideString;
+      } else if (insideString || !Character.isWhitespace(c)) {
+        buffer.append(c);
+      }
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Converts an unquoted element without escapes, integers and booleans are converted without
+   * creating a String.
+   */
+  private Object convert(int start, int end) throws SQLException {
+    switch (sqlType) {
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+        long number = parseLong(start, end);
+        if (number == Long.MIN_VALUE) {
+          break;
+        }
+        if (sqlType == Types.BIGINT) {
+          return number;
+        }
+        if (sqlType == Types.INTEGER && number == (int) number) {
+          return (int) number;
+        }
+        if (sqlType == Types.SMALLINT && number == (short) number) {
+          return (short) number;
+        }
+        break;
+      case Types.BIT:
+      case Types.BOOLEAN:
+        if (end - start == 1) {
+          char c = value.charAt(start);
+          if (c == 't') {
+            return Boolean.TRUE;
+          } else if (c == 'f') {
+            return Boolean.FALSE;
+          }
+        }
+        break;
+      default:
+        break;
+    }
+    return convert(value.substring(start, end));
+  }
+
+  /**
+   * @return the value of an optionally signed number of at most 18 digits, or Long.MIN_VALUE if
+   *         the element is anything else
+   */
+  private long parseLong(int start, int end) {
+    boolean negative = value.charAt(start) == '-';
+    int i = negative ? start + 1 : start;
+    if (i == end || end - i > 18) {
+      return Long.MIN_VALUE;
+    }
+    long number = 0;
+    for (; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return Long.MIN_VALUE;
+      }
+      number = number * 10 + (c - '0');
+    }
+    return negative ? -number : number;
+  }
+
+  private Object convert(String element) throws SQLException {
+    switch (sqlType) {
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return BooleanTypeUtil.castToBoolean(element);
+      case Types.SMALLINT:
+        return PgResultSet.toShort(element);
+      case Types.INTEGER:
+        return PgResultSet.toInt(element);
+      case Types.BIGINT:
+        return PgResultSet.toLong(element);
+      case Types.NUMERIC:
+        return PgResultSet.toBigDecimal(element);
+      case Types.REAL:
+        return PgResultSet.toFloat(element);
+      case Types.DOUBLE:
+        return PgResultSet.toDouble(element);
+      default:
+        return element;
+    }
+  }
+}
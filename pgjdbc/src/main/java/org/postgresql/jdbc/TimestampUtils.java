@@ -15,12 +15,14 @@ import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
 
 import java.lang.reflect.Field;
+import java.nio.charset.Charset;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -46,10 +48,22 @@ public class TimestampUtils {
    * Number of milliseconds in one day.
    */
   private static final int ONEDAY = 24 * 3600 * 1000;
+  // seconds from the java epoch to the postgresql epoch, 2000-01-01
+  private static final long PG_EPOCH_SECS = 946684800L;
   private static final char[] ZEROS = {'0', '0', '0', '0', '0', '0', '0', '0', '0'};
   private static final char[][] NUMBERS;
   private static final HashMap<String, TimeZone> GMT_ZONES = new HashMap<String, TimeZone>();
   private static final int MAX_NANOS_BEFORE_WRAP_ON_ROUND = 999999500;
+  // 1582-10-16, the day after the switch of Calendar from the julian to the gregorian calendar
+  private static final long GREGORIAN_MILLIS = -12219292800000L + ONEDAY;
+  // results of the parsing of a value that is not in the format the backend sends
+  private static final long NOT_PARSED = Long.MIN_VALUE;
+  private static final int NOT_CANONICAL = -2;
+  private static final int BAD_OFFSET = Integer.MAX_VALUE;
+  // index of the time in a date, and offset of a value without one
+  private static final int NO_TIME = -1;
+  private static final int NO_OFFSET = Integer.MIN_VALUE;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
   //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
   private static final Duration ONE_MICROSECOND = Duration.ofNanos(1000);
   // LocalTime.MAX is 23:59:59.999_999_999, and it wraps to 24:00:00 when nanos exceed 999_999_499
@@ -61,9 +75,6 @@ public class TimestampUtils {
 
   private static final Field DEFAULT_TIME_ZONE_FIELD;
 
-  private TimeZone prevDefaultZoneFieldValue;
-  private TimeZone defaultTimeZoneCache;
-
   static {
     // The expected maximum value is 60 (seconds), so 64 is used "just in case"
     NUMBERS = new char[64][];
@@ -124,6 +135,9 @@ public class TimestampUtils {
   private Calendar calCache;
   private int calCacheZone;
 
+  // offsets of the last time zone used to convert a value without a calendar
+  private volatile ZoneOffsets zoneOffsets;
+
   /**
    * True if the backend uses doubles for time values. False if long is used.
    */
@@ -135,12 +149,16 @@ public class TimestampUtils {
     this.timeZoneProvider = timeZoneProvider;
   }
 
-  private Calendar getCalendar(int sign, int hr, int min, int sec) {
-    int rawOffset = sign * (((hr * 60 + min) * 60 + sec) * 1000);
+  private Calendar getCalendar(int rawOffset) {
     if (calCache != null && calCacheZone == rawOffset) {
       return calCache;
     }
 
+    int sign = rawOffset < 0 ? -1 : 1;
+    int sec = sign * rawOffset / 1000;
+    int hr = sec / 3600;
+    int min = sec / 60 % 60;
+    sec %= 60;
     StringBuilder zoneID = new StringBuilder("GMT");
     zoneID.append(sign < 0 ? '-' : '+');
     if (hr < 10) {
@@ -175,7 +193,8 @@ public class TimestampUtils {
     int second = 0;
     int nanos = 0;
 
-    Calendar tz = null;
+    boolean hasOffset = false;
+    int offset = 0;
   }
 
   private static class ParsedBinaryTimestamp {
@@ -192,7 +211,7 @@ public class TimestampUtils {
   /**
    * Load date/time information into the provided calendar returning the fractional seconds.
    */
-  private ParsedTimestamp parseBackendTimestamp(String str) throws SQLException {
+  private static ParsedTimestamp parseBackendTimestamp(String str) throws SQLException {
     char[] s = str.toCharArray();
     int slen = s.length;
 
@@ -332,10 +351,8 @@ public class TimestampUtils {
           start = end;
         }
 
-        // Setting offset does not seem to work correctly in all
-        // cases.. So get a fresh calendar for a synthetic timezone
-        // instead
-        result.tz = getCalendar(tzsign, tzhr, tzmin, tzsec);
+        result.hasOffset = true;
+        result.offset = tzsign * (((tzhr * 60 + tzmin) * 60 + tzsec) * 1000);
 
         start = skipWhitespace(s, start); // Skip trailing whitespace
       }
@@ -377,11 +394,49 @@ public class TimestampUtils {
    * @return null if s is null or a timestamp of the parsed string s.
    * @throws SQLException if there is a problem parsing s.
    */
-  public synchronized Timestamp toTimestamp(Calendar cal, String s) throws SQLException {
+  public Timestamp toTimestamp(Calendar cal, String s) throws SQLException {
     if (s == null) {
       return null;
     }
+    return toTimestamp(cal == null ? null : cal.getTimeZone(), s.getBytes(UTF_8), s);
+  }
+
+  /**
+   * Parse the text format of a timestamp, date or time and return a timestamp representing its
+   * value. Values in the format the backend sends are parsed without locking.
+   *
+   * @param tz time zone of a value without offset, null for the default time zone
+   * @param bytes The ISO formated date in the text format of the backend.
+   * @return a timestamp of the parsed bytes.
+   * @throws SQLException if there is a problem parsing the bytes.
+   */
+  public Timestamp toTimestamp(TimeZone tz, byte[] bytes) throws SQLException {
+    return toTimestamp(tz, bytes, null);
+  }
+
+  private Timestamp toTimestamp(TimeZone tz, byte[] s, String str) throws SQLException {
+    long infinity = infinity(s);
+    if (infinity != NOT_PARSED) {
+      return new Timestamp(infinity);
+    }
+    int time = timeIndex(s);
+    int end = fractionEnd(s, time);
+    long days = epochDay(s, time);
+    int timeOfDay = timeOfDay(s, time);
+    int offset = offset(s, end);
+    if (days != NOT_PARSED && timeOfDay >= 0 && offset != BAD_OFFSET) {
+      long millis = toMillis(days * ONEDAY + timeOfDay, offset, tz);
+      if (millis != NOT_PARSED) {
+        Timestamp result = new Timestamp(millis);
+        result.setNanos(nanos(s, time, end));
+        return result;
+      }
+    }
+    return toTimestampWithCalendar(tz, str != null ? str : new String(s, UTF_8));
+  }
 
+  private synchronized Timestamp toTimestampWithCalendar(TimeZone tz, String s)
+      throws SQLException {
     int slen = s.length();
 
     // convert postgres's infinity values to internal infinity magic value
@@ -394,7 +449,7 @@ public class TimestampUtils {
     }
 
     ParsedTimestamp ts = parseBackendTimestamp(s);
-    Calendar useCal = ts.tz != null ? ts.tz : setupCalendar(cal);
+    Calendar useCal = ts.hasOffset ? getCalendar(ts.offset) : getSharedCalendar(tz);
     useCal.set(Calendar.ERA, ts.era);
     useCal.set(Calendar.YEAR, ts.year);
     useCal.set(Calendar.MONTH, ts.month - 1);
@@ -421,16 +476,45 @@ public class TimestampUtils {
     if (s == null) {
       return null;
     }
+    return toLocalTime(s.getBytes(UTF_8), s);
+  }
+
+  /**
+   * Parse the text format of a time and return a LocalTime representing its value.
+   *
+   * @param bytes The ISO formated time in the text format of the backend.
+   * @return a LocalTime of the parsed bytes.
+   * @throws SQLException if there is a problem parsing the bytes.
+   */
+  public LocalTime toLocalTime(byte[] bytes) throws SQLException {
+    return toLocalTime(bytes, null);
+  }
+
+  private LocalTime toLocalTime(byte[] s, String str) throws SQLException {
+    int end = fractionEnd(s, 0);
+    if (timeIndex(s) == 0 && end == s.length) {
+      int timeOfDay = timeOfDay(s, 0);
+      int nanos = nanos(s, 0, end);
+      if (timeOfDay == ONEDAY && nanos == 0) {
+        return LocalTime.MAX;
+      }
+      if (timeOfDay >= 0 && timeOfDay < ONEDAY) {
+        return LocalTime.ofNanoOfDay(timeOfDay * 1000000L + nanos);
+      }
+    }
+    if (str == null) {
+      str = new String(s, UTF_8);
+    }
 
-    if (s.equals("24:00:00")) {
+    if (str.equals("24:00:00")) {
       return LocalTime.MAX;
     }
 
     try {
-      return LocalTime.parse(s);
+      return LocalTime.parse(str);
     } catch (DateTimeParseException nfe) {
       throw new PSQLException(
-          GT.tr("Bad value for type timestamp/date/time: {1}", s),
+          GT.tr("Bad value for type timestamp/date/time: {1}", str),
           PSQLState.BAD_DATETIME_FORMAT, nfe);
     }
 
@@ -447,22 +531,42 @@ public class TimestampUtils {
     if (s == null) {
       return null;
     }
+    return toLocalDateTime(s.getBytes(UTF_8), s);
+  }
 
-    int slen = s.length();
+  /**
+   * Parse the text format of a timestamp and return a LocalDateTime representing its value.
+   *
+   * @param bytes The ISO formated date in the text format of the backend.
+   * @return a LocalDateTime of the parsed bytes.
+   * @throws SQLException if there is a problem parsing the bytes.
+   */
+  public LocalDateTime toLocalDateTime(byte[] bytes) throws SQLException {
+    return toLocalDateTime(bytes, null);
+  }
 
+  private LocalDateTime toLocalDateTime(byte[] s, String str) throws SQLException {
+    long infinity = infinity(s);
     // convert postgres's infinity values to internal infinity magic value
-    if (slen == 8 && s.equals("infinity")) {
+    if (infinity == PGStatement.DATE_POSITIVE_INFINITY) {
       return LocalDateTime.MAX;
-    }
-
-    if (slen == 9 && s.equals("-infinity")) {
+    } else if (infinity == PGStatement.DATE_NEGATIVE_INFINITY) {
       return LocalDateTime.MIN;
     }
 
-    ParsedTimestamp ts = parseBackendTimestamp(s);
-
+    int time = timeIndex(s);
+    int end = fractionEnd(s, time);
+    long days = epochDay(s, time);
+    int timeOfDay = timeOfDay(s, time);
     // intentionally ignore time zone
     // 2004-10-19 10:23:54+03:00 is 2004-10-19 10:23:54 locally
+    if (days != NOT_PARSED && timeOfDay >= 0 && timeOfDay < ONEDAY
+        && offset(s, end) != BAD_OFFSET) {
+      return LocalDateTime.ofEpochSecond(days * 86400 + timeOfDay / 1000, nanos(s, time, end),
+          ZoneOffset.UTC);
+    }
+
+    ParsedTimestamp ts = parseBackendTimestamp(str != null ? str : new String(s, UTF_8));
     LocalDateTime result = LocalDateTime.of(ts.year, ts.month, ts.day, ts.hour, ts.minute, ts.second, ts.nanos);
     if (ts.era == GregorianCalendar.BC) {
       return result.with(ChronoField.ERA, IsoEra.BCE.getValue());
@@ -472,14 +576,53 @@ public class TimestampUtils {
   }
   //#endif
 
-  public synchronized Time toTime(Calendar cal, String s) throws SQLException {
-    // 1) Parse backend string
+  public Time toTime(Calendar cal, String s) throws SQLException {
     if (s == null) {
       return null;
     }
+    return toTime(cal == null ? null : cal.getTimeZone(), s.getBytes(UTF_8), s);
+  }
+
+  /**
+   * Parse the text format of a time, timestamp or date and return a time representing its value.
+   * Values in the format the backend sends are parsed without locking.
+   *
+   * @param tz time zone of a value without offset, null for the default time zone
+   * @param bytes The ISO formated time in the text format of the backend.
+   * @return a time of the parsed bytes.
+   * @throws SQLException if there is a problem parsing the bytes.
+   */
+  public Time toTime(TimeZone tz, byte[] bytes) throws SQLException {
+    return toTime(tz, bytes, null);
+  }
+
+  private Time toTime(TimeZone tz, byte[] s, String str) throws SQLException {
+    int time = timeIndex(s);
+    int end = fractionEnd(s, time);
+    long days = epochDay(s, time);
+    int timeOfDay = timeOfDay(s, time);
+    int offset = offset(s, end);
+    if (days != NOT_PARSED && timeOfDay >= 0 && offset != BAD_OFFSET) {
+      int millis = nanos(s, time, end) / 1000000;
+      if (offset != NO_OFFSET) {
+        // time with time zone is on 1970-01-01 in its own offset
+        return new Time(timeOfDay - offset + millis);
+      }
+      long timeMillis = toMillis(days * ONEDAY + timeOfDay, offset, tz);
+      if (timeMillis != NOT_PARSED) {
+        timeMillis += millis;
+        // like below, a timestamp of 1970 is not truncated
+        return days >= 0 && days < 365 ? new Time(timeMillis) : convertToTime(timeMillis, tz);
+      }
+    }
+    return toTimeWithCalendar(tz, str != null ? str : new String(s, UTF_8));
+  }
+
+  private synchronized Time toTimeWithCalendar(TimeZone tz, String s) throws SQLException {
+    // 1) Parse backend string
     ParsedTimestamp ts = parseBackendTimestamp(s);
-    Calendar useCal = ts.tz != null ? ts.tz : setupCalendar(cal);
-    if (ts.tz == null) {
+    Calendar useCal = ts.hasOffset ? getCalendar(ts.offset) : getSharedCalendar(tz);
+    if (!ts.hasOffset) {
       // When no time zone provided (e.g. time or timestamp)
       // We get the year-month-day from the string, then truncate the day to 1970-01-01
       // This is used for timestamp -> time conversion
@@ -506,26 +649,84 @@ public class TimestampUtils {
     useCal.set(Calendar.MILLISECOND, 0);
 
     long timeMillis = useCal.getTimeInMillis() + ts.nanos / 1000000;
-    if (ts.tz != null || (ts.year == 1970 && ts.era == GregorianCalendar.AD)) {
+    if (ts.hasOffset || (ts.year == 1970 && ts.era == GregorianCalendar.AD)) {
       // time with time zone has proper time zone, so the value can be returned as is
       return new Time(timeMillis);
     }
 
     // 2) Truncate date part so in given time zone the date would be formatted as 01/01/1970
-    return convertToTime(timeMillis, useCal == null ? null : useCal.getTimeZone());
+    return convertToTime(timeMillis, useCal.getTimeZone());
   }
 
-  public synchronized Date toDate(Calendar cal, String s) throws SQLException {
-    // 1) Parse backend string
-    Timestamp timestamp = toTimestamp(cal, s);
-
-    if (timestamp == null) {
+  public Date toDate(Calendar cal, String s) throws SQLException {
+    if (s == null) {
       return null;
     }
+    return toDate(cal == null ? null : cal.getTimeZone(), s.getBytes(UTF_8), s);
+  }
+
+  /**
+   * Parse the text format of a date or timestamp and return a date representing its value.
+   * Values in the format the backend sends are parsed without locking.
+   *
+   * @param tz time zone of a value without offset, null for the default time zone
+   * @param bytes The ISO formated date in the text format of the backend.
+   * @return a date of the parsed bytes.
+   * @throws SQLException if there is a problem parsing the bytes.
+   */
+  public Date toDate(TimeZone tz, byte[] bytes) throws SQLException {
+    return toDate(tz, bytes, null);
+  }
+
+  private Date toDate(TimeZone tz, byte[] s, String str) throws SQLException {
+    long infinity = infinity(s);
+    if (infinity != NOT_PARSED) {
+      return new Date(infinity);
+    }
+    int time = timeIndex(s);
+    int end = fractionEnd(s, time);
+    long days = epochDay(s, time);
+    int timeOfDay = timeOfDay(s, time);
+    int offset = offset(s, end);
+    if (days != NOT_PARSED && timeOfDay >= 0 && offset != BAD_OFFSET) {
+      long millis = toMillis(days * ONEDAY + timeOfDay, offset, tz);
+      if (millis != NOT_PARSED) {
+        // Truncate date part so in given time zone the date would be formatted as 00:00
+        return convertToDate(millis + nanos(s, time, end) / 1000000, tz);
+      }
+    }
+
+    // 1) Parse backend string
+    Timestamp timestamp = toTimestampWithCalendar(tz, str != null ? str : new String(s, UTF_8));
 
     // Note: infinite dates are handled in convertToDate
     // 2) Truncate date part so in given time zone the date would be formatted as 00:00
-    return convertToDate(timestamp.getTime(), cal == null ? null : cal.getTimeZone());
+    return convertToDate(timestamp.getTime(), tz);
+  }
+
+  /**
+   * Returns the instant of a wall clock value, or {@link #NOT_PARSED} if it can only be computed
+   * with a {@link Calendar}.
+   */
+  private long toMillis(long wallMillis, int offset, TimeZone tz) {
+    if (wallMillis < GREGORIAN_MILLIS) {
+      // Calendar uses the julian calendar before 1582-10-15
+      return NOT_PARSED;
+    }
+    if (offset != NO_OFFSET) {
+      return wallMillis - offset;
+    }
+    ZoneOffsets offsets = getZoneOffsets(tz == null ? getDefaultTz() : tz);
+    return offsets.covers(wallMillis) ? offsets.toMillis(wallMillis) : NOT_PARSED;
+  }
+
+  private ZoneOffsets getZoneOffsets(TimeZone tz) {
+    ZoneOffsets offsets = zoneOffsets;
+    if (offsets == null || !offsets.isFor(tz)) {
+      offsets = ZoneOffsets.get(tz);
+      zoneOffsets = offsets;
+    }
+    return offsets;
   }
 
   private Calendar setupCalendar(Calendar cal) {
@@ -901,6 +1102,192 @@ public class TimestampUtils {
     return '\0';
   }
 
+  /**
+   * Returns the index of the time in a value in the format the backend sends: 0 for a time, 11
+   * for a timestamp, {@link #NO_TIME} for a date and {@link #NOT_CANONICAL} for anything else.
+   */
+  private static int timeIndex(byte[] s) {
+    int length = s.length;
+    if (length >= 8 && s[2] == ':') {
+      return 0;
+    }
+    if (length >= 10 && s[4] == '-' && s[7] == '-') {
+      if (length == 10) {
+        return NO_TIME;
+      }
+      if (length >= 19 && s[10] == ' ') {
+        return 11;
+      }
+    }
+    return NOT_CANONICAL;
+  }
+
+  /**
+   * Returns the days since 1970-01-01 of the date of a value, 0 for a time, or
+   * {@link #NOT_PARSED} if there is no valid yyyy-mm-dd date.
+   */
+  private static long epochDay(byte[] s, int time) {
+    if (time == 0) {
+      return 0;
+    }
+    if (time == NOT_CANONICAL) {
+      return NOT_PARSED;
+    }
+    int year = digits(s, 0, 4);
+    int month = digits(s, 5, 2);
+    int day = digits(s, 8, 2);
+    if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+      return NOT_PARSED;
+    }
+    // same as LocalDate.toEpochDay, for positive years
+    long days = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400
+        + (367 * month - 362) / 12 + day - 1;
+    if (month > 2) {
+      days -= isLeapYear(year) ? 1 : 2;
+    }
+    // days from 0000-01-01 to 1970-01-01
+    return days - 719528;
+  }
+
+  private static boolean isLeapYear(int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    if (month == 2) {
+      return isLeapYear(year) ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Returns the milliseconds of the hh:mm:ss time at the given index, up to 24:00:00, 0 for a
+   * date, or -1 if the time is not valid.
+   */
+  private static int timeOfDay(byte[] s, int time) {
+    if (time == NO_TIME) {
+      return 0;
+    }
+    if (time == NOT_CANONICAL || s[time + 2] != ':' || s[time + 5] != ':') {
+      return -1;
+    }
+    int hour = digits(s, time, 2);
+    int minute = digits(s, time + 3, 2);
+    int second = digits(s, time + 6, 2);
+    if (hour < 0 || hour > 24 || minute < 0 || minute > 59 || second < 0 || second > 59
+        || hour == 24 && minute + second > 0) {
+      return -1;
+    }
+    return ((hour * 60 + minute) * 60 + second) * 1000;
+  }
+
+  /**
+   * Returns the index after the up to nine fractional digits of the seconds of the time at the
+   * given index, or -1 if the fraction is not valid.
+   */
+  private static int fractionEnd(byte[] s, int time) {
+    if (time == NOT_CANONICAL) {
+      return -1;
+    }
+    if (time == NO_TIME) {
+      return 10;
+    }
+    int end = time + 8;
+    if (end < s.length && s[end] == '.') {
+      int start = end + 1;
+      end = firstNonDigit(s, start);
+      if (end == start || end - start > 9) {
+        return -1;
+      }
+    }
+    return end;
+  }
+
+  private static int nanos(byte[] s, int time, int end) {
+    int start = time + 9;
+    if (time == NO_TIME || start > end) {
+      return 0;
+    }
+    int nanos = digits(s, start, end - start);
+    for (int i = end - start; i < 9; i++) {
+      nanos *= 10;
+    }
+    return nanos;
+  }
+
+  /**
+   * Returns the milliseconds of the +hh[:mm[:ss]] offset that ends the value at the given index,
+   * {@link #NO_OFFSET} if the value ends there, or {@link #BAD_OFFSET}.
+   */
+  private static int offset(byte[] s, int start) {
+    int length = s.length;
+    if (start == length) {
+      return NO_OFFSET;
+    }
+    if (start < 0 || start + 3 > length || (s[start] != '+' && s[start] != '-')) {
+      return BAD_OFFSET;
+    }
+    int hours = digits(s, start + 1, 2);
+    int minutes = 0;
+    int seconds = 0;
+    int end = start + 3;
+    if (end + 3 <= length && s[end] == ':') {
+      minutes = digits(s, end + 1, 2);
+      end += 3;
+      if (end + 3 <= length && s[end] == ':') {
+        seconds = digits(s, end + 1, 2);
+        end += 3;
+      }
+    }
+    if (end != length || hours < 0 || minutes < 0 || seconds < 0) {
+      return BAD_OFFSET;
+    }
+    int offset = ((hours * 60 + minutes) * 60 + seconds) * 1000;
+    return s[start] == '-' ? -offset : offset;
+  }
+
+  /**
+   * Returns {@link PGStatement#DATE_POSITIVE_INFINITY} or
+   * {@link PGStatement#DATE_NEGATIVE_INFINITY} for the infinity values, else {@link #NOT_PARSED}.
+   */
+  private static long infinity(byte[] s) {
+    int start = s.length == 9 && s[0] == '-' ? 1 : 0;
+    if (s.length - start != 8) {
+      return NOT_PARSED;
+    }
+    for (int i = 0; i < 8; i++) {
+      if (s[start + i] != "infinity".charAt(i)) {
+        return NOT_PARSED;
+      }
+    }
+    return start == 0 ? PGStatement.DATE_POSITIVE_INFINITY : PGStatement.DATE_NEGATIVE_INFINITY;
+  }
+
+  private static int firstNonDigit(byte[] s, int start) {
+    int slen = s.length;
+    for (int i = start; i < slen; i++) {
+      if (s[i] < '0' || s[i] > '9') {
+        return i;
+      }
+    }
+    return slen;
+  }
+
+  /**
+   * Returns the value of the given number of ASCII digits, or -1 if one of them is not a digit.
+   */
+  private static int digits(byte[] s, int start, int count) {
+    int n = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = s[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      n = 10 * n + digit;
+    }
+    return n;
+  }
+
   /**
    * Returns the SQL Date object matching the given bytes with {@link Oid#DATE}.
    *
@@ -939,17 +1326,14 @@ public class TimestampUtils {
     if (DEFAULT_TIME_ZONE_FIELD != null) {
       try {
         TimeZone defaultTimeZone = (TimeZone) DEFAULT_TIME_ZONE_FIELD.get(null);
-        if (defaultTimeZone == prevDefaultZoneFieldValue) {
-          return defaultTimeZoneCache;
+        if (defaultTimeZone != null) {
+          return defaultTimeZone;
         }
-        prevDefaultZoneFieldValue = defaultTimeZone;
       } catch (Exception e) {
         // If this were to fail, fallback on slow method.
       }
     }
-    TimeZone tz = TimeZone.getDefault();
-    defaultTimeZoneCache = tz;
-    return tz;
+    return TimeZone.getDefault();
   }
 
   public boolean hasFastDefaultTimeZone() {
@@ -1186,6 +1570,15 @@ public class TimestampUtils {
       // For well-known non-DST time zones, just subtract offset
       return millis - tz.getRawOffset();
     }
+    // For the other time zones, look the offset up in the transitions of the zone
+    ZoneOffsets offsets = getZoneOffsets(tz);
+    if (offsets.covers(millis)) {
+      return offsets.toMillis(millis);
+    }
+    return guessTimestampWithCalendar(millis, tz);
+  }
+
+  private synchronized long guessTimestampWithCalendar(long millis, TimeZone tz) {
     // For all the other time zones, enjoy debugging Calendar API
     // Here we do a straight-forward implementation that splits original timestamp into pieces and
     // composes it back.
@@ -1214,6 +1607,11 @@ public class TimestampUtils {
     return cal.getTimeInMillis();
   }
 
+  private static long floorMod(long millis, int divisor) {
+    long mod = millis % divisor;
+    return mod < 0 ? mod + divisor : mod;
+  }
+
   private static boolean isSimpleTimeZone(String id) {
     return id.startsWith("GMT") || id.startsWith("UTC");
   }
@@ -1244,13 +1642,26 @@ public class TimestampUtils {
       millis += offset;
       // 2) Truncate hours, minutes, etc. Day is always 86400 seconds, no matter what leap seconds
       // are
-      millis = millis / ONEDAY * ONEDAY;
+      millis -= floorMod(millis, ONEDAY);
       // 2) Now millis is 7 Jan 00:00 UTC, however we need that in GMT+02:00, so subtract some
       // offset
       millis -= offset;
       // Now we have brand-new 7 Jan 00:00 GMT+02:00
       return new Date(millis);
     }
+    ZoneOffsets offsets = getZoneOffsets(tz);
+    if (offsets.covers(millis)) {
+      // Truncate the wall clock value to 00:00 of the day
+      long wallMillis = millis + offsets.getOffset(millis);
+      wallMillis -= floorMod(wallMillis, ONEDAY);
+      if (offsets.covers(wallMillis)) {
+        return new Date(offsets.toMillis(wallMillis));
+      }
+    }
+    return convertToDateWithCalendar(millis, tz);
+  }
+
+  private synchronized Date convertToDateWithCalendar(long millis, TimeZone tz) {
     Calendar cal = calendarWithUserTz;
     cal.setTimeZone(tz);
     cal.setTimeInMillis(millis);
@@ -1281,13 +1692,22 @@ public class TimestampUtils {
       int offset = tz.getRawOffset();
       millis += offset;
       // 2) Truncate year, month, day. Day is always 86400 seconds, no matter what leap seconds are
-      millis = millis % ONEDAY;
+      millis = floorMod(millis, ONEDAY);
       // 2) Now millis is 1970 1 Jan 15:40 UTC, however we need that in GMT+02:00, so subtract some
       // offset
       millis -= offset;
       // Now we have brand-new 1970 1 Jan 15:40 GMT+02:00
       return new Time(millis);
     }
+    ZoneOffsets offsets = getZoneOffsets(tz);
+    if (offsets.covers(millis)) {
+      // Keep the time of the wall clock value, on 1970-01-01
+      return new Time(offsets.toMillis(floorMod(millis + offsets.getOffset(millis), ONEDAY)));
+    }
+    return convertToTimeWithCalendar(millis, tz);
+  }
+
+  private synchronized Time convertToTimeWithCalendar(long millis, TimeZone tz) {
     Calendar cal = calendarWithUserTz;
     cal.setTimeZone(tz);
     cal.setTimeInMillis(millis);
@@ -1398,6 +1818,143 @@ public class TimestampUtils {
     ByteConverter.int4(bytes, 0, (int) (secs / 86400));
   }
 
+  /**
+   * Converts the timestamp to binary representation for {@link Oid#TIMESTAMPTZ}. The instant of
+   * the timestamp is encoded, as the epoch milliseconds sent in text format, so that it is also
+   * the UTC date and time of a {@link Oid#TIMESTAMP}.
+   *
+   * @param bytes The 8 bytes to encode the timestamp to.
+   * @param value value
+   * @throws PSQLException If the timestamp is out of the range of the backend.
+   */
+  public void toBinTimestamp(byte[] bytes, Timestamp value) throws PSQLException {
+    long millis = value.getTime();
+    if (millis == PGStatement.DATE_POSITIVE_INFINITY) {
+      toBinInfinity(bytes, true);
+    } else if (millis == PGStatement.DATE_NEGATIVE_INFINITY) {
+      toBinInfinity(bytes, false);
+    } else {
+      // getTime includes the milliseconds of getNanos
+      toBinTimestamp(bytes, Math.floorDiv(millis, 1000L), value.getNanos());
+    }
+  }
+
+  //#if mvn.project.property.postgresql.jdbc.spec >= "JDBC4.2"
+  /**
+   * Converts the local date time to binary representation for {@link Oid#TIMESTAMP}.
+   *
+   * @param bytes The 8 bytes to encode the local date time to.
+   * @param value value
+   * @throws PSQLException If the local date time is out of the range of the backend.
+   */
+  public void toBinTimestamp(byte[] bytes, LocalDateTime value) throws PSQLException {
+    if (value.isAfter(MAX_LOCAL_DATETIME)) {
+      toBinInfinity(bytes, true);
+    } else if (LocalDateTime.MIN.equals(value)) {
+      toBinInfinity(bytes, false);
+    } else {
+      toBinTimestamp(bytes, value.toEpochSecond(ZoneOffset.UTC), value.getNano());
+    }
+  }
+
+  /**
+   * Converts the offset date time to binary representation for {@link Oid#TIMESTAMPTZ}.
+   *
+   * @param bytes The 8 bytes to encode the offset date time to.
+   * @param value value
+   * @throws PSQLException If the offset date time is out of the range of the backend.
+   */
+  public void toBinTimestamp(byte[] bytes, OffsetDateTime value) throws PSQLException {
+    if (value.isAfter(MAX_OFFSET_DATETIME)) {
+      toBinInfinity(bytes, true);
+    } else if (OffsetDateTime.MIN.equals(value)) {
+      toBinInfinity(bytes, false);
+    } else {
+      toBinTimestamp(bytes, value.toEpochSecond(), value.getNano());
+    }
+  }
+
+  /**
+   * Converts the instant to binary representation for {@link Oid#TIMESTAMPTZ}.
+   *
+   * @param bytes The 8 bytes to encode the instant to.
+   * @param value value
+   * @throws PSQLException If the instant is out of the range of the backend.
+   */
+  public void toBinTimestamp(byte[] bytes, Instant value) throws PSQLException {
+    toBinTimestamp(bytes, value.getEpochSecond(), value.getNano());
+  }
+
+  /**
+   * Converts the local date to binary representation for {@link Oid#DATE}.
+   *
+   * @param bytes The 4 bytes to encode the local date to.
+   * @param value value
+   */
+  public void toBinDate(byte[] bytes, LocalDate value) {
+    if (LocalDate.MAX.equals(value)) {
+      ByteConverter.int4(bytes, 0, Integer.MAX_VALUE);
+    } else if (LocalDate.MIN.equals(value)) {
+      ByteConverter.int4(bytes, 0, Integer.MIN_VALUE);
+    } else {
+      ByteConverter.int4(bytes, 0, (int) (value.toEpochDay() - PG_EPOCH_SECS / 86400));
+    }
+  }
+
+  /**
+   * Converts the local time to binary representation for {@link Oid#TIME}.
+   *
+   * @param bytes The 8 bytes to encode the local time to.
+   * @param value value
+   */
+  public void toBinTime(byte[] bytes, LocalTime value) {
+    if (value.isAfter(MAX_TIME)) {
+      toBinTime(bytes, 86400L * 1000000L);
+    } else {
+      toBinTime(bytes, toMicros(value.toNanoOfDay()));
+    }
+  }
+  //#endif
+
+  private void toBinTime(byte[] bytes, long micros) {
+    if (usesDouble) {
+      ByteConverter.float8(bytes, 0, micros / 1000000.0);
+    } else {
+      ByteConverter.int8(bytes, 0, micros);
+    }
+  }
+
+  private void toBinTimestamp(byte[] bytes, long epochSecs, int nanos) throws PSQLException {
+    long secs = epochSecs - PG_EPOCH_SECS;
+    long micros = toMicros(nanos);
+    if (usesDouble) {
+      ByteConverter.float8(bytes, 0, secs + micros / 1000000.0);
+      return;
+    }
+    try {
+      ByteConverter.int8(bytes, 0, Math.addExact(Math.multiplyExact(secs, 1000000L), micros));
+    } catch (ArithmeticException e) {
+      throw new PSQLException(GT.tr("Bad value for type {0} : {1}", "timestamp", epochSecs),
+          PSQLState.DATETIME_OVERFLOW, e);
+    }
+  }
+
+  private void toBinInfinity(byte[] bytes, boolean positive) {
+    if (usesDouble) {
+      ByteConverter.float8(bytes, 0,
+          positive ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+    } else {
+      ByteConverter.int8(bytes, 0, positive ? Long.MAX_VALUE : Long.MIN_VALUE);
+    }
+  }
+
+  /**
+   * Rounds nanoseconds to microseconds, as the text format does.
+   */
+  private static long toMicros(long nanos) {
+    return nanos / 1000 + (nanosExceed499((int) (nanos % 1000)) ? 1 : 0);
+  }
+
   /**
    * Converts backend's TimeZone parameter to java format.
    * Notable difference: backend's gmt-3 is GMT+03 in Java.
@@ -58,6 +58,10 @@ public class TypeInfoCache implements TypeInfo {
   private PreparedStatement _getArrayDelimiterStatement;
   private PreparedStatement _getTypeInfoStatement;
 
+  // lookups answered from the maps above, and lookups that queried the server
+  private long hits;
+  private long misses;
+
   // basic pg types info:
   // 0 - type name
   // 1 - type oid
@@ -188,8 +192,10 @@ public class TypeInfoCache implements TypeInfo {
     }
     Integer i = _pgNameToSQLType.get(pgTypeName);
     if (i != null) {
+      hits++;
       return i;
     }
+    misses++;
 
     if (_getTypeInfoStatement == null) {
       // There's no great way of telling what's an array type.
@@ -362,8 +368,10 @@ public class TypeInfoCache implements TypeInfo {
   public synchronized int getPGType(String pgTypeName) throws SQLException {
     Integer oid = _pgNameToOid.get(pgTypeName);
     if (oid != null) {
+      hits++;
       return oid;
     }
+    misses++;
 
     PreparedStatement oidStatement = getOidStatement(pgTypeName);
 
@@ -393,8 +401,10 @@ public class TypeInfoCache implements TypeInfo {
 
     String pgTypeName = _oidToPgName.get(oid);
     if (pgTypeName != null) {
+      hits++;
       return pgTypeName;
     }
+    misses++;
 
     if (_getNameStatement == null) {
       String sql;
@@ -467,8 +477,10 @@ public class TypeInfoCache implements TypeInfo {
 
     Character delim = _arrayOidToDelimiter.get(oid);
     if (delim != null) {
+      hits++;
       return delim;
     }
+    misses++;
 
     if (_getArrayDelimiterStatement == null) {
       String sql;
@@ -512,8 +524,10 @@ public class TypeInfoCache implements TypeInfo {
     Integer pgType = _pgArrayToPgType.get(oid);
 
     if (pgType != null) {
+      hits++;
       return pgType;
     }
+    misses++;
 
     if (_getArrayElementOidStatement == null) {
       String sql;
@@ -576,6 +590,27 @@ public class TypeInfoCache implements TypeInfo {
     return result;
   }
 
+  /**
+   * @return number of types whose name is known by oid
+   */
+  public synchronized int getTypeCount() {
+    return _oidToPgName.size();
+  }
+
+  /**
+   * @return number of lookups answered without querying the server
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of lookups that queried the server
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
   public String getTypeForAlias(String alias) {
     String type = typeAliases.get(alias);
     if (type != null) {
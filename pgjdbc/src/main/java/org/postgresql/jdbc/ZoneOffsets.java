@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Immutable table of the offsets of a {@link TimeZone} from 1900 to 2037, so that wall clock
+ * values can be converted to instants and back without a {@link java.util.Calendar} and without
+ * locking.</p>
+ *
+ * <p>The transitions are taken from the {@link ZoneRules} of the zone and the offsets from the
+ * {@code TimeZone} itself, so the conversions agree with {@link java.util.GregorianCalendar}: a
+ * wall clock value in a gap uses the offset before the transition and a value in an overlap uses
+ * the offset after it. Values outside of the table are not {@link #covers covered} and must be
+ * converted with a {@code Calendar}.</p>
+ */
+final class ZoneOffsets {
+  // 1900-01-01T00:00:00Z and 2037-01-01T00:00:00Z, one day is kept as a margin for the offsets
+  private static final long MIN_MILLIS = -2208988800000L + 86400000L;
+  private static final long MAX_MILLIS = 2114380800000L - 86400000L;
+  // sun.util.calendar.ZoneInfo, the time zones whose rules are those of java.time
+  private static final Class<?> ZONE_INFO_CLASS = TimeZone.getTimeZone("UTC").getClass();
+  // tables of the time zones of the database, shared by all connections
+  private static final ConcurrentMap<String, ZoneOffsets> CACHE =
+      new ConcurrentHashMap<String, ZoneOffsets>();
+
+  private final TimeZone timeZone;
+  private final boolean covered;
+  // instants of the transitions and the wall clock millis at which their offset starts to apply
+  private final long[] transitions;
+  private final long[] wallTransitions;
+  // offsets[0] applies before the first transition, offsets[i + 1] after transitions[i]
+  private final int[] offsets;
+
+  private ZoneOffsets(TimeZone timeZone, boolean covered, long[] transitions,
+      long[] wallTransitions, int[] offsets) {
+    this.timeZone = timeZone;
+    this.covered = covered;
+    this.transitions = transitions;
+    this.wallTransitions = wallTransitions;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Returns the offsets of the given time zone, which are built once for each time zone of the
+   * time zone database of the JVM.
+   *
+   * @param timeZone the time zone
+   * @return the offsets of the time zone
+   */
+  static ZoneOffsets get(TimeZone timeZone) {
+    if (timeZone.getClass() != ZONE_INFO_CLASS) {
+      return of(timeZone);
+    }
+    ZoneOffsets offsets = CACHE.get(timeZone.getID());
+    if (offsets == null || !offsets.isFor(timeZone)) {
+      offsets = of(timeZone);
+      CACHE.put(timeZone.getID(), offsets);
+    }
+    return offsets;
+  }
+
+  /**
+   * Builds the offsets of the given time zone. The result covers no value at all when the time
+   * zone is not backed by the time zone database of the JVM.
+   *
+   * @param timeZone the time zone
+   * @return the offsets of the time zone
+   */
+  static ZoneOffsets of(TimeZone timeZone) {
+    timeZone = (TimeZone) timeZone.clone();
+    ZoneOffsets uncovered = new ZoneOffsets(timeZone, false, null, null, null);
+    if (timeZone.getClass() != ZONE_INFO_CLASS) {
+      return uncovered;
+    }
+    ZoneRules rules;
+    try {
+      rules = timeZone.toZoneId().getRules();
+    } catch (RuntimeException e) {
+      return uncovered;
+    }
+
+    int count = 0;
+    long[] transitions = new long[16];
+    int[] offsets = new int[17];
+    int offset = timeZone.getOffset(MIN_MILLIS);
+    offsets[0] = offset;
+    ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(MIN_MILLIS));
+    while (transition != null && transition.toEpochSecond() * 1000L < MAX_MILLIS) {
+      long millis = transition.toEpochSecond() * 1000L;
+      if (timeZone.getOffset(millis - 1) != offset) {
+        // the TimeZone has a transition that java.time does not know about
+        return uncovered;
+      }
+      int after = timeZone.getOffset(millis);
+      if (after != offset) {
+        if (count == transitions.length) {
+          transitions = Arrays.copyOf(transitions, count * 2);
+          offsets = Arrays.copyOf(offsets, count * 2 + 1);
+        }
+        transitions[count++] = millis;
+        offsets[count] = after;
+        offset = after;
+      }
+      transition = rules.nextTransition(transition.getInstant());
+    }
+    if (timeZone.getOffset(MAX_MILLIS) != offset) {
+      return uncovered;
+    }
+
+    long[] wallTransitions = new long[count];
+    for (int i = 0; i < count; i++) {
+      wallTransitions[i] = transitions[i] + offsets[i + 1];
+      if (i > 0 && wallTransitions[i] <= wallTransitions[i - 1]) {
+        return uncovered;
+      }
+    }
+    return new ZoneOffsets(timeZone, true, Arrays.copyOf(transitions, count), wallTransitions,
+        Arrays.copyOf(offsets, count + 1));
+  }
+
+  /**
+   * @param timeZone a time zone
+   * @return true if these are the offsets of the given time zone
+   */
+  boolean isFor(TimeZone timeZone) {
+    return this.timeZone == timeZone || this.timeZone.equals(timeZone);
+  }
+
+  /**
+   * @param millis an instant or a wall clock value in milliseconds
+   * @return true if the value can be converted with this table
+   */
+  boolean covers(long millis) {
+    return covered && millis >= MIN_MILLIS && millis < MAX_MILLIS;
+  }
+
+  /**
+   * Returns the offset at the given instant, like {@link TimeZone#getOffset(long)}.
+   *
+   * @param millis a {@link #covers covered} instant
+   * @return the offset in milliseconds
+   */
+  int getOffset(long millis) {
+    return offsets[floor(transitions, millis) + 1];
+  }
+
+  /**
+   * Returns the instant at which the wall clock of the time zone shows the given value.
+   *
+   * @param wallMillis a {@link #covers covered} wall clock value, as milliseconds since
+   *        1970-01-01 00:00:00
+   * @return the instant in milliseconds
+   */
+  long toMillis(long wallMillis) {
+    return wallMillis - offsets[floor(wallTransitions, wallMillis) + 1];
+  }
+
+  /**
+   * Returns the index of the last value that is not greater than the key, or -1.
+   */
+  private static int floor(long[] values, long key) {
+    int index = Arrays.binarySearch(values, key);
+    return index >= 0 ? index : -index - 2;
+  }
+}
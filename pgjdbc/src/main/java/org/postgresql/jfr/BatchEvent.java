@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.postgresql.Batch")
+@Label("Batch execution")
+@Description("A batch of statements executed")
+final class BatchEvent extends ExecutionEvent {
+}
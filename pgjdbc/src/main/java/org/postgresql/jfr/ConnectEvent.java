@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.postgresql.Connect")
+@Label("Connect")
+@Description("A connection opened, including host selection, authentication and setup queries")
+@Category({"PostgreSQL JDBC", "Connections"})
+final class ConnectEvent extends Event {
+  @Label("Host")
+  String host;
+
+  @Label("Database")
+  String database;
+
+  @Label("Failed")
+  boolean failed;
+}
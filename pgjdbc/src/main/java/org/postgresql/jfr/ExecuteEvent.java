@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.postgresql.Execute")
+@Label("Statement execution")
+@Description("A statement executed, from sending it to processing its results")
+final class ExecuteEvent extends ExecutionEvent {
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the execute, batch and fetch events.
+ */
+@Category({"PostgreSQL JDBC", "Statements"})
+abstract class ExecutionEvent extends Event {
+  @Label("SQL Fingerprint")
+  String sql;
+
+  @Label("Host")
+  String host;
+
+  @Label("Server Prepared")
+  boolean serverPrepared;
+
+  @Label("Failed")
+  boolean failed;
+
+  @Label("Statements")
+  int statementCount;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+}
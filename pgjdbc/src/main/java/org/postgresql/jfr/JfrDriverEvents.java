@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import org.postgresql.monitoring.DriverEvents;
+import org.postgresql.monitoring.QueryExecutionEvent;
+import org.postgresql.util.HostSpec;
+
+import jdk.jfr.EventType;
+
+/**
+ * {@link DriverEvents} recorded with {@code jdk.jfr}. This class is only loaded reflectively, as
+ * it requires Java 11 or later.
+ */
+public class JfrDriverEvents extends DriverEvents {
+  // the types tell whether an event is enabled without creating the event
+  private static final EventType CONNECT = EventType.getEventType(ConnectEvent.class);
+  private static final EventType EXECUTE = EventType.getEventType(ExecuteEvent.class);
+  private static final EventType BATCH = EventType.getEventType(BatchEvent.class);
+  private static final EventType FETCH = EventType.getEventType(FetchEvent.class);
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  public Object beginConnect() {
+    if (!CONNECT.isEnabled()) {
+      return null;
+    }
+    ConnectEvent event = new ConnectEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void commitConnect(Object event, HostSpec hostSpec, String database, boolean failed) {
+    ConnectEvent connectEvent = (ConnectEvent) event;
+    connectEvent.end();
+    if (connectEvent.shouldCommit()) {
+      connectEvent.host = hostSpec == null ? null : hostSpec.toString();
+      connectEvent.database = database;
+      connectEvent.failed = failed;
+      connectEvent.commit();
+    }
+  }
+
+  @Override
+  public Object beginExecution(QueryExecutionEvent.Kind kind) {
+    ExecutionEvent event;
+    switch (kind) {
+      case BATCH:
+        if (!BATCH.isEnabled()) {
+          return null;
+        }
+        event = new BatchEvent();
+        break;
+      case FETCH:
+        if (!FETCH.isEnabled()) {
+          return null;
+        }
+        event = new FetchEvent();
+        break;
+      default:
+        if (!EXECUTE.isEnabled()) {
+          return null;
+        }
+        event = new ExecuteEvent();
+        break;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void commitExecution(Object event, String sql, HostSpec hostSpec, boolean serverPrepared,
+      boolean failed, int statementCount, long rows, long bytes) {
+    ExecutionEvent executionEvent = (ExecutionEvent) event;
+    executionEvent.end();
+    if (executionEvent.shouldCommit()) {
+      executionEvent.sql = sql;
+      executionEvent.host = hostSpec.toString();
+      executionEvent.serverPrepared = serverPrepared;
+      executionEvent.failed = failed;
+      executionEvent.statementCount = statementCount;
+      executionEvent.rows = rows;
+      executionEvent.bytes = bytes;
+      executionEvent.commit();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jmx;
+
+/**
+ * Caches of a connection, registered as {@code org.postgresql:type=Connection,id=<n>}. All the
+ * attributes are {@code 0} once the connection is garbage collected.
+ *
+ * @see org.postgresql.PGProperty#REGISTER_MBEANS
+ */
+public interface ConnectionMXBean {
+  /**
+   * @return host and port the connection is open to
+   */
+  String getHost();
+
+  /**
+   * @return true if the connection is closed
+   */
+  boolean isClosed();
+
+  int getStatementCacheEntries();
+
+  /**
+   * @return estimated size of the cached statements, in bytes
+   */
+  long getStatementCacheBytes();
+
+  long getStatementCacheHits();
+
+  long getStatementCacheMisses();
+
+  long getStatementCacheEvictions();
+
+  /**
+   * @return number of statements currently prepared on the server
+   */
+  int getServerPreparedStatements();
+
+  int getFieldMetadataCacheEntries();
+
+  long getFieldMetadataCacheHits();
+
+  long getFieldMetadataCacheMisses();
+
+  long getFieldMetadataCacheEvictions();
+
+  /**
+   * @return number of types known by oid
+   */
+  int getTypeCacheEntries();
+
+  long getTypeCacheHits();
+
+  /**
+   * @return number of type lookups that queried the server
+   */
+  long getTypeCacheMisses();
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jmx;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.CachedQuery;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.TypeInfo;
+import org.postgresql.jdbc.FieldMetadata;
+import org.postgresql.jdbc.TypeInfoCache;
+import org.postgresql.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * {@link ConnectionMXBean} of a connection. The connection is only weakly referenced, so that a
+ * connection which is never closed can still be finalized, which unregisters the MBean.
+ */
+class ConnectionMonitor implements ConnectionMXBean {
+  private final WeakReference<BaseConnection> connection;
+  private final String host;
+
+  ConnectionMonitor(BaseConnection connection) {
+    this.connection = new WeakReference<BaseConnection>(connection);
+    this.host = connection.getQueryExecutor().getHostSpec().toString();
+  }
+
+  private QueryExecutor getQueryExecutor() {
+    BaseConnection connection = this.connection.get();
+    return connection == null ? null : connection.getQueryExecutor();
+  }
+
+  private LruCache<Object, CachedQuery> getStatementCache() {
+    QueryExecutor queryExecutor = getQueryExecutor();
+    return queryExecutor == null ? null : queryExecutor.getStatementCache();
+  }
+
+  private LruCache<FieldMetadata.Key, FieldMetadata> getFieldMetadataCache() {
+    BaseConnection connection = this.connection.get();
+    return connection == null ? null : connection.getFieldMetadataCache();
+  }
+
+  private TypeInfoCache getTypeCache() {
+    BaseConnection connection = this.connection.get();
+    if (connection == null) {
+      return null;
+    }
+    TypeInfo typeInfo = connection.getTypeInfo();
+    return typeInfo instanceof TypeInfoCache ? (TypeInfoCache) typeInfo : null;
+  }
+
+  @Override
+  public String getHost() {
+    return host;
+  }
+
+  @Override
+  public boolean isClosed() {
+    QueryExecutor queryExecutor = getQueryExecutor();
+    return queryExecutor == null || queryExecutor.isClosed();
+  }
+
+  @Override
+  public int getStatementCacheEntries() {
+    LruCache<?, ?> cache = getStatementCache();
+    return cache == null ? 0 : cache.size();
+  }
+
+  @Override
+  public long getStatementCacheBytes() {
+    LruCache<?, ?> cache = getStatementCache();
+    return cache == null ? 0 : cache.getSizeBytes();
+  }
+
+  @Override
+  public long getStatementCacheHits() {
+    LruCache<?, ?> cache = getStatementCache();
+    return cache == null ? 0 : cache.getHits();
+  }
+
+  @Override
+  public long getStatementCacheMisses() {
+    LruCache<?, ?> cache = getStatementCache();
+    return cache == null ? 0 : cache.getMisses();
+  }
+
+  @Override
+  public long getStatementCacheEvictions() {
+    LruCache<?, ?> cache = getStatementCache();
+    return cache == null ? 0 : cache.getEvictions();
+  }
+
+  @Override
+  public int getServerPreparedStatements() {
+    QueryExecutor queryExecutor = getQueryExecutor();
+    return queryExecutor == null ? 0 : queryExecutor.getServerPreparedStatementCount();
+  }
+
+  @Override
+  public int getFieldMetadataCacheEntries() {
+    LruCache<?, ?> cache = getFieldMetadataCache();
+    return cache == null ? 0 : cache.size();
+  }
+
+  @Override
+  public long getFieldMetadataCacheHits() {
+    LruCache<?, ?> cache = getFieldMetadataCache();
+    return cache == null ? 0 : cache.getHits();
+  }
+
+  @Override
+  public long getFieldMetadataCacheMisses() {
+    LruCache<?, ?> cache = getFieldMetadataCache();
+    return cache == null ? 0 : cache.getMisses();
+  }
+
+  @Override
+  public long getFieldMetadataCacheEvictions() {
+    LruCache<?, ?> cache = getFieldMetadataCache();
+    return cache == null ? 0 : cache.getEvictions();
+  }
+
+  @Override
+  public int getTypeCacheEntries() {
+    TypeInfoCache typeCache = getTypeCache();
+    return typeCache == null ? 0 : typeCache.getTypeCount();
+  }
+
+  @Override
+  public long getTypeCacheHits() {
+    TypeInfoCache typeCache = getTypeCache();
+    return typeCache == null ? 0 : typeCache.getHits();
+  }
+
+  @Override
+  public long getTypeCacheMisses() {
+    TypeInfoCache typeCache = getTypeCache();
+    return typeCache == null ? 0 : typeCache.getMisses();
+  }
+}
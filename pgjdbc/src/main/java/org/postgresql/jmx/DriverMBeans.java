@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jmx;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.hostchooser.GlobalHostStatusTracker;
+import org.postgresql.hostchooser.HostStatusInfo;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the MBeans of the driver with the platform MBean server. Failures are logged, they
+ * never fail the connection.
+ *
+ * @see org.postgresql.PGProperty#REGISTER_MBEANS
+ */
+public final class DriverMBeans {
+  private static final Logger LOGGER = Logger.getLogger(DriverMBeans.class.getName());
+
+  static final String DOMAIN = "org.postgresql";
+
+  private static final AtomicLong nextConnectionId = new AtomicLong();
+
+  private static boolean hostStatusRegistered;
+
+  private DriverMBeans() {
+  }
+
+  /**
+   * Registers the {@link ConnectionMXBean} of a connection, and the {@link HostStatusMXBean} if
+   * it is not registered yet.
+   *
+   * @param connection the connection
+   * @return name of the MBean to pass to {@link #unregister(ObjectName)} when the connection is
+   *     closed, or null if it could not be registered
+   */
+  public static ObjectName registerConnection(BaseConnection connection) {
+    registerHostStatus();
+    try {
+      ObjectName name = new ObjectName(DOMAIN + ":type=Connection,id="
+          + nextConnectionId.incrementAndGet());
+      getMBeanServer().registerMBean(new ConnectionMonitor(connection), name);
+      return name;
+    } catch (JMException e) {
+      LOGGER.log(Level.WARNING, "Could not register the MBean of the connection", e);
+      return null;
+    }
+  }
+
+  private static synchronized void registerHostStatus() {
+    if (hostStatusRegistered) {
+      return;
+    }
+    hostStatusRegistered = true;
+    try {
+      getMBeanServer().registerMBean(new HostStatusMXBean() {
+        @Override
+        public List<HostStatusInfo> getHosts() {
+          return GlobalHostStatusTracker.getHostStatuses();
+        }
+      }, new ObjectName(DOMAIN + ":type=HostStatus"));
+    } catch (JMException e) {
+      LOGGER.log(Level.WARNING, "Could not register the host status MBean", e);
+    }
+  }
+
+  /**
+   * Unregisters an MBean registered by {@link #registerConnection(BaseConnection)}.
+   *
+   * @param name name of the MBean
+   */
+  public static void unregister(ObjectName name) {
+    try {
+      MBeanServer mbeanServer = getMBeanServer();
+      if (mbeanServer.isRegistered(name)) {
+        mbeanServer.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      LOGGER.log(Level.FINE, "Could not unregister MBean " + name, e);
+    }
+  }
+
+  private static MBeanServer getMBeanServer() {
+    return ManagementFactory.getPlatformMBeanServer();
+  }
+}
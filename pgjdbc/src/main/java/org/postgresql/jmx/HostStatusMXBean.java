@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jmx;
+
+import org.postgresql.hostchooser.HostStatusInfo;
+
+import java.util.List;
+
+/**
+ * Status of the hosts known to the driver, registered as {@code org.postgresql:type=HostStatus}.
+ *
+ * @see org.postgresql.hostchooser.GlobalHostStatusTracker
+ * @see org.postgresql.PGProperty#REGISTER_MBEANS
+ */
+public interface HostStatusMXBean {
+  List<HostStatusInfo> getHosts();
+}
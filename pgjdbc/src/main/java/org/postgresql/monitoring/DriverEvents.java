@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import org.postgresql.util.HostSpec;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Java Flight Recorder events of the driver: connect, execute, batch and fetch. They let slow
+ * queries line up with GC and safepoint events in the same recording.</p>
+ *
+ * <p>The events extend {@code jdk.jfr.Event}, which does not exist before Java 11, so they are
+ * loaded reflectively from {@code org.postgresql.jfr}. When they cannot be loaded, every method
+ * is a no-op.</p>
+ *
+ * <p>An event is started by a {@code begin} method, which returns null when the event is not
+ * enabled in any running recording, and is committed by the matching {@code commit} method.</p>
+ */
+public abstract class DriverEvents {
+  private static final Logger LOGGER = Logger.getLogger(DriverEvents.class.getName());
+
+  private static final DriverEvents INSTANCE = load();
+
+  private static DriverEvents load() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (DriverEvents) Class.forName("org.postgresql.jfr.JfrDriverEvents")
+          .getDeclaredConstructor().newInstance();
+    } catch (Throwable e) {
+      // ClassNotFoundException before Java 11, NoClassDefFoundError if the jdk.jfr module is not
+      // available or org.postgresql.jfr was not included in this build
+      LOGGER.log(Level.FINE, "Java Flight Recorder events are not available", e);
+      return new DriverEvents() {
+        @Override
+        public boolean isAvailable() {
+          return false;
+        }
+
+        @Override
+        public Object beginConnect() {
+          return null;
+        }
+
+        @Override
+        public void commitConnect(Object event, HostSpec hostSpec, String database,
+            boolean failed) {
+        }
+
+        @Override
+        public Object beginExecution(QueryExecutionEvent.Kind kind) {
+          return null;
+        }
+
+        @Override
+        public void commitExecution(Object event, String sql, HostSpec hostSpec,
+            boolean serverPrepared, boolean failed, int statementCount, long rows, long bytes) {
+        }
+      };
+    }
+  }
+
+  /**
+   * @return the events of this JVM
+   */
+  public static DriverEvents getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return true if the events can be recorded in this JVM
+   */
+  public abstract boolean isAvailable();
+
+  /**
+   * Starts a connect event.
+   *
+   * @return the event, or null if it is not recorded
+   */
+  public abstract Object beginConnect();
+
+  /**
+   * Commits an event started by {@link #beginConnect()}.
+   *
+   * @param event the event
+   * @param hostSpec host the connection was opened to, null if it failed
+   * @param database database of the connection
+   * @param failed true if no connection could be opened
+   */
+  public abstract void commitConnect(Object event, HostSpec hostSpec, String database,
+      boolean failed);
+
+  /**
+   * Starts an execute, batch or fetch event.
+   *
+   * @param kind kind of execution
+   * @return the event, or null if it is not recorded
+   */
+  public abstract Object beginExecution(QueryExecutionEvent.Kind kind);
+
+  /**
+   * Commits an event started by {@link #beginExecution(QueryExecutionEvent.Kind)}.
+   *
+   * @param event the event
+   * @param sql fingerprint of the (first) statement
+   * @param hostSpec host of the connection
+   * @param serverPrepared true if a server prepared statement was used
+   * @param failed true if the execution failed
+   * @param statementCount number of statements of a batch, 1 otherwise
+   * @param rows number of rows received
+   * @param bytes number of bytes sent and received
+   */
+  public abstract void commitExecution(Object event, String sql, HostSpec hostSpec,
+      boolean serverPrepared, boolean failed, int statementCount, long rows, long bytes);
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import org.postgresql.util.HostSpec;
+
+/**
+ * <p>Timings and sizes of a single execution, as reported to {@link QueryExecutionListener}. All
+ * durations are in nanoseconds.</p>
+ *
+ * <p>The send phases measure the time spent writing the Parse, Bind and Execute messages. Messages
+ * are buffered until the final Sync, so the time spent writing to the socket is mostly part of the
+ * execute phase. Simple query ('Q') executions only have an execute phase.</p>
+ */
+public final class QueryExecutionEvent {
+
+  /**
+   * The kind of execution.
+   */
+  public enum Kind {
+    /**
+     * Execution of a single statement.
+     */
+    EXECUTE,
+    /**
+     * Execution of a batch of statements.
+     */
+    BATCH,
+    /**
+     * Fetch of the next rows of an open cursor.
+     */
+    FETCH
+  }
+
+  private final Kind kind;
+  private final String sql;
+  private final int statementCount;
+  private final HostSpec hostSpec;
+  private final boolean serverPrepared;
+  private final boolean failed;
+  private final long parseNanos;
+  private final long bindNanos;
+  private final long executeNanos;
+  private final long firstByteNanos;
+  private final long processResultsNanos;
+  private final long totalNanos;
+  private final long rows;
+  private final long bytesSent;
+  private final long bytesReceived;
+
+  public QueryExecutionEvent(Kind kind, String sql, int statementCount, HostSpec hostSpec,
+      boolean serverPrepared, boolean failed, long parseNanos, long bindNanos, long executeNanos,
+      long firstByteNanos, long processResultsNanos, long totalNanos, long rows, long bytesSent,
+      long bytesReceived) {
+    this.kind = kind;
+    this.sql = sql;
+    this.statementCount = statementCount;
+    this.hostSpec = hostSpec;
+    this.serverPrepared = serverPrepared;
+    this.failed = failed;
+    this.parseNanos = parseNanos;
+    this.bindNanos = bindNanos;
+    this.executeNanos = executeNanos;
+    this.firstByteNanos = firstByteNanos;
+    this.processResultsNanos = processResultsNanos;
+    this.totalNanos = totalNanos;
+    this.rows = rows;
+    this.bytesSent = bytesSent;
+    this.bytesReceived = bytesReceived;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return native SQL of the statement, of the first statement for batches
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * @return number of statements sent, greater than 1 for batches
+   */
+  public int getStatementCount() {
+    return statementCount;
+  }
+
+  /**
+   * @return host the statement was executed on
+   */
+  public HostSpec getHostSpec() {
+    return hostSpec;
+  }
+
+  /**
+   * @return true if a named server side prepared statement was used
+   */
+  public boolean isServerPrepared() {
+    return serverPrepared;
+  }
+
+  /**
+   * @return true if the execution failed with an error
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+
+  /**
+   * @return time spent sending Parse messages
+   */
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  /**
+   * @return time spent sending Bind messages
+   */
+  public long getBindNanos() {
+    return bindNanos;
+  }
+
+  /**
+   * @return time spent sending Describe, Execute and Sync messages, or the simple Query message,
+   *     including flushing them to the socket
+   */
+  public long getExecuteNanos() {
+    return executeNanos;
+  }
+
+  /**
+   * @return time from the start of the execution to the first byte of the response, or -1 if no
+   *     response was received
+   */
+  public long getFirstByteNanos() {
+    return firstByteNanos;
+  }
+
+  /**
+   * @return time spent receiving and processing the response
+   */
+  public long getProcessResultsNanos() {
+    return processResultsNanos;
+  }
+
+  /**
+   * @return time of the whole execution
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return number of rows received
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * @return number of bytes written to the connection
+   */
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * @return number of bytes read from the connection
+   */
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryExecutionEvent{"
+        + "kind=" + kind
+        + ", sql=" + sql
+        + ", statementCount=" + statementCount
+        + ", hostSpec=" + hostSpec
+        + ", serverPrepared=" + serverPrepared
+        + ", failed=" + failed
+        + ", parseNanos=" + parseNanos
+        + ", bindNanos=" + bindNanos
+        + ", executeNanos=" + executeNanos
+        + ", firstByteNanos=" + firstByteNanos
+        + ", processResultsNanos=" + processResultsNanos
+        + ", totalNanos=" + totalNanos
+        + ", rows=" + rows
+        + ", bytesSent=" + bytesSent
+        + ", bytesReceived=" + bytesReceived
+        + '}';
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+/**
+ * <p>Receives the timings and sizes of every query execution of a connection. Implementations
+ * are configured with the {@code queryExecutionListener} connection property and instantiated
+ * once per connection, through a constructor taking the connection {@link java.util.Properties}
+ * if there is one, or else through the no argument constructor.</p>
+ *
+ * <p>The listener is called on the thread executing the query, while the connection is locked,
+ * so it should return quickly. Exceptions thrown by the listener are logged and ignored.</p>
+ *
+ * @see org.postgresql.PGProperty#QUERY_EXECUTION_LISTENER
+ */
+public interface QueryExecutionListener {
+
+  /**
+   * Called once an execution is complete, whether it succeeded or not.
+   *
+   * @param event timings and sizes of the execution
+   */
+  void queryExecuted(QueryExecutionEvent event);
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import org.postgresql.PGProperty;
+import org.postgresql.util.GT;
+import org.postgresql.util.ObjectFactory;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Instantiates the {@link QueryExecutionListener}s of a connection.
+ */
+public class QueryExecutionListenerFactory {
+
+  /**
+   * Instantiates the listeners named by {@link PGProperty#QUERY_EXECUTION_LISTENER}.
+   *
+   * @param info connection properties
+   * @return the listener, or null if no listener is configured
+   * @throws PSQLException if a listener cannot be instantiated
+   */
+  public static QueryExecutionListener getQueryExecutionListener(Properties info)
+      throws PSQLException {
+    String classNames = PGProperty.QUERY_EXECUTION_LISTENER.get(info);
+    if (classNames == null) {
+      return null;
+    }
+    final List<QueryExecutionListener> listeners = new ArrayList<QueryExecutionListener>();
+    for (String className : classNames.split(",")) {
+      className = className.trim();
+      if (className.isEmpty()) {
+        continue;
+      }
+      try {
+        listeners.add((QueryExecutionListener) ObjectFactory.instantiate(className, info, false,
+            null));
+      } catch (Exception e) {
+        throw new PSQLException(
+            GT.tr("The QueryExecutionListener class provided {0} could not be instantiated.",
+                className),
+            PSQLState.CONNECTION_FAILURE, e);
+      }
+    }
+
+    if (listeners.isEmpty()) {
+      return null;
+    }
+    if (listeners.size() == 1) {
+      return listeners.get(0);
+    }
+    return new QueryExecutionListener() {
+      @Override
+      public void queryExecuted(QueryExecutionEvent event) {
+        for (QueryExecutionListener listener : listeners) {
+          listener.queryExecuted(event);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import java.util.Locale;
+
+/**
+ * Aggregated executions of the statements sharing a fingerprint, as collected by
+ * {@link StatementStatisticsCollector}. Instances are immutable snapshots.
+ *
+ * @see org.postgresql.core.Parser#fingerprint(String, boolean)
+ */
+public final class StatementStatistics {
+  private final String fingerprint;
+  private final long calls;
+  private final long failures;
+  private final long totalNanos;
+  private final long minNanos;
+  private final long maxNanos;
+  private final long p50Nanos;
+  private final long p95Nanos;
+  private final long p99Nanos;
+  private final long rows;
+  private final long bytesSent;
+  private final long bytesReceived;
+
+  StatementStatistics(String fingerprint, long calls, long failures, long totalNanos,
+      long minNanos, long maxNanos, long p50Nanos, long p95Nanos, long p99Nanos, long rows,
+      long bytesSent, long bytesReceived) {
+    this.fingerprint = fingerprint;
+    this.calls = calls;
+    this.failures = failures;
+    this.totalNanos = totalNanos;
+    this.minNanos = minNanos;
+    this.maxNanos = maxNanos;
+    this.p50Nanos = p50Nanos;
+    this.p95Nanos = p95Nanos;
+    this.p99Nanos = p99Nanos;
+    this.rows = rows;
+    this.bytesSent = bytesSent;
+    this.bytesReceived = bytesReceived;
+  }
+
+  /**
+   * @return the statement with its literals and parameters replaced by {@code ?}
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return number of executions, each statement of a batch counting as one execution
+   */
+  public long getCalls() {
+    return calls;
+  }
+
+  /**
+   * @return number of executions that failed
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * @return time spent in the executions and in fetching more rows, in nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  public long getMeanNanos() {
+    return calls == 0 ? 0 : totalNanos / calls;
+  }
+
+  public long getMinNanos() {
+    return minNanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * @return median execution time, in nanoseconds. Percentiles are approximated within 15%.
+   */
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP95Nanos() {
+    return p95Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  /**
+   * @return number of rows received
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT,
+        "calls=%d failures=%d total=%.3fms mean=%.3fms min=%.3fms p50=%.3fms p95=%.3fms"
+            + " p99=%.3fms max=%.3fms rows=%d sent=%d received=%d: %s",
+        calls, failures, millis(totalNanos), millis(getMeanNanos()), millis(minNanos),
+        millis(p50Nanos), millis(p95Nanos), millis(p99Nanos), millis(maxNanos), rows, bytesSent,
+        bytesReceived, fingerprint);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1000000.0;
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import org.postgresql.Driver;
+import org.postgresql.core.Parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Per JVM statistics of the executed statements, aggregated by fingerprint, like
+ * {@code pg_stat_statements} but from the client side. Only the connections with
+ * {@link org.postgresql.PGProperty#COLLECT_STATEMENT_STATISTICS} set are recorded.</p>
+ *
+ * <p>At most {@value #MAX_STATEMENTS} fingerprints are kept. When a new fingerprint does not fit,
+ * the 5% least called ones are discarded.</p>
+ */
+public final class StatementStatisticsCollector {
+  private static final Logger LOGGER = Logger.getLogger(StatementStatisticsCollector.class.getName());
+
+  static final int MAX_STATEMENTS = 5000;
+
+  /**
+   * Number of fingerprints of distinct SQL strings that are kept, so that they are not computed
+   * again on every execution.
+   */
+  private static final int MAX_CACHED_FINGERPRINTS = 10000;
+
+  /**
+   * Number of statements logged by each dump.
+   */
+  private static final int DUMPED_STATEMENTS = 20;
+
+  private static final StatementStatisticsCollector INSTANCE = new StatementStatisticsCollector();
+
+  // literals are parsed differently depending on standard_conforming_strings
+  private final Map<String, String> fingerprints = new ConcurrentHashMap<String, String>();
+  private final Map<String, String> nonStandardFingerprints =
+      new ConcurrentHashMap<String, String>();
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+  private Timer dumpTimer;
+  private TimerTask dumpTask;
+  private long dumpIntervalMillis;
+
+  StatementStatisticsCollector() {
+  }
+
+  /**
+   * @return the statistics of this JVM
+   */
+  public static StatementStatisticsCollector getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the fingerprint of a statement, computing it only once per distinct SQL string.
+   *
+   * @param sql native SQL of the statement
+   * @param standardConformingStrings whether backslashes are escape characters in literals
+   * @return the fingerprint
+   * @see Parser#fingerprint(String, boolean)
+   */
+  public String fingerprint(String sql, boolean standardConformingStrings) {
+    Map<String, String> fingerprints =
+        standardConformingStrings ? this.fingerprints : nonStandardFingerprints;
+    String fingerprint = fingerprints.get(sql);
+    if (fingerprint == null) {
+      fingerprint = Parser.fingerprint(sql, standardConformingStrings);
+      if (fingerprints.size() >= MAX_CACHED_FINGERPRINTS) {
+        fingerprints.clear();
+      }
+      fingerprints.put(sql, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Records an execution.
+   *
+   * @param fingerprint fingerprint of the statement
+   * @param calls number of statements executed, 0 when more rows are fetched from a portal
+   * @param nanos time spent
+   * @param failed true if the execution failed
+   * @param rows number of rows received
+   * @param bytesSent number of bytes sent
+   * @param bytesReceived number of bytes received
+   */
+  public void record(String fingerprint, int calls, long nanos, boolean failed, long rows,
+      long bytesSent, long bytesReceived) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(fingerprint);
+      if (entry == null) {
+        if (entries.size() >= MAX_STATEMENTS) {
+          evictLeastCalled();
+        }
+        entry = new Entry(fingerprint);
+        entries.put(fingerprint, entry);
+      }
+    }
+    entry.record(calls, nanos, failed, rows, bytesSent, bytesReceived);
+  }
+
+  private void evictLeastCalled() {
+    int evicted = Math.max(1, entries.size() / 20);
+    // the calls are copied first, as they keep changing while executions are recorded
+    long[] calls = new long[entries.size()];
+    int i = 0;
+    for (Entry entry : entries.values()) {
+      calls[i++] = entry.getCalls();
+    }
+    Arrays.sort(calls);
+    long threshold = calls[evicted - 1];
+    // entries below the threshold go first, then as many as needed of those equal to it
+    evicted -= evict(threshold - 1, evicted);
+    evict(threshold, evicted);
+  }
+
+  private int evict(long maxCalls, int count) {
+    int evicted = 0;
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext() && evicted < count) {
+      if (it.next().getCalls() <= maxCalls) {
+        it.remove();
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * @return the statistics of every fingerprint, by decreasing total time
+   */
+  public List<StatementStatistics> getStatistics() {
+    List<Entry> snapshot;
+    synchronized (entries) {
+      snapshot = new ArrayList<Entry>(entries.values());
+    }
+    List<StatementStatistics> statistics = new ArrayList<StatementStatistics>(snapshot.size());
+    for (Entry entry : snapshot) {
+      statistics.add(entry.getStatistics());
+    }
+    Collections.sort(statistics, new Comparator<StatementStatistics>() {
+      @Override
+      public int compare(StatementStatistics o1, StatementStatistics o2) {
+        long total1 = o1.getTotalNanos();
+        long total2 = o2.getTotalNanos();
+        return total1 > total2 ? -1 : (total1 == total2 ? 0 : 1);
+      }
+    });
+    return statistics;
+  }
+
+  /**
+   * Discards all the statistics.
+   */
+  public void reset() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Logs the statements with the highest total time at {@code INFO} level periodically. When
+   * connections ask for different intervals, the shortest one is used.
+   *
+   * @param intervalMillis time between two dumps
+   */
+  public synchronized void scheduleDump(long intervalMillis) {
+    if (intervalMillis <= 0 || (dumpTimer != null && dumpIntervalMillis <= intervalMillis)) {
+      return;
+    }
+    if (dumpTimer == null) {
+      // the reference on the shared timer is kept for the lifetime of the driver
+      dumpTimer = Driver.getSharedTimer().getTimer();
+    } else {
+      dumpTask.cancel();
+    }
+    dumpIntervalMillis = intervalMillis;
+    dumpTask = new TimerTask() {
+      @Override
+      public void run() {
+        dump();
+      }
+    };
+    dumpTimer.scheduleAtFixedRate(dumpTask, intervalMillis, intervalMillis);
+  }
+
+  void dump() {
+    if (!LOGGER.isLoggable(Level.INFO)) {
+      return;
+    }
+    List<StatementStatistics> statistics = getStatistics();
+    if (statistics.isEmpty()) {
+      return;
+    }
+    StringBuilder sb = new StringBuilder("Statement statistics, top ")
+        .append(Math.min(DUMPED_STATEMENTS, statistics.size())).append(" of ")
+        .append(statistics.size()).append(" by total time:");
+    for (StatementStatistics statement : statistics.subList(0,
+        Math.min(DUMPED_STATEMENTS, statistics.size()))) {
+      sb.append("\n  ").append(statement);
+    }
+    LOGGER.log(Level.INFO, sb.toString());
+  }
+
+  /**
+   * Counters of one fingerprint. Latencies are recorded in a histogram with 4 buckets per power
+   * of two microseconds, which is enough for percentiles within 15%.
+   */
+  private static class Entry {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    final String fingerprint;
+    private final long[] histogram = new long[BUCKETS];
+    private long calls;
+    private long failures;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long rows;
+    private long bytesSent;
+    private long bytesReceived;
+
+    Entry(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    synchronized long getCalls() {
+      return calls;
+    }
+
+    synchronized void record(int calls, long nanos, boolean failed, long rows, long bytesSent,
+        long bytesReceived) {
+      this.totalNanos += nanos;
+      this.rows += rows;
+      this.bytesSent += bytesSent;
+      this.bytesReceived += bytesReceived;
+      if (calls == 0) {
+        return;
+      }
+      this.calls += calls;
+      if (failed) {
+        failures += calls;
+      }
+      // each statement of a batch is accounted for its share of the batch
+      long callNanos = nanos / calls;
+      minNanos = Math.min(minNanos, callNanos);
+      maxNanos = Math.max(maxNanos, callNanos);
+      histogram[bucket(callNanos / 1000)] += calls;
+    }
+
+    static int bucket(long micros) {
+      if (micros < SUB_BUCKETS) {
+        return (int) Math.max(0, micros);
+      }
+      int octave = 63 - Long.numberOfLeadingZeros(micros);
+      int subBucket = (int) (micros >>> (octave - 2)) & (SUB_BUCKETS - 1);
+      return Math.min(BUCKETS - 1, (octave - 1) * SUB_BUCKETS + subBucket);
+    }
+
+    /**
+     * Returns the middle of a bucket, in nanoseconds.
+     */
+    static long bucketValue(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+        return bucket * 1000L + 500;
+      }
+      int octave = bucket / SUB_BUCKETS + 1;
+      long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (octave - 2);
+      long width = 1L << (octave - 2);
+      return (lower * 2 + width) * 500;
+    }
+
+    private long percentile(double percentile) {
+      long rank = (long) Math.ceil(calls * percentile);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += histogram[i];
+        if (seen >= rank) {
+          return Math.max(minNanos, Math.min(maxNanos, bucketValue(i)));
+        }
+      }
+      return maxNanos;
+    }
+
+    synchronized StatementStatistics getStatistics() {
+      if (calls == 0) {
+        return new StatementStatistics(fingerprint, 0, 0, totalNanos, 0, 0, 0, 0, 0, rows,
+            bytesSent, bytesReceived);
+      }
+      return new StatementStatistics(fingerprint, calls, failures, totalNanos, minNanos, maxNanos,
+          percentile(0.5), percentile(0.95), percentile(0.99), rows, bytesSent, bytesReceived);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.reactive;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * One row emitted by a {@link RowPublisher}. The values are decoded as by
+ * {@link java.sql.ResultSet#getObject(int)} when the row is read, so a row stays valid after the
+ * subscription ends. Columns are numbered from 1.
+ */
+public final class Row {
+  private final String[] labels;
+  private final Map<String, Integer> columns;
+  private final Object[] values;
+
+  Row(String[] labels, Map<String, Integer> columns, Object[] values) {
+    this.labels = labels;
+    this.columns = columns;
+    this.values = values;
+  }
+
+  public int getColumnCount() {
+    return values.length;
+  }
+
+  /**
+   * @param column the first column is 1
+   * @return the label of the column
+   */
+  public String getColumnLabel(int column) {
+    checkColumn(column);
+    return labels[column - 1];
+  }
+
+  /**
+   * @param column the first column is 1
+   * @return the value of the column, or null for SQL NULL
+   */
+  public Object getObject(int column) {
+    checkColumn(column);
+    return values[column - 1];
+  }
+
+  /**
+   * @param label the column label, case insensitive
+   * @return the value of the first column with this label, or null for SQL NULL
+   */
+  public Object getObject(String label) {
+    return getObject(findColumn(label));
+  }
+
+  /**
+   * @param column the first column is 1
+   * @param type the class of the value
+   * @param <T> the type of the value
+   * @return the value of the column, or null for SQL NULL
+   * @throws ClassCastException if the value is not an instance of {@code type}
+   */
+  public <T> T getObject(int column, Class<T> type) {
+    return type.cast(getObject(column));
+  }
+
+  /**
+   * @param label the column label, case insensitive
+   * @param type the class of the value
+   * @param <T> the type of the value
+   * @return the value of the first column with this label, or null for SQL NULL
+   * @throws ClassCastException if the value is not an instance of {@code type}
+   */
+  public <T> T getObject(String label, Class<T> type) {
+    return type.cast(getObject(label));
+  }
+
+  /**
+   * @param label the column label, case insensitive
+   * @return the number of the first column with this label
+   * @throws IllegalArgumentException if there is no such column
+   */
+  public int findColumn(String label) {
+    Integer column = columns.get(RowPublisher.normalizeLabel(label));
+    if (column == null) {
+      throw new IllegalArgumentException("The column name " + label + " was not found.");
+    }
+    return column;
+  }
+
+  private void checkColumn(int column) {
+    if (column < 1 || column > values.length) {
+      throw new IndexOutOfBoundsException(
+          "The column index is out of range: " + column + ", number of columns: "
+              + values.length + ".");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(values);
+  }
+}
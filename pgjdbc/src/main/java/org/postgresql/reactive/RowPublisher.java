@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.reactive;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Publishes the rows of a query with demand driven fetching, following the Reactive Streams
+ * rules of {@code java.util.concurrent.Flow}. On Java 9 and later,
+ * {@code org.postgresql.flow.FlowPublishers#toFlowPublisher} adapts it to a
+ * {@code Flow.Publisher<Row>}.</p>
+ *
+ * <p>Every subscription executes the query again. The rows are read from a portal in Execute
+ * messages limited to the demand of the subscriber, capped at the {@link #setFetchSize(int) fetch
+ * size}, so that a slow subscriber stops the driver from reading more rows from the socket.
+ * Cancelling the subscription closes the portal. As for other cursor based results, the portal
+ * needs the connection not to be in autocommit mode, or
+ * {@link org.postgresql.PGProperty#AUTO_COMMIT_STREAMING} to be set. Otherwise all rows are read
+ * at once and only their delivery follows the demand.</p>
+ *
+ * <p>The statement runs, and the signals are delivered, on the {@link #setExecutor(Executor)
+ * executor}, one task at a time per subscription. The connection should not be used for anything
+ * else while a subscription is active.</p>
+ */
+public class RowPublisher {
+  private static final Logger LOGGER = Logger.getLogger(RowPublisher.class.getName());
+
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private static volatile ExecutorService defaultExecutor;
+
+  private final Connection connection;
+  private final String sql;
+  private final Object[] parameters;
+  private volatile Executor executor;
+  private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+
+  /**
+   * @param connection the connection to run the query on
+   * @param sql the query, with {@code ?} placeholders
+   * @param parameters the parameters, bound with {@link PreparedStatement#setObject(int, Object)}
+   */
+  public RowPublisher(Connection connection, String sql, Object... parameters) {
+    if (connection == null || sql == null) {
+      throw new NullPointerException("connection and sql must not be null");
+    }
+    this.connection = connection;
+    this.sql = sql;
+    this.parameters = parameters == null ? new Object[0] : parameters.clone();
+  }
+
+  /**
+   * @param executor runs the statement and delivers the signals, by default a shared pool of
+   *        daemon threads
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * @param fetchSize the maximum number of rows read by one Execute message, whatever the demand
+   */
+  public void setFetchSize(int fetchSize) {
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("The fetch size must be positive: " + fetchSize);
+    }
+    this.fetchSize = fetchSize;
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * Executes the query for a new subscriber, once it requests rows.
+   *
+   * @param subscriber the subscriber of the rows
+   */
+  public void subscribe(RowSubscriber subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber must not be null");
+    }
+    Executor executor = this.executor;
+    Subscription subscription =
+        new Subscription(subscriber, executor == null ? getDefaultExecutor() : executor,
+            fetchSize);
+    subscriber.onSubscribe(subscription);
+  }
+
+  static String normalizeLabel(String label) {
+    return label.toLowerCase(Locale.US);
+  }
+
+  private static Executor getDefaultExecutor() {
+    ExecutorService executor = defaultExecutor;
+    if (executor == null) {
+      synchronized (RowPublisher.class) {
+        executor = defaultExecutor;
+        if (executor == null) {
+          executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+              Thread thread = new Thread(r, "PgJDBC row publisher " + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+          defaultExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Drains the demand on the executor. {@code wip} counts the signals received since the last
+   * drain started, so that a single task runs at a time and no signal is lost.
+   */
+  private class Subscription implements RowSubscription, Runnable {
+    private final RowSubscriber subscriber;
+    private final Executor executor;
+    private final int fetchSize;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // only accessed by the draining task
+    private boolean done;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private String[] labels;
+    private Map<String, Integer> columns;
+
+    Subscription(RowSubscriber subscriber, Executor executor, int fetchSize) {
+      this.subscriber = subscriber;
+      this.executor = executor;
+      this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException(
+            "The number of requested rows must be positive: " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = demand.get();
+          if (current == Long.MAX_VALUE) {
+            return;
+          }
+          next = current + n;
+          if (next < 0) {
+            next = Long.MAX_VALUE;
+          }
+        } while (!demand.compareAndSet(current, next));
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        drain();
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      if (done) {
+        return;
+      }
+      try {
+        while (!cancelled && invalidRequest == null && demand.get() > 0) {
+          if (resultSet == null) {
+            open();
+          } else {
+            resultSet.setFetchSize(nextFetchSize());
+          }
+          if (!resultSet.next()) {
+            finish();
+            subscriber.onComplete();
+            return;
+          }
+          Row row = readRow();
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          subscriber.onNext(row);
+        }
+        if (invalidRequest != null) {
+          finish();
+          subscriber.onError(invalidRequest);
+        } else if (cancelled) {
+          finish();
+        }
+      } catch (Throwable t) {
+        finish();
+        subscriber.onError(t);
+      }
+    }
+
+    private int nextFetchSize() {
+      return (int) Math.min(demand.get(), fetchSize);
+    }
+
+    private void open() throws SQLException {
+      statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      for (int i = 0; i < parameters.length; i++) {
+        statement.setObject(i + 1, parameters[i]);
+      }
+      statement.setFetchSize(nextFetchSize());
+      resultSet = statement.executeQuery();
+
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      labels = new String[metaData.getColumnCount()];
+      columns = new HashMap<String, Integer>();
+      for (int i = 0; i < labels.length; i++) {
+        labels[i] = metaData.getColumnLabel(i + 1);
+        String label = normalizeLabel(labels[i]);
+        if (!columns.containsKey(label)) {
+          columns.put(label, i + 1);
+        }
+      }
+    }
+
+    private Row readRow() throws SQLException {
+      Object[] values = new Object[labels.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = resultSet.getObject(i + 1);
+      }
+      return new Row(labels, columns, values);
+    }
+
+    /**
+     * Closes the statement, and with it the portal, once the subscription terminates.
+     */
+    private void finish() {
+      done = true;
+      if (statement != null) {
+        try {
+          statement.close();
+        } catch (SQLException e) {
+          LOGGER.log(Level.FINE, "Failed to close the statement of a row publisher", e);
+        }
+        statement = null;
+        resultSet = null;
+      }
+    }
+  }
+}
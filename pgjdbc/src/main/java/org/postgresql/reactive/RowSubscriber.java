@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.reactive;
+
+/**
+ * Receives the rows of a {@link RowPublisher}. The contract is the one of
+ * {@code java.util.concurrent.Flow.Subscriber}: {@link #onSubscribe(RowSubscription)} is called
+ * first, then {@link #onNext(Row)} at most as many times as rows were requested, then at most one
+ * of {@link #onError(Throwable)} and {@link #onComplete()}. The calls are never concurrent.
+ */
+public interface RowSubscriber {
+
+  /**
+   * Called before any other method. No row is read before the subscriber requests some.
+   *
+   * @param subscription the subscription to request rows from, or to cancel
+   */
+  void onSubscribe(RowSubscription subscription);
+
+  /**
+   * @param row the next row of the query
+   */
+  void onNext(Row row);
+
+  /**
+   * Called once if the query fails, after which the portal is closed.
+   *
+   * @param throwable the failure, typically a {@link java.sql.SQLException}
+   */
+  void onError(Throwable throwable);
+
+  /**
+   * Called once after the last row, after which the portal is closed.
+   */
+  void onComplete();
+}
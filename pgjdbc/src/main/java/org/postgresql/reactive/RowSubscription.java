@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.reactive;
+
+/**
+ * Link between a {@link RowPublisher} and one {@link RowSubscriber}, with the contract of
+ * {@code java.util.concurrent.Flow.Subscription}. Both methods may be called from any thread,
+ * including from within {@link RowSubscriber#onNext(Row)}.
+ */
+public interface RowSubscription {
+
+  /**
+   * Adds {@code n} rows to the demand. The rows are fetched from the portal in Execute messages
+   * limited to the outstanding demand, so that no more rows are read from the socket than the
+   * subscriber asked for.
+   *
+   * @param n the number of rows, signals an {@link IllegalArgumentException} if not positive
+   */
+  void request(long n);
+
+  /**
+   * Stops the emission of rows and closes the portal. Rows already requested may still be
+   * delivered while the cancellation is processed.
+   */
+  void cancel();
+}
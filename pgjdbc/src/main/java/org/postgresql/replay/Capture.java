@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import org.postgresql.core.WireCapture;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A session recorded by {@link WireCapture}, as a sequence of turns: the bytes sent by one side
+ * until the other side sends something.
+ */
+public final class Capture {
+  private static final Logger LOGGER = Logger.getLogger(Capture.class.getName());
+
+  private final File file;
+  private final long startMillis;
+  private final String host;
+  private final List<Turn> turns;
+
+  private Capture(File file, long startMillis, String host, List<Turn> turns) {
+    this.file = file;
+    this.startMillis = startMillis;
+    this.host = host;
+    this.turns = Collections.unmodifiableList(turns);
+  }
+
+  /**
+   * Reads a capture file. A file truncated in the middle of a record, for instance because the
+   * application was killed, is read up to the last complete record.
+   *
+   * @param file the capture file
+   * @return the capture
+   * @throws IOException if the file cannot be read or is not a capture
+   */
+  public static Capture read(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != WireCapture.MAGIC) {
+        throw new IOException(file + " is not a protocol capture");
+      }
+      int version = in.readUnsignedByte();
+      if (version != WireCapture.VERSION) {
+        throw new IOException("Unsupported version " + version + " of capture " + file);
+      }
+      long startMillis = in.readLong();
+      String host = in.readUTF();
+
+      List<Turn> turns = new ArrayList<Turn>();
+      Messages.Framer frontend = new Messages.Framer(true);
+      Messages.Framer backend = new Messages.Framer(false);
+      int direction = -1;
+      long delayNanos = 0;
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      List<byte[]> messages = new ArrayList<byte[]>();
+      boolean startup = false;
+      while (true) {
+        byte[] chunk;
+        int recordDirection;
+        long micros;
+        try {
+          recordDirection = in.read();
+          if (recordDirection < 0) {
+            break;
+          }
+          micros = readVarLong(in);
+          chunk = new byte[(int) readVarLong(in)];
+          in.readFully(chunk);
+        } catch (EOFException e) {
+          LOGGER.log(Level.FINE, "Capture {0} is truncated", file);
+          break;
+        }
+        if (recordDirection != WireCapture.FRONTEND && recordDirection != WireCapture.BACKEND) {
+          throw new IOException("Corrupted capture " + file);
+        }
+        if (recordDirection != direction) {
+          if (direction >= 0) {
+            turns.add(new Turn(direction == WireCapture.FRONTEND, delayNanos, data.toByteArray(),
+                messages, startup));
+          }
+          direction = recordDirection;
+          delayNanos = micros * 1000;
+          data.reset();
+          messages = new ArrayList<byte[]>();
+          startup = direction == WireCapture.FRONTEND && turns.isEmpty();
+        }
+        data.write(chunk, 0, chunk.length);
+        messages.addAll(
+            (direction == WireCapture.FRONTEND ? frontend : backend).append(chunk));
+      }
+      if (direction >= 0) {
+        turns.add(new Turn(direction == WireCapture.FRONTEND, delayNanos, data.toByteArray(),
+            messages, startup));
+      }
+      return new Capture(file, startMillis, host, turns);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return time the session started, in milliseconds since the epoch
+   */
+  public long getStartMillis() {
+    return startMillis;
+  }
+
+  /**
+   * @return host and port the session was recorded with
+   */
+  public String getHost() {
+    return host;
+  }
+
+  public List<Turn> getTurns() {
+    return turns;
+  }
+
+  /**
+   * Bytes sent by one side until the other side sends something.
+   */
+  public static final class Turn {
+    private final boolean frontend;
+    private final long delayNanos;
+    private final byte[] data;
+    private final List<byte[]> messages;
+    private final boolean startup;
+
+    Turn(boolean frontend, long delayNanos, byte[] data, List<byte[]> messages,
+        boolean startup) {
+      this.frontend = frontend;
+      this.delayNanos = delayNanos;
+      this.data = data;
+      this.messages = Collections.unmodifiableList(messages);
+      this.startup = startup;
+    }
+
+    /**
+     * @return true if the bytes were sent by the driver, false if they were sent by the server
+     */
+    public boolean isFrontend() {
+      return frontend;
+    }
+
+    /**
+     * @return time between the end of the previous turn and the beginning of this one
+     */
+    public long getDelayNanos() {
+      return delayNanos;
+    }
+
+    public byte[] getData() {
+      return data;
+    }
+
+    /**
+     * @return the messages completed in this turn, with their header
+     */
+    public List<byte[]> getMessages() {
+      return messages;
+    }
+
+    /**
+     * @param index index of the message in {@link #getMessages()}
+     * @return type of the message, {@code 0} for the startup message
+     */
+    public int getMessageType(int index) {
+      return Messages.type(messages.get(index), startup && index == 0);
+    }
+
+    /**
+     * @return true if the data is made of the complete messages of this turn only
+     */
+    boolean isAligned() {
+      int length = 0;
+      for (byte[] message : messages) {
+        length += message.length;
+      }
+      return length == data.length;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Framing of protocol messages. A message is kept with its header: the type byte (except for the
+ * startup message, which has none) followed by the length.
+ */
+final class Messages {
+  static final int STARTUP_TYPE = 0;
+
+  static final int SSL_REQUEST_CODE = 80877103;
+  static final int CANCEL_REQUEST_CODE = 80877102;
+  static final int GSS_ENC_REQUEST_CODE = 80877104;
+
+  private Messages() {
+  }
+
+  /**
+   * Reads a message.
+   *
+   * @param in the stream to read from
+   * @param startup true if the message is the startup message, which has no type byte
+   * @return the message, or null if the stream ended before it
+   * @throws IOException if the message cannot be read
+   */
+  static byte[] read(DataInputStream in, boolean startup) throws IOException {
+    int type = 0;
+    if (!startup) {
+      type = in.read();
+      if (type < 0) {
+        return null;
+      }
+    }
+    int length;
+    try {
+      length = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    if (length < 4) {
+      throw new IOException("Invalid message length " + length);
+    }
+    int headerSize = startup ? 4 : 5;
+    byte[] message = new byte[length - 4 + headerSize];
+    if (!startup) {
+      message[0] = (byte) type;
+    }
+    writeInt(message, headerSize - 4, length);
+    try {
+      in.readFully(message, headerSize, length - 4);
+    } catch (EOFException e) {
+      return null;
+    }
+    return message;
+  }
+
+  static int type(byte[] message, boolean startup) {
+    return startup ? STARTUP_TYPE : message[0] & 0xFF;
+  }
+
+  /**
+   * @return the request code of a startup message, which tells SSL, GSS and cancel requests apart
+   */
+  static int requestCode(byte[] startupMessage) {
+    return startupMessage.length < 8 ? 0 : readInt(startupMessage, 4);
+  }
+
+  static int readInt(byte[] b, int offset) {
+    return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+        | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+  }
+
+  static void writeInt(byte[] b, int offset, int value) {
+    b[offset] = (byte) (value >>> 24);
+    b[offset + 1] = (byte) (value >>> 16);
+    b[offset + 2] = (byte) (value >>> 8);
+    b[offset + 3] = (byte) value;
+  }
+
+  /**
+   * Builds a message with a type byte.
+   */
+  static byte[] build(int type, byte[] body) {
+    byte[] message = new byte[body.length + 5];
+    message[0] = (byte) type;
+    writeInt(message, 1, body.length + 4);
+    System.arraycopy(body, 0, message, 5, body.length);
+    return message;
+  }
+
+  /**
+   * Splits the bytes of one direction into messages, as they come in arbitrary chunks.
+   */
+  static final class Framer {
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private boolean startup;
+
+    /**
+     * @param startup true if the first message is the startup message
+     */
+    Framer(boolean startup) {
+      this.startup = startup;
+    }
+
+    /**
+     * Appends bytes.
+     *
+     * @return the messages completed by these bytes
+     */
+    List<byte[]> append(byte[] b) {
+      pending.write(b, 0, b.length);
+      List<byte[]> messages = new ArrayList<byte[]>();
+      byte[] buf = pending.toByteArray();
+      int offset = 0;
+      while (true) {
+        int headerSize = startup ? 4 : 5;
+        if (buf.length - offset < headerSize) {
+          break;
+        }
+        int length = readInt(buf, offset + headerSize - 4);
+        int size = length - 4 + headerSize;
+        if (length < 4 || buf.length - offset < size) {
+          break;
+        }
+        byte[] message = new byte[size];
+        System.arraycopy(buf, offset, message, 0, size);
+        messages.add(message);
+        offset += size;
+        startup = false;
+      }
+      pending.reset();
+      pending.write(buf, offset, buf.length - offset);
+      return messages;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import org.postgresql.util.MD5Digest;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * <p>Replays the client side of a {@link Capture} against a server, which can be a
+ * {@link ReplayServer} or a real one, and measures how long the server takes to answer each
+ * turn.</p>
+ *
+ * <p>A server turn is considered complete once the message that ended the recorded turn is
+ * received, counting the messages of that type since the beginning of the session, so the
+ * answers of a real server do not need to be byte for byte identical to the capture. As the
+ * captures do not hold passwords, a password is only sent if one is given, with cleartext or MD5
+ * authentication.</p>
+ */
+public class ReplayClient {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final String host;
+  private final int port;
+  private final String password;
+  private int timeoutMillis = 60000;
+
+  /**
+   * @param host host of the server
+   * @param port port of the server
+   * @param password password to authenticate with, null to send the blanked password
+   */
+  public ReplayClient(String host, int port, String password) {
+    this.host = host;
+    this.port = port;
+    this.password = password;
+  }
+
+  /**
+   * @param timeoutMillis time to wait for a server turn before giving up
+   */
+  public void setTimeoutMillis(int timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Replays a session on a new connection.
+   *
+   * @param capture the session to replay
+   * @return the measures of the session
+   * @throws IOException if the connection fails or the server does not answer as expected
+   */
+  public Result replay(Capture capture) throws IOException {
+    // for each server turn, the number of messages of the type that ended it, counted from the
+    // beginning of the session
+    int[] recordedCounts = new int[256];
+    int[] expectedCounts = new int[capture.getTurns().size()];
+    int[] expectedTypes = new int[capture.getTurns().size()];
+    Arrays.fill(expectedTypes, -1);
+    for (int i = 0; i < capture.getTurns().size(); i++) {
+      Capture.Turn turn = capture.getTurns().get(i);
+      if (turn.isFrontend() || turn.getMessages().isEmpty()) {
+        continue;
+      }
+      for (int j = 0; j < turn.getMessages().size(); j++) {
+        recordedCounts[turn.getMessageType(j)]++;
+      }
+      expectedTypes[i] = turn.getMessageType(turn.getMessages().size() - 1);
+      expectedCounts[i] = recordedCounts[expectedTypes[i]];
+    }
+
+    Socket socket = new Socket();
+    long start = System.nanoTime();
+    try {
+      socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+      socket.setTcpNoDelay(true);
+      socket.setSoTimeout(timeoutMillis);
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+      OutputStream out = socket.getOutputStream();
+
+      int[] receivedCounts = new int[256];
+      byte[] user = null;
+      byte[] authenticationRequest = null;
+      long[] latencies = new long[capture.getTurns().size()];
+      int turns = 0;
+      long bytesSent = 0;
+      long bytesReceived = 0;
+      long sentAt = start;
+      for (int i = 0; i < capture.getTurns().size(); i++) {
+        Capture.Turn turn = capture.getTurns().get(i);
+        if (turn.isFrontend()) {
+          if (user == null && !turn.getMessages().isEmpty() && turn.getMessageType(0) == 0) {
+            user = startupParameter(turn.getMessages().get(0), "user");
+          }
+          byte[] data = withPassword(turn, user, authenticationRequest);
+          out.write(data);
+          out.flush();
+          bytesSent += data.length;
+          sentAt = System.nanoTime();
+          continue;
+        }
+        if (expectedTypes[i] < 0) {
+          continue;
+        }
+        while (receivedCounts[expectedTypes[i]] < expectedCounts[i]) {
+          byte[] message = Messages.read(in, false);
+          if (message == null) {
+            throw new IOException("The server closed the connection while "
+                + capture.getFile() + " was replayed");
+          }
+          bytesReceived += message.length;
+          int type = Messages.type(message, false);
+          receivedCounts[type]++;
+          if (type == 'R') {
+            authenticationRequest = message;
+          }
+        }
+        latencies[turns++] = System.nanoTime() - sentAt;
+      }
+      return new Result(Arrays.copyOf(latencies, turns), bytesSent, bytesReceived,
+          System.nanoTime() - start);
+    } finally {
+      socket.close();
+    }
+  }
+
+  /**
+   * Returns the data of a client turn, with its password messages replaced by the given
+   * password, if any.
+   */
+  private byte[] withPassword(Capture.Turn turn, byte[] user, byte[] authenticationRequest) {
+    if (password == null || authenticationRequest == null || !turn.isAligned()) {
+      return turn.getData();
+    }
+    ByteArrayOutputStream data = new ByteArrayOutputStream(turn.getData().length);
+    for (int i = 0; i < turn.getMessages().size(); i++) {
+      byte[] message = turn.getMessages().get(i);
+      if (turn.getMessageType(i) == 'p') {
+        byte[] response = passwordResponse(user, authenticationRequest);
+        if (response != null) {
+          message = Messages.build('p', response);
+        }
+      }
+      data.write(message, 0, message.length);
+    }
+    return data.toByteArray();
+  }
+
+  private byte[] passwordResponse(byte[] user, byte[] authenticationRequest) {
+    int code = Messages.readInt(authenticationRequest, 5);
+    byte[] secret;
+    if (code == 3) {
+      secret = password.getBytes(UTF_8);
+    } else if (code == 5 && user != null) {
+      secret = MD5Digest.encode(user, password.getBytes(UTF_8),
+          Arrays.copyOfRange(authenticationRequest, 9, 13));
+    } else {
+      // SASL and the other methods cannot be replayed
+      return null;
+    }
+    return Arrays.copyOf(secret, secret.length + 1);
+  }
+
+  private static byte[] startupParameter(byte[] startupMessage, String name) {
+    // length and protocol version, then pairs of null terminated names and values
+    int offset = 8;
+    while (offset < startupMessage.length && startupMessage[offset] != 0) {
+      int nameEnd = nullTerminator(startupMessage, offset);
+      int valueEnd = nullTerminator(startupMessage, nameEnd + 1);
+      if (name.equals(new String(startupMessage, offset, nameEnd - offset, UTF_8))) {
+        return Arrays.copyOfRange(startupMessage, nameEnd + 1, valueEnd);
+      }
+      offset = valueEnd + 1;
+    }
+    return null;
+  }
+
+  private static int nullTerminator(byte[] b, int offset) {
+    while (offset < b.length && b[offset] != 0) {
+      offset++;
+    }
+    return offset;
+  }
+
+  /**
+   * Measures of a replayed session.
+   */
+  public static final class Result {
+    private final long[] latencies;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long elapsedNanos;
+
+    Result(long[] latencies, long bytesSent, long bytesReceived, long elapsedNanos) {
+      this.latencies = latencies;
+      this.bytesSent = bytesSent;
+      this.bytesReceived = bytesReceived;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return for each server turn, the time between the end of the preceding client turn and
+     *     its end, in nanoseconds
+     */
+    public long[] getLatencies() {
+      return latencies.clone();
+    }
+
+    public long getBytesSent() {
+      return bytesSent;
+    }
+
+    public long getBytesReceived() {
+      return bytesReceived;
+    }
+
+    /**
+     * @return time spent in the session, including the connection, in nanoseconds
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+  }
+}
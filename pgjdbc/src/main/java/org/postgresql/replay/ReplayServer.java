@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Stands in for the server by answering each connection with the server side of a
+ * {@link Capture}. The captures are assigned to the connections in turn.</p>
+ *
+ * <p>The driver must send the same messages as when the capture was recorded: each server turn
+ * is sent once the messages of the preceding client turns are received. Messages that differ
+ * from the recorded ones are counted as mismatches and logged at {@code FINE} level, except
+ * password messages. SSL and GSS encryption requests are declined, so the driver must not
+ * require them.</p>
+ */
+public class ReplayServer implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(ReplayServer.class.getName());
+
+  private final List<Capture> captures;
+  private final boolean timing;
+  private final ServerSocket serverSocket;
+  private final AtomicInteger nextCapture = new AtomicInteger();
+
+  private final AtomicLong sessions = new AtomicLong();
+  private final AtomicLong turns = new AtomicLong();
+  private final AtomicLong mismatches = new AtomicLong();
+
+  /**
+   * @param captures the sessions to replay
+   * @param port port to listen on, 0 for any free port
+   * @param timing true to wait as long as the server did before each answer, false to answer as
+   *     fast as possible
+   * @throws IOException if the port cannot be bound
+   */
+  public ReplayServer(List<Capture> captures, int port, boolean timing) throws IOException {
+    if (captures.isEmpty()) {
+      throw new IllegalArgumentException("At least one capture is required");
+    }
+    this.captures = captures;
+    this.timing = timing;
+    this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Starts accepting connections in a background thread.
+   */
+  public void start() {
+    Thread acceptor = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        accept();
+      }
+    }, "pgjdbc replay server " + getPort());
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          LOGGER.log(Level.WARNING, "Unable to accept a connection", e);
+        }
+        return;
+      }
+      Thread session = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            serve(socket);
+          } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Replay session failed", e);
+          } finally {
+            try {
+              socket.close();
+            } catch (IOException ignore) {
+              // nothing left to do with this socket
+            }
+          }
+        }
+      }, "pgjdbc replay session " + socket.getRemoteSocketAddress());
+      session.setDaemon(true);
+      session.start();
+    }
+  }
+
+  private void serve(Socket socket) throws IOException {
+    socket.setTcpNoDelay(true);
+    DataInputStream in =
+        new DataInputStream(new BufferedInputStream(socket.getInputStream(), 8192));
+    OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+
+    byte[] startupMessage = Messages.read(in, true);
+    while (startupMessage != null) {
+      int code = Messages.requestCode(startupMessage);
+      if (code == Messages.CANCEL_REQUEST_CODE) {
+        // nothing runs on the server side, so there is nothing to cancel
+        return;
+      }
+      if (code != Messages.SSL_REQUEST_CODE && code != Messages.GSS_ENC_REQUEST_CODE) {
+        break;
+      }
+      out.write('N');
+      out.flush();
+      startupMessage = Messages.read(in, true);
+    }
+    if (startupMessage == null) {
+      return;
+    }
+
+    Capture capture = captures.get((nextCapture.getAndIncrement() & Integer.MAX_VALUE)
+        % captures.size());
+    LOGGER.log(Level.FINE, "Replaying {0}", capture.getFile());
+    sessions.incrementAndGet();
+    byte[] received = startupMessage;
+    for (Capture.Turn turn : capture.getTurns()) {
+      if (turn.isFrontend()) {
+        for (int i = 0; i < turn.getMessages().size(); i++) {
+          if (received == null) {
+            received = Messages.read(in, false);
+            if (received == null) {
+              // the driver closed the connection
+              return;
+            }
+          }
+          if (!matches(turn.getMessages().get(i), received, turn.getMessageType(i))) {
+            mismatches.incrementAndGet();
+            if (LOGGER.isLoggable(Level.FINE)) {
+              LOGGER.log(Level.FINE, "Received message {0} of {1} differs from the capture",
+                  new Object[]{turn.getMessageType(i), capture.getFile()});
+            }
+          }
+          received = null;
+        }
+      } else {
+        if (timing && turn.getDelayNanos() > 0) {
+          try {
+            Thread.sleep(turn.getDelayNanos() / 1000000, (int) (turn.getDelayNanos() % 1000000));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        try {
+          out.write(turn.getData());
+          out.flush();
+        } catch (SocketException e) {
+          // the driver closed the connection
+          return;
+        }
+      }
+      turns.incrementAndGet();
+    }
+  }
+
+  private static boolean matches(byte[] expected, byte[] received, int type) {
+    if (type == 'p') {
+      // password messages are blanked in the captures
+      return received.length > 0 && received[0] == 'p';
+    }
+    return Arrays.equals(expected, received);
+  }
+
+  /**
+   * @return number of sessions replayed so far
+   */
+  public long getSessions() {
+    return sessions.get();
+  }
+
+  /**
+   * @return number of turns replayed so far
+   */
+  public long getTurns() {
+    return turns.get();
+  }
+
+  /**
+   * @return number of received messages that differ from the captures
+   */
+  public long getMismatches() {
+    return mismatches.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Command line entry point of the replay harness, to benchmark driver or server versions
+ * against the same recorded workload without a cluster. Captures are recorded with the
+ * {@code wireCaptureDirectory} connection property.</p>
+ *
+ * <pre>
+ * java -cp postgresql.jar org.postgresql.replay.WireReplay server [--port 5432] [--timing] capture...
+ * java -cp postgresql.jar org.postgresql.replay.WireReplay client [--host localhost] [--port 5432]
+ *     [--password secret] [--iterations 1] [--concurrency 1] capture...
+ * java -cp postgresql.jar org.postgresql.replay.WireReplay info capture...
+ * </pre>
+ *
+ * <p>{@code server} answers the driver from the captures, {@code client} replays the client side
+ * of the captures against a server and reports the throughput and latencies, {@code info}
+ * describes the captures.</p>
+ */
+public class WireReplay {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      usage();
+      return;
+    }
+    String command = args[0];
+    String host = "localhost";
+    int port = 5432;
+    String password = null;
+    boolean timing = false;
+    int iterations = 1;
+    int concurrency = 1;
+    List<Capture> captures = new ArrayList<Capture>();
+    for (int i = 1; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--host") && i + 1 < args.length) {
+        host = args[++i];
+      } else if (arg.equals("--port") && i + 1 < args.length) {
+        port = Integer.parseInt(args[++i]);
+      } else if (arg.equals("--password") && i + 1 < args.length) {
+        password = args[++i];
+      } else if (arg.equals("--iterations") && i + 1 < args.length) {
+        iterations = Integer.parseInt(args[++i]);
+      } else if (arg.equals("--concurrency") && i + 1 < args.length) {
+        concurrency = Integer.parseInt(args[++i]);
+      } else if (arg.equals("--timing")) {
+        timing = true;
+      } else if (arg.startsWith("--")) {
+        usage();
+        return;
+      } else {
+        captures.add(Capture.read(new File(arg)));
+      }
+    }
+    if (captures.isEmpty()) {
+      usage();
+      return;
+    }
+
+    if (command.equals("server")) {
+      ReplayServer server = new ReplayServer(captures, port, timing);
+      server.start();
+      System.out.printf("Replaying %d capture(s) on port %d%n", captures.size(), server.getPort());
+      Thread.currentThread().join();
+    } else if (command.equals("client")) {
+      runClient(new ReplayClient(host, port, password), captures, iterations, concurrency);
+    } else if (command.equals("info")) {
+      for (Capture capture : captures) {
+        printInfo(capture);
+      }
+    } else {
+      usage();
+    }
+  }
+
+  private static void usage() {
+    System.out.printf("Usage:%n"
+        + "  WireReplay server [--port <port>] [--timing] <capture>...%n"
+        + "  WireReplay client [--host <host>] [--port <port>] [--password <password>]"
+        + " [--iterations <n>] [--concurrency <n>] <capture>...%n"
+        + "  WireReplay info <capture>...%n");
+    System.exit(1);
+  }
+
+  private static void printInfo(Capture capture) {
+    int frontendTurns = 0;
+    long frontendBytes = 0;
+    long backendBytes = 0;
+    long nanos = 0;
+    for (Capture.Turn turn : capture.getTurns()) {
+      if (turn.isFrontend()) {
+        frontendTurns++;
+        frontendBytes += turn.getData().length;
+      } else {
+        backendBytes += turn.getData().length;
+      }
+      nanos += turn.getDelayNanos();
+    }
+    System.out.printf(Locale.ROOT,
+        "%s: host %s, %d round trips, %d bytes sent, %d bytes received, %.3f s%n",
+        capture.getFile(), capture.getHost(), frontendTurns, frontendBytes, backendBytes,
+        nanos / 1e9);
+  }
+
+  private static void runClient(final ReplayClient client, final List<Capture> captures,
+      final int iterations, int concurrency) throws InterruptedException {
+    final List<ReplayClient.Result> results = new ArrayList<ReplayClient.Result>();
+    final AtomicInteger failures = new AtomicInteger();
+    Thread[] threads = new Thread[concurrency];
+    long start = System.nanoTime();
+    for (int t = 0; t < concurrency; t++) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < iterations; i++) {
+            for (Capture capture : captures) {
+              try {
+                ReplayClient.Result result = client.replay(capture);
+                synchronized (results) {
+                  results.add(result);
+                }
+              } catch (IOException e) {
+                failures.incrementAndGet();
+                System.err.printf("Replay of %s failed: %s%n", capture.getFile(), e);
+              }
+            }
+          }
+        }
+      }, "pgjdbc replay client " + t);
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsedNanos = System.nanoTime() - start;
+
+    int turns = 0;
+    long bytesSent = 0;
+    long bytesReceived = 0;
+    for (ReplayClient.Result result : results) {
+      turns += result.getLatencies().length;
+      bytesSent += result.getBytesSent();
+      bytesReceived += result.getBytesReceived();
+    }
+    long[] latencies = new long[turns];
+    int i = 0;
+    for (ReplayClient.Result result : results) {
+      for (long latency : result.getLatencies()) {
+        latencies[i++] = latency;
+      }
+    }
+    Arrays.sort(latencies);
+
+    double seconds = elapsedNanos / 1e9;
+    System.out.printf(Locale.ROOT, "sessions: %d, failed: %d, elapsed: %.3f s%n",
+        results.size(), failures.get(), seconds);
+    System.out.printf(Locale.ROOT, "round trips: %d (%.1f/s), sent: %.3f MB/s,"
+        + " received: %.3f MB/s%n", turns, turns / seconds, bytesSent / seconds / 1e6,
+        bytesReceived / seconds / 1e6);
+    if (turns > 0) {
+      System.out.printf(Locale.ROOT,
+          "latency ms: p50 %.3f, p95 %.3f, p99 %.3f, max %.3f%n",
+          percentile(latencies, 0.5) / 1e6, percentile(latencies, 0.95) / 1e6,
+          percentile(latencies, 0.99) / 1e6, latencies[turns - 1] / 1e6);
+    }
+    if (failures.get() > 0) {
+      System.exit(2);
+    }
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    int index = (int) Math.ceil(sorted.length * percentile) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+/**
+ * 32 bit MurmurHash3, as used by CrateDB to compute the shard of a routing value.
+ */
+final class Murmur3 {
+  private static final int C1 = 0xcc9e2d51;
+  private static final int C2 = 0x1b873593;
+
+  private Murmur3() {
+  }
+
+  /**
+   * Hashes a routing value the way the server does: the UTF-16 code units of the string are
+   * hashed in little endian order, with seed {@code 0}.
+   *
+   * @param routing routing value
+   * @return hash of the routing value
+   */
+  static int hash(String routing) {
+    byte[] bytes = new byte[routing.length() * 2];
+    for (int i = 0; i < routing.length(); i++) {
+      char c = routing.charAt(i);
+      bytes[i * 2] = (byte) c;
+      bytes[i * 2 + 1] = (byte) (c >>> 8);
+    }
+    return hash(bytes, 0, bytes.length, 0);
+  }
+
+  @SuppressWarnings("fallthrough")
+  static int hash(byte[] data, int offset, int length, int seed) {
+    int h1 = seed;
+    int roundedEnd = offset + (length & 0xfffffffc);
+
+    for (int i = offset; i < roundedEnd; i += 4) {
+      int k1 = (data[i] & 0xff) | ((data[i + 1] & 0xff) << 8) | ((data[i + 2] & 0xff) << 16)
+          | (data[i + 3] << 24);
+      h1 ^= mixK1(k1);
+      h1 = Integer.rotateLeft(h1, 13);
+      h1 = h1 * 5 + 0xe6546b64;
+    }
+
+    int k1 = 0;
+    switch (length & 0x03) {
+      case 3:
+        k1 = (data[roundedEnd + 2] & 0xff) << 16;
+        // fall through
+      case 2:
+        k1 |= (data[roundedEnd + 1] & 0xff) << 8;
+        // fall through
+      case 1:
+        k1 |= data[roundedEnd] & 0xff;
+        h1 ^= mixK1(k1);
+        break;
+      default:
+        break;
+    }
+
+    h1 ^= length;
+    h1 ^= h1 >>> 16;
+    h1 *= 0x85ebca6b;
+    h1 ^= h1 >>> 13;
+    h1 *= 0xc2b2ae35;
+    h1 ^= h1 >>> 16;
+    return h1;
+  }
+
+  private static int mixK1(int k1) {
+    k1 *= C1;
+    k1 = Integer.rotateLeft(k1, 15);
+    k1 *= C2;
+    return k1;
+  }
+}
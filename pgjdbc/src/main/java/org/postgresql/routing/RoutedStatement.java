@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Table and parameter bindings of a statement that can be routed to a single shard: a
+ * {@code SELECT}, {@code UPDATE} or {@code DELETE} on a single table whose {@code WHERE} clause
+ * is a conjunction of predicates, or a single row {@code INSERT}.</p>
+ *
+ * <p>The statement is recognized from its native SQL, that is with {@code $n} placeholders. Only
+ * columns compared to a placeholder ({@code col = $n}) are recorded, the routing column of the
+ * table is looked up later.</p>
+ */
+final class RoutedStatement {
+  private static final String IDENT = "(?:\"(?:[^\"]|\"\")+\"|[A-Za-z_][A-Za-z0-9_]*)";
+  private static final String TABLE = "(" + IDENT + ")(?:\\s*\\.\\s*(" + IDENT + "))?";
+  private static final String END = "\\s*;?\\s*$";
+
+  private static final Pattern SELECT = Pattern.compile(
+      "^\\s*SELECT\\s.+?\\sFROM\\s+" + TABLE + "\\s+WHERE\\s+(.+?)" + END,
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern UPDATE = Pattern.compile(
+      "^\\s*UPDATE\\s+" + TABLE + "\\s+SET\\s.+?\\sWHERE\\s+(.+?)" + END,
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern DELETE = Pattern.compile(
+      "^\\s*DELETE\\s+FROM\\s+" + TABLE + "\\s+WHERE\\s+(.+?)" + END,
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern INSERT = Pattern.compile(
+      "^\\s*INSERT\\s+INTO\\s+" + TABLE + "\\s*\\(([^()]+)\\)\\s*VALUES\\s*\\(([^()]+)\\)"
+          + "(?:\\s+ON\\s+CONFLICT\\s.*)?" + END,
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+  private static final Pattern OR = Pattern.compile("\\bOR\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern EQUALS_PARAMETER = Pattern.compile(
+      "^(" + IDENT + ")\\s*=\\s*\\$(\\d+)$");
+  private static final Pattern PARAMETER = Pattern.compile("^\\$(\\d+)$");
+
+  final String schema;
+  final String table;
+  private final Map<String, Integer> parameterIndexes;
+
+  private RoutedStatement(String schema, String table, Map<String, Integer> parameterIndexes) {
+    this.schema = schema;
+    this.table = table;
+    this.parameterIndexes = parameterIndexes;
+  }
+
+  /**
+   * Returns the parameter bound to the given column.
+   *
+   * @param column name of the column
+   * @return 1-based parameter index or null if the column is not bound to a parameter
+   */
+  Integer getParameterIndex(String column) {
+    return parameterIndexes.get(column);
+  }
+
+  /**
+   * Tells whether a statement changes the state of the session: {@code SET}, {@code RESET} or
+   * {@code DISCARD}.
+   *
+   * @param nativeSql native SQL of the statement
+   * @return true if the statement changes the session
+   */
+  static boolean changesSessionState(String nativeSql) {
+    int start = 0;
+    int length = nativeSql.length();
+    while (start < length && Character.isWhitespace(nativeSql.charAt(start))) {
+      start++;
+    }
+    return startsWithKeyword(nativeSql, start, "SET") || startsWithKeyword(nativeSql, start, "RESET")
+        || startsWithKeyword(nativeSql, start, "DISCARD");
+  }
+
+  private static boolean startsWithKeyword(String sql, int start, String keyword) {
+    int end = start + keyword.length();
+    return sql.regionMatches(true, start, keyword, 0, keyword.length())
+        && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)));
+  }
+
+  /**
+   * Recognizes a routable statement.
+   *
+   * @param nativeSql native SQL of the statement
+   * @return the routable statement or null if the statement cannot be routed to a single shard
+   */
+  static RoutedStatement parse(String nativeSql) {
+    Matcher matcher = INSERT.matcher(nativeSql);
+    if (matcher.matches()) {
+      return parseInsert(matcher);
+    }
+    for (Pattern pattern : new Pattern[]{SELECT, UPDATE, DELETE}) {
+      matcher = pattern.matcher(nativeSql);
+      if (matcher.matches()) {
+        return parseWhere(matcher);
+      }
+    }
+    return null;
+  }
+
+  private static RoutedStatement parseInsert(Matcher matcher) {
+    String[] columns = matcher.group(3).split(",");
+    String[] values = matcher.group(4).split(",");
+    if (columns.length != values.length) {
+      return null;
+    }
+    Map<String, Integer> parameterIndexes = new HashMap<String, Integer>();
+    for (int i = 0; i < columns.length; i++) {
+      Matcher parameter = PARAMETER.matcher(values[i].trim());
+      if (parameter.matches()) {
+        parameterIndexes.put(identifier(columns[i].trim()),
+            Integer.valueOf(parameter.group(1)));
+      }
+    }
+    return create(matcher, parameterIndexes);
+  }
+
+  private static RoutedStatement parseWhere(Matcher matcher) {
+    String where = matcher.group(3);
+    if (where.indexOf('(') >= 0 || OR.matcher(where).find()) {
+      return null;
+    }
+    Map<String, Integer> parameterIndexes = new HashMap<String, Integer>();
+    for (String predicate : AND.split(where)) {
+      Matcher equals = EQUALS_PARAMETER.matcher(predicate.trim());
+      if (equals.matches()) {
+        parameterIndexes.put(identifier(equals.group(1)), Integer.valueOf(equals.group(2)));
+      }
+    }
+    return create(matcher, parameterIndexes);
+  }
+
+  private static RoutedStatement create(Matcher matcher, Map<String, Integer> parameterIndexes) {
+    if (parameterIndexes.isEmpty()) {
+      return null;
+    }
+    if (matcher.group(2) == null) {
+      return new RoutedStatement(null, identifier(matcher.group(1)), parameterIndexes);
+    }
+    return new RoutedStatement(identifier(matcher.group(1)), identifier(matcher.group(2)),
+        parameterIndexes);
+  }
+
+  private static String identifier(String identifier) {
+    if (identifier.startsWith("\"")) {
+      return identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"");
+    }
+    return identifier.toLowerCase(Locale.ROOT);
+  }
+}
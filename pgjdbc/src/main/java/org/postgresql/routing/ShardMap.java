@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+import static java.lang.System.currentTimeMillis;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.SetupQueryRunner;
+import org.postgresql.hostchooser.ClusterNodeDiscovery;
+import org.postgresql.util.HostSpec;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Location of the primary shards of the non partitioned tables of a CrateDB cluster, as read
+ * from {@code information_schema.tables} and {@code sys.shards}. Shard maps are shared by all the
+ * connections with the same seed hosts.</p>
+ *
+ * <p>A shard map is only a hint: a statement sent to a node that does not hold the shard any more
+ * is still executed correctly, the server forwards it to the right node.</p>
+ */
+final class ShardMap {
+  static final String TABLES_QUERY = "SELECT table_schema, table_name, number_of_shards, clustered_by,"
+      + " settings['number_of_routing_shards']"
+      + " FROM information_schema.tables"
+      + " WHERE partitioned_by IS NULL AND number_of_shards IS NOT NULL AND clustered_by IS NOT NULL";
+
+  static final String SHARDS_QUERY = "SELECT s.schema_name, s.table_name, s.id,"
+      + " n.hostname, n.rest_url, n.port['psql']"
+      + " FROM sys.shards s JOIN sys.nodes n ON s.node['id'] = n.id"
+      + " WHERE s.\"primary\" = true AND s.partition_ident = ''";
+
+  private static final Map<List<HostSpec>, Entry> shardMaps = new HashMap<List<HostSpec>, Entry>();
+
+  private static class Entry {
+    ShardMap shardMap;
+    long lastRefreshed;
+    boolean refreshing;
+  }
+
+  /**
+   * Routing of a table: the column the rows are clustered by, the number of routing shards and the
+   * node of each primary shard.
+   */
+  static final class Table {
+    final String routingColumn;
+    final int routingShards;
+    final HostSpec[] primaries;
+
+    Table(String routingColumn, int numberOfShards, int routingShards) {
+      this.routingColumn = routingColumn;
+      this.routingShards = routingShards;
+      this.primaries = new HostSpec[numberOfShards];
+    }
+
+    /**
+     * Returns the node holding the primary shard of the given routing value.
+     *
+     * @param routing value of the routing column, in its text representation
+     * @return the node or null if the location of the shard is unknown
+     */
+    HostSpec getPrimaryNode(String routing) {
+      return primaries[shardId(routing, primaries.length, routingShards)];
+    }
+  }
+
+  private final Map<String, Table> tables;
+
+  ShardMap(Map<String, Table> tables) {
+    this.tables = tables;
+  }
+
+  /**
+   * Returns the routing of a table.
+   *
+   * @param schema schema of the table
+   * @param name name of the table
+   * @return the routing or null if the table is unknown or partitioned
+   */
+  Table getTable(String schema, String name) {
+    return tables.get(schema + '.' + name);
+  }
+
+  /**
+   * Computes the shard of a routing value like the server does: the hash of the value is mapped to
+   * one of the routing shards, and each shard holds the same number of consecutive routing shards.
+   *
+   * @param routing value of the routing column, in its text representation
+   * @param numberOfShards number of shards of the table
+   * @param routingShards number of routing shards of the table, a multiple of the shards
+   * @return the shard id
+   */
+  static int shardId(String routing, int numberOfShards, int routingShards) {
+    int routingShard = Murmur3.hash(routing) % routingShards;
+    if (routingShard < 0) {
+      routingShard += routingShards;
+    }
+    return routingShard / (routingShards / numberOfShards);
+  }
+
+  /**
+   * Returns the number of routing shards of a table that does not set it: the largest
+   * {@code numberOfShards * 2^n} up to 1024, so that the table can be split, and at least twice the
+   * number of shards.
+   *
+   * @param numberOfShards number of shards of the table
+   * @return the number of routing shards
+   */
+  static int defaultRoutingShards(int numberOfShards) {
+    int log2Shards = 32 - Integer.numberOfLeadingZeros(numberOfShards - 1);
+    return numberOfShards << Math.max(1, 10 - log2Shards);
+  }
+
+  static ShardMap get(HostSpec[] seeds) {
+    synchronized (shardMaps) {
+      Entry entry = shardMaps.get(Arrays.asList(seeds));
+      return entry == null ? null : entry.shardMap;
+    }
+  }
+
+  static void put(HostSpec[] seeds, ShardMap shardMap) {
+    synchronized (shardMaps) {
+      Entry entry = getOrCreate(Arrays.asList(seeds));
+      entry.shardMap = shardMap;
+      entry.lastRefreshed = currentTimeMillis();
+    }
+  }
+
+  /**
+   * Starts a refresh of the shard locations, unless they were read less than
+   * {@code intervalMillis} ago or another refresh is in progress. A started refresh must be
+   * finished with {@link #endRefresh}.
+   *
+   * @return true if the caller must refresh the shard locations
+   */
+  static boolean beginRefresh(HostSpec[] seeds, long intervalMillis) {
+    synchronized (shardMaps) {
+      Entry entry = getOrCreate(Arrays.asList(seeds));
+      if (entry.refreshing || (entry.lastRefreshed != 0
+          && currentTimeMillis() - entry.lastRefreshed < intervalMillis)) {
+        return false;
+      }
+      entry.refreshing = true;
+      return true;
+    }
+  }
+
+  /**
+   * Finishes a refresh started by {@link #beginRefresh}.
+   *
+   * @param shardMap the shard locations read, or null to keep the previous ones
+   */
+  static void endRefresh(HostSpec[] seeds, ShardMap shardMap) {
+    synchronized (shardMaps) {
+      Entry entry = getOrCreate(Arrays.asList(seeds));
+      entry.refreshing = false;
+      entry.lastRefreshed = currentTimeMillis();
+      if (shardMap != null) {
+        entry.shardMap = shardMap;
+      }
+    }
+  }
+
+  /**
+   * Reads the shard locations through the given connection.
+   */
+  static ShardMap read(QueryExecutor queryExecutor) throws SQLException, IOException {
+    List<byte[][]> tables = SetupQueryRunner.runForRows(queryExecutor, TABLES_QUERY);
+    List<byte[][]> shards = SetupQueryRunner.runForRows(queryExecutor, SHARDS_QUERY);
+    return parse(tables, shards, queryExecutor.getEncoding());
+  }
+
+  private static Entry getOrCreate(List<HostSpec> key) {
+    Entry entry = shardMaps.get(key);
+    if (entry == null) {
+      entry = new Entry();
+      shardMaps.put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Builds a shard map from the rows of {@link #TABLES_QUERY} and {@link #SHARDS_QUERY}. Tables
+   * clustered by {@code _id}, that is with a compound primary key, are skipped. Tables without a
+   * number of routing shards get the {@link #defaultRoutingShards default} one.
+   */
+  static ShardMap parse(List<byte[][]> tableRows, List<byte[][]> shardRows, Encoding encoding)
+      throws IOException {
+    Map<String, Table> tables = new HashMap<String, Table>();
+    for (byte[][] row : tableRows) {
+      String routingColumn = decode(row[3], encoding);
+      if (routingColumn == null || routingColumn.equals("_id")) {
+        continue;
+      }
+      int numberOfShards = Integer.parseInt(decode(row[2], encoding));
+      if (numberOfShards <= 0) {
+        continue;
+      }
+      String routingShards = decode(row[4], encoding);
+      int numberOfRoutingShards = routingShards == null
+          ? defaultRoutingShards(numberOfShards) : Integer.parseInt(routingShards);
+      if (numberOfRoutingShards >= numberOfShards && numberOfRoutingShards % numberOfShards == 0) {
+        tables.put(decode(row[0], encoding) + '.' + decode(row[1], encoding),
+            new Table(routingColumn, numberOfShards, numberOfRoutingShards));
+      }
+    }
+
+    for (byte[][] row : shardRows) {
+      Table table = tables.get(decode(row[0], encoding) + '.' + decode(row[1], encoding));
+      if (table == null) {
+        continue;
+      }
+      int shardId = Integer.parseInt(decode(row[2], encoding));
+      HostSpec node = ClusterNodeDiscovery.toHostSpec(decode(row[3], encoding),
+          decode(row[4], encoding), decode(row[5], encoding));
+      if (shardId >= 0 && shardId < table.primaries.length) {
+        table.primaries[shardId] = node;
+      }
+    }
+    return new ShardMap(tables);
+  }
+
+  private static String decode(byte[] value, Encoding encoding) throws IOException {
+    return value == null ? null : encoding.decode(value);
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+import static java.lang.System.currentTimeMillis;
+
+import org.postgresql.Driver;
+import org.postgresql.core.Oid;
+import org.postgresql.core.ParameterList;
+import org.postgresql.core.Query;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.HostSpec;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Routes single shard statements of a connection to the node holding the primary shard, saving
+ * the hop between the node the connection is open to and the node holding the data.</p>
+ *
+ * <p>Connections to the other nodes are opened lazily and closed together with the connection.
+ * Statements that cannot be routed, or whose node cannot be reached, are executed on the
+ * connection itself.</p>
+ *
+ * <p>The shard locations are read again in the background once they are older than the refresh
+ * interval, over a connection opened for that purpose, so statements never wait for them.
+ * Statements are not routed until the locations have been read once.</p>
+ *
+ * <p>The connections to the other nodes only share the session settings of the connection URL.
+ * Routing stops for good once a statement changes the state of the session, for example with
+ * {@code SET search_path} or {@link java.sql.Connection#setSchema}, as routed statements would
+ * otherwise run with the original settings and resolve tables in the wrong schema.</p>
+ *
+ * @see org.postgresql.PGProperty#SHARD_ROUTING_INTERVAL
+ */
+public class ShardRouter {
+  private static final Logger LOGGER = Logger.getLogger(ShardRouter.class.getName());
+
+  private static final int MAX_STATEMENTS = 256;
+  // milliseconds from the java epoch to the postgresql epoch, 2000-01-01
+  private static final long PG_EPOCH_MILLIS = 946684800000L;
+
+  /**
+   * Opens connections to the nodes of the cluster.
+   */
+  public interface NodeConnector {
+    QueryExecutor connect(HostSpec node) throws SQLException;
+  }
+
+  private final HostSpec[] seeds;
+  private final String defaultSchema;
+  private final QueryExecutor localExecutor;
+  private final long refreshIntervalMillis;
+  private final long retryIntervalMillis;
+  private final NodeConnector connector;
+  private volatile boolean sessionChanged;
+  private Timer refreshTimer;
+  private boolean closed;
+
+  private final Map<HostSpec, QueryExecutor> nodeExecutors = new HashMap<HostSpec, QueryExecutor>();
+  private final Map<HostSpec, Long> unreachableUntil = new HashMap<HostSpec, Long>();
+  private final Map<String, RoutedStatement> statements =
+      new LinkedHashMap<String, RoutedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RoutedStatement> eldest) {
+          return size() > MAX_STATEMENTS;
+        }
+      };
+
+  /**
+   * @param seeds hosts of the connection URL, which identify the cluster
+   * @param defaultSchema schema of the tables that are not schema qualified
+   * @param localExecutor the connection the statements are routed from
+   * @param refreshIntervalMillis minimum time between two refreshes of the shard locations
+   * @param retryIntervalMillis time during which an unreachable node is not tried again
+   * @param connector opens connections to the other nodes
+   */
+  public ShardRouter(HostSpec[] seeds, String defaultSchema, QueryExecutor localExecutor,
+      long refreshIntervalMillis, long retryIntervalMillis, NodeConnector connector) {
+    this.seeds = seeds;
+    this.defaultSchema = defaultSchema;
+    this.localExecutor = localExecutor;
+    this.refreshIntervalMillis = refreshIntervalMillis;
+    this.retryIntervalMillis = retryIntervalMillis;
+    this.connector = connector;
+  }
+
+  /**
+   * Returns the connection to the node holding the primary shard the statement applies to. This
+   * must only be called in autocommit mode, as the statement does not run in the transaction of
+   * the connection.
+   *
+   * @param query statement to execute
+   * @param parameters parameters of the statement
+   * @return connection to the node or null if the statement should run on the connection itself
+   */
+  public QueryExecutor route(Query query, ParameterList parameters) {
+    if (sessionChanged || query.getSubqueries() != null || parameters == null) {
+      return null;
+    }
+    RoutedStatement statement = getStatement(query.getNativeSql());
+    if (statement == null) {
+      return null;
+    }
+
+    if (ShardMap.beginRefresh(seeds, refreshIntervalMillis)) {
+      scheduleRefresh();
+    }
+    ShardMap shardMap = ShardMap.get(seeds);
+    if (shardMap == null) {
+      return null;
+    }
+    ShardMap.Table table = shardMap.getTable(
+        statement.schema == null ? defaultSchema : statement.schema, statement.table);
+    if (table == null) {
+      return null;
+    }
+    Integer parameterIndex = statement.getParameterIndex(table.routingColumn);
+    if (parameterIndex == null) {
+      return null;
+    }
+    String routing = getRoutingValue(parameters, parameterIndex);
+    if (routing == null) {
+      return null;
+    }
+    HostSpec node = table.getPrimaryNode(routing);
+    if (node == null || node.equals(localExecutor.getHostSpec())) {
+      return null;
+    }
+    return getNodeExecutor(node);
+  }
+
+  /**
+   * Stops routing if the statement, which is about to run on the connection itself, changes the
+   * state of the session.
+   *
+   * @param query statement to execute
+   */
+  public void checkSessionState(Query query) {
+    if (sessionChanged) {
+      return;
+    }
+    Query[] subqueries = query.getSubqueries();
+    if (subqueries != null) {
+      for (Query subquery : subqueries) {
+        checkSessionState(subquery);
+      }
+    } else if (RoutedStatement.changesSessionState(query.getNativeSql())) {
+      LOGGER.log(Level.FINE, "Session state changed, statements are no longer routed");
+      sessionChanged = true;
+    }
+  }
+
+  private RoutedStatement getStatement(String nativeSql) {
+    synchronized (statements) {
+      // statements that cannot be routed are cached as null
+      if (statements.containsKey(nativeSql)) {
+        return statements.get(nativeSql);
+      }
+      RoutedStatement statement = RoutedStatement.parse(nativeSql);
+      statements.put(nativeSql, statement);
+      return statement;
+    }
+  }
+
+  /**
+   * Returns the text representation of a parameter, or null if its value cannot be used for
+   * routing.
+   */
+  static String getRoutingValue(ParameterList parameters, int parameterIndex) {
+    if (parameterIndex < 1 || parameterIndex > parameters.getInParameterCount()) {
+      return null;
+    }
+    Object value = parameters.getValues()[parameterIndex - 1];
+    if (value instanceof String) {
+      return (String) value;
+    }
+    if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      switch (parameters.getTypeOIDs()[parameterIndex - 1]) {
+        case Oid.INT2:
+          return Short.toString(ByteConverter.int2(bytes, 0));
+        case Oid.INT4:
+          return Integer.toString(ByteConverter.int4(bytes, 0));
+        case Oid.INT8:
+          return Long.toString(ByteConverter.int8(bytes, 0));
+        case Oid.NUMERIC:
+          return ByteConverter.numeric(bytes, 0, bytes.length).toString();
+        case Oid.TIMESTAMP:
+        case Oid.TIMESTAMPTZ:
+          // CrateDB routes timestamps by their epoch milliseconds
+          return Long.toString(
+              Math.floorDiv(ByteConverter.int8(bytes, 0), 1000L) + PG_EPOCH_MILLIS);
+        default:
+          return null;
+      }
+    }
+    return null;
+  }
+
+  private synchronized void scheduleRefresh() {
+    if (closed) {
+      ShardMap.endRefresh(seeds, null);
+      return;
+    }
+    if (refreshTimer == null) {
+      refreshTimer = Driver.getSharedTimer().getTimer();
+    }
+    refreshTimer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        refresh();
+      }
+    }, 0);
+  }
+
+  /**
+   * Reads the shard locations over a new connection to the node of this connection. Failures are
+   * logged and otherwise ignored, the previous shard locations are kept in that case.
+   */
+  void refresh() {
+    ShardMap shardMap = null;
+    try {
+      QueryExecutor executor = connector.connect(localExecutor.getHostSpec());
+      try {
+        shardMap = ShardMap.read(executor);
+      } finally {
+        executor.close();
+      }
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Could not read the shard locations", e);
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Could not read the shard locations", e);
+    } catch (RuntimeException e) {
+      // the task runs on the shared timer, which must not die
+      LOGGER.log(Level.FINE, "Could not read the shard locations", e);
+    } finally {
+      ShardMap.endRefresh(seeds, shardMap);
+    }
+  }
+
+  private synchronized QueryExecutor getNodeExecutor(HostSpec node) {
+    QueryExecutor executor = nodeExecutors.get(node);
+    if (executor != null) {
+      if (!executor.isClosed()) {
+        return executor;
+      }
+      nodeExecutors.remove(node);
+    }
+
+    Long retryAt = unreachableUntil.get(node);
+    if (retryAt != null && currentTimeMillis() < retryAt) {
+      return null;
+    }
+
+    try {
+      executor = connector.connect(node);
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Could not connect to node " + node + ", not routing to it", e);
+      unreachableUntil.put(node, currentTimeMillis() + retryIntervalMillis);
+      return null;
+    }
+    unreachableUntil.remove(node);
+    nodeExecutors.put(node, executor);
+    return executor;
+  }
+
+  /**
+   * Closes the connections to the other nodes.
+   */
+  public void close() {
+    for (QueryExecutor executor : getNodeExecutors()) {
+      executor.close();
+    }
+    synchronized (this) {
+      nodeExecutors.clear();
+      closed = true;
+      if (refreshTimer != null) {
+        refreshTimer = null;
+        Driver.getSharedTimer().releaseTimer();
+      }
+    }
+  }
+
+  private synchronized List<QueryExecutor> getNodeExecutors() {
+    return new ArrayList<QueryExecutor>(nodeExecutors.values());
+  }
+}
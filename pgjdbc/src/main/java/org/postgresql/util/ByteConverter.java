@@ -5,6 +5,10 @@
 
 package org.postgresql.util;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
 /**
  * Helper methods to parse java base types from byte arrays.
  *
@@ -12,6 +16,15 @@ package org.postgresql.util;
  */
 public class ByteConverter {
 
+  private static final int NUMERIC_POS = 0x0000;
+  private static final int NUMERIC_NEG = 0x4000;
+  private static final int NUMERIC_NAN = 0xC000;
+  private static final int NUMERIC_PINF = 0xD000;
+  private static final int NUMERIC_NINF = 0xF000;
+  private static final int NUMERIC_DSCALE_MAX = 0x3FFF;
+  private static final int[] INT_TEN_POWERS = {1, 10, 100, 1000};
+  private static final BigInteger TEN_THOUSAND = BigInteger.valueOf(10000);
+
   private ByteConverter() {
     // prevent instantiation of static helper class
   }
@@ -96,6 +109,137 @@ public class ByteConverter {
     return Double.longBitsToDouble(int8(bytes, idx));
   }
 
+  /**
+   * Parses a numeric value from the byte array. The binary format consists of the number of
+   * base 10000 digits, the weight of the first digit, the sign and the display scale, followed by
+   * the digits, all as 16 bit integers.
+   *
+   * @param bytes The byte array to parse.
+   * @param idx The starting index of the parse in the byte array.
+   * @param numBytes The number of bytes of the value.
+   * @return parsed value, a BigDecimal, or a Double for NaN and infinity.
+   * @throws IllegalArgumentException if the bytes are not a binary numeric value.
+   */
+  public static Number numeric(byte[] bytes, int idx, int numBytes) {
+    if (numBytes < 8) {
+      throw new IllegalArgumentException("A numeric value needs at least 8 bytes: " + numBytes);
+    }
+    int ndigits = int2(bytes, idx);
+    int weight = int2(bytes, idx + 2);
+    int sign = int2(bytes, idx + 4) & 0xFFFF;
+    int dscale = int2(bytes, idx + 6);
+    if (ndigits < 0 || numBytes != 8 + ndigits * 2) {
+      throw new IllegalArgumentException(
+          "A numeric value of " + ndigits + " digits cannot have " + numBytes + " bytes");
+    }
+    switch (sign) {
+      case NUMERIC_POS:
+      case NUMERIC_NEG:
+        break;
+      case NUMERIC_NAN:
+        return Double.NaN;
+      case NUMERIC_PINF:
+        return Double.POSITIVE_INFINITY;
+      case NUMERIC_NINF:
+        return Double.NEGATIVE_INFINITY;
+      default:
+        throw new IllegalArgumentException("Invalid numeric sign: " + Integer.toHexString(sign));
+    }
+
+    // the digits are accumulated in a long while they fit, up to four digits
+    long unscaled = 0;
+    BigInteger bigUnscaled = null;
+    int pos = idx + 8;
+    for (int i = 0; i < ndigits; i++, pos += 2) {
+      int digit = int2(bytes, pos);
+      if (bigUnscaled == null) {
+        if (unscaled < (Long.MAX_VALUE - 9999) / 10000) {
+          unscaled = unscaled * 10000 + digit;
+          continue;
+        }
+        bigUnscaled = BigInteger.valueOf(unscaled);
+      }
+      bigUnscaled = bigUnscaled.multiply(TEN_THOUSAND).add(BigInteger.valueOf(digit));
+    }
+
+    // the last digit is the one of 10000^(weight - ndigits + 1)
+    int scale = (ndigits - weight - 1) * 4;
+    BigDecimal value = bigUnscaled == null
+        ? BigDecimal.valueOf(unscaled, scale)
+        : new BigDecimal(bigUnscaled, scale);
+    if (sign == NUMERIC_NEG) {
+      value = value.negate();
+    }
+    // the digits beyond the display scale are zero, or truncated as in the text format
+    return value.setScale(dscale, RoundingMode.DOWN);
+  }
+
+  /**
+   * Encodes a BigDecimal value in the binary numeric format.
+   *
+   * @param value The value to encode.
+   * @return the binary numeric value.
+   * @throws IllegalArgumentException if the scale or the weight of the value is too large for a
+   *         numeric.
+   */
+  public static byte[] numeric(BigDecimal value) {
+    // the weight of the first base 10000 digit is sent as a short, like the scale it is checked
+    // before the unscaled value is padded
+    if (value.signum() != 0
+        && (long) value.precision() - value.scale() > (Short.MAX_VALUE + 1L) * 4) {
+      throw new IllegalArgumentException("Numeric value too large: " + value);
+    }
+    if (value.scale() < 0) {
+      value = value.setScale(0);
+    }
+    int scale = value.scale();
+    if (scale > NUMERIC_DSCALE_MAX) {
+      throw new IllegalArgumentException("Scale of numeric value too large: " + scale);
+    }
+    // the unscaled value is padded with zeros so that the scale is a multiple of four, and then
+    // split into base 10000 digits, least significant first
+    int pad = (4 - scale % 4) % 4;
+    int[] digits = new int[(value.precision() + pad + 3) / 4 + 1];
+    int count = 0;
+    BigInteger unscaled = value.unscaledValue().abs();
+    if (unscaled.bitLength() < 53) {
+      long remaining = unscaled.longValue() * INT_TEN_POWERS[pad];
+      while (remaining != 0) {
+        digits[count++] = (int) (remaining % 10000);
+        remaining /= 10000;
+      }
+    } else {
+      if (pad > 0) {
+        unscaled = unscaled.multiply(BigInteger.valueOf(INT_TEN_POWERS[pad]));
+      }
+      while (unscaled.signum() != 0) {
+        BigInteger[] quotientAndRemainder = unscaled.divideAndRemainder(TEN_THOUSAND);
+        digits[count++] = quotientAndRemainder[1].intValue();
+        unscaled = quotientAndRemainder[0];
+      }
+    }
+    int weight = count - 1 - (scale + pad) / 4;
+    int low = 0;
+    while (low < count && digits[low] == 0) {
+      low++;
+    }
+    if (low == count) {
+      weight = 0;
+    }
+
+    int ndigits = count - low;
+    byte[] bytes = new byte[8 + ndigits * 2];
+    int2(bytes, 0, ndigits);
+    int2(bytes, 2, weight);
+    int2(bytes, 4, value.signum() < 0 ? NUMERIC_NEG : NUMERIC_POS);
+    int2(bytes, 6, scale);
+    int pos = 8;
+    for (int i = count - 1; i >= low; i--, pos += 2) {
+      int2(bytes, pos, digits[i]);
+    }
+    return bytes;
+  }
+
   /**
    * Encodes a long value to the byte array.
    *
@@ -38,6 +38,9 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
   private final long maxSizeBytes;
   private long currentSize;
   private final Map<Key, Value> cache;
+  private long hits;
+  private long misses;
+  private long evictions;
 
   private class LimitedMap extends LinkedHashMap<Key, Value> {
     LimitedMap(int initialCapacity, float loadFactor, boolean accessOrder) {
@@ -58,6 +61,7 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
         }
 
         Map.Entry<Key, Value> entry = it.next();
+        evictions++;
         evictValue(entry.getValue());
         long valueSize = entry.getValue().getSize();
         if (valueSize > 0) {
@@ -99,7 +103,13 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
    * @return entry from cache or null if cache does not contain given key.
    */
   public synchronized Value get(Key key) {
-    return cache.get(key);
+    Value value = cache.get(key);
+    if (value == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return value;
   }
 
   /**
@@ -112,8 +122,10 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
   public synchronized Value borrow(Key key) throws SQLException {
     Value value = cache.remove(key);
     if (value == null) {
+      misses++;
       return createAction.create(key);
     }
+    hits++;
     currentSize -= value.getSize();
     return value;
   }
@@ -129,6 +141,7 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
     if (maxSizeBytes == 0 || maxSizeEntries == 0 || valueSize * 2 > maxSizeBytes) {
       // Just destroy the value if cache is disabled or if entry would consume more than a half of
       // the cache
+      evictions++;
       evictValue(value);
       return;
     }
@@ -155,6 +168,42 @@ public class LruCache<Key, Value extends CanEstimateSize> implements Gettable<Ke
     }
   }
 
+  /**
+   * @return number of entries in the cache
+   */
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /**
+   * @return estimated size of the entries in the cache, in bytes
+   * @see CanEstimateSize
+   */
+  public synchronized long getSizeBytes() {
+    return currentSize;
+  }
+
+  /**
+   * @return number of lookups that found an entry in the cache
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of lookups that did not find an entry in the cache
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return number of entries that were evicted, or not cached at all, because of the size limits
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
   public static final CreateAction NOOP_CREATE_ACTION = new CreateAction() {
     @Override
     public Object create(Object o) throws SQLException {
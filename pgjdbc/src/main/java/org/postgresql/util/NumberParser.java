@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * Helper methods to parse the text format of numbers from byte arrays.
+ */
+public class NumberParser {
+  private static final Charset US_ASCII = Charset.forName("US-ASCII");
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+  private NumberParser() {
+    // prevent instantiation of static helper class
+  }
+
+  /**
+   * Parses the text format of an integer. Up to 18 digits are parsed without creating a String.
+   *
+   * @param bytes the text format of the integer
+   * @return parsed long value
+   * @throws NumberFormatException if the bytes are not a long value
+   */
+  public static long parseLong(byte[] bytes) throws NumberFormatException {
+    if (isFastLong(bytes, 18)) {
+      return parseFastLong(bytes);
+    }
+    return Long.parseLong(toString(bytes));
+  }
+
+  /**
+   * Checks whether {@link #parseFastLong(byte[])} can parse the bytes.
+   *
+   * @param bytes the text format of a number
+   * @param maxDigits the maximum number of digits, at most 18
+   * @return whether the bytes are an optional minus sign and 1 to maxDigits digits
+   */
+  public static boolean isFastLong(byte[] bytes, int maxDigits) {
+    int start = bytes.length > 0 && bytes[0] == '-' ? 1 : 0;
+    int digits = bytes.length - start;
+    if (digits == 0 || digits > maxDigits) {
+      return false;
+    }
+    for (int i = start; i < bytes.length; i++) {
+      byte b = bytes[i];
+      if (b < '0' || b > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses an integer accepted by {@link #isFastLong(byte[], int)}, without checking it.
+   *
+   * @param bytes the text format of the integer
+   * @return parsed long value
+   */
+  public static long parseFastLong(byte[] bytes) {
+    boolean negative = bytes[0] == '-';
+    long result = 0;
+    for (int i = negative ? 1 : 0; i < bytes.length; i++) {
+      result = result * 10 + (bytes[i] - '0');
+    }
+    return negative ? -result : result;
+  }
+
+  /**
+   * Parses the text format of a floating point number, including {@code NaN} and
+   * {@code Infinity}.
+   *
+   * @param bytes the text format of the number
+   * @return parsed double value
+   * @throws NumberFormatException if the bytes are not a double value
+   */
+  public static double parseDouble(byte[] bytes) throws NumberFormatException {
+    double value = parseFastDouble(bytes);
+    if (!Double.isNaN(value)) {
+      return value;
+    }
+    return Double.parseDouble(toString(bytes));
+  }
+
+  /**
+   * Parses a decimal number of up to 15 digits without exponent, without creating a String. The
+   * digits and the power of ten of the scale are then exact doubles, so that their quotient is
+   * the correctly rounded value, as returned by {@link Double#parseDouble(String)}.
+   *
+   * @param bytes the text format of a number
+   * @return parsed double value, or NaN if the bytes are not such a number
+   */
+  public static double parseFastDouble(byte[] bytes) {
+    boolean negative = bytes.length > 0 && bytes[0] == '-';
+    long digits = 0;
+    int count = 0;
+    int scale = -1;
+    for (int i = negative ? 1 : 0; i < bytes.length; i++) {
+      byte b = bytes[i];
+      if (b == '.' && scale < 0) {
+        scale = 0;
+        continue;
+      }
+      if (b < '0' || b > '9' || ++count > 15) {
+        return Double.NaN;
+      }
+      digits = digits * 10 + (b - '0');
+      if (scale >= 0) {
+        scale++;
+      }
+    }
+    if (count == 0) {
+      return Double.NaN;
+    }
+    double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+    return negative ? -value : value;
+  }
+
+  private static String toString(byte[] bytes) {
+    return new String(bytes, US_ASCII);
+  }
+}
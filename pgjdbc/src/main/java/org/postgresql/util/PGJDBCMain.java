@@ -9,7 +9,12 @@ import org.postgresql.Driver;
 
 public class PGJDBCMain {
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws Exception {
+
+    if (args.length > 0 && args[0].equals("load")) {
+      PGLoadGenerator.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
 
     java.net.URL url = Driver.class.getResource("/org/postgresql/Driver.class");
     System.out.printf("%n%s%n", org.postgresql.util.DriverInfo.DRIVER_FULL_NAME);
@@ -21,6 +26,7 @@ public class PGJDBCMain {
                        + "then use it by specifying a JDBC URL of the form %n    jdbc:postgresql://%n"
                        + "or using an application specific method.%n%n"
                        + "See the PgJDBC documentation: http://jdbc.postgresql.org/documentation/head/index.html%n%n"
+                       + "To generate load against a server, run this command with \"load --help\".%n%n"
                        + "This command has had no effect.%n");
 
     System.exit(1);
@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import org.postgresql.Driver;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Load generator, to size connection pools and tune connection properties against a cluster.
+ * It runs a mix of prepared point selects, batched inserts and large scans from several threads
+ * sharing a number of connections, once per driver setting variant, and reports the throughput
+ * and latency percentiles of each variant side by side.</p>
+ *
+ * <pre>
+ * java -jar postgresql.jar load --url jdbc:postgresql://localhost:5432/doc --user crate
+ *     --threads 16 --connections 8 --duration 30 --mix select=80,insert=15,scan=5
+ *     --variant prepareThreshold=5 --variant prepareThreshold=0&amp;binaryTransfer=false
+ * </pre>
+ *
+ * <p>Each variant is a URL query string appended to the URL, so its settings override those of
+ * the URL. The workload runs against a table created and filled on the first run.</p>
+ */
+public class PGLoadGenerator {
+
+  enum Operation {
+    SELECT, INSERT, SCAN
+  }
+
+  String url;
+  final Properties properties = new Properties();
+  int threads = 8;
+  int connections = 8;
+  int warmupSeconds = 5;
+  int durationSeconds = 30;
+  final int[] weights = {80, 15, 5};
+  String table = "pgjdbc_load";
+  int rows = 100000;
+  int batchSize = 100;
+  int scanRows = 10000;
+  boolean virtualThreads;
+  boolean drop;
+  final List<String> variants = new ArrayList<String>();
+
+  private final AtomicLong nextId = new AtomicLong();
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0 || Arrays.asList(args).contains("--help")) {
+      usage();
+      return;
+    }
+    PGLoadGenerator generator;
+    try {
+      generator = parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      usage();
+      return;
+    }
+    generator.print(generator.run(), System.out);
+  }
+
+  private static void usage() {
+    System.err.printf("Usage: PGLoadGenerator --url <url> [options]%n"
+        + "  --user <user> --password <password>%n"
+        + "  --threads <n>           worker threads (default 8)%n"
+        + "  --virtual-threads       run the workers in virtual threads (Java 21)%n"
+        + "  --connections <n>       connections shared by the workers (default 8)%n"
+        + "  --warmup <seconds>      unmeasured run before each variant (default 5)%n"
+        + "  --duration <seconds>    measured run of each variant (default 30)%n"
+        + "  --mix select=<w>,insert=<w>,scan=<w>  operation weights (default 80,15,5)%n"
+        + "  --table <name>          table of the workload (default pgjdbc_load)%n"
+        + "  --rows <n>              rows of the table read by the selects (default 100000)%n"
+        + "  --batch-size <n>        rows per insert batch (default 100)%n"
+        + "  --scan-rows <n>         rows per scan (default 10000)%n"
+        + "  --variant <settings>    connection properties as a URL query string, for instance%n"
+        + "                          prepareThreshold=0&binaryTransfer=false; repeatable%n"
+        + "  --drop                  drop the table at the end%n");
+    System.exit(1);
+  }
+
+  static PGLoadGenerator parse(String[] args) {
+    PGLoadGenerator generator = new PGLoadGenerator();
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--virtual-threads")) {
+        generator.virtualThreads = true;
+        continue;
+      }
+      if (arg.equals("--drop")) {
+        generator.drop = true;
+        continue;
+      }
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException("Missing value of " + arg);
+      }
+      String value = args[++i];
+      if (arg.equals("--url")) {
+        generator.url = value;
+      } else if (arg.equals("--user")) {
+        generator.properties.setProperty("user", value);
+      } else if (arg.equals("--password")) {
+        generator.properties.setProperty("password", value);
+      } else if (arg.equals("--threads")) {
+        generator.threads = positive(arg, value);
+      } else if (arg.equals("--connections")) {
+        generator.connections = positive(arg, value);
+      } else if (arg.equals("--warmup")) {
+        generator.warmupSeconds = Integer.parseInt(value);
+      } else if (arg.equals("--duration")) {
+        generator.durationSeconds = positive(arg, value);
+      } else if (arg.equals("--mix")) {
+        parseMix(generator.weights, value);
+      } else if (arg.equals("--table")) {
+        generator.table = value;
+      } else if (arg.equals("--rows")) {
+        generator.rows = positive(arg, value);
+      } else if (arg.equals("--batch-size")) {
+        generator.batchSize = positive(arg, value);
+      } else if (arg.equals("--scan-rows")) {
+        generator.scanRows = positive(arg, value);
+      } else if (arg.equals("--variant")) {
+        generator.variants.add(value);
+      } else {
+        throw new IllegalArgumentException("Unknown option " + arg);
+      }
+    }
+    if (generator.url == null) {
+      throw new IllegalArgumentException("--url is required");
+    }
+    if (generator.variants.isEmpty()) {
+      generator.variants.add("");
+    }
+    return generator;
+  }
+
+  private static int positive(String option, String value) {
+    int n = Integer.parseInt(value);
+    if (n <= 0) {
+      throw new IllegalArgumentException(option + " must be positive");
+    }
+    return n;
+  }
+
+  static void parseMix(int[] weights, String mix) {
+    Arrays.fill(weights, 0);
+    for (String part : mix.split(",")) {
+      String[] pair = part.split("=");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Invalid mix " + mix);
+      }
+      Operation operation;
+      try {
+        operation = Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown operation " + pair[0] + " in mix " + mix);
+      }
+      weights[operation.ordinal()] = Integer.parseInt(pair[1].trim());
+    }
+    int total = 0;
+    for (int weight : weights) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight in mix " + mix);
+      }
+      total += weight;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("No operation in mix " + mix);
+    }
+  }
+
+  private Connection connect(String variant) throws SQLException {
+    String variantUrl = url;
+    if (!variant.isEmpty()) {
+      variantUrl += (url.indexOf('?') < 0 ? "?" : "&") + variant;
+    }
+    Connection con = new Driver().connect(variantUrl, properties);
+    if (con == null) {
+      throw new SQLException("Not a PostgreSQL JDBC URL: " + url);
+    }
+    return con;
+  }
+
+  /**
+   * Creates and fills the table if needed, then runs every variant.
+   *
+   * @return the results of the variants, in order
+   * @throws SQLException if the table cannot be prepared
+   * @throws InterruptedException if interrupted while the workload runs
+   */
+  List<VariantResult> run() throws SQLException, InterruptedException {
+    prepareTable();
+    List<VariantResult> results = new ArrayList<VariantResult>();
+    try {
+      for (String variant : variants) {
+        results.add(runVariant(variant));
+      }
+    } finally {
+      if (drop) {
+        Connection con = connect("");
+        try {
+          con.createStatement().execute("DROP TABLE " + table);
+        } finally {
+          con.close();
+        }
+      }
+    }
+    return results;
+  }
+
+  private void prepareTable() throws SQLException {
+    Connection con = connect("");
+    try {
+      Statement stmt = con.createStatement();
+      stmt.execute("CREATE TABLE IF NOT EXISTS " + table
+          + " (id BIGINT PRIMARY KEY, name TEXT, amount DOUBLE PRECISION)");
+      long existing = queryLong(stmt, "SELECT count(*) FROM " + table);
+      if (existing < rows) {
+        // the selects read ids between 0 and rows, so they are all inserted
+        PreparedStatement insert = con.prepareStatement("INSERT INTO " + table
+            + " (id, name, amount) VALUES (?, ?, ?) ON CONFLICT (id) DO NOTHING");
+        for (int id = 0; id < rows; id++) {
+          setRow(insert, id);
+          insert.addBatch();
+          if ((id + 1) % 1000 == 0 || id == rows - 1) {
+            insert.executeBatch();
+          }
+        }
+        insert.close();
+      }
+      nextId.set(Math.max(rows, queryLong(stmt, "SELECT max(id) FROM " + table) + 1));
+      refresh(stmt);
+      stmt.close();
+    } finally {
+      con.close();
+    }
+  }
+
+  private static long queryLong(Statement stmt, String sql) throws SQLException {
+    ResultSet rs = stmt.executeQuery(sql);
+    try {
+      return rs.next() ? rs.getLong(1) : 0;
+    } finally {
+      rs.close();
+    }
+  }
+
+  private void refresh(Statement stmt) throws SQLException {
+    // CrateDB only makes inserted rows visible to reads after a refresh
+    stmt.execute("REFRESH TABLE " + table);
+  }
+
+  private static void setRow(PreparedStatement insert, long id) throws SQLException {
+    insert.setLong(1, id);
+    insert.setString(2, "name " + id);
+    insert.setDouble(3, id * 0.5);
+  }
+
+  private VariantResult runVariant(String variant) throws SQLException, InterruptedException {
+    final BlockingQueue<Connection> pool = new ArrayBlockingQueue<Connection>(connections);
+    try {
+      for (int i = 0; i < connections; i++) {
+        pool.add(connect(variant));
+      }
+      if (warmupSeconds > 0) {
+        runWorkers(pool, warmupSeconds);
+      }
+      VariantResult result = new VariantResult(variant.isEmpty() ? "default" : variant);
+      long start = System.nanoTime();
+      for (OperationStats[] stats : runWorkers(pool, durationSeconds)) {
+        result.add(stats);
+      }
+      result.elapsedNanos = System.nanoTime() - start;
+      return result;
+    } finally {
+      for (Connection con : pool) {
+        con.close();
+      }
+    }
+  }
+
+  private List<OperationStats[]> runWorkers(final BlockingQueue<Connection> pool, int seconds)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    final List<OperationStats[]> results = new ArrayList<OperationStats[]>();
+    ExecutorService executor = newExecutor();
+    for (int t = 0; t < threads; t++) {
+      final Random random = new Random(t);
+      final OperationStats[] stats = new OperationStats[Operation.values().length];
+      for (int i = 0; i < stats.length; i++) {
+        stats[i] = new OperationStats();
+      }
+      results.add(stats);
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          while (System.nanoTime() < deadline) {
+            Operation operation = pick(random);
+            OperationStats operationStats = stats[operation.ordinal()];
+            Connection con;
+            try {
+              con = pool.take();
+            } catch (InterruptedException e) {
+              return;
+            }
+            long start = System.nanoTime();
+            try {
+              operationStats.rows += execute(con, operation, random);
+              operationStats.histogram.record(System.nanoTime() - start);
+            } catch (SQLException e) {
+              if (operationStats.errors++ == 0) {
+                System.err.printf("%s failed: %s%n", operation, e);
+              }
+            } finally {
+              pool.add(con);
+            }
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    return results;
+  }
+
+  private ExecutorService newExecutor() {
+    if (virtualThreads) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+            .invoke(null);
+      } catch (Exception e) {
+        throw new IllegalStateException("Virtual threads require Java 21 or later", e);
+      }
+    }
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "pgjdbc load " + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  Operation pick(Random random) {
+    int total = 0;
+    for (int weight : weights) {
+      total += weight;
+    }
+    int n = random.nextInt(total);
+    for (Operation operation : Operation.values()) {
+      n -= weights[operation.ordinal()];
+      if (n < 0) {
+        return operation;
+      }
+    }
+    throw new IllegalStateException("No operation in the mix");
+  }
+
+  /**
+   * @return number of rows read or written
+   */
+  private long execute(Connection con, Operation operation, Random random) throws SQLException {
+    switch (operation) {
+      case SELECT: {
+        PreparedStatement ps = con.prepareStatement(
+            "SELECT id, name, amount FROM " + table + " WHERE id = ?");
+        try {
+          ps.setLong(1, random.nextInt(rows));
+          return readAll(ps.executeQuery());
+        } finally {
+          ps.close();
+        }
+      }
+      case INSERT: {
+        PreparedStatement ps = con.prepareStatement(
+            "INSERT INTO " + table + " (id, name, amount) VALUES (?, ?, ?)");
+        try {
+          for (int i = 0; i < batchSize; i++) {
+            setRow(ps, nextId.getAndIncrement());
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          return batchSize;
+        } finally {
+          ps.close();
+        }
+      }
+      default: {
+        PreparedStatement ps = con.prepareStatement(
+            "SELECT id, name, amount FROM " + table + " LIMIT ?");
+        try {
+          ps.setInt(1, scanRows);
+          return readAll(ps.executeQuery());
+        } finally {
+          ps.close();
+        }
+      }
+    }
+  }
+
+  private static long readAll(ResultSet rs) throws SQLException {
+    long count = 0;
+    try {
+      while (rs.next()) {
+        rs.getLong(1);
+        rs.getString(2);
+        rs.getDouble(3);
+        count++;
+      }
+    } finally {
+      rs.close();
+    }
+    return count;
+  }
+
+  void print(List<VariantResult> results, PrintStream out) {
+    out.printf(Locale.ROOT, "%d threads%s, %d connections, %d s per variant%n%n", threads,
+        virtualThreads ? " (virtual)" : "", connections, durationSeconds);
+    out.printf(Locale.ROOT, "%-40s %-7s %10s %10s %8s %8s %8s %8s %7s%n", "variant",
+        "op", "ops/s", "rows/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+    for (VariantResult result : results) {
+      double seconds = result.elapsedNanos / 1e9;
+      for (Operation operation : Operation.values()) {
+        OperationStats stats = result.stats[operation.ordinal()];
+        if (weights[operation.ordinal()] == 0) {
+          continue;
+        }
+        Histogram histogram = stats.histogram;
+        out.printf(Locale.ROOT, "%-40s %-7s %10.1f %10.1f %8.3f %8.3f %8.3f %8.3f %7d%n",
+            result.variant, operation.name().toLowerCase(Locale.ROOT),
+            histogram.count / seconds, stats.rows / seconds,
+            histogram.percentile(0.5) / 1e6, histogram.percentile(0.95) / 1e6,
+            histogram.percentile(0.99) / 1e6, histogram.max / 1e6, stats.errors);
+      }
+    }
+  }
+
+  static final class OperationStats {
+    final Histogram histogram = new Histogram();
+    long rows;
+    long errors;
+
+    void add(OperationStats other) {
+      histogram.add(other.histogram);
+      rows += other.rows;
+      errors += other.errors;
+    }
+  }
+
+  static final class VariantResult {
+    final String variant;
+    final OperationStats[] stats = new OperationStats[Operation.values().length];
+    long elapsedNanos;
+
+    VariantResult(String variant) {
+      this.variant = variant;
+      for (int i = 0; i < stats.length; i++) {
+        stats[i] = new OperationStats();
+      }
+    }
+
+    void add(OperationStats[] other) {
+      for (int i = 0; i < stats.length; i++) {
+        stats[i].add(other[i]);
+      }
+    }
+  }
+
+  /**
+   * Latency histogram with 4 buckets per power of two microseconds, so that percentiles are
+   * within 15%. Each worker records into its own histograms, which are merged at the end.
+   */
+  static final class Histogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKETS];
+    long count;
+    long max;
+
+    void record(long nanos) {
+      long micros = nanos / 1000;
+      int bucket;
+      if (micros < SUB_BUCKETS) {
+        bucket = (int) Math.max(0, micros);
+      } else {
+        int octave = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (octave - 2)) & (SUB_BUCKETS - 1);
+        bucket = Math.min(BUCKETS - 1, (octave - 1) * SUB_BUCKETS + subBucket);
+      }
+      buckets[bucket]++;
+      count++;
+      max = Math.max(max, nanos);
+    }
+
+    void add(Histogram other) {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets[i] += other.buckets[i];
+      }
+      count += other.count;
+      max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return the percentile, as the middle of its bucket, in nanoseconds
+     */
+    long percentile(double percentile) {
+      long rank = (long) Math.ceil(count * percentile);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets[i];
+        if (seen >= rank && seen > 0) {
+          return Math.min(max, bucketValue(i));
+        }
+      }
+      return max;
+    }
+
+    private static long bucketValue(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+        return bucket * 1000L + 500;
+      }
+      int octave = bucket / SUB_BUCKETS + 1;
+      long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (octave - 2);
+      long width = 1L << (octave - 2);
+      return (lower * 2 + width) * 500;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.PGResultSet;
+import org.postgresql.core.Encoding;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+public class ColumnBatchTest {
+  private static final byte[] NULL = null;
+
+  private PgWireStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(25);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    stub.close();
+  }
+
+  private Connection connect(int prepareThreshold) throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.PREPARE_THRESHOLD.set(props, prepareThreshold);
+    return new Driver().connect(stub.getURL(), props);
+  }
+
+  private void readBatches(int prepareThreshold) throws Exception {
+    Connection con = connect(prepareThreshold);
+    try {
+      con.setAutoCommit(false);
+      PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t");
+      ps.setFetchSize(7);
+      ResultSet rs = ps.executeQuery();
+      PGResultSet pgrs = rs.unwrap(PGResultSet.class);
+      int row = 0;
+      int[] sizes = {10, 10, 5, 0};
+      for (int size : sizes) {
+        ColumnBatch batch = pgrs.readColumns(10);
+        assertEquals(size, batch.getRowCount());
+        assertEquals(4, batch.getColumnCount());
+        LongColumn ids = (LongColumn) batch.getColumn(1);
+        StringColumn names = (StringColumn) batch.getColumn("NAME");
+        DoubleColumn amounts = (DoubleColumn) batch.getColumn("amount");
+        LongColumn bigs = (LongColumn) batch.getColumn(4);
+        assertEquals("id", ids.getLabel());
+        assertEquals(size, names.getDictionary().length);
+        for (int i = 0; i < size; i++, row++) {
+          assertEquals(row, ids.getValues()[i]);
+          assertEquals("name " + row, names.getString(i));
+          assertEquals(row + 0.5, amounts.getDouble(i), 0.0);
+          assertEquals(row * 1000000007L, bigs.getLong(i));
+          assertFalse(bigs.isNull(i));
+        }
+        assertFalse(ids.hasNulls());
+      }
+      assertEquals(25, row);
+      assertTrue(rs.isAfterLast());
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testTextFormat() throws Exception {
+    readBatches(5);
+  }
+
+  @Test
+  public void testBinaryFormat() throws Exception {
+    readBatches(-1);
+  }
+
+  @Test
+  public void testInvalidMaxRows() throws Exception {
+    Connection con = connect(5);
+    try {
+      ResultSet rs = con.createStatement().executeQuery("SELECT id, name, amount, big FROM t");
+      rs.unwrap(PGResultSet.class).readColumns(0);
+      fail("readColumns must reject a non positive number of rows");
+    } catch (SQLException expected) {
+      // expected
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testDictionaryAndNulls() throws Exception {
+    StringColumn column = new StringColumn("s", 25, 100, Encoding.getJVMEncoding("UTF-8"));
+    for (int i = 0; i < 100; i++) {
+      column.append(i % 7 == 0 ? NULL : ("v" + i % 40).getBytes("UTF-8"));
+    }
+    assertEquals(100, column.getRowCount());
+    assertTrue(column.hasNulls());
+    assertTrue(column.isNull(0));
+    assertNull(column.getString(70));
+    assertEquals(-1, column.getCodes()[7]);
+    assertEquals("v1", column.getString(1));
+    assertEquals("v1", column.getString(41));
+    assertEquals(column.getCodes()[1], column.getCodes()[41]);
+    assertEquals(40, column.getDictionary().length);
+    assertEquals(1L << 7 | 1L << 14 | 1L << 21 | 1L << 28 | 1L << 35 | 1L << 42 | 1L << 49
+        | 1L << 56 | 1L << 63 | 1L, column.getNulls()[0]);
+  }
+
+  @Test
+  public void testTextValues() throws Exception {
+    LongColumn longs = new LongColumn("l", 20, 2, 8, false);
+    longs.append("-9223372036854775808".getBytes("US-ASCII"));
+    longs.append("-42".getBytes("US-ASCII"));
+    assertArrayEquals(new long[]{Long.MIN_VALUE, -42L}, longs.getValues());
+    BooleanColumn booleans = new BooleanColumn("b", 16, 3, false);
+    booleans.append("t".getBytes("US-ASCII"));
+    booleans.append("f".getBytes("US-ASCII"));
+    booleans.append("true".getBytes("US-ASCII"));
+    assertArrayEquals(new boolean[]{true, false, true}, booleans.getValues());
+    try {
+      longs = new LongColumn("l", 20, 1, 8, false);
+      longs.append("1x".getBytes("US-ASCII"));
+      fail("1x is not a long");
+    } catch (SQLException expected) {
+      // expected
+    }
+  }
+}
@@ -216,4 +216,18 @@ public class ParserTest {
     Assert.assertEquals(34, command.getBatchRewriteValuesBraceOpenPosition());
     Assert.assertEquals(56, command.getBatchRewriteValuesBraceClosePosition());
   }
+
+  @Test
+  public void testFingerprint() {
+    assertEquals("SELECT * FROM t WHERE id = ? AND name = ?",
+        Parser.fingerprint("SELECT *\n  FROM t   WHERE id = 42 AND name = 'it''s'", true));
+    assertEquals("SELECT * FROM t WHERE id = ? AND name = ?",
+        Parser.fingerprint("SELECT * FROM t WHERE id = $1 AND name = ?", true));
+    assertEquals("SELECT col1, ? + ?, ?, ? FROM t2",
+        Parser.fingerprint("SELECT col1, 1.5 + .5, 1e-3, E'\\'' FROM t2", true));
+    assertEquals("SELECT ? FROM \"T 1\"",
+        Parser.fingerprint("SELECT $tag$ body $tag$ /* comment */ FROM \"T 1\" -- comment", true));
+    assertEquals("INSERT INTO t (a) VALUES (?) RETURNING id",
+        Parser.fingerprint("INSERT INTO t (a) VALUES ($12) RETURNING id", false));
+  }
 }
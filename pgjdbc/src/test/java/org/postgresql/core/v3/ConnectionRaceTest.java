@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core.v3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.hostchooser.CandidateHost;
+import org.postgresql.hostchooser.HostRequirement;
+import org.postgresql.util.HostSpec;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link ConnectionRace} without a server, using fake connection attempts.
+ */
+public class ConnectionRaceTest {
+
+  private static List<CandidateHost> hosts(String... names) {
+    List<CandidateHost> hosts = new ArrayList<CandidateHost>();
+    for (String name : names) {
+      hosts.add(new CandidateHost(new HostSpec(name, 5432), HostRequirement.any));
+    }
+    return hosts;
+  }
+
+  private static QueryExecutor fakeExecutor(final CountDownLatch closed) {
+    return (QueryExecutor) Proxy.newProxyInstance(QueryExecutor.class.getClassLoader(),
+        new Class<?>[]{QueryExecutor.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("close")) {
+              closed.countDown();
+            }
+            return null;
+          }
+        });
+  }
+
+  @Test(timeout = 5000)
+  public void testBlackHoledHostDoesNotDelayConnect() throws Exception {
+    final CountDownLatch blackHole = new CountDownLatch(1);
+    final CountDownLatch closed = new CountDownLatch(1);
+    final QueryExecutor good = fakeExecutor(closed);
+
+    ConnectionRace race = new ConnectionRace(hosts("blackhole", "good"), 50,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost) throws IOException {
+            if (candidateHost.hostSpec.getHost().equals("blackhole")) {
+              try {
+                blackHole.await();
+              } catch (InterruptedException e) {
+                throw new IOException(e);
+              }
+              throw new IOException("timed out");
+            }
+            return good;
+          }
+        });
+
+    long start = System.nanoTime();
+    assertSame(good, race.run());
+    assertTrue("The race should not wait for the black-holed host",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    blackHole.countDown();
+    assertEquals("The winner must not be closed", 1, closed.getCount());
+  }
+
+  @Test(timeout = 5000)
+  public void testLoserIsClosed() throws Exception {
+    final CountDownLatch winnerReturned = new CountDownLatch(1);
+    final CountDownLatch loserClosed = new CountDownLatch(1);
+    final QueryExecutor first = fakeExecutor(new CountDownLatch(1));
+    final QueryExecutor second = fakeExecutor(loserClosed);
+
+    ConnectionRace race = new ConnectionRace(hosts("slow", "fast"), 10,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost) throws IOException {
+            if (candidateHost.hostSpec.getHost().equals("fast")) {
+              return first;
+            }
+            try {
+              winnerReturned.await();
+            } catch (InterruptedException e) {
+              throw new IOException(e);
+            }
+            return second;
+          }
+        });
+
+    assertSame(first, race.run());
+    winnerReturned.countDown();
+    assertTrue("Connection that lost the race should be closed",
+        loserClosed.await(2, TimeUnit.SECONDS));
+  }
+
+  @Test(timeout = 5000)
+  public void testFailureStartsNextAttemptImmediately() throws Exception {
+    final QueryExecutor good = fakeExecutor(new CountDownLatch(1));
+
+    ConnectionRace race = new ConnectionRace(hosts("refused", "good"), 60000,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost) throws IOException {
+            if (candidateHost.hostSpec.getHost().equals("refused")) {
+              throw new ConnectException("refused");
+            }
+            return good;
+          }
+        });
+
+    assertSame(good, race.run());
+  }
+
+  @Test(timeout = 5000)
+  public void testAllAttemptsFail() throws Exception {
+    ConnectionRace race = new ConnectionRace(hosts("a", "b"), 10,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost) throws SQLException {
+            throw new SQLException("failed " + candidateHost.hostSpec.getHost());
+          }
+        });
+
+    try {
+      race.run();
+      fail("All the attempts failed, so the race should fail");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage().startsWith("failed "));
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void testNoSuitableHost() throws Exception {
+    ConnectionRace race = new ConnectionRace(hosts("a", "b"), 10,
+        new ConnectionRace.Attempt() {
+          @Override
+          public QueryExecutor connect(CandidateHost candidateHost) {
+            return null;
+          }
+        });
+
+    assertNull(race.run());
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+import static org.junit.Assert.assertEquals;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.util.HostSpec;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the parsing of {@code sys.nodes} and the ordering of discovered and seed hosts.
+ */
+public class ClusterNodeDiscoveryTest {
+  private final Encoding encoding = Encoding.getJVMEncoding("UTF-8");
+
+  private byte[][] row(String hostname, String restUrl, String psqlPort) throws IOException {
+    return new byte[][]{bytes(hostname), bytes(restUrl), bytes(psqlPort)};
+  }
+
+  private byte[] bytes(String value) throws IOException {
+    return value == null ? null : encoding.encode(value);
+  }
+
+  @Test
+  public void testParseNodes() throws Exception {
+    List<byte[][]> rows = Arrays.asList(
+        row("node1", "10.0.0.1:4200", "5432"),
+        row("node2", "[fe80::1]:4200", "5433"),
+        row("node3", null, "5432"),
+        row("node4", "10.0.0.4:4200", null));
+
+    List<HostSpec> nodes = ClusterNodeDiscovery.parseNodes(rows, encoding);
+    assertEquals(Arrays.asList(
+        new HostSpec("10.0.0.1", 5432),
+        new HostSpec("fe80::1", 5433),
+        new HostSpec("node3", 5432)), nodes);
+  }
+
+  @Test
+  public void testDiscoveredNodesBeforeSeeds() {
+    HostSpec node1 = new HostSpec("node1", 5432);
+    HostSpec node2 = new HostSpec("node2", 5432);
+    HostSpec seed = new HostSpec("seed", 5432);
+    HostChooser chooser = new DiscoveredHostChooser(
+        new SingleHostChooser(node1, HostRequirement.any),
+        new SingleHostChooser(seed, HostRequirement.any));
+
+    List<HostSpec> hosts = new ArrayList<HostSpec>();
+    for (CandidateHost candidateHost : chooser) {
+      hosts.add(candidateHost.hostSpec);
+    }
+    assertEquals(Arrays.asList(node1, seed), hosts);
+
+    chooser = new DiscoveredHostChooser(new SingleHostChooser(node2, HostRequirement.any), null);
+    hosts.clear();
+    for (CandidateHost candidateHost : chooser) {
+      hosts.add(candidateHost.hostSpec);
+    }
+    assertEquals(Arrays.asList(node2), hosts);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.hostchooser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.util.HostSpec;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the load aware host ordering of {@link MultiHostChooser}.
+ */
+public class MultiHostChooserTest {
+  private final HostSpec fast1 = new HostSpec("fast1", 5432);
+  private final HostSpec fast2 = new HostSpec("fast2", 5432);
+  private final HostSpec slow = new HostSpec("slow", 5432);
+
+  @Test
+  public void testPowerOfTwoChoicesKeepsAllHosts() {
+    List<HostSpec> hosts = Arrays.asList(fast1, slow, fast2);
+    List<HostSpec> ordered = MultiHostChooser.orderByPowerOfTwoChoices(hosts,
+        new double[]{1, 100, 1}, new Random(42));
+    assertEquals(3, ordered.size());
+    assertEquals(new HashSet<HostSpec>(hosts), new HashSet<HostSpec>(ordered));
+  }
+
+  @Test
+  public void testPowerOfTwoChoicesAvoidsSlowHost() {
+    List<HostSpec> hosts = Arrays.asList(fast1, slow, fast2);
+    double[] scores = {1, 100, 1};
+    Random random = new Random(42);
+    int slowFirst = 0;
+    int fast1First = 0;
+    for (int i = 0; i < 3000; i++) {
+      HostSpec first = MultiHostChooser.orderByPowerOfTwoChoices(hosts, scores, random).get(0);
+      if (first.equals(slow)) {
+        slowFirst++;
+      } else if (first.equals(fast1)) {
+        fast1First++;
+      }
+    }
+    assertEquals("The slowest host never wins a comparison", 0, slowFirst);
+    assertTrue("Equally fast hosts should share the load, got " + fast1First + " out of 3000",
+        fast1First > 1200 && fast1First < 1800);
+  }
+
+  @Test
+  public void testLoadScoresPenalizeLatencyAndErrors() {
+    HostSpec quick = new HostSpec("score-quick", 5432);
+    HostSpec laggy = new HostSpec("score-laggy", 5432);
+    HostSpec failing = new HostSpec("score-failing", 5432);
+    HostSpec unknown = new HostSpec("score-unknown", 5432);
+
+    GlobalHostStatusTracker.reportConnectLatency(quick, 1000000);
+    GlobalHostStatusTracker.reportQuery(quick, 1000000, false);
+    GlobalHostStatusTracker.reportConnectLatency(laggy, 1000000);
+    GlobalHostStatusTracker.reportQuery(laggy, 50000000, false);
+    GlobalHostStatusTracker.reportConnectLatency(failing, 1000000);
+    GlobalHostStatusTracker.reportQuery(failing, 1000000, false);
+    GlobalHostStatusTracker.reportHostStatus(failing, HostStatus.ConnectFail);
+
+    double[] scores = GlobalHostStatusTracker.getLoadScores(
+        Arrays.asList(quick, laggy, failing, unknown), 60000);
+    assertTrue("Unknown hosts are probed first", scores[3] < scores[0]);
+    assertTrue("Latency increases the score", scores[0] < scores[1]);
+    assertTrue("Errors increase the score", scores[0] < scores[2]);
+  }
+
+  @Test
+  public void testFailuresAreSamples() {
+    HostSpec down = new HostSpec("score-down", 5432);
+    HostSpec unknown = new HostSpec("score-unknown", 5432);
+
+    // a host that never accepted a connection has no latencies
+    GlobalHostStatusTracker.reportHostStatus(down, HostStatus.ConnectFail);
+    GlobalHostStatusTracker.reportHostStatus(down, HostStatus.ConnectFail);
+
+    double[] scores = GlobalHostStatusTracker.getLoadScores(Arrays.asList(down, unknown), 60000);
+    assertTrue("Failing hosts are not probed like unknown hosts", scores[1] < scores[0]);
+  }
+}
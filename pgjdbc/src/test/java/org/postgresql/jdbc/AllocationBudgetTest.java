@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGStatement;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * <p>Guards the hot paths of the driver against allocation regressions, such as accidental boxing
+ * or copying, by measuring the bytes allocated by the current thread while the driver talks to a
+ * {@link PgWireStub}.</p>
+ *
+ * <p>The budgets are about one and a half times the allocations measured on HotSpot when they
+ * were set, so that they hold across JVM versions. A test failing here means that a change
+ * allocates noticeably more per row or per execution: either fix it, or raise the budget in the
+ * same change with an explanation.</p>
+ */
+public class AllocationBudgetTest {
+  private static final int ROWS = 1000;
+  private static final int WARMUP_ITERATIONS = 300;
+  private static final int ITERATIONS = 50;
+  private static final int ROUNDS = 5;
+
+  // bytes per row: the row arrays received by PGStream.receiveTupleV3
+  private static final long ROW_BUDGET = 232;
+  // bytes per row, on top of the row arrays: the getters parse the bytes without allocating
+  private static final long PRIMITIVE_GETTERS_BUDGET = 16;
+  // bytes per row, on top of the row arrays: the String of getString
+  private static final long STRING_GETTER_BUDGET = 72;
+  // bytes per row, on top of the row arrays: the Strings of getString on three binary numbers
+  private static final long BINARY_STRING_GETTER_BUDGET = 232;
+  // bytes per row, on top of the row arrays: the boxed values and the String of getObject
+  private static final long OBJECT_GETTER_BUDGET = 168;
+  // bytes per execution of an insert with four parameters
+  private static final long EXECUTE_BUDGET = 528;
+
+  private static com.sun.management.ThreadMXBean threadMXBean;
+
+  private PgWireStub stub;
+  private Connection con;
+
+  @BeforeClass
+  public static void checkAllocationMeasurement() {
+    Assume.assumeTrue("ThreadMXBean.getThreadAllocatedBytes is not available",
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue("Thread allocation measurement is not supported",
+        threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(ROWS);
+    Properties props = new Properties();
+    props.setProperty("user", "crate");
+    con = new Driver().connect(stub.getURL(), props);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    con.close();
+    stub.close();
+  }
+
+  private interface Workload {
+    void run() throws SQLException;
+  }
+
+  /**
+   * Returns the bytes allocated by one run of the workload, once it is warmed up. The lowest of
+   * a few rounds is kept, so that one-off allocations such as lazily initialized caches do not
+   * count.
+   */
+  private static long allocatedBytes(Workload workload) throws SQLException {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      workload.run();
+    }
+    long threadId = Thread.currentThread().getId();
+    long lowest = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long before = threadMXBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < ITERATIONS; i++) {
+        workload.run();
+      }
+      long after = threadMXBean.getThreadAllocatedBytes(threadId);
+      lowest = Math.min(lowest, (after - before) / ITERATIONS);
+    }
+    return lowest;
+  }
+
+  private static void assertBudget(String what, long budget, long bytes) {
+    assertTrue(what + " allocates " + bytes + " bytes, the budget is " + budget,
+        bytes <= budget);
+  }
+
+  private long rowBytes() throws SQLException {
+    final Statement stmt = con.createStatement();
+    return allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+        while (rs.next()) {
+          // only the rows are received
+        }
+        rs.close();
+      }
+    }) / ROWS;
+  }
+
+  @Test
+  public void testReceiveRows() throws SQLException {
+    assertBudget("Bytes per row", ROW_BUDGET, rowBytes());
+  }
+
+  @Test
+  public void testPrimitiveGetters() throws SQLException {
+    long rowBytes = rowBytes();
+    final Statement stmt = con.createStatement();
+    long bytes = allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+        long sum = 0;
+        while (rs.next()) {
+          sum += rs.getInt(1) + rs.getLong(4) + (long) rs.getDouble(3);
+        }
+        rs.close();
+        assertTrue(sum > 0);
+      }
+    }) / ROWS;
+    assertBudget("Bytes per row of getInt, getLong and getDouble", PRIMITIVE_GETTERS_BUDGET,
+        bytes - rowBytes);
+  }
+
+  @Test
+  public void testGetString() throws SQLException {
+    long rowBytes = rowBytes();
+    final Statement stmt = con.createStatement();
+    long bytes = allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+        int length = 0;
+        while (rs.next()) {
+          length += rs.getString(2).length();
+        }
+        rs.close();
+        assertTrue(length > 0);
+      }
+    }) / ROWS;
+    assertBudget("Bytes per row of getString", STRING_GETTER_BUDGET, bytes - rowBytes);
+  }
+
+  @Test
+  public void testGetStringOfBinaryNumbers() throws SQLException {
+    final PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t");
+    ps.unwrap(PGStatement.class).setPrepareThreshold(-1);
+    long rowBytes = allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+          // only the rows are received
+        }
+        rs.close();
+      }
+    }) / ROWS;
+    long bytes = allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = ps.executeQuery();
+        int length = 0;
+        while (rs.next()) {
+          length += rs.getString(1).length() + rs.getString(3).length()
+              + rs.getString(4).length();
+        }
+        rs.close();
+        assertTrue(length > 0);
+      }
+    }) / ROWS;
+    assertBudget("Bytes per row of getString on binary numbers", BINARY_STRING_GETTER_BUDGET,
+        bytes - rowBytes);
+  }
+
+  @Test
+  public void testGetObject() throws SQLException {
+    long rowBytes = rowBytes();
+    final Statement stmt = con.createStatement();
+    long bytes = allocatedBytes(new Workload() {
+      @Override
+      public void run() throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+        int count = 0;
+        while (rs.next()) {
+          for (int i = 1; i <= 4; i++) {
+            if (rs.getObject(i) != null) {
+              count++;
+            }
+          }
+        }
+        rs.close();
+        assertTrue(count > 0);
+      }
+    }) / ROWS;
+    assertBudget("Bytes per row of getObject", OBJECT_GETTER_BUDGET, bytes - rowBytes);
+  }
+
+  @Test
+  public void testPreparedStatementExecute() throws SQLException {
+    stub.setRows(0);
+    final PreparedStatement ps =
+        con.prepareStatement("INSERT INTO t (id, name, amount, big) VALUES (?, ?, ?, ?)");
+    long bytes = allocatedBytes(new Workload() {
+      private int id;
+
+      @Override
+      public void run() throws SQLException {
+        ps.setInt(1, id);
+        ps.setString(2, "name");
+        ps.setDouble(3, id + 0.5);
+        ps.setLong(4, id * 1000000007L);
+        ps.executeUpdate();
+        id++;
+      }
+    });
+    assertBudget("Bytes per execution", EXECUTE_BUDGET, bytes);
+  }
+}
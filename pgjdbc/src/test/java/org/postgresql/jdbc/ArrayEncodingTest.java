@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.test.util.PgWireStub;
+import org.postgresql.util.ByteConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+
+public class ArrayEncodingTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private PgWireStub stub;
+  private Connection con;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    con = new Driver().connect(stub.getURL(), props);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    con.close();
+    stub.close();
+  }
+
+  private byte[] encode(Object array, int arrayOid) throws SQLException {
+    return ArrayEncoding.toBinaryRepresentation((BaseConnection) con, array, arrayOid);
+  }
+
+  /**
+   * Checks the header of a binary array and returns the index of its first element.
+   */
+  private static int assertHeader(byte[] bytes, boolean hasNulls, int oid, int... dimensions) {
+    assertEquals(dimensions.length, ByteConverter.int4(bytes, 0));
+    assertEquals(hasNulls ? 1 : 0, ByteConverter.int4(bytes, 4));
+    assertEquals(oid, ByteConverter.int4(bytes, 8));
+    for (int i = 0; i < dimensions.length; i++) {
+      assertEquals(dimensions[i], ByteConverter.int4(bytes, 12 + 8 * i));
+      assertEquals(1, ByteConverter.int4(bytes, 16 + 8 * i));
+    }
+    return 12 + 8 * dimensions.length;
+  }
+
+  @Test
+  public void testStrings() throws Exception {
+    List<String> values = Arrays.asList("a", null, "é€😀");
+    byte[] bytes = encode(values, Oid.VARCHAR_ARRAY);
+    int idx = assertHeader(bytes, true, Oid.VARCHAR, 3);
+    assertEquals(1, ByteConverter.int4(bytes, idx));
+    assertEquals('a', bytes[idx + 4]);
+    assertEquals(-1, ByteConverter.int4(bytes, idx + 5));
+    byte[] expected = values.get(2).getBytes(UTF_8);
+    assertEquals(expected.length, ByteConverter.int4(bytes, idx + 9));
+    assertArrayEquals(expected, Arrays.copyOfRange(bytes, idx + 13, bytes.length));
+
+    assertHeader(encode(new String[0], Oid.TEXT_ARRAY), false, Oid.TEXT);
+  }
+
+  @Test
+  public void testUtf8() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      char[] chars = new char[random.nextInt(8)];
+      for (int j = 0; j < chars.length; j++) {
+        // mostly surrogates and the boundaries of the encoded lengths
+        chars[j] = (char) (random.nextBoolean() ? 0xD7F0 + random.nextInt(0x820)
+            : random.nextInt(0x900));
+      }
+      String s = new String(chars);
+      byte[] expected = s.getBytes(UTF_8);
+      assertEquals(s, expected.length, ArrayEncoding.utf8Length(s));
+      byte[] bytes = new byte[expected.length];
+      assertEquals(s, expected.length, ArrayEncoding.writeUtf8(bytes, 0, s));
+      assertArrayEquals(s, expected, bytes);
+    }
+  }
+
+  @Test
+  public void testMultiDimensional() throws Exception {
+    Long[][] values = {{1L, 2L, 3L}, {4L, 5L, 6L}};
+    byte[] bytes = encode(values, Oid.INT8_ARRAY);
+    int idx = assertHeader(bytes, false, Oid.INT8, 2, 3);
+    for (long i = 1; i <= 6; i++, idx += 12) {
+      assertEquals(8, ByteConverter.int4(bytes, idx));
+      assertEquals(i, ByteConverter.int8(bytes, idx + 4));
+    }
+    assertEquals(bytes.length, idx);
+
+    List<List<Integer>> nested = Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4));
+    assertHeader(encode(nested, Oid.INT4_ARRAY), false, Oid.INT4, 2, 2);
+    assertHeader(encode(new int[][] {{1}, {2}}, Oid.INT4_ARRAY), false, Oid.INT4, 2, 1);
+  }
+
+  @Test
+  public void testNotEncodable() throws Exception {
+    // ragged, mixed, of another type and of an unknown type
+    assertNull(encode(new Long[][] {{1L}, {2L, 3L}}, Oid.INT8_ARRAY));
+    assertNull(encode(Arrays.<Object>asList(1L, "2"), Oid.INT8_ARRAY));
+    assertNull(encode(new Long[] {1L}, Oid.INT4_ARRAY));
+    assertNull(encode(new Object[] {new Object()}, Oid.TEXT_ARRAY));
+    assertEquals(Oid.UNSPECIFIED, ArrayEncoding.getArrayOid(Collections.emptyList()));
+  }
+
+  @Test
+  public void testTemporalsAndUuids() throws Exception {
+    TimestampUtils utils = ((BaseConnection) con).getTimestampUtils();
+    Timestamp timestamp = Timestamp.valueOf("2018-07-01 10:00:00.123456");
+    assertEquals(Oid.TIMESTAMPTZ_ARRAY, ArrayEncoding.getArrayOid(new Object[] {timestamp}));
+    byte[] bytes = encode(new Timestamp[] {timestamp}, Oid.TIMESTAMPTZ_ARRAY);
+    int idx = assertHeader(bytes, false, Oid.TIMESTAMPTZ, 1);
+    byte[] expected = new byte[8];
+    utils.toBinTimestamp(expected, timestamp);
+    assertArrayEquals(expected, Arrays.copyOfRange(bytes, idx + 4, idx + 12));
+
+    bytes = encode(new LocalDate[] {LocalDate.of(2000, 1, 2)}, Oid.DATE_ARRAY);
+    idx = assertHeader(bytes, false, Oid.DATE, 1);
+    assertEquals(4, ByteConverter.int4(bytes, idx));
+    assertEquals(1, ByteConverter.int4(bytes, idx + 4));
+
+    UUID uuid = UUID.randomUUID();
+    bytes = encode(Collections.singletonList(uuid), Oid.UUID_ARRAY);
+    idx = assertHeader(bytes, false, Oid.UUID, 1);
+    assertEquals(uuid.getMostSignificantBits(), ByteConverter.int8(bytes, idx + 4));
+    assertEquals(uuid.getLeastSignificantBits(), ByteConverter.int8(bytes, idx + 12));
+  }
+
+  @Test
+  public void testSetObjectBindsBinary() throws Exception {
+    PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t WHERE ?");
+    ps.setObject(1, Arrays.asList("a", "b"));
+    ps.executeQuery().close();
+    ps.setObject(1, new Long[] {1L, null}, java.sql.Types.ARRAY);
+    ps.executeQuery().close();
+    ps.close();
+
+    assertEquals(Arrays.asList(1, 1), stub.getBoundFormats());
+    assertHeader(stub.getBoundValues().get(0), false, Oid.VARCHAR, 2);
+    assertHeader(stub.getBoundValues().get(1), true, Oid.INT8, 2);
+  }
+
+  @Test
+  public void testSetObjectOfUnknownElements() throws Exception {
+    PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t WHERE ?");
+    try {
+      ps.setObject(1, Collections.emptyList());
+      fail("The element type of an empty list is unknown");
+    } catch (SQLException expected) {
+      // expected
+    } finally {
+      ps.close();
+    }
+  }
+
+  @Test
+  public void testCreateArrayOf() throws Exception {
+    Array array = con.createArrayOf("varchar", new Object[] {"a", null, "c"});
+    assertArrayEquals(new Object[] {"a", null, "c"}, (Object[]) array.getArray());
+    array = con.createArrayOf("int8", new Long[][] {{1L, 2L}, {3L, 4L}});
+    assertArrayEquals(new Long[][] {{1L, 2L}, {3L, 4L}}, (Object[]) array.getArray());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+public class AutoCommitStreamingTest {
+  private PgWireStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(25);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    stub.close();
+  }
+
+  private Connection connect(boolean autoCommitStreaming) throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.AUTO_COMMIT_STREAMING.set(props, autoCommitStreaming);
+    Connection con = new Driver().connect(stub.getURL(), props);
+    assertTrue(con.getAutoCommit());
+    return con;
+  }
+
+  private static int readAll(Connection con) throws SQLException {
+    PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t");
+    ps.setFetchSize(10);
+    ResultSet rs = ps.executeQuery();
+    int rows = 0;
+    while (rs.next()) {
+      assertEquals(rows, rs.getInt(1));
+      rows++;
+    }
+    ps.close();
+    return rows;
+  }
+
+  @Test
+  public void testStreamsInAutoCommit() throws Exception {
+    Connection con = connect(true);
+    try {
+      assertEquals(25, readAll(con));
+      // no BEGIN, and the rows are fetched in chunks from the same portal
+      assertEquals(Arrays.asList(10, 10, 10), stub.getExecuteLimits());
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testFetchSizeIgnoredByDefault() throws Exception {
+    Connection con = connect(false);
+    try {
+      assertEquals(25, readAll(con));
+      assertEquals(Collections.singletonList(0), stub.getExecuteLimits());
+    } finally {
+      con.close();
+    }
+  }
+}
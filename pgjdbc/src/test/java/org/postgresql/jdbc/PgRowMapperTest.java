@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.PGResultSet;
+import org.postgresql.RowMapper;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+public class PgRowMapperTest {
+  private PgWireStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(5);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    stub.close();
+  }
+
+  private Connection connect(int prepareThreshold) throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.PREPARE_THRESHOLD.set(props, prepareThreshold);
+    return new Driver().connect(stub.getURL(), props);
+  }
+
+  private static ResultSet query(Connection con) throws SQLException {
+    PreparedStatement ps = con.prepareStatement("SELECT id, name, amount, big FROM t");
+    return ps.executeQuery();
+  }
+
+  private void mapBeans(int prepareThreshold) throws Exception {
+    Connection con = connect(prepareThreshold);
+    try {
+      ResultSet rs = query(con);
+      RowMapper<Bean> mapper = rs.unwrap(PGResultSet.class).map(Bean.class);
+      int row = 0;
+      while (rs.next()) {
+        Bean bean = mapper.mapRow();
+        assertEquals(row, bean.id);
+        assertEquals("name " + row, bean.name);
+        assertEquals(new BigDecimal(row + ".5"), bean.amount);
+        assertEquals(Long.valueOf(row * 1000000007L), bean.big);
+        row++;
+      }
+      assertEquals(5, row);
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testBeanTextFormat() throws Exception {
+    mapBeans(5);
+  }
+
+  @Test
+  public void testBeanBinaryFormat() throws Exception {
+    mapBeans(-1);
+  }
+
+  @Test
+  public void testConstructor() throws Exception {
+    Connection con = connect(-1);
+    try {
+      ResultSet rs = query(con);
+      RowMapper<Immutable> mapper = rs.unwrap(PGResultSet.class).map(Immutable.class);
+      rs.next();
+      rs.next();
+      Immutable value = mapper.mapRow();
+      assertEquals(1L, value.id);
+      assertEquals("name 1", value.name);
+      assertEquals(1.5f, value.amount, 0f);
+      assertEquals(1000000007L, value.big);
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testUnmatchedColumnsAreIgnored() throws Exception {
+    Connection con = connect(5);
+    try {
+      ResultSet rs = query(con);
+      RowMapper<Partial> mapper = rs.unwrap(PGResultSet.class).map(Partial.class);
+      rs.next();
+      rs.next();
+      Partial partial = mapper.mapRow();
+      assertEquals(1000000007L, partial.big);
+      assertNull(partial.other);
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testNotOnRow() throws Exception {
+    Connection con = connect(5);
+    try {
+      ResultSet rs = query(con);
+      RowMapper<Bean> mapper = rs.unwrap(PGResultSet.class).map(Bean.class);
+      try {
+        mapper.mapRow();
+        fail("mapRow must fail before the first row");
+      } catch (SQLException expected) {
+        // expected
+      }
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testNoMatchingConstructor() throws Exception {
+    Connection con = connect(5);
+    try {
+      ResultSet rs = query(con);
+      try {
+        rs.unwrap(PGResultSet.class).map(Integer.class);
+        fail("Integer has no constructor taking four arguments");
+      } catch (SQLException expected) {
+        // expected
+      }
+    } finally {
+      con.close();
+    }
+  }
+
+  public static class Bean {
+    private int id;
+    private String name;
+    private BigDecimal amount;
+    private Long big;
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public void setAmount(BigDecimal amount) {
+      this.amount = amount;
+    }
+  }
+
+  static final class Immutable {
+    final long id;
+    final String name;
+    final float amount;
+    final long big;
+
+    Immutable(long id, String name, float amount, long big) {
+      this.id = id;
+      this.name = name;
+      this.amount = amount;
+      this.big = big;
+    }
+  }
+
+  static class Partial {
+    private long big;
+    private String other;
+
+    void setBig(long big) {
+      this.big = big;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+public class ResultSetPrefetchTest {
+  private PgWireStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(35);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    stub.close();
+  }
+
+  private Connection connect(int prefetchThreshold) throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.PREFETCH_THRESHOLD.set(props, prefetchThreshold);
+    Connection con = new Driver().connect(stub.getURL(), props);
+    con.setAutoCommit(false);
+    return con;
+  }
+
+  /**
+   * Waits for the stub to receive the given number of Execute messages.
+   */
+  private boolean awaitExecutes(int executes) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (stub.getExecuteLimits().size() < executes) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(5);
+    }
+    return true;
+  }
+
+  @Test
+  public void testNextRowsAreRequestedAhead() throws Exception {
+    Connection con = connect(50);
+    try {
+      Statement stmt = con.createStatement();
+      stmt.setFetchSize(10);
+      ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+      // BEGIN and the first Execute
+      assertEquals(2, stub.getExecuteLimits().size());
+
+      for (int i = 0; i < 6; i++) {
+        assertTrue(rs.next());
+      }
+      // the sixth row passes the threshold, the next rows are requested before the end
+      assertTrue(awaitExecutes(3));
+
+      int rows = 6;
+      while (rs.next()) {
+        assertEquals(rows, rs.getInt(1));
+        rows++;
+      }
+      assertEquals(35, rows);
+      // BEGIN and four Executes, the last one returning the remaining five rows
+      assertEquals(5, stub.getExecuteLimits().size());
+      assertEquals(10, (int) stub.getExecuteLimits().get(4));
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testOtherStatementWhilePrefetching() throws Exception {
+    Connection con = connect(10);
+    try {
+      Statement cursorStmt = con.createStatement();
+      cursorStmt.setFetchSize(10);
+      ResultSet rs = cursorStmt.executeQuery("SELECT id, name, amount, big FROM t");
+      for (int i = 0; i < 2; i++) {
+        assertTrue(rs.next());
+      }
+      assertTrue(awaitExecutes(3));
+
+      // the prefetched rows are read before the response to this query
+      ResultSet other = con.createStatement().executeQuery("SELECT id, name, amount, big FROM t");
+      int otherRows = 0;
+      while (other.next()) {
+        otherRows++;
+      }
+      assertEquals(35, otherRows);
+
+      int rows = 2;
+      while (rs.next()) {
+        assertEquals("name " + rows, rs.getString(2));
+        rows++;
+      }
+      assertEquals(35, rows);
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testDisabledByDefault() throws Exception {
+    Connection con = connect(0);
+    try {
+      Statement stmt = con.createStatement();
+      stmt.setFetchSize(10);
+      ResultSet rs = stmt.executeQuery("SELECT id, name, amount, big FROM t");
+      for (int i = 0; i < 10; i++) {
+        assertTrue(rs.next());
+      }
+      Thread.sleep(50);
+      assertEquals(2, stub.getExecuteLimits().size());
+      assertTrue(rs.next());
+      assertEquals(3, stub.getExecuteLimits().size());
+      assertFalse(rs.isLast());
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testInvalidThreshold() throws Exception {
+    try {
+      connect(101).close();
+      fail("A prefetch threshold above 100 must be rejected");
+    } catch (SQLException expected) {
+      // expected
+    }
+  }
+}
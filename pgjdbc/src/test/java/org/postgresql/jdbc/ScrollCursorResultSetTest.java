@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+public class ScrollCursorResultSetTest {
+  private PgWireStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(25);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    stub.close();
+  }
+
+  private Connection connect(boolean serverScrollableCursors) throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.SERVER_SCROLLABLE_CURSORS.set(props, serverScrollableCursors);
+    return new Driver().connect(stub.getURL(), props);
+  }
+
+  private static ResultSet query(Connection con) throws SQLException {
+    Statement stmt =
+        con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    stmt.setFetchSize(5);
+    return stmt.executeQuery("SELECT id, name, amount, big FROM t");
+  }
+
+  /**
+   * Checks that no FETCH read more rows than the fetch size.
+   */
+  private void assertWindowedFetches() {
+    for (String sql : stub.getExecutedStatements()) {
+      if (sql.startsWith("FETCH FORWARD")) {
+        assertTrue(sql, Integer.parseInt(sql.split(" ")[2]) <= 5);
+      }
+    }
+  }
+
+  @Test
+  public void testScrolling() throws Exception {
+    Connection con = connect(true);
+    try {
+      ResultSet rs = query(con);
+      assertTrue(rs.isBeforeFirst());
+      for (int i = 0; i < 7; i++) {
+        assertTrue(rs.next());
+        assertEquals(i, rs.getInt(1));
+        assertEquals(i + 1, rs.getRow());
+      }
+      assertTrue(rs.absolute(20));
+      assertEquals("name 19", rs.getString(2));
+      assertTrue(rs.previous());
+      assertEquals(18, rs.getInt(1));
+      assertTrue(rs.relative(-10));
+      assertEquals(8, rs.getInt(1));
+
+      assertTrue(rs.last());
+      assertEquals(25, rs.getRow());
+      assertEquals(24 * 1000000007L, rs.getLong(4));
+      assertTrue(rs.isLast());
+      assertFalse(rs.next());
+      assertTrue(rs.isAfterLast());
+      assertTrue(rs.previous());
+      assertEquals(24, rs.getInt(1));
+
+      assertTrue(rs.absolute(-2));
+      assertEquals(23, rs.getInt(1));
+      assertTrue(rs.first());
+      assertTrue(rs.isFirst());
+      assertEquals(0, rs.getInt(1));
+      assertFalse(rs.absolute(30));
+      assertTrue(rs.isAfterLast());
+      rs.beforeFirst();
+      assertTrue(rs.isBeforeFirst());
+      assertTrue(rs.next());
+      assertEquals(0, rs.getInt(1));
+
+      assertWindowedFetches();
+      rs.getStatement().close();
+      List<String> statements = stub.getExecutedStatements();
+      assertTrue(statements.get(0).startsWith("DECLARE pgjdbc_scroll_"));
+      assertTrue(statements.get(statements.size() - 1).startsWith("CLOSE pgjdbc_scroll_"));
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testCursorClosedOnNextExecution() throws Exception {
+    Connection con = connect(true);
+    try {
+      Statement stmt = query(con).getStatement();
+      // the first cursor is closed before the second one is declared
+      stmt.executeQuery("SELECT id, name, amount, big FROM t").next();
+      List<String> statements = stub.getExecutedStatements();
+      int close = -1;
+      int declare = -1;
+      for (int i = 0; i < statements.size(); i++) {
+        if (statements.get(i).startsWith("CLOSE pgjdbc_scroll_")) {
+          close = i;
+        } else if (statements.get(i).startsWith("DECLARE pgjdbc_scroll_")) {
+          declare = i;
+        }
+      }
+      assertTrue(statements.toString(), close >= 0 && close < declare);
+      stmt.close();
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testRowCountOfEmptyCursor() throws Exception {
+    stub.setRows(0);
+    Connection con = connect(true);
+    try {
+      ResultSet rs = query(con);
+      assertFalse(rs.isBeforeFirst());
+      assertFalse(rs.last());
+      assertFalse(rs.previous());
+      assertEquals(0, rs.getRow());
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testDisabledByDefault() throws Exception {
+    Connection con = connect(false);
+    try {
+      ResultSet rs = query(con);
+      assertTrue(rs.last());
+      assertEquals(25, rs.getRow());
+      for (String sql : stub.getExecutedStatements()) {
+        assertFalse(sql, sql.startsWith("DECLARE"));
+      }
+    } finally {
+      con.close();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * Checks the type and format {@code Time} and {@code Timestamp} parameters are bound with.
+ */
+public class TemporalParameterTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String SQL = "SELECT id, name, amount, big FROM t WHERE ?";
+
+  private PgWireStub stub;
+  private Connection con;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (con != null) {
+      con.close();
+    }
+    stub.close();
+  }
+
+  private void connect(Properties props) throws Exception {
+    PGProperty.USER.set(props, "crate");
+    con = new Driver().connect(stub.getURL(), props);
+  }
+
+  private String boundText(int index) {
+    return new String(stub.getBoundValues().get(index), UTF_8);
+  }
+
+  @Test
+  public void testTimeIsTextWithOffset() throws Exception {
+    connect(new Properties());
+    Time time = Time.valueOf("10:15:30");
+    Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT+02:00"));
+    PreparedStatement ps = con.prepareStatement(SQL);
+    ps.setTime(1, time);
+    ps.executeQuery().close();
+    ps.close();
+    ps = con.prepareStatement(SQL);
+    ps.setTime(1, time, cal);
+    ps.executeQuery().close();
+    ps.close();
+
+    assertEquals(Arrays.asList(Oid.UNSPECIFIED, Oid.UNSPECIFIED), stub.getParsedTypes());
+    assertEquals(Arrays.asList(0, 0), stub.getBoundFormats());
+    TimestampUtils utils = ((BaseConnection) con).getTimestampUtils();
+    assertEquals(utils.toString(Calendar.getInstance(), time), boundText(0));
+    assertTrue(boundText(0), boundText(0).matches(".*[+-]\\d\\d(:\\d\\d)*"));
+    assertEquals(utils.toString(cal, time), boundText(1));
+    assertTrue(boundText(1), boundText(1).endsWith("+02"));
+  }
+
+  @Test
+  public void testTimestampIsBinaryTimestamptz() throws Exception {
+    connect(new Properties());
+    Timestamp timestamp = Timestamp.valueOf("2018-07-01 10:00:00.123456");
+    PreparedStatement ps = con.prepareStatement(SQL);
+    ps.setTimestamp(1, timestamp);
+    ps.executeQuery().close();
+    ps.close();
+    ps = con.prepareStatement(SQL);
+    ps.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("GMT+02:00")));
+    ps.executeQuery().close();
+    ps.close();
+
+    assertEquals(Arrays.asList(Oid.TIMESTAMPTZ, Oid.TIMESTAMPTZ), stub.getParsedTypes());
+    assertEquals(Arrays.asList(1, 1), stub.getBoundFormats());
+    byte[] expected = new byte[8];
+    ((BaseConnection) con).getTimestampUtils().toBinTimestamp(expected, timestamp);
+    // the binary format carries the instant, the calendar does not change it
+    assertArrayEquals(expected, stub.getBoundValues().get(0));
+    assertArrayEquals(expected, stub.getBoundValues().get(1));
+  }
+
+  @Test
+  public void testTimestampIsTextWhenBinaryDisabled() throws Exception {
+    Properties props = new Properties();
+    PGProperty.BINARY_TRANSFER_DISABLE.set(props, "TIMESTAMPTZ");
+    connect(props);
+    Timestamp timestamp = Timestamp.valueOf("2018-07-01 10:00:00.123456");
+    PreparedStatement ps = con.prepareStatement(SQL);
+    ps.setTimestamp(1, timestamp);
+    ps.executeQuery().close();
+    ps.close();
+    ps = con.prepareStatement(SQL);
+    ps.setTimestamp(1, timestamp, Calendar.getInstance(TimeZone.getTimeZone("GMT+02:00")));
+    ps.executeQuery().close();
+    ps.close();
+
+    assertEquals(Arrays.asList(Oid.VARCHAR, Oid.VARCHAR), stub.getParsedTypes());
+    assertEquals(Arrays.asList(0, 0), stub.getBoundFormats());
+    assertEquals(String.valueOf(timestamp.getTime()), boundText(0));
+    assertEquals(String.valueOf(timestamp.getTime()), boundText(1));
+  }
+}
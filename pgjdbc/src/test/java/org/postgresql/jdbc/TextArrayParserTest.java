@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Properties;
+
+public class TextArrayParserTest {
+  private PgWireStub stub;
+  private Connection con;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    con = new Driver().connect(stub.getURL(), props);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    con.close();
+    stub.close();
+  }
+
+  /**
+   * Checks that the parser returns the same array as the list based parser, which handles slices.
+   */
+  private Object assertParsed(int oid, String value, int length) throws SQLException {
+    PgArray array = new PgArray((BaseConnection) con, oid, value);
+    Object parsed = array.getArray();
+    assertArrayEquals(value, (Object[]) array.getArray(1, length), (Object[]) parsed);
+    assertEquals(value, array.getArray(1, length).getClass(), parsed.getClass());
+    return parsed;
+  }
+
+  @Test
+  public void testNumbers() throws Exception {
+    assertArrayEquals(new Integer[] {1, -2, null, 2147483647},
+        (Object[]) assertParsed(Oid.INT4_ARRAY, "{1,-2,NULL,2147483647}", 4));
+    assertParsed(Oid.INT8_ARRAY, "{9223372036854775807,-9223372036854775808,0}", 3);
+    assertParsed(Oid.INT2_ARRAY, "{ 1 , \"2\", 3.0}", 3);
+    assertParsed(Oid.FLOAT8_ARRAY, "{1.5,NaN,-Infinity,1e300}", 4);
+    assertParsed(Oid.FLOAT4_ARRAY, "{1.5,NULL}", 2);
+    assertArrayEquals(new BigDecimal[] {new BigDecimal("1.50"), null},
+        (Object[]) assertParsed(Oid.NUMERIC_ARRAY, "{1.50,NULL}", 2));
+    assertParsed(Oid.BOOL_ARRAY, "{t,f,NULL,true}", 4);
+  }
+
+  @Test
+  public void testStrings() throws Exception {
+    assertArrayEquals(new String[] {"a b", null, "NULL", "", "x\"y\\z", "{,}", "é"},
+        (Object[]) assertParsed(Oid.VARCHAR_ARRAY,
+            "{\"a b\",NULL,\"NULL\",\"\",\"x\\\"y\\\\z\",\"{,}\",é}", 7));
+    assertParsed(Oid.TEXT_ARRAY, "{abc, def ,g\\,h}", 3);
+    assertArrayEquals(new String[] {"abc", "def", "g,h"},
+        (Object[]) TextArrayParser.parse("{abc, def ,g\\,h}", ',', Types.VARCHAR));
+    assertParsed(Oid.TEXT_ARRAY, "{}", 0);
+  }
+
+  @Test
+  public void testMultiDimensional() throws Exception {
+    Object parsed = assertParsed(Oid.INT4_ARRAY, "{{1,2,3},{4,NULL,6}}", 2);
+    assertArrayEquals(new Integer[][] {{1, 2, 3}, {4, null, 6}}, (Object[]) parsed);
+    assertArrayEquals((Object[]) parsed,
+        (Object[]) TextArrayParser.parse("{{1,2,3},{4,NULL,6}}", ',', Types.INTEGER));
+    assertParsed(Oid.TEXT_ARRAY, "[0:1][1:1]={{a},{\"b\"}}", 2);
+    assertParsed(Oid.FLOAT8_ARRAY, "{{{1}},{{2}}}", 2);
+    assertParsed(Oid.INT8_ARRAY, "{{},{}}", 2);
+  }
+
+  @Test
+  public void testUnsupported() throws Exception {
+    assertNull(TextArrayParser.parse("{2018-07-01}", ',', Types.DATE));
+    // the list based parser is more lenient with malformed values
+    assertNull(TextArrayParser.parse("{1,2", ',', Types.INTEGER));
+    assertNull(TextArrayParser.parse("{{1},2}", ',', Types.INTEGER));
+    assertNull(TextArrayParser.parse("[0:1]{1,2}", ',', Types.INTEGER));
+  }
+
+  @Test
+  public void testBadElement() throws Exception {
+    try {
+      new PgArray((BaseConnection) con, Oid.INT4_ARRAY, "{1,x}").getArray();
+      fail("x is not an integer");
+    } catch (SQLException expected) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.postgresql.core.Provider;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PSQLException;
+
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+public class TimestampUtilsBinaryTest {
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  private static TimestampUtils timestampUtils(boolean usesDouble) {
+    return new TimestampUtils(usesDouble, new Provider<TimeZone>() {
+      @Override
+      public TimeZone get() {
+        return UTC;
+      }
+    });
+  }
+
+  @Test
+  public void testTimestamp() throws Exception {
+    TimestampUtils utils = timestampUtils(false);
+    byte[] bytes = new byte[8];
+    Timestamp timestamp = new Timestamp(946684800123L);
+    timestamp.setNanos(123456789);
+    utils.toBinTimestamp(bytes, timestamp);
+    assertEquals(123457L, ByteConverter.int8(bytes, 0));
+
+    timestamp = Timestamp.from(Instant.parse("1969-07-20T20:17:40.5Z"));
+    utils.toBinTimestamp(bytes, timestamp);
+    assertEquals(timestamp, utils.toTimestampBin(null, bytes, true));
+  }
+
+  @Test
+  public void testJavaTime() throws Exception {
+    TimestampUtils utils = timestampUtils(false);
+    byte[] bytes = new byte[8];
+    utils.toBinTimestamp(bytes, LocalDateTime.parse("2000-01-02T00:00:00.000001"));
+    assertEquals(86400000001L, ByteConverter.int8(bytes, 0));
+    utils.toBinTimestamp(bytes, OffsetDateTime.parse("2000-01-01T01:00:00+01:00"));
+    assertEquals(0L, ByteConverter.int8(bytes, 0));
+    utils.toBinTimestamp(bytes, Instant.parse("1999-12-31T23:59:59.5Z"));
+    assertEquals(-500000L, ByteConverter.int8(bytes, 0));
+    utils.toBinTimestamp(bytes, LocalDateTime.MAX);
+    assertEquals(Long.MAX_VALUE, ByteConverter.int8(bytes, 0));
+
+    LocalDateTime localDateTime = LocalDateTime.parse("1969-07-20T20:17:40.25");
+    utils.toBinTimestamp(bytes, localDateTime);
+    assertEquals(localDateTime, utils.toLocalDateTimeBin(UTC, bytes));
+
+    utils.toBinTime(bytes, LocalTime.NOON);
+    assertEquals(43200000000L, ByteConverter.int8(bytes, 0));
+    utils.toBinTime(bytes, LocalTime.MAX);
+    assertEquals(86400000000L, ByteConverter.int8(bytes, 0));
+  }
+
+  @Test
+  public void testDate() {
+    TimestampUtils utils = timestampUtils(false);
+    byte[] bytes = new byte[4];
+    utils.toBinDate(bytes, LocalDate.of(2000, 1, 1));
+    assertEquals(0, ByteConverter.int4(bytes, 0));
+    utils.toBinDate(bytes, LocalDate.of(1970, 1, 1));
+    assertEquals(-10957, ByteConverter.int4(bytes, 0));
+    utils.toBinDate(bytes, LocalDate.MAX);
+    assertEquals(Integer.MAX_VALUE, ByteConverter.int4(bytes, 0));
+  }
+
+  @Test
+  public void testDoubleDateTimes() throws Exception {
+    TimestampUtils utils = timestampUtils(true);
+    byte[] bytes = new byte[8];
+    utils.toBinTimestamp(bytes, OffsetDateTime.of(2000, 1, 1, 0, 0, 1, 500000000,
+        ZoneOffset.UTC));
+    assertEquals(1.5, ByteConverter.float8(bytes, 0), 0.0);
+  }
+
+  @Test
+  public void testOutOfRange() {
+    try {
+      timestampUtils(false).toBinTimestamp(new byte[8], LocalDateTime.of(300000, 1, 1, 0, 0));
+      fail("Year 300000 is out of the range of the microseconds since 2000");
+    } catch (PSQLException expected) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGStatement;
+import org.postgresql.core.Provider;
+import org.postgresql.util.PSQLException;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TimestampUtilsTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final String[] ZONES = {"Europe/Moscow", "America/New_York",
+      "Australia/Lord_Howe", "Europe/Amsterdam", "Asia/Kolkata", "America/Sao_Paulo", "UTC"};
+
+  private static TimestampUtils timestampUtils() {
+    return new TimestampUtils(false, new Provider<TimeZone>() {
+      @Override
+      public TimeZone get() {
+        return TimeZone.getTimeZone("UTC");
+      }
+    });
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(UTF_8);
+  }
+
+  private static Calendar calendar(TimeZone tz, int year, int month, int day, int hour,
+      int minute, int second) {
+    Calendar cal = new GregorianCalendar(tz);
+    cal.clear();
+    cal.set(year, month - 1, day, hour, minute, second);
+    return cal;
+  }
+
+  private static String format(int year, int month, int day, int hour, int minute, int second) {
+    return String.format("%04d-%02d-%02d %02d:%02d:%02d", year, month, day, hour, minute, second);
+  }
+
+  private static void assertTimestamp(TimestampUtils utils, TimeZone tz, int year, int month,
+      int day, int hour, int minute, int second) throws Exception {
+    String value = format(year, month, day, hour, minute, second);
+    Calendar cal = calendar(tz, year, month, day, hour, minute, second);
+    long millis = cal.getTimeInMillis();
+    Timestamp timestamp = utils.toTimestamp(tz, bytes(value + ".25"));
+    assertEquals(value, millis + 250, timestamp.getTime());
+    assertEquals(value, 250000000, timestamp.getNanos());
+    byte[] binary = new byte[8];
+    utils.toBinTimestamp(binary, LocalDateTime.of(year, month, day, hour, minute, second));
+    assertEquals(value, millis, utils.toTimestampBin(tz, binary, false).getTime());
+
+    cal.set(Calendar.HOUR_OF_DAY, 0);
+    cal.set(Calendar.MINUTE, 0);
+    cal.set(Calendar.SECOND, 0);
+    assertEquals(value, cal.getTimeInMillis(), utils.toDate(tz, bytes(value)).getTime());
+
+    // a time parsed from a timestamp in 1970 keeps its date
+    cal.setTimeInMillis(millis);
+    if (year != 1970) {
+      cal.set(1970, Calendar.JANUARY, 1);
+    }
+    assertEquals(value, cal.getTimeInMillis(), utils.toTime(tz, bytes(value)).getTime());
+  }
+
+  @Test
+  public void testCalendarSemantics() throws Exception {
+    TimestampUtils utils = timestampUtils();
+    Random random = new Random(42);
+    for (String zone : ZONES) {
+      TimeZone tz = TimeZone.getTimeZone(zone);
+      for (int i = 0; i < 2000; i++) {
+        assertTimestamp(utils, tz, 1850 + random.nextInt(250), 1 + random.nextInt(12),
+            1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+      }
+    }
+  }
+
+  @Test
+  public void testGapsAndOverlaps() throws Exception {
+    TimestampUtils utils = timestampUtils();
+    TimeZone moscow = TimeZone.getTimeZone("Europe/Moscow");
+    // 02:00 does not exist on 2000-03-26 and 02:00 exists twice on 2000-10-29
+    assertTimestamp(utils, moscow, 2000, 3, 26, 2, 30, 0);
+    assertTimestamp(utils, moscow, 2000, 10, 29, 2, 30, 0);
+    assertTimestamp(utils, moscow, 2000, 10, 29, 3, 0, 0);
+    TimeZone saoPaulo = TimeZone.getTimeZone("America/Sao_Paulo");
+    // midnight does not exist on 2018-11-04
+    assertTimestamp(utils, saoPaulo, 2018, 11, 4, 0, 30, 0);
+    assertTimestamp(utils, saoPaulo, 2018, 11, 4, 12, 0, 0);
+    assertEquals(calendar(saoPaulo, 2018, 11, 4, 1, 0, 0).getTimeInMillis(),
+        utils.toDate(saoPaulo, bytes("2018-11-04 12:00:00")).getTime());
+  }
+
+  @Test
+  public void testFormats() throws Exception {
+    TimestampUtils utils = timestampUtils();
+    TimeZone tz = TimeZone.getTimeZone("Europe/Moscow");
+    Timestamp timestamp = utils.toTimestamp(tz, bytes("2018-07-01 10:00:00.123456789+02:30"));
+    assertEquals(1530430200123L, timestamp.getTime());
+    assertEquals(123456789, timestamp.getNanos());
+    assertEquals(1530439800000L,
+        utils.toTimestamp(tz, bytes("2018-07-01 10:00:00-00:10")).getTime());
+    assertEquals(calendar(tz, 2018, 7, 1, 0, 0, 0).getTimeInMillis(),
+        utils.toTimestamp(tz, bytes("2018-07-01")).getTime());
+    assertEquals(-7200000L, utils.toTime(tz, bytes("00:00:00+02")).getTime());
+    assertEquals(new Timestamp(PGStatement.DATE_POSITIVE_INFINITY),
+        utils.toTimestamp(tz, bytes("infinity")));
+    assertEquals(PGStatement.DATE_NEGATIVE_INFINITY,
+        utils.toDate(tz, bytes("-infinity")).getTime());
+    // not the format the backend sends, parsed with a calendar
+    assertEquals(utils.toTimestamp(tz, bytes("2018-07-01 10:00:00")),
+        utils.toTimestamp(tz, bytes(" 2018-7-1 10:00:00 AD")));
+    try {
+      utils.toTimestamp(tz, bytes("2018-07-01 10:00:00 junk"));
+      fail("trailing junk must be rejected");
+    } catch (PSQLException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testJavaTime() throws Exception {
+    TimestampUtils utils = timestampUtils();
+    assertEquals(LocalDateTime.parse("2018-07-01T10:00:00.000001"),
+        utils.toLocalDateTime(bytes("2018-07-01 10:00:00.000001+02")));
+    assertEquals(LocalDateTime.parse("0100-02-28T23:59:59"),
+        utils.toLocalDateTime(bytes("0100-02-28 23:59:59")));
+    assertEquals(LocalDateTime.parse("-0099-02-28T00:00:00"),
+        utils.toLocalDateTime(bytes("0100-02-28 00:00:00 BC")));
+    assertEquals(LocalDateTime.MAX, utils.toLocalDateTime(bytes("infinity")));
+    assertEquals(LocalTime.parse("10:11:12.5"), utils.toLocalTime(bytes("10:11:12.5")));
+    assertEquals(LocalTime.MAX, utils.toLocalTime(bytes("24:00:00")));
+    assertEquals(LocalTime.parse("10:11"), utils.toLocalTime(bytes("10:11")));
+  }
+
+  @Test
+  public void testZoneOffsetsShared() throws Exception {
+    // the tables are built once per zone, even when the zones alternate
+    ZoneOffsets moscow = ZoneOffsets.get(TimeZone.getTimeZone(ZONES[0]));
+    ZoneOffsets newYork = ZoneOffsets.get(TimeZone.getTimeZone(ZONES[1]));
+    assertSame(moscow, ZoneOffsets.get(TimeZone.getTimeZone(ZONES[0])));
+    assertSame(newYork, ZoneOffsets.get(TimeZone.getTimeZone(ZONES[1])));
+
+    // a zone of the same name with other rules is not served from the cache
+    ZoneOffsets custom = ZoneOffsets.get(new SimpleTimeZone(3600000, ZONES[0]));
+    assertFalse(custom.covers(0));
+    assertSame(moscow, ZoneOffsets.get(TimeZone.getTimeZone(ZONES[0])));
+  }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    final TimestampUtils utils = timestampUtils();
+    final Date expected = new Date(calendar(TimeZone.getTimeZone(ZONES[0]), 2001, 3, 25, 0, 0, 0)
+        .getTimeInMillis());
+    final Time expectedTime = new Time(calendar(TimeZone.getTimeZone(ZONES[1]), 1970, 1, 1, 2, 30,
+        0).getTimeInMillis());
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      final TimeZone tz = TimeZone.getTimeZone(ZONES[i % 2]);
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < 20000; j++) {
+              if (tz.getID().equals(ZONES[0])) {
+                assertEquals(expected, utils.toDate(tz, bytes("2001-03-25 23:59:59")));
+              } else {
+                assertEquals(expectedTime, utils.toTime(tz, bytes("2001-03-25 02:30:00")));
+              }
+            }
+          } catch (Throwable t) {
+            failure.set(t);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.monitoring.DriverEvents;
+import org.postgresql.monitoring.QueryExecutionEvent;
+import org.postgresql.test.util.PgWireStub;
+import org.postgresql.util.HostSpec;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Records the driver events in a flight recording.
+ */
+public class JfrDriverEventsTest {
+  private final DriverEvents driverEvents = DriverEvents.getInstance();
+  private final HostSpec hostSpec = new HostSpec("jfr-host", 5432);
+
+  @Test
+  public void testLoadedReflectively() {
+    assertTrue(driverEvents instanceof JfrDriverEvents);
+    assertTrue(driverEvents.isAvailable());
+  }
+
+  @Test
+  public void testNotRecordedWithoutRecording() {
+    assertNull(driverEvents.beginConnect());
+    assertNull(driverEvents.beginExecution(QueryExecutionEvent.Kind.EXECUTE));
+  }
+
+  @Test
+  public void testRecordsEvents() throws IOException {
+    List<RecordedEvent> events;
+    Recording recording = new Recording();
+    try {
+      recording.enable("org.postgresql.Connect");
+      recording.enable("org.postgresql.Execute");
+      recording.enable("org.postgresql.Batch");
+      recording.disable("org.postgresql.Fetch");
+      recording.start();
+
+      Object connect = driverEvents.beginConnect();
+      driverEvents.commitConnect(connect, hostSpec, "doc", false);
+      Object execute = driverEvents.beginExecution(QueryExecutionEvent.Kind.EXECUTE);
+      driverEvents.commitExecution(execute, "SELECT * FROM t WHERE id = $1", hostSpec, true,
+          false, 1, 3, 420);
+      Object batch = driverEvents.beginExecution(QueryExecutionEvent.Kind.BATCH);
+      driverEvents.commitExecution(batch, "INSERT INTO t (id) VALUES ($1)", hostSpec, false,
+          true, 10, 0, 1000);
+      // disabled in the recording
+      assertNull(driverEvents.beginExecution(QueryExecutionEvent.Kind.FETCH));
+
+      recording.stop();
+      File file = File.createTempFile("pgjdbc", ".jfr");
+      try {
+        recording.dump(file.toPath());
+        events = RecordingFile.readAllEvents(file.toPath());
+      } finally {
+        file.delete();
+      }
+    } finally {
+      recording.close();
+    }
+
+    assertEquals(3, events.size());
+    RecordedEvent connect = events.get(0);
+    assertEquals("org.postgresql.Connect", connect.getEventType().getName());
+    assertEquals(hostSpec.toString(), connect.getString("host"));
+    assertEquals("doc", connect.getString("database"));
+    assertFalse(connect.getBoolean("failed"));
+
+    RecordedEvent execute = events.get(1);
+    assertEquals("org.postgresql.Execute", execute.getEventType().getName());
+    assertEquals("SELECT * FROM t WHERE id = $1", execute.getString("sql"));
+    assertEquals(hostSpec.toString(), execute.getString("host"));
+    assertTrue(execute.getBoolean("serverPrepared"));
+    assertEquals(3, execute.getLong("rows"));
+    assertEquals(420, execute.getLong("bytes"));
+
+    RecordedEvent batch = events.get(2);
+    assertEquals("org.postgresql.Batch", batch.getEventType().getName());
+    assertTrue(batch.getBoolean("failed"));
+    assertEquals(10, batch.getInt("statementCount"));
+  }
+
+  @Test
+  public void testCountsBytesOfConnectionsOpenedBeforeRecording() throws Exception {
+    List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+    PgWireStub stub = new PgWireStub();
+    try {
+      Properties props = new Properties();
+      PGProperty.USER.set(props, "crate");
+      // opened while no recording is running, like the connections of a pool
+      Connection con = new Driver().connect(stub.getURL(), props);
+      try {
+        Recording recording = new Recording();
+        try {
+          recording.enable("org.postgresql.Execute");
+          recording.start();
+          Statement stmt = con.createStatement();
+          stmt.executeQuery("SELECT id, name, amount, big FROM t").close();
+          stmt.close();
+          recording.stop();
+          File file = File.createTempFile("pgjdbc", ".jfr");
+          try {
+            recording.dump(file.toPath());
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+              if ("org.postgresql.Execute".equals(event.getEventType().getName())) {
+                events.add(event);
+              }
+            }
+          } finally {
+            file.delete();
+          }
+        } finally {
+          recording.close();
+        }
+      } finally {
+        con.close();
+      }
+    } finally {
+      stub.close();
+    }
+
+    assertEquals(1, events.size());
+    assertEquals("SELECT id, name, amount, big FROM t", events.get(0).getString("sql"));
+    assertTrue(events.get(0).getLong("bytes") > 0);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGProperty;
+import org.postgresql.util.PSQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Tests the instantiation of {@link QueryExecutionListener}s from the connection properties.
+ */
+public class QueryExecutionListenerFactoryTest {
+  private static final List<String> received = new ArrayList<String>();
+
+  public static class FirstListener implements QueryExecutionListener {
+    @Override
+    public void queryExecuted(QueryExecutionEvent event) {
+      received.add("first " + event.getSql());
+    }
+  }
+
+  public static class PropertiesListener implements QueryExecutionListener {
+    private final String name;
+
+    public PropertiesListener(Properties info) {
+      this.name = info.getProperty("listenerName");
+    }
+
+    @Override
+    public void queryExecuted(QueryExecutionEvent event) {
+      received.add(name + " " + event.getSql());
+    }
+  }
+
+  private static QueryExecutionEvent event(String sql) {
+    return new QueryExecutionEvent(QueryExecutionEvent.Kind.EXECUTE, sql, 1, null, false, false,
+        0, 0, 0, -1, 0, 0, 0, 0, 0);
+  }
+
+  @Before
+  public void setUp() {
+    received.clear();
+  }
+
+  @Test
+  public void testNoListener() throws Exception {
+    assertNull(QueryExecutionListenerFactory.getQueryExecutionListener(new Properties()));
+  }
+
+  @Test
+  public void testSingleListener() throws Exception {
+    Properties info = new Properties();
+    PGProperty.QUERY_EXECUTION_LISTENER.set(info, FirstListener.class.getName());
+    QueryExecutionListener listener = QueryExecutionListenerFactory.getQueryExecutionListener(info);
+    assertTrue(listener instanceof FirstListener);
+  }
+
+  @Test
+  public void testListenersAreCalledInOrder() throws Exception {
+    Properties info = new Properties();
+    info.setProperty("listenerName", "second");
+    PGProperty.QUERY_EXECUTION_LISTENER.set(info,
+        FirstListener.class.getName() + ", " + PropertiesListener.class.getName());
+    QueryExecutionListener listener = QueryExecutionListenerFactory.getQueryExecutionListener(info);
+    listener.queryExecuted(event("SELECT 1"));
+    assertEquals(2, received.size());
+    assertEquals("first SELECT 1", received.get(0));
+    assertEquals("second SELECT 1", received.get(1));
+  }
+
+  @Test
+  public void testUnknownListener() {
+    Properties info = new Properties();
+    PGProperty.QUERY_EXECUTION_LISTENER.set(info, "org.postgresql.NoSuchListener");
+    try {
+      QueryExecutionListenerFactory.getQueryExecutionListener(info);
+      fail("An unknown listener class should fail the connection");
+    } catch (PSQLException e) {
+      assertSame(ClassNotFoundException.class, e.getCause().getClass());
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class StatementStatisticsCollectorTest {
+  private static final long MILLIS = 1000000;
+
+  private final StatementStatisticsCollector collector = new StatementStatisticsCollector();
+
+  @Test
+  public void testFingerprintIsCached() {
+    String sql = "SELECT * FROM t WHERE id = 42";
+    String fingerprint = collector.fingerprint(sql, true);
+    assertEquals("SELECT * FROM t WHERE id = ?", fingerprint);
+    assertSame(fingerprint, collector.fingerprint(sql, true));
+  }
+
+  @Test
+  public void testFingerprintDependsOnStandardConformingStrings() {
+    // without standard conforming strings the backslash escapes the quote
+    String sql = "SELECT 'a\\'' = ' FROM t";
+    assertEquals("SELECT ? FROM t", collector.fingerprint(sql, true));
+    assertEquals("SELECT ? = ?", collector.fingerprint(sql, false));
+    assertEquals("SELECT ? FROM t", collector.fingerprint(sql, true));
+  }
+
+  @Test
+  public void testAggregatesByFingerprint() {
+    for (int i = 1; i <= 100; i++) {
+      collector.record("SELECT ?", 1, i * MILLIS, i == 100, 2, 10, 100);
+    }
+    collector.record("SELECT ?", 0, 50 * MILLIS, false, 1000, 10, 10000);
+    collector.record("INSERT INTO t VALUES (?)", 10, 20 * MILLIS, false, 0, 500, 50);
+
+    List<StatementStatistics> statistics = collector.getStatistics();
+    assertEquals(2, statistics.size());
+
+    StatementStatistics select = statistics.get(0);
+    assertEquals("SELECT ?", select.getFingerprint());
+    assertEquals(100, select.getCalls());
+    assertEquals(1, select.getFailures());
+    assertEquals((5050 + 50) * MILLIS, select.getTotalNanos());
+    assertEquals(MILLIS, select.getMinNanos());
+    assertEquals(100 * MILLIS, select.getMaxNanos());
+    assertApproximately(50 * MILLIS, select.getP50Nanos());
+    assertApproximately(95 * MILLIS, select.getP95Nanos());
+    assertApproximately(99 * MILLIS, select.getP99Nanos());
+    assertEquals(1200, select.getRows());
+    assertEquals(1010, select.getBytesSent());
+    assertEquals(20000, select.getBytesReceived());
+
+    StatementStatistics insert = statistics.get(1);
+    assertEquals(10, insert.getCalls());
+    assertEquals(2 * MILLIS, insert.getMeanNanos());
+    assertEquals(2 * MILLIS, insert.getMaxNanos());
+
+    collector.reset();
+    assertTrue(collector.getStatistics().isEmpty());
+  }
+
+  @Test
+  public void testEvictsLeastCalled() {
+    for (int i = 0; i < StatementStatisticsCollector.MAX_STATEMENTS; i++) {
+      collector.record("SELECT " + i, i == 0 ? 1 : 2, MILLIS, false, 0, 0, 0);
+    }
+    collector.record("SELECT new", 1, MILLIS, false, 0, 0, 0);
+
+    List<StatementStatistics> statistics = collector.getStatistics();
+    assertEquals(StatementStatisticsCollector.MAX_STATEMENTS
+        - StatementStatisticsCollector.MAX_STATEMENTS / 20 + 1, statistics.size());
+    for (StatementStatistics statement : statistics) {
+      assertTrue("The least called statement is evicted first",
+          !statement.getFingerprint().equals("SELECT 0"));
+    }
+  }
+
+  private static void assertApproximately(long expected, long actual) {
+    assertTrue("expected about " + expected + " but was " + actual,
+        Math.abs(expected - actual) <= expected * 0.15);
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.reactive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class RowPublisherTest {
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private PgWireStub stub;
+  private Connection con;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = new PgWireStub();
+    stub.setRows(10);
+    Properties props = new Properties();
+    props.setProperty("user", "crate");
+    con = new Driver().connect(stub.getURL(), props);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    con.close();
+    stub.close();
+  }
+
+  private RowPublisher publisher() throws Exception {
+    RowPublisher publisher =
+        con.unwrap(PGConnection.class).createRowPublisher("SELECT * FROM t WHERE id > ?", -1);
+    publisher.setExecutor(DIRECT);
+    publisher.setFetchSize(4);
+    return publisher;
+  }
+
+  /**
+   * Returns the row limits of the Execute messages sent for the query, leaving out the BEGIN.
+   */
+  private List<Integer> fetches() {
+    List<Integer> limits = stub.getExecuteLimits();
+    return limits.subList(limits.size() - countFetches(limits), limits.size());
+  }
+
+  private static int countFetches(List<Integer> limits) {
+    int count = 0;
+    for (int i = limits.size() - 1; i >= 0 && limits.get(i) != 0; i--) {
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  public void testDemandLimitsTheFetches() throws Exception {
+    con.setAutoCommit(false);
+    CollectingSubscriber subscriber = new CollectingSubscriber(3);
+    publisher().subscribe(subscriber);
+
+    assertEquals(3, subscriber.rows.size());
+    assertFalse(subscriber.completed);
+    assertEquals(Arrays.asList(3), fetches());
+
+    subscriber.subscription.request(10);
+    assertEquals(10, subscriber.rows.size());
+    assertTrue(subscriber.completed);
+    assertNull(subscriber.error);
+    assertEquals(Arrays.asList(3, 4, 4), fetches());
+
+    for (int i = 0; i < 10; i++) {
+      Row row = subscriber.rows.get(i);
+      assertEquals(4, row.getColumnCount());
+      assertEquals("id", row.getColumnLabel(1));
+      assertEquals(Integer.valueOf(i), row.getObject(1, Integer.class));
+      assertEquals("name " + i, row.getObject("NAME"));
+      assertEquals(Long.valueOf(i * 1000000007L), row.getObject("big", Long.class));
+    }
+  }
+
+  @Test
+  public void testCancelClosesThePortal() throws Exception {
+    con.setAutoCommit(false);
+    CollectingSubscriber subscriber = new CollectingSubscriber(2) {
+      @Override
+      public void onNext(Row row) {
+        super.onNext(row);
+        if (rows.size() == 2) {
+          subscription.cancel();
+          subscription.request(5);
+        }
+      }
+    };
+    publisher().subscribe(subscriber);
+
+    assertEquals(2, subscriber.rows.size());
+    assertFalse(subscriber.completed);
+    assertNull(subscriber.error);
+    assertEquals(Arrays.asList(2), fetches());
+
+    // the connection is usable again
+    ResultSet rs = con.createStatement().executeQuery("SELECT * FROM t");
+    int rows = 0;
+    while (rs.next()) {
+      rows++;
+    }
+    assertEquals(10, rows);
+  }
+
+  @Test
+  public void testInvalidRequest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber(0);
+    publisher().subscribe(subscriber);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(subscriber.rows.isEmpty());
+  }
+
+  @Test
+  public void testDefaultExecutor() throws Exception {
+    RowPublisher publisher = con.unwrap(PGConnection.class).createRowPublisher("SELECT * FROM t");
+    CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+    publisher.subscribe(subscriber);
+    assertTrue(subscriber.terminated.await(10, TimeUnit.SECONDS));
+    assertNull(subscriber.error);
+    assertEquals(10, subscriber.rows.size());
+    assertEquals(9, subscriber.rows.get(9).getObject("id"));
+  }
+
+  private static class CollectingSubscriber implements RowSubscriber {
+    private final long initialRequest;
+    final List<Row> rows = new ArrayList<Row>();
+    final CountDownLatch terminated = new CountDownLatch(1);
+    volatile RowSubscription subscription;
+    volatile boolean completed;
+    volatile Throwable error;
+
+    CollectingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(RowSubscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+    @Override
+    public void onNext(Row row) {
+      rows.add(row);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminated.countDown();
+    }
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.replay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.core.WireCapture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+public class WireReplayTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("pgjdbc-replay", "");
+    assertTrue(directory.delete() && directory.mkdir());
+  }
+
+  @After
+  public void tearDown() {
+    delete(directory);
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  @Test
+  public void testCaptureAndReplay() throws Exception {
+    // answers a driver that connects, runs a query and disconnects
+    File scripted = new File(directory, "scripted.pgcap");
+    writeCapture(scripted,
+        placeholder(0), startupResponse(),
+        placeholder('Q'), queryResponse(),
+        placeholder('X'));
+
+    File captureDirectory = new File(directory, "captures");
+    assertTrue(captureDirectory.mkdir());
+    ReplayServer scriptedServer = startServer(Capture.read(scripted));
+    try {
+      assertEquals(1, runWorkload(scriptedServer.getPort(), captureDirectory));
+      assertEquals(1, scriptedServer.getSessions());
+    } finally {
+      scriptedServer.close();
+    }
+
+    File[] files = captureDirectory.listFiles();
+    assertEquals(1, files.length);
+    Capture recorded = Capture.read(files[0]);
+    assertEquals(5, recorded.getTurns().size());
+    assertTrue(recorded.getTurns().get(0).isFrontend());
+    assertEquals(0, recorded.getTurns().get(0).getMessageType(0));
+    assertFalse(recorded.getTurns().get(1).isFrontend());
+    assertArrayEquals(queryResponse(), recorded.getTurns().get(3).getData());
+    assertEquals('Q', recorded.getTurns().get(2).getMessageType(0));
+    assertEquals('X', recorded.getTurns().get(4).getMessageType(0));
+
+    // the recorded session is answered without any difference
+    ReplayServer server = startServer(recorded);
+    try {
+      assertEquals(1, runWorkload(server.getPort(), null));
+      awaitTurns(server, 5);
+      assertEquals(0, server.getMismatches());
+
+      ReplayClient.Result result =
+          new ReplayClient("localhost", server.getPort(), null).replay(recorded);
+      assertEquals(2, result.getLatencies().length);
+      assertEquals(startupResponse().length + queryResponse().length, result.getBytesReceived());
+      awaitTurns(server, 10);
+      assertEquals(0, server.getMismatches());
+      assertEquals(2, server.getSessions());
+    } finally {
+      server.close();
+    }
+  }
+
+  @Test
+  public void testPasswordIsBlanked() throws Exception {
+    File scripted = new File(directory, "password.pgcap");
+    writeCapture(scripted,
+        placeholder(0), message('R', new byte[]{0, 0, 0, 3}),
+        placeholder('p'), startupResponse(),
+        placeholder('X'));
+
+    File captureDirectory = new File(directory, "captures");
+    assertTrue(captureDirectory.mkdir());
+    ReplayServer scriptedServer = startServer(Capture.read(scripted));
+    try {
+      Properties props = connectionProperties(captureDirectory);
+      PGProperty.PASSWORD.set(props, "secret");
+      new Driver().connect("jdbc:postgresql://localhost:" + scriptedServer.getPort() + "/doc",
+          props).close();
+    } finally {
+      scriptedServer.close();
+    }
+
+    Capture recorded = Capture.read(captureDirectory.listFiles()[0]);
+    byte[] password = recorded.getTurns().get(2).getMessages().get(0);
+    assertEquals('p', password[0]);
+    assertArrayEquals(new byte["secret".length() + 1], Arrays.copyOfRange(password, 5,
+        password.length));
+
+    ReplayServer server = startServer(recorded);
+    try {
+      new ReplayClient("localhost", server.getPort(), "secret").replay(recorded);
+      awaitTurns(server, 5);
+      assertEquals(0, server.getMismatches());
+    } finally {
+      server.close();
+    }
+  }
+
+  @Test
+  public void testTruncatedCapture() throws Exception {
+    File file = new File(directory, "truncated.pgcap");
+    writeCapture(file, placeholder(0), startupResponse());
+    byte[] content = readAll(file);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content, 0, content.length - 3);
+    } finally {
+      out.close();
+    }
+
+    Capture capture = Capture.read(file);
+    assertEquals(1, capture.getTurns().size());
+    assertEquals("localhost:5432", capture.getHost());
+  }
+
+  /**
+   * Waits for the server to process the last message of the driver, as nothing is sent back.
+   */
+  private static void awaitTurns(ReplayServer server, long turns) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (server.getTurns() < turns && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(turns, server.getTurns());
+  }
+
+  private static ReplayServer startServer(Capture capture) throws IOException {
+    ReplayServer server = new ReplayServer(Collections.singletonList(capture), 0, false);
+    server.start();
+    return server;
+  }
+
+  private static int runWorkload(int port, File captureDirectory) throws SQLException {
+    Properties props = connectionProperties(captureDirectory);
+    Connection con = new Driver().connect("jdbc:postgresql://localhost:" + port + "/doc", props);
+    try {
+      Statement stmt = con.createStatement();
+      ResultSet rs = stmt.executeQuery("SELECT 1");
+      assertTrue(rs.next());
+      return rs.getInt(1);
+    } finally {
+      con.close();
+    }
+  }
+
+  private static Properties connectionProperties(File captureDirectory) {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.SSL_MODE.set(props, "disable");
+    PGProperty.FAST_STARTUP.set(props, true);
+    PGProperty.PREFER_QUERY_MODE.set(props, "simple");
+    PGProperty.SOCKET_TIMEOUT.set(props, 10);
+    if (captureDirectory != null) {
+      PGProperty.WIRE_CAPTURE_DIRECTORY.set(props, captureDirectory.getAbsolutePath());
+    }
+    return props;
+  }
+
+  private static byte[] placeholder(int type) {
+    return type == 0 ? new byte[]{0, 0, 0, 8, 0, 3, 0, 0} : message(type, new byte[0]);
+  }
+
+  private static byte[] startupResponse() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(message('R', new byte[]{0, 0, 0, 0}));
+    String[] parameters = {"server_version", "10.5", "client_encoding", "UTF8",
+        "DateStyle", "ISO", "integer_datetimes", "on", "standard_conforming_strings", "on"};
+    for (int i = 0; i < parameters.length; i += 2) {
+      out.write(message('S', cstrings(parameters[i], parameters[i + 1])));
+    }
+    out.write(message('K', new byte[]{0, 0, 0, 1, 0, 0, 0, 2}));
+    out.write(message('Z', new byte[]{'I'}));
+    return out.toByteArray();
+  }
+
+  private static byte[] queryResponse() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream row = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(row);
+    data.writeShort(1);
+    data.write(cstrings("?column?"));
+    data.writeInt(0); // table oid
+    data.writeShort(0); // column number
+    data.writeInt(23); // int4
+    data.writeShort(4);
+    data.writeInt(-1);
+    data.writeShort(0); // text format
+    out.write(message('T', row.toByteArray()));
+    out.write(message('D', new byte[]{0, 1, 0, 0, 0, 1, '1'}));
+    out.write(message('C', cstrings("SELECT 1")));
+    out.write(message('Z', new byte[]{'I'}));
+    return out.toByteArray();
+  }
+
+  private static byte[] cstrings(String... values) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (String value : values) {
+      out.write(value.getBytes(UTF_8));
+      out.write(0);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] message(int type, byte[] body) {
+    return Messages.build(type, body);
+  }
+
+  /**
+   * Writes a capture whose turns alternate between the driver and the server, starting with the
+   * driver.
+   */
+  private static void writeCapture(File file, byte[]... turns) throws IOException {
+    DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+    try {
+      out.writeInt(WireCapture.MAGIC);
+      out.writeByte(WireCapture.VERSION);
+      out.writeLong(System.currentTimeMillis());
+      out.writeUTF("localhost:5432");
+      for (int i = 0; i < turns.length; i++) {
+        out.writeByte(i % 2 == 0 ? WireCapture.FRONTEND : WireCapture.BACKEND);
+        writeVarLong(out, 100);
+        writeVarLong(out, turns[i].length);
+        out.write(turns[i]);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static byte[] readAll(File file) throws IOException {
+    java.io.FileInputStream in = new java.io.FileInputStream(file);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        out.write(buf, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.core.Encoding;
+import org.postgresql.core.Oid;
+import org.postgresql.core.ParameterList;
+import org.postgresql.core.Query;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.HostSpec;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests shard aware routing against a fake three node cluster, without a server.
+ */
+public class ShardRouterTest {
+  private static final int SHARDS = 6;
+
+  private final Encoding encoding = Encoding.getJVMEncoding("UTF-8");
+  private final HostSpec[] seeds = {new HostSpec("router-seed", 5432)};
+  private final HostSpec[] nodes = {
+      new HostSpec("10.0.0.1", 5432), new HostSpec("10.0.0.2", 5432), new HostSpec("10.0.0.3", 5432)};
+
+  private final List<HostSpec> connected = new ArrayList<HostSpec>();
+  private final List<HostSpec> unreachable = new ArrayList<HostSpec>();
+  private ShardRouter router;
+
+  @Before
+  public void setUp() throws IOException {
+    List<byte[][]> tables = new ArrayList<byte[][]>();
+    // created with the default number of routing shards
+    tables.add(row("doc", "kv", String.valueOf(SHARDS), "id", null));
+    tables.add(row("doc", "events", "4", "_id", null));
+    List<byte[][]> shards = new ArrayList<byte[][]>();
+    for (int shard = 0; shard < SHARDS; shard++) {
+      HostSpec node = nodes[shard % nodes.length];
+      shards.add(row("doc", "kv", String.valueOf(shard), "node" + shard % nodes.length,
+          node.getHost() + ":4200", String.valueOf(node.getPort())));
+    }
+    ShardMap.put(seeds, ShardMap.parse(tables, shards, encoding));
+
+    router = new ShardRouter(seeds, "doc", executor(nodes[0]), 60000, 60000,
+        new ShardRouter.NodeConnector() {
+          @Override
+          public QueryExecutor connect(HostSpec node) throws SQLException {
+            if (unreachable.contains(node)) {
+              throw new SQLException("Connection refused");
+            }
+            connected.add(node);
+            return executor(node);
+          }
+        });
+  }
+
+  private byte[][] row(String... values) throws IOException {
+    byte[][] row = new byte[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      row[i] = values[i] == null ? null : encoding.encode(values[i]);
+    }
+    return row;
+  }
+
+  private static QueryExecutor executor(final HostSpec hostSpec) {
+    return (QueryExecutor) Proxy.newProxyInstance(QueryExecutor.class.getClassLoader(),
+        new Class<?>[]{QueryExecutor.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getHostSpec")) {
+              return hostSpec;
+            }
+            if (method.getName().equals("isClosed")) {
+              return false;
+            }
+            return null;
+          }
+        });
+  }
+
+  private static Query query(final String nativeSql) {
+    return (Query) Proxy.newProxyInstance(Query.class.getClassLoader(),
+        new Class<?>[]{Query.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getNativeSql")) {
+              return nativeSql;
+            }
+            return null;
+          }
+        });
+  }
+
+  private static ParameterList parameters(final Object[] values, final int[] oids) {
+    return (ParameterList) Proxy.newProxyInstance(ParameterList.class.getClassLoader(),
+        new Class<?>[]{ParameterList.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getValues")) {
+              return values;
+            }
+            if (method.getName().equals("getTypeOIDs")) {
+              return oids;
+            }
+            if (method.getName().equals("getInParameterCount")) {
+              return values.length;
+            }
+            return null;
+          }
+        });
+  }
+
+  private static ParameterList textParameters(String... values) {
+    return parameters(values, new int[values.length]);
+  }
+
+  private HostSpec owner(String routing) {
+    return nodes[ShardMap.shardId(routing, SHARDS, ShardMap.defaultRoutingShards(SHARDS))
+        % nodes.length];
+  }
+
+  /**
+   * Returns a key whose primary shard is not on the local node.
+   */
+  private String remoteKey() {
+    for (int i = 0; ; i++) {
+      String key = "key" + i;
+      if (!owner(key).equals(nodes[0])) {
+        return key;
+      }
+    }
+  }
+
+  private String localKey() {
+    for (int i = 0; ; i++) {
+      String key = "key" + i;
+      if (owner(key).equals(nodes[0])) {
+        return key;
+      }
+    }
+  }
+
+  @Test
+  public void testMurmur3() {
+    Charset utf8 = Charset.forName("UTF-8");
+    byte[] empty = new byte[0];
+    byte[] hello = "hello".getBytes(utf8);
+    byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(utf8);
+    assertEquals(0, Murmur3.hash(empty, 0, 0, 0));
+    assertEquals(0x248bfa47, Murmur3.hash(hello, 0, hello.length, 0));
+    assertEquals(0x2e4ff723, Murmur3.hash(fox, 0, fox.length, 0));
+  }
+
+  @Test
+  public void testShardIdIsNeverNegative() {
+    for (int i = 0; i < 1000; i++) {
+      int shardId = ShardMap.shardId("key" + i, SHARDS, 768);
+      assertTrue(shardId >= 0 && shardId < SHARDS);
+    }
+  }
+
+  @Test
+  public void testDefaultRoutingShards() {
+    assertEquals(1024, ShardMap.defaultRoutingShards(1));
+    assertEquals(1024, ShardMap.defaultRoutingShards(4));
+    assertEquals(640, ShardMap.defaultRoutingShards(5));
+    assertEquals(768, ShardMap.defaultRoutingShards(6));
+    // tables can be split at least once
+    assertEquals(2000, ShardMap.defaultRoutingShards(1000));
+    assertEquals(2048, ShardMap.defaultRoutingShards(1024));
+  }
+
+  @Test
+  public void testShardIdOfDefaultTables() {
+    // CLUSTERED INTO 6 SHARDS, that is 768 routing shards
+    assertEquals(4, ShardMap.shardId("1", 6, 768));
+    assertEquals(2, ShardMap.shardId("2", 6, 768));
+    assertEquals(3, ShardMap.shardId("3", 6, 768));
+    assertEquals(0, ShardMap.shardId("42", 6, 768));
+    assertEquals(5, ShardMap.shardId("hello", 6, 768));
+    // CLUSTERED INTO 4 SHARDS, that is 1024 routing shards
+    assertEquals(0, ShardMap.shardId("1", 4, 1024));
+    assertEquals(0, ShardMap.shardId("3", 4, 1024));
+    assertEquals(1, ShardMap.shardId("42", 4, 1024));
+    assertEquals(1, ShardMap.shardId("crate", 4, 1024));
+    // a table whose number of routing shards is its number of shards
+    assertEquals(5, ShardMap.shardId("1", 6, 6));
+    assertEquals(3, ShardMap.shardId("1", 4, 4));
+  }
+
+  @Test
+  public void testParseRoutingShards() throws IOException {
+    List<byte[][]> tables = new ArrayList<byte[][]>();
+    tables.add(row("doc", "fixed", "6", "id", "6"));
+    tables.add(row("doc", "scaled", "6", "id", null));
+    tables.add(row("doc", "invalid", "6", "id", "10"));
+    ShardMap shardMap = ShardMap.parse(tables, new ArrayList<byte[][]>(), encoding);
+    assertEquals(6, shardMap.getTable("doc", "fixed").routingShards);
+    assertEquals(768, shardMap.getTable("doc", "scaled").routingShards);
+    assertNull(shardMap.getTable("doc", "invalid"));
+  }
+
+  @Test
+  public void testRefreshesInBackground() throws Exception {
+    final HostSpec[] otherSeeds = {new HostSpec("router-refresh", 5432)};
+    final CountDownLatch connecting = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ShardRouter refreshing = new ShardRouter(otherSeeds, "doc", executor(nodes[0]), 60000,
+        60000, new ShardRouter.NodeConnector() {
+          @Override
+          public QueryExecutor connect(HostSpec node) throws SQLException {
+            connecting.countDown();
+            try {
+              release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              throw new SQLException(e);
+            }
+            throw new SQLException("Connection refused");
+          }
+        });
+    try {
+      // the statement does not wait for the shard locations, which are unknown yet
+      assertNull(refreshing.route(query("SELECT v FROM kv WHERE id = $1"),
+          textParameters("key")));
+      assertTrue(connecting.await(10, TimeUnit.SECONDS));
+      assertNull(refreshing.route(query("SELECT v FROM kv WHERE id = $1"),
+          textParameters("key")));
+    } finally {
+      release.countDown();
+      refreshing.close();
+    }
+  }
+
+  @Test
+  public void testParseStatements() {
+    RoutedStatement select = RoutedStatement.parse("SELECT v FROM kv WHERE id = $1");
+    assertNotNull(select);
+    assertNull(select.schema);
+    assertEquals("kv", select.table);
+    assertEquals(Integer.valueOf(1), select.getParameterIndex("id"));
+
+    RoutedStatement update = RoutedStatement.parse(
+        "update \"Doc\".KV set v = $1 where \"Id\" = $2 and version = $3");
+    assertNotNull(update);
+    assertEquals("Doc", update.schema);
+    assertEquals("kv", update.table);
+    assertEquals(Integer.valueOf(2), update.getParameterIndex("Id"));
+    assertEquals(Integer.valueOf(3), update.getParameterIndex("version"));
+
+    RoutedStatement insert = RoutedStatement.parse(
+        "INSERT INTO doc.kv (v, id) VALUES ('x', $1) ON CONFLICT (id) DO NOTHING");
+    assertNotNull(insert);
+    assertNull(insert.getParameterIndex("v"));
+    assertEquals(Integer.valueOf(1), insert.getParameterIndex("id"));
+
+    assertNull(RoutedStatement.parse("SELECT v FROM kv WHERE id = $1 OR id = $2"));
+    assertNull(RoutedStatement.parse("SELECT v FROM kv WHERE id IN ($1, $2)"));
+    assertNull(RoutedStatement.parse("INSERT INTO kv (id) VALUES ($1), ($2)"));
+    assertNull(RoutedStatement.parse("SELECT v FROM kv"));
+  }
+
+  @Test
+  public void testRoutesLookupToPrimaryShard() {
+    String key = remoteKey();
+    QueryExecutor executor = router.route(query("SELECT v FROM kv WHERE id = $1"),
+        textParameters(key));
+    assertNotNull(executor);
+    assertEquals(owner(key), executor.getHostSpec());
+    assertEquals(Arrays.asList(owner(key)), connected);
+
+    // the connection to the node is reused
+    assertSame(executor, router.route(query("SELECT v FROM doc.kv WHERE id = $1"),
+        textParameters(key)));
+    assertEquals(1, connected.size());
+  }
+
+  @Test
+  public void testRoutesInsertWithBinaryKey() {
+    int key = 0;
+    while (owner(String.valueOf(key)).equals(nodes[0])) {
+      key++;
+    }
+    byte[] bytes = new byte[4];
+    ByteConverter.int4(bytes, 0, key);
+    QueryExecutor executor = router.route(query("INSERT INTO kv (id, v) VALUES ($1, $2)"),
+        parameters(new Object[]{bytes, "value"}, new int[]{Oid.INT4, Oid.VARCHAR}));
+    assertNotNull(executor);
+    assertEquals(owner(String.valueOf(key)), executor.getHostSpec());
+  }
+
+  @Test
+  public void testKeepsStatementsOnLocalNode() {
+    assertNull("The local node holds the shard",
+        router.route(query("SELECT v FROM kv WHERE id = $1"), textParameters(localKey())));
+    assertNull("Unknown tables are not routed",
+        router.route(query("SELECT v FROM other WHERE id = $1"), textParameters(remoteKey())));
+    assertNull("Tables clustered by _id are not routed",
+        router.route(query("SELECT v FROM events WHERE id = $1"), textParameters(remoteKey())));
+    assertNull("Only the routing column is used",
+        router.route(query("SELECT v FROM kv WHERE v = $1"), textParameters(remoteKey())));
+    assertEquals(0, connected.size());
+  }
+
+  @Test
+  public void testUnreachableNodeFallsBackToLocalNode() {
+    String key = remoteKey();
+    unreachable.add(owner(key));
+    assertNull(router.route(query("SELECT v FROM kv WHERE id = $1"), textParameters(key)));
+
+    unreachable.clear();
+    assertNull("Unreachable nodes are not tried again before the retry interval",
+        router.route(query("SELECT v FROM kv WHERE id = $1"), textParameters(key)));
+    assertEquals(0, connected.size());
+  }
+}
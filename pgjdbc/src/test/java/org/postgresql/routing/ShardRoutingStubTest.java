@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.Driver;
+import org.postgresql.PGProperty;
+import org.postgresql.core.Encoding;
+import org.postgresql.test.util.PgWireStub;
+import org.postgresql.util.HostSpec;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs routed statements against two stub servers: the node the connection is open to, and the
+ * node holding the only shard of table {@code t}.
+ */
+public class ShardRoutingStubTest {
+  private static final String QUERY = "SELECT id, name, amount, big FROM t WHERE id = ?";
+
+  private PgWireStub local;
+  private PgWireStub node;
+
+  @Before
+  public void setUp() throws Exception {
+    local = new PgWireStub();
+    node = new PgWireStub();
+    local.setRows(25);
+    node.setRows(25);
+
+    Encoding encoding = Encoding.getJVMEncoding("UTF-8");
+    List<byte[][]> tables = new ArrayList<byte[][]>();
+    tables.add(new byte[][]{encoding.encode("doc"), encoding.encode("t"), encoding.encode("1"),
+        encoding.encode("id"), null});
+    List<byte[][]> shards = new ArrayList<byte[][]>();
+    shards.add(new byte[][]{encoding.encode("doc"), encoding.encode("t"), encoding.encode("0"),
+        encoding.encode("node"), encoding.encode("localhost:4200"),
+        encoding.encode(String.valueOf(node.getPort()))});
+    ShardMap.put(new HostSpec[]{new HostSpec("localhost", local.getPort())},
+        ShardMap.parse(tables, shards, encoding));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    local.close();
+    node.close();
+  }
+
+  private Connection connect() throws SQLException {
+    Properties props = new Properties();
+    PGProperty.USER.set(props, "crate");
+    PGProperty.SHARD_ROUTING_INTERVAL.set(props, 3600);
+    PGProperty.AUTO_COMMIT_STREAMING.set(props, true);
+    return new Driver().connect(local.getURL(), props);
+  }
+
+  private static int query(Connection con, int fetchSize) throws SQLException {
+    PreparedStatement ps = con.prepareStatement(QUERY);
+    ps.setFetchSize(fetchSize);
+    ps.setString(1, "key");
+    ResultSet rs = ps.executeQuery();
+    int rows = 0;
+    while (rs.next()) {
+      assertEquals(rows, rs.getInt(1));
+      rows++;
+    }
+    ps.close();
+    return rows;
+  }
+
+  private static boolean executed(PgWireStub stub) {
+    for (String sql : stub.getExecutedStatements()) {
+      if (sql.startsWith("SELECT id, name, amount, big FROM t")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testRoutesToShardNode() throws Exception {
+    Connection con = connect();
+    try {
+      assertEquals(25, query(con, 0));
+      assertTrue(executed(node));
+      assertFalse(executed(local));
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testCursorIsNotRouted() throws Exception {
+    Connection con = connect();
+    try {
+      // the rows of the portal are fetched through the connection that opened it
+      assertEquals(25, query(con, 10));
+      assertEquals(Arrays.asList(10, 10, 10), local.getExecuteLimits());
+      assertFalse(executed(node));
+    } finally {
+      con.close();
+    }
+  }
+
+  @Test
+  public void testSessionChangeStopsRouting() throws Exception {
+    Connection con = connect();
+    try {
+      con.setSchema("other");
+      assertEquals(25, query(con, 0));
+      assertTrue(executed(local));
+      assertFalse(executed(node));
+    } finally {
+      con.close();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.PGProperty;
+import org.postgresql.test.TestUtil;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Properties;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+public class DriverMBeansTest extends BaseTest4 {
+  private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.REGISTER_MBEANS.set(props, true);
+  }
+
+  private Set<ObjectName> connectionMBeans() throws Exception {
+    return mbeanServer.queryNames(new ObjectName("org.postgresql:type=Connection,*"), null);
+  }
+
+  private long getLong(ObjectName name, String attribute) throws Exception {
+    return ((Number) mbeanServer.getAttribute(name, attribute)).longValue();
+  }
+
+  @Test
+  public void testStatementCacheStatistics() throws Exception {
+    Properties props = new Properties();
+    updateProperties(props);
+    Set<ObjectName> before = connectionMBeans();
+    Connection connection = TestUtil.openDB(props);
+    Set<ObjectName> after = connectionMBeans();
+    after.removeAll(before);
+    assertEquals(1, after.size());
+    ObjectName name = after.iterator().next();
+
+    try {
+      for (int i = 0; i < 10; i++) {
+        PreparedStatement ps = connection.prepareStatement("SELECT ?");
+        ps.setInt(1, i);
+        ps.executeQuery().close();
+        ps.close();
+      }
+      assertTrue(getLong(name, "StatementCacheHits") >= 9);
+      assertTrue(getLong(name, "StatementCacheEntries") >= 1);
+      assertTrue(getLong(name, "StatementCacheBytes") > 0);
+      assertTrue("The statement is prepared on the server after prepareThreshold executions",
+          getLong(name, "ServerPreparedStatements") >= 1);
+      assertFalse((Boolean) mbeanServer.getAttribute(name, "Closed"));
+    } finally {
+      connection.close();
+    }
+    assertFalse("The MBean is unregistered when the connection is closed",
+        mbeanServer.isRegistered(name));
+  }
+
+  @Test
+  public void testHostStatus() throws Exception {
+    CompositeData[] hosts = (CompositeData[]) mbeanServer.getAttribute(
+        new ObjectName("org.postgresql:type=HostStatus"), "Hosts");
+    boolean found = false;
+    for (CompositeData host : hosts) {
+      if (host.get("host").equals(TestUtil.getServer() + ":" + TestUtil.getPort())) {
+        found = true;
+        assertFalse("ConnectFail".equals(host.get("status")));
+      }
+    }
+    assertTrue("The host of the connection is known", found);
+  }
+}
@@ -5,21 +5,43 @@
 
 package org.postgresql.test.jdbc2;
 
+import org.postgresql.columnar.ColumnBatchTest;
 import org.postgresql.core.CommandCompleteParserNegativeTest;
 import org.postgresql.core.CommandCompleteParserTest;
 import org.postgresql.core.OidToStringTest;
 import org.postgresql.core.OidValueOfTest;
 import org.postgresql.core.ParserTest;
 import org.postgresql.core.ReturningParserTest;
+import org.postgresql.core.v3.ConnectionRaceTest;
 import org.postgresql.core.v3.V3ParameterListTests;
+import org.postgresql.hostchooser.ClusterNodeDiscoveryTest;
+import org.postgresql.hostchooser.MultiHostChooserTest;
+import org.postgresql.jdbc.AllocationBudgetTest;
+import org.postgresql.jdbc.ArrayEncodingTest;
+import org.postgresql.jdbc.AutoCommitStreamingTest;
 import org.postgresql.jdbc.DeepBatchedInsertStatementTest;
+import org.postgresql.jdbc.PgRowMapperTest;
 import org.postgresql.jdbc.PrimitiveArraySupportTest;
+import org.postgresql.jdbc.ResultSetPrefetchTest;
+import org.postgresql.jdbc.ScrollCursorResultSetTest;
+import org.postgresql.jdbc.TemporalParameterTest;
+import org.postgresql.jdbc.TextArrayParserTest;
+import org.postgresql.jdbc.TimestampUtilsBinaryTest;
+import org.postgresql.jdbc.TimestampUtilsTest;
+import org.postgresql.monitoring.QueryExecutionListenerFactoryTest;
+import org.postgresql.monitoring.StatementStatisticsCollectorTest;
+import org.postgresql.reactive.RowPublisherTest;
+import org.postgresql.replay.WireReplayTest;
+import org.postgresql.routing.ShardRouterTest;
+import org.postgresql.routing.ShardRoutingStubTest;
 import org.postgresql.test.core.JavaVersionTest;
 import org.postgresql.test.core.NativeQueryBindLengthTest;
 import org.postgresql.test.util.ExpressionPropertiesTest;
 import org.postgresql.test.util.LruCacheTest;
 import org.postgresql.test.util.ServerVersionParseTest;
 import org.postgresql.test.util.ServerVersionTest;
+import org.postgresql.util.ByteConverterTest;
+import org.postgresql.util.PGLoadGeneratorTest;
 import org.postgresql.util.ReaderInputStreamTest;
 
 import org.junit.runner.RunWith;
@@ -126,6 +148,30 @@ import org.junit.runners.Suite;
         PGPropertyTest.class,
 
         V3ParameterListTests.class,
+        ConnectionRaceTest.class,
+        MultiHostChooserTest.class,
+        ClusterNodeDiscoveryTest.class,
+        ShardRouterTest.class,
+        ShardRoutingStubTest.class,
+        QueryExecutionListenerFactoryTest.class,
+        QueryExecutionListenerTest.class,
+        DriverMBeansTest.class,
+        StatementStatisticsCollectorTest.class,
+        WireReplayTest.class,
+        AllocationBudgetTest.class,
+        PGLoadGeneratorTest.class,
+        RowPublisherTest.class,
+        ResultSetPrefetchTest.class,
+        AutoCommitStreamingTest.class,
+        ScrollCursorResultSetTest.class,
+        ColumnBatchTest.class,
+        PgRowMapperTest.class,
+        ByteConverterTest.class,
+        TimestampUtilsBinaryTest.class,
+        TimestampUtilsTest.class,
+        ArrayEncodingTest.class,
+        TemporalParameterTest.class,
+        TextArrayParserTest.class,
 
         CopyTest.class,
         CopyLargeFileTest.class,
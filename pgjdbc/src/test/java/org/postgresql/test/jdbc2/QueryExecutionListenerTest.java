@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.PGProperty;
+import org.postgresql.monitoring.QueryExecutionEvent;
+import org.postgresql.monitoring.QueryExecutionListener;
+
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class QueryExecutionListenerTest extends BaseTest4 {
+  private static final List<QueryExecutionEvent> events = new ArrayList<QueryExecutionEvent>();
+
+  public static class RecordingListener implements QueryExecutionListener {
+    @Override
+    public void queryExecuted(QueryExecutionEvent event) {
+      synchronized (events) {
+        events.add(event);
+      }
+    }
+  }
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.QUERY_EXECUTION_LISTENER.set(props, RecordingListener.class.getName());
+  }
+
+  private QueryExecutionEvent lastEvent() {
+    synchronized (events) {
+      return events.get(events.size() - 1);
+    }
+  }
+
+  @Test
+  public void testExecutionIsReported() throws Exception {
+    PreparedStatement ps = con.prepareStatement("SELECT 1 UNION ALL SELECT ?");
+    ps.setInt(1, 2);
+    ResultSet rs = ps.executeQuery();
+    int rows = 0;
+    while (rs.next()) {
+      rows++;
+    }
+    rs.close();
+    ps.close();
+
+    QueryExecutionEvent event = lastEvent();
+    assertEquals(QueryExecutionEvent.Kind.EXECUTE, event.getKind());
+    assertTrue(event.getSql().startsWith("SELECT 1 UNION ALL SELECT "));
+    assertFalse(event.isFailed());
+    assertEquals(rows, event.getRows());
+    assertTrue(event.getBytesSent() > 0);
+    assertTrue(event.getBytesReceived() > 0);
+    assertTrue(event.getFirstByteNanos() >= 0);
+    assertTrue(event.getTotalNanos() >= event.getProcessResultsNanos());
+  }
+
+  @Test
+  public void testFailureIsReported() throws Exception {
+    try {
+      con.createStatement().execute("SELECT * FROM no_such_table");
+    } catch (SQLException e) {
+      // expected
+    }
+    assertTrue(lastEvent().isFailed());
+  }
+}
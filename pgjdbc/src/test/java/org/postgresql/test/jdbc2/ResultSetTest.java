@@ -910,6 +910,30 @@ public class ResultSetTest extends BaseTest4 {
     pstmt.close();
   }
 
+  /**
+   * Test that the column mapping cache is shared by the result sets of a prepared statement that
+   * is never named, as long as the column labels stay the same.
+   */
+  @Test
+  public void testUnnamedPreparedStatementResultSetColumnMappingCache() throws SQLException {
+    PreparedStatement pstmt = con.prepareStatement("SELECT id FROM testrs");
+    ((org.postgresql.PGStatement) pstmt).setPrepareThreshold(0);
+    ResultSet rs = pstmt.executeQuery();
+    assertTrue(rs.next());
+    rs.getInt("id");
+    Map<String, Integer> columnNameIndexMap = getResultSetColumnNameIndexMap(rs);
+    assertNotNull(columnNameIndexMap);
+    rs.close();
+    rs = pstmt.executeQuery();
+    assertTrue(rs.next());
+    rs.getInt("ID");
+    assertSame(
+        "Cached mapping should be same between result sets with the same column labels",
+        columnNameIndexMap, getResultSetColumnNameIndexMap(rs));
+    rs.close();
+    pstmt.close();
+  }
+
   @SuppressWarnings("unchecked")
   private Map<String, Integer> getResultSetColumnNameIndexMap(ResultSet stmt) {
     try {
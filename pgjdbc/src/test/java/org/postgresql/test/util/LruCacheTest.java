@@ -170,6 +170,25 @@ public class LruCacheTest {
     }
   }
 
+  @Test
+  public void testStatistics() throws SQLException {
+    use(1);
+    Entry b = use(2);
+    use(-1);
+    use(3);
+    use(4);
+    use(5, b);
+
+    assertEquals(5, cache.getMisses());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getEvictions());
+    assertEquals(4, cache.size());
+    assertEquals(1 + 3 + 4 + 5, cache.getSizeBytes());
+
+    assertEquals(null, cache.get(2));
+    assertEquals(6, cache.getMisses());
+  }
+
   private Entry use(int expectCreate, Entry... expectEvict) throws SQLException {
     this.expectCreate[0] = expectCreate <= 0 ? -1 : expectCreate;
     this.expectEvict.clear();
@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Minimal stand-in for a server speaking the PostgreSQL wire protocol, so that the driver can
+ * be exercised in unit tests without a database.</p>
+ *
+ * <p>Every query returns {@link #setRows(int) rows} rows of four columns: {@code id int4},
+ * {@code name text}, {@code amount float8} and {@code big int8}, in text or binary format as
+ * requested. Statements starting with {@code INSERT} or a transaction command return no rows.
+ * {@code DECLARE}, {@code FETCH ABSOLUTE}, {@code FETCH FORWARD} and {@code CLOSE} work on
+ * cursors over the same rows. Execute messages with a row limit suspend the portal, and the
+ * limits are recorded in {@link #getExecuteLimits()}, the executed statements in
+ * {@link #getExecutedStatements()}. Connect with {@code sslmode=disable} and {@code fastStartup=true},
+ * so that no setup statement is sent.</p>
+ */
+public class PgWireStub implements Closeable {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int[] COLUMN_OIDS = {23, 25, 701, 20};
+  private static final String[] COLUMN_NAMES = {"id", "name", "amount", "big"};
+
+  private final ServerSocket serverSocket;
+  private volatile int rows = 1;
+  private final List<Integer> executeLimits =
+      Collections.synchronizedList(new ArrayList<Integer>());
+  private final List<String> executedStatements =
+      Collections.synchronizedList(new ArrayList<String>());
+  private final List<byte[]> boundValues = Collections.synchronizedList(new ArrayList<byte[]>());
+  private final List<Integer> boundFormats =
+      Collections.synchronizedList(new ArrayList<Integer>());
+  private final List<Integer> parsedTypes =
+      Collections.synchronizedList(new ArrayList<Integer>());
+
+  public PgWireStub() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        accept();
+      }
+    }, "pgwire stub " + getPort());
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public String getURL() {
+    return "jdbc:postgresql://localhost:" + getPort() + "/doc?sslmode=disable&fastStartup=true";
+  }
+
+  /**
+   * @param rows number of rows returned by each query
+   */
+  public void setRows(int rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * @return the row limits of the Execute messages received so far, 0 for no limit
+   */
+  public List<Integer> getExecuteLimits() {
+    synchronized (executeLimits) {
+      return new ArrayList<Integer>(executeLimits);
+    }
+  }
+
+  /**
+   * @return the SQL of the statements executed so far, in order
+   */
+  public List<String> getExecutedStatements() {
+    synchronized (executedStatements) {
+      return new ArrayList<String>(executedStatements);
+    }
+  }
+
+  /**
+   * @return the parameter values of the Bind messages received so far, in order, null for NULL
+   */
+  public List<byte[]> getBoundValues() {
+    synchronized (boundValues) {
+      return new ArrayList<byte[]>(boundValues);
+    }
+  }
+
+  /**
+   * @return the formats of the {@link #getBoundValues bound values}, 0 for text and 1 for binary
+   */
+  public List<Integer> getBoundFormats() {
+    synchronized (boundFormats) {
+      return new ArrayList<Integer>(boundFormats);
+    }
+  }
+
+  /**
+   * @return the parameter type OIDs of the Parse messages received so far, in order, 0 for
+   *         unspecified
+   */
+  public List<Integer> getParsedTypes() {
+    synchronized (parsedTypes) {
+      return new ArrayList<Integer>(parsedTypes);
+    }
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        return;
+      }
+      Thread session = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            new Session(socket).run();
+          } catch (IOException e) {
+            // the driver went away
+          } finally {
+            try {
+              socket.close();
+            } catch (IOException ignore) {
+              // nothing left to do with this socket
+            }
+          }
+        }
+      }, "pgwire stub session");
+      session.setDaemon(true);
+      session.start();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+
+  private class Session {
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    // statement name to SQL, portal name to result formats
+    private final Map<String, String> statements = new HashMap<String, String>();
+    private final Map<String, String> portalStatements = new HashMap<String, String>();
+    private final Map<String, int[]> portalFormats = new HashMap<String, int[]>();
+    private final Map<String, Integer> portalPositions = new HashMap<String, Integer>();
+    // cursor name to position, 0 before the first row and rows + 1 after the last one
+    private final Map<String, Integer> cursors = new HashMap<String, Integer>();
+    private char transactionStatus = 'I';
+
+    Session(Socket socket) throws IOException {
+      socket.setTcpNoDelay(true);
+      in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+      out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+    }
+
+    void run() throws IOException {
+      if (!startup()) {
+        return;
+      }
+      while (true) {
+        int type = in.read();
+        if (type < 0 || type == 'X') {
+          return;
+        }
+        byte[] body = new byte[in.readInt() - 4];
+        in.readFully(body);
+        DataInputStream message = new DataInputStream(new ByteArrayInputStream(body));
+        switch (type) {
+          case 'Q': {
+            String sql = readCString(message);
+            executedStatements.add(sql);
+            if (isQuery(sql)) {
+              rowDescription(null);
+              dataRows(null, 0, rows);
+            }
+            commandComplete(sql);
+            readyForQuery();
+            break;
+          }
+          case 'P': {
+            String name = readCString(message);
+            statements.put(name, readCString(message));
+            int types = message.readShort();
+            for (int i = 0; i < types; i++) {
+              parsedTypes.add(message.readInt());
+            }
+            send('1', new byte[0]);
+            break;
+          }
+          case 'B': {
+            String portal = readCString(message);
+            String statement = readCString(message);
+            int[] formats = new int[message.readShort()];
+            for (int i = 0; i < formats.length; i++) {
+              formats[i] = message.readShort();
+            }
+            int parameters = message.readShort();
+            for (int i = 0; i < parameters; i++) {
+              int length = message.readInt();
+              byte[] value = null;
+              if (length >= 0) {
+                value = new byte[length];
+                message.readFully(value);
+              }
+              boundValues.add(value);
+              boundFormats.add(formats.length == 0 ? 0 : formats[formats.length == 1 ? 0 : i]);
+            }
+            int[] resultFormats = new int[message.readShort()];
+            for (int i = 0; i < resultFormats.length; i++) {
+              resultFormats[i] = message.readShort();
+            }
+            portalStatements.put(portal, statements.get(statement));
+            portalFormats.put(portal, resultFormats);
+            portalPositions.put(portal, 0);
+            send('2', new byte[0]);
+            break;
+          }
+          case 'D': {
+            int kind = message.read();
+            String name = readCString(message);
+            if (kind == 'S') {
+              send('t', new byte[]{0, 0});
+              describe(statements.get(name), null);
+            } else {
+              describe(portalStatements.get(name), portalFormats.get(name));
+            }
+            break;
+          }
+          case 'E': {
+            String portal = readCString(message);
+            int limit = message.readInt();
+            executeLimits.add(limit);
+            String sql = portalStatements.get(portal);
+            executedStatements.add(sql);
+            if (isFetch(sql)) {
+              int[] range = fetch(sql);
+              dataRows(portalFormats.get(portal), range[0], range[1]);
+              ByteArrayOutputStream tag = new ByteArrayOutputStream();
+              writeCString(tag, "FETCH " + (range[1] - range[0]));
+              send('C', tag.toByteArray());
+              break;
+            }
+            if (isQuery(sql)) {
+              int position = portalPositions.get(portal);
+              int end = limit > 0 ? Math.min(rows, position + limit) : rows;
+              dataRows(portalFormats.get(portal), position, end);
+              portalPositions.put(portal, end);
+              if (limit > 0 && end - position == limit && end < rows) {
+                send('s', new byte[0]);
+                break;
+              }
+            }
+            commandComplete(sql);
+            break;
+          }
+          case 'C': {
+            int kind = message.read();
+            String name = readCString(message);
+            if (kind == 'P') {
+              portalStatements.remove(name);
+              portalFormats.remove(name);
+              portalPositions.remove(name);
+            }
+            send('3', new byte[0]);
+            break;
+          }
+          case 'S':
+            readyForQuery();
+            break;
+          case 'H':
+            out.flush();
+            break;
+          default:
+            throw new IOException("Unexpected message " + (char) type);
+        }
+      }
+    }
+
+    private boolean startup() throws IOException {
+      while (true) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch (EOFException e) {
+          return false;
+        }
+        byte[] body = new byte[length - 4];
+        in.readFully(body);
+        int code = ((body[0] & 0xFF) << 24) | ((body[1] & 0xFF) << 16)
+            | ((body[2] & 0xFF) << 8) | (body[3] & 0xFF);
+        if (code == 80877103) {
+          // SSL request
+          out.write('N');
+          out.flush();
+          continue;
+        }
+        if (code == 80877102) {
+          // cancel request
+          return false;
+        }
+        break;
+      }
+      send('R', new byte[]{0, 0, 0, 0});
+      String[] parameters = {"server_version", "10.5", "client_encoding", "UTF8",
+          "DateStyle", "ISO", "integer_datetimes", "on", "standard_conforming_strings", "on",
+          "TimeZone", "UTC"};
+      for (int i = 0; i < parameters.length; i += 2) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeCString(body, parameters[i]);
+        writeCString(body, parameters[i + 1]);
+        send('S', body.toByteArray());
+      }
+      send('K', new byte[]{0, 0, 0, 1, 0, 0, 0, 2});
+      readyForQuery();
+      return true;
+    }
+
+    private boolean isQuery(String sql) {
+      return sql != null && command(sql) == null;
+    }
+
+    /**
+     * @return the command tag of a statement that returns no rows, or null for a query
+     */
+    private String command(String sql) {
+      String command = sql.trim().toUpperCase();
+      if (command.startsWith("INSERT")) {
+        return "INSERT 0 1";
+      }
+      if (command.startsWith("BEGIN")) {
+        return "BEGIN";
+      }
+      if (command.startsWith("COMMIT")) {
+        return "COMMIT";
+      }
+      if (command.startsWith("ROLLBACK")) {
+        return "ROLLBACK";
+      }
+      if (command.startsWith("DECLARE")) {
+        return "DECLARE CURSOR";
+      }
+      if (command.startsWith("CLOSE")) {
+        return "CLOSE CURSOR";
+      }
+      if (command.startsWith("SET")) {
+        return "SET";
+      }
+      return null;
+    }
+
+    private boolean isFetch(String sql) {
+      return sql != null && sql.trim().toUpperCase().startsWith("FETCH");
+    }
+
+    /**
+     * Moves a cursor for {@code FETCH ABSOLUTE n FROM name} or {@code FETCH FORWARD n FROM name}.
+     *
+     * @return the range of the returned rows
+     */
+    private int[] fetch(String sql) {
+      String[] tokens = sql.trim().split("\\s+");
+      int count = Integer.parseInt(tokens[2]);
+      String name = tokens[4];
+      int position = cursors.get(name);
+      int from;
+      int to;
+      if ("ABSOLUTE".equalsIgnoreCase(tokens[1])) {
+        from = count - 1;
+        to = count >= 1 && count <= rows ? count : from;
+        position = count > rows ? rows + 1 : Math.max(count, 0);
+      } else {
+        from = Math.min(position, rows);
+        to = Math.min(rows, from + count);
+        position = to - from < count ? rows + 1 : to;
+      }
+      cursors.put(name, position);
+      return new int[]{Math.max(from, 0), Math.max(to, 0)};
+    }
+
+    private void describe(String sql, int[] formats) throws IOException {
+      if (isQuery(sql)) {
+        rowDescription(formats);
+      } else {
+        send('n', new byte[0]);
+      }
+    }
+
+    private void rowDescription(int[] formats) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream body = new DataOutputStream(bytes);
+      body.writeShort(COLUMN_OIDS.length);
+      for (int i = 0; i < COLUMN_OIDS.length; i++) {
+        writeCString(bytes, COLUMN_NAMES[i]);
+        body.writeInt(0);
+        body.writeShort(0);
+        body.writeInt(COLUMN_OIDS[i]);
+        body.writeShort(i == 1 ? -1 : (i == 0 ? 4 : 8));
+        body.writeInt(-1);
+        body.writeShort(format(formats, i));
+      }
+      send('T', bytes.toByteArray());
+    }
+
+    private void dataRows(int[] formats, int from, int to) throws IOException {
+      for (int row = from; row < to; row++) {
+        out.writeByte('D');
+        byte[] name = ("name " + row).getBytes(UTF_8);
+        int length = 4 + 2;
+        byte[][] values = new byte[COLUMN_OIDS.length][];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = value(i, row, name, format(formats, i));
+          length += 4 + values[i].length;
+        }
+        out.writeInt(length);
+        out.writeShort(values.length);
+        for (byte[] value : values) {
+          out.writeInt(value.length);
+          out.write(value);
+        }
+      }
+    }
+
+    private byte[] value(int column, int row, byte[] name, int format) throws IOException {
+      if (column == 1) {
+        return name;
+      }
+      if (format == 0) {
+        String text = column == 0 ? Integer.toString(row)
+            : column == 2 ? Double.toString(row + 0.5) : Long.toString(row * 1000000007L);
+        return text.getBytes(UTF_8);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+      DataOutputStream value = new DataOutputStream(bytes);
+      if (column == 0) {
+        value.writeInt(row);
+      } else if (column == 2) {
+        value.writeDouble(row + 0.5);
+      } else {
+        value.writeLong(row * 1000000007L);
+      }
+      return bytes.toByteArray();
+    }
+
+    private int format(int[] formats, int column) {
+      if (formats == null || formats.length == 0) {
+        return 0;
+      }
+      return formats.length == 1 ? formats[0] : formats[column];
+    }
+
+    private void commandComplete(String sql) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      String command = command(sql);
+      if ("BEGIN".equals(command)) {
+        transactionStatus = 'T';
+      } else if ("COMMIT".equals(command) || "ROLLBACK".equals(command)) {
+        transactionStatus = 'I';
+      } else if ("DECLARE CURSOR".equals(command)) {
+        cursors.put(sql.trim().split("\\s+")[1], 0);
+      } else if ("CLOSE CURSOR".equals(command)) {
+        cursors.remove(sql.trim().split("\\s+")[1]);
+      }
+      writeCString(body, command == null ? "SELECT " + rows : command);
+      send('C', body.toByteArray());
+    }
+
+    private void readyForQuery() throws IOException {
+      send('Z', new byte[]{(byte) transactionStatus});
+      out.flush();
+    }
+
+    private void send(int type, byte[] body) throws IOException {
+      out.writeByte(type);
+      out.writeInt(body.length + 4);
+      out.write(body);
+    }
+  }
+
+  private static String readCString(DataInputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) > 0) {
+      bytes.write(b);
+    }
+    return new String(bytes.toByteArray(), UTF_8);
+  }
+
+  private static void writeCString(ByteArrayOutputStream out, String value) {
+    byte[] bytes = value.getBytes(UTF_8);
+    out.write(bytes, 0, bytes.length);
+    out.write(0);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+public class ByteConverterTest {
+
+  private static byte[] numericBytes(int weight, int sign, int dscale, int... digits) {
+    byte[] bytes = new byte[8 + digits.length * 2];
+    ByteConverter.int2(bytes, 0, digits.length);
+    ByteConverter.int2(bytes, 2, weight);
+    ByteConverter.int2(bytes, 4, sign);
+    ByteConverter.int2(bytes, 6, dscale);
+    for (int i = 0; i < digits.length; i++) {
+      ByteConverter.int2(bytes, 8 + i * 2, digits[i]);
+    }
+    return bytes;
+  }
+
+  private static void assertNumeric(String value, byte[] bytes) {
+    assertArrayEquals(value, bytes, ByteConverter.numeric(new BigDecimal(value)));
+    assertEquals(value, ((BigDecimal) ByteConverter.numeric(bytes, 0, bytes.length))
+        .toPlainString());
+  }
+
+  @Test
+  public void testNumericFormat() {
+    assertNumeric("0", numericBytes(0, 0x0000, 0));
+    assertNumeric("0.00", numericBytes(0, 0x0000, 2));
+    assertNumeric("1.5", numericBytes(0, 0x0000, 1, 1, 5000));
+    assertNumeric("12345.678", numericBytes(1, 0x0000, 3, 1, 2345, 6780));
+    assertNumeric("-0.0001", numericBytes(-1, 0x4000, 4, 1));
+    assertNumeric("10000", numericBytes(1, 0x0000, 0, 1));
+    assertNumeric("9223372036854775807", numericBytes(4, 0x0000, 0, 922, 3372, 368, 5477, 5807));
+  }
+
+  @Test
+  public void testNumericNegativeScale() {
+    assertArrayEquals(numericBytes(1, 0x0000, 0, 1),
+        ByteConverter.numeric(new BigDecimal(BigInteger.ONE, -4)));
+  }
+
+  @Test
+  public void testNumericWeightOverflow() {
+    BigDecimal largest = new BigDecimal(BigInteger.ONE, -(4 * 32768 - 1));
+    byte[] bytes = ByteConverter.numeric(largest);
+    assertEquals(32767, ByteConverter.int2(bytes, 2));
+    assertEquals(0, largest.compareTo((BigDecimal) ByteConverter.numeric(bytes, 0, bytes.length)));
+    try {
+      ByteConverter.numeric(largest.movePointRight(1));
+      fail("The weight of the value does not fit in a short");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    assertArrayEquals(numericBytes(0, 0x0000, 0),
+        ByteConverter.numeric(new BigDecimal("0E+200000")));
+  }
+
+  @Test
+  public void testNumericSpecialValues() {
+    assertEquals(Double.NaN, ByteConverter.numeric(numericBytes(0, 0xC000, 0), 0, 8));
+    assertEquals(Double.POSITIVE_INFINITY,
+        ByteConverter.numeric(numericBytes(0, 0xD000, 0), 0, 8));
+    assertEquals(Double.NEGATIVE_INFINITY,
+        ByteConverter.numeric(numericBytes(0, 0xF000, 0), 0, 8));
+    try {
+      ByteConverter.numeric(numericBytes(0, 0x0000, 0, 1), 0, 8);
+      fail("The number of bytes must match the number of digits");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testNumericRoundTrip() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      BigInteger unscaled = new BigInteger(1 + random.nextInt(200), random);
+      if (random.nextBoolean()) {
+        unscaled = unscaled.negate();
+      }
+      BigDecimal value = new BigDecimal(unscaled, random.nextInt(40));
+      byte[] bytes = ByteConverter.numeric(value);
+      assertEquals(value, ByteConverter.numeric(bytes, 0, bytes.length));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.test.util.PgWireStub;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class PGLoadGeneratorTest {
+
+  @Test
+  public void testParse() {
+    PGLoadGenerator generator = PGLoadGenerator.parse(new String[]{
+        "--url", "jdbc:postgresql://localhost/doc", "--user", "crate", "--threads", "4",
+        "--connections", "2", "--mix", "select=1, scan=3", "--variant", "prepareThreshold=0",
+        "--variant", "binaryTransfer=false", "--virtual-threads"});
+    assertEquals("jdbc:postgresql://localhost/doc", generator.url);
+    assertEquals("crate", generator.properties.getProperty("user"));
+    assertEquals(4, generator.threads);
+    assertEquals(2, generator.connections);
+    assertArrayEquals(new int[]{1, 0, 3}, generator.weights);
+    assertEquals(Arrays.asList("prepareThreshold=0", "binaryTransfer=false"), generator.variants);
+    assertTrue(generator.virtualThreads);
+
+    assertInvalid("--threads", "4");
+    assertInvalid("--url", "jdbc:postgresql://localhost/doc", "--threads", "0");
+    assertInvalid("--url", "jdbc:postgresql://localhost/doc", "--mix", "update=1");
+    assertInvalid("--url", "jdbc:postgresql://localhost/doc", "--mix", "select=0");
+  }
+
+  private static void assertInvalid(String... args) {
+    try {
+      PGLoadGenerator.parse(args);
+      fail("Expected invalid arguments: " + Arrays.toString(args));
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPick() {
+    PGLoadGenerator generator = new PGLoadGenerator();
+    PGLoadGenerator.parseMix(generator.weights, "select=3,insert=1");
+    Random random = new Random(0);
+    int[] picked = new int[3];
+    for (int i = 0; i < 4000; i++) {
+      picked[generator.pick(random).ordinal()]++;
+    }
+    assertTrue(Math.abs(picked[0] - 3000) < 200);
+    assertTrue(Math.abs(picked[1] - 1000) < 200);
+    assertEquals(0, picked[2]);
+  }
+
+  @Test
+  public void testHistogram() {
+    PGLoadGenerator.Histogram histogram = new PGLoadGenerator.Histogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000000L);
+    }
+    assertEquals(100, histogram.count);
+    assertEquals(100000000L, histogram.max);
+    assertTrue(Math.abs(histogram.percentile(0.5) - 50000000L) <= 7500000L);
+    assertTrue(Math.abs(histogram.percentile(0.99) - 99000000L) <= 15000000L);
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    PgWireStub stub = new PgWireStub();
+    try {
+      stub.setRows(10);
+      PGLoadGenerator generator = PGLoadGenerator.parse(new String[]{
+          "--url", stub.getURL(), "--user", "crate", "--threads", "3", "--connections", "2",
+          "--warmup", "0", "--duration", "1", "--rows", "10", "--batch-size", "5",
+          "--variant", "prepareThreshold=1", "--variant", "prepareThreshold=0"});
+      List<PGLoadGenerator.VariantResult> results = generator.run();
+      assertEquals(2, results.size());
+      for (PGLoadGenerator.VariantResult result : results) {
+        for (PGLoadGenerator.Operation operation : PGLoadGenerator.Operation.values()) {
+          PGLoadGenerator.OperationStats stats = result.stats[operation.ordinal()];
+          assertEquals(operation + " errors", 0, stats.errors);
+          assertTrue(operation + " executions", stats.histogram.count > 0);
+        }
+      }
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      generator.print(results, new PrintStream(out, true, "UTF-8"));
+      String report = out.toString("UTF-8");
+      assertTrue(report, report.contains("prepareThreshold=0"));
+      assertTrue(report, report.contains("insert"));
+    } finally {
+      stub.close();
+    }
+  }
+}